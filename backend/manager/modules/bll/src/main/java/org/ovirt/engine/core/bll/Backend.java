@@ -72,7 +72,6 @@ import org.ovirt.engine.core.compat.DateTime;
 import org.ovirt.engine.core.dal.dbbroker.DbConnectionUtil;
 import org.ovirt.engine.core.dal.dbbroker.generic.DBConfigUtils;
 import org.ovirt.engine.core.dal.job.ExecutionMessageDirector;
-import org.ovirt.engine.core.dal.utils.CacheManager;
 import org.ovirt.engine.core.dao.ClusterDao;
 import org.ovirt.engine.core.dao.VdcOptionDao;
 import org.ovirt.engine.core.dao.VdsDao;
@@ -238,8 +237,6 @@ public class Backend implements BackendInternal, BackendCommandObjectsHandler {
         for (SchedulerUtil taskScheduler : taskSchedulers) {
             log.info("Started task scheduler {}", taskScheduler);
         }
-        // initialize CDI services
-        serviceLoader.load(CacheManager.class);
         // initialize configuration utils to use DB
         Config.setConfigUtils(dbConfigUtils);
 
@@ -2,14 +2,18 @@ package org.ovirt.engine.core.bll;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 import javax.inject.Inject;
 
 import org.ovirt.engine.core.bll.context.CommandContext;
+import org.ovirt.engine.core.bll.scheduling.SchedulingManager;
 import org.ovirt.engine.core.common.action.ActionParametersBase;
 import org.ovirt.engine.core.common.action.ActionType;
+import org.ovirt.engine.core.common.businessentities.VM;
 import org.ovirt.engine.core.compat.Guid;
 import org.ovirt.engine.core.dao.VmStaticDao;
 
@@ -18,6 +22,9 @@ public class RunVMActionRunner extends SortedMultipleActionsRunnerBase {
     @Inject
     private VmStaticDao vmStaticDao;
 
+    @Inject
+    private SchedulingManager schedulingManager;
+
     public RunVMActionRunner(ActionType actionType, List<ActionParametersBase> parameters, CommandContext commandContext, boolean isInternal) {
         super(actionType, parameters, commandContext, isInternal);
     }
@@ -44,4 +51,49 @@ public class RunVMActionRunner extends SortedMultipleActionsRunnerBase {
 
     }
 
+    /**
+     * Places the VMs of each cluster in a single scheduling call, so the cluster is locked and its hosts are fetched
+     * once for the whole batch instead of once per VM. Each command then runs its VM on the host it was given.
+     */
+    @Override
+    protected void prepareSortedCommands() {
+        Map<Guid, List<RunVmCommand<?>>> commandsByCluster = new LinkedHashMap<>();
+        for (CommandBase<?> command : getCommands()) {
+            if (!(command instanceof RunVmCommand) || !command.getReturnValue().isValid()) {
+                continue;
+            }
+
+            RunVmCommand<?> runVmCommand = (RunVmCommand<?>) command;
+            if (runVmCommand.canBeScheduledInBatch()) {
+                commandsByCluster.computeIfAbsent(runVmCommand.getVm().getClusterId(), k -> new ArrayList<>())
+                        .add(runVmCommand);
+            }
+        }
+
+        commandsByCluster.values().stream()
+                .filter(commands -> commands.size() > 1)
+                .forEach(this::scheduleInBatch);
+    }
+
+    private void scheduleInBatch(List<RunVmCommand<?>> commands) {
+        List<VM> vms = commands.stream().map(RunVmCommand::getVm).collect(Collectors.toList());
+        Map<Guid, Guid> vmToHostAssignment = schedulingManager.prepareCall(commands.get(0).getCluster())
+                .delay(true)
+                .correlationId(commands.get(0).getCorrelationId())
+                .schedule(vms);
+
+        // VMs that were not placed are scheduled by their commands, which report why
+        commands.forEach(command -> command.setScheduledVdsId(vmToHostAssignment.get(command.getVmId())));
+    }
+
+    @Override
+    protected void executeValidatedCommand(CommandBase<?> command) {
+        try {
+            super.executeValidatedCommand(command);
+        } finally {
+            if (command instanceof RunVmCommand) {
+                ((RunVmCommand<?>) command).releaseUnusedScheduledVds();
+            }
+        }
+    }
 }
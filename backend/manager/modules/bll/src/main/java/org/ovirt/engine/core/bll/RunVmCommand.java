@@ -117,6 +117,8 @@ public class RunVmCommand<T extends RunVmParams> extends RunVmCommandBase<T>
     private boolean needsHostDevices = false;
     private InitializationType initializationType;
     protected VmPayload vmPayload;
+    /** The host the VM was placed on by the batch scheduling of {@link RunVMActionRunner}, until it is used */
+    private Guid scheduledVdsId;
 
     public static final String ISO_PREFIX = "iso://";
     public static final String STATELESS_SNAPSHOT_DESCRIPTION = "stateless snapshot";
@@ -853,13 +855,20 @@ public class RunVmCommand<T extends RunVmParams> extends RunVmCommandBase<T>
     }
 
     protected boolean getVdsToRunOn() {
-        Optional<Guid> vdsToRunOn = schedulingManager.prepareCall(getCluster())
-                .hostBlackList(getRunVdssList())
-                .hostWhiteList(getVdsWhiteList())
-                .destHostIdList(getPredefinedVdsIdListToRunOn())
-                .delay(true)
-                .correlationId(getCorrelationId())
-                .schedule(getVm());
+        Optional<Guid> vdsToRunOn;
+        if (scheduledVdsId != null) {
+            // The pending resources of the VM on the host were already added by the batch scheduling
+            vdsToRunOn = Optional.of(scheduledVdsId);
+            scheduledVdsId = null;
+        } else {
+            vdsToRunOn = schedulingManager.prepareCall(getCluster())
+                    .hostBlackList(getRunVdssList())
+                    .hostWhiteList(getVdsWhiteList())
+                    .destHostIdList(getPredefinedVdsIdListToRunOn())
+                    .delay(true)
+                    .correlationId(getCorrelationId())
+                    .schedule(getVm());
+        }
 
         setVdsId(vdsToRunOn.orElse(null));
         if (vdsToRunOn.isPresent()) {
@@ -891,6 +900,46 @@ public class RunVmCommand<T extends RunVmParams> extends RunVmCommandBase<T>
         return true;
     }
 
+    /**
+     * Stateless VMs, among them the VMs of automatic pools, are not placed in batch: their
+     * {@link RunVmFlow#CREATE_STATELESS_IMAGES} flow only creates the stateless snapshot, and the VM is run by another
+     * execution of the command once the snapshot is created, which may be long after the batch or after a restart of
+     * the engine. The pending resources reserved by the batch are kept in memory, so they would either be held while
+     * the images are created or be lost before the VM is run. These VMs are scheduled on their own when run.
+     *
+     * @return true if the VM is about to be run on a host chosen by the scheduler without any host restrictions of
+     * its own, so it can be placed together with other VMs by {@link RunVMActionRunner}
+     */
+    boolean canBeScheduledInBatch() {
+        return EnumSet.of(RunVmFlow.RUN, RunVmFlow.RESUME_HIBERNATE).contains(getFlow())
+                && getRunVdssList().isEmpty()
+                && getVdsWhiteList().isEmpty()
+                && getPredefinedVdsIdListToRunOn().isEmpty();
+    }
+
+    /**
+     * Sets the host the VM was placed on by the batch scheduling, it is used on the first attempt to run the VM
+     * instead of scheduling the VM on its own.
+     */
+    void setScheduledVdsId(Guid vdsId) {
+        scheduledVdsId = vdsId;
+    }
+
+    /**
+     * Releases the pending resources and the virtual functions reserved by the batch scheduling if the execution did
+     * not get to run the VM on the host it was placed on.
+     */
+    void releaseUnusedScheduledVds() {
+        if (scheduledVdsId == null) {
+            return;
+        }
+
+        Guid vdsId = scheduledVdsId;
+        scheduledVdsId = null;
+        cleanupPassthroughVnics(vdsId);
+        decreasePendingVm(getVm().getStaticData(), vdsId);
+    }
+
     private void warnIfVmNotFitInNumaNode() {
         if (!getVds().isNumaSupport()) {
             return;
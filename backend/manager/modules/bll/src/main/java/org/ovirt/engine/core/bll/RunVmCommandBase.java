@@ -316,7 +316,10 @@ public abstract class RunVmCommandBase<T extends VmOperationParameterBase> exten
     }
 
     protected final void decreasePendingVm(VmStatic vm) {
-        Guid vdsId = getCurrentVdsId();
+        decreasePendingVm(vm, getCurrentVdsId());
+    }
+
+    protected final void decreasePendingVm(VmStatic vm, Guid vdsId) {
         schedulingManager.clearPendingVm(vm);
         if (vdsId != null) {
             getBlockingQueue(vdsId).offer(Boolean.TRUE);
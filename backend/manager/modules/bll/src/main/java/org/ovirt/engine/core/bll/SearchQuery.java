@@ -4,7 +4,6 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -56,7 +55,6 @@ import org.ovirt.engine.core.common.queries.QueryParametersBase;
 import org.ovirt.engine.core.common.queries.QueryType;
 import org.ovirt.engine.core.common.queries.SearchParameters;
 import org.ovirt.engine.core.compat.DateTime;
-import org.ovirt.engine.core.compat.TimeSpan;
 import org.ovirt.engine.core.compat.Version;
 import org.ovirt.engine.core.dao.AuditLogDao;
 import org.ovirt.engine.core.dao.ClusterDao;
@@ -86,9 +84,11 @@ import org.ovirt.engine.core.utils.lock.EngineLock;
 import org.ovirt.engine.core.utils.lock.LockManager;
 
 public class SearchQuery<P extends SearchParameters> extends QueriesCommandBase<P> {
-    private static final Map<String, QueryData> queriesCache = new HashMap<>();
     public static final String LDAP = "LDAP";
 
+    @Inject
+    private SearchQueryCache queriesCache;
+
     @Inject
     private QuotaManager quotaManager;
 
@@ -254,13 +254,7 @@ public class SearchQuery<P extends SearchParameters> extends QueriesCommandBase<
         }
 
         List<VM> vms = vmDao.getAllUsingQuery(data.getQuery());
-        for (VM vm : vms) {
-            vmHandler.updateVmGuestAgentVersion(vm);
-            vmHandler.updateVmLock(vm);
-            vmHandler.updateOperationProgress(vm);
-            vmHandler.updateVmStatistics(vm);
-            vmHandler.updateNextRunChangedFields(vm, getUser(), getParameters().isFiltered());
-        }
+        vmHandler.updateVmsForListing(vms, getUser(), getParameters().isFiltered());
         return vms;
     }
 
@@ -469,8 +463,6 @@ public class SearchQuery<P extends SearchParameters> extends QueriesCommandBase<
     private QueryData initQueryData(boolean useCache) {
         final String ASTR = "*";
         QueryData data = null;
-        boolean isExistsValue = false;
-        boolean IsFromYesterday = false;
         boolean isSafe = false;
         String searchKey = "";
         try {
@@ -484,19 +476,11 @@ public class SearchQuery<P extends SearchParameters> extends QueriesCommandBase<
                 // first lets check the cache of queries.
                 searchKey = String.format("%1$s,%2$s,%3$s", searchText, getParameters().getMaxCount(), getParameters().getCaseSensitive());
                 data = queriesCache.get(searchKey);
-                isExistsValue = data != null;
-
-                if (isExistsValue) {
-                    TimeSpan span = DateTime.getNow().subtract(new Date(data.getDate()));
-                    if (span.Days >= 1) {
-                        IsFromYesterday = true;
-                    }
-                }
             }
             // query not in cache or the cached entry is too old, process the
             // search text.
-            if (!isExistsValue || IsFromYesterday) {
-                log.debug("ResourceManager::searchBusinessObjects(''{}'') - entered", searchText);
+            if (data == null) {
+                log.debug("ResourceManager::searchBusinessObjects(''{}'') - entered, {}", searchText, queriesCache);
                 final char AT='@';
                 String queryAuthz = null;
                 String queryNamespace = null;
@@ -585,7 +569,7 @@ public class SearchQuery<P extends SearchParameters> extends QueriesCommandBase<
                 // statically, therefore , in order to reflect changes in the parent tree
                 // we should not rely on the cached query in such case and have to build the
                 // query from scratch.
-                if (!containsStaticInValues(data.getQuery())) {
+                if (useCache && !containsStaticInValues(data.getQuery())) {
                     queriesCache.put(searchKey, data);
                 }
             }
@@ -0,0 +1,175 @@
+package org.ovirt.engine.core.bll;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Singleton;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.ovirt.engine.core.aaa.QueryData;
+import org.ovirt.engine.core.common.config.Config;
+import org.ovirt.engine.core.common.config.ConfigValues;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Size bounded cache of the queries compiled by {@link SearchQuery}, keyed by the search text and its parameters.
+ * <p>
+ * The least recently used query is evicted when the cache is full, and a query is compiled again once it is older
+ * than the time to live. The cache is shared by all the search queries, so its operations are synchronized; the
+ * lock is only held to look up or add an entry, never while a search text is parsed.
+ * <p>
+ * The size and the time to live are the <code>SearchQueriesCacheSize</code> and
+ * <code>SearchQueriesCacheTimeToLiveInMinutes</code> config values, the statistics of the cache are exposed over JMX.
+ */
+@Singleton
+public class SearchQueryCache implements SearchQueryCacheMXBean {
+
+    private static final Logger log = LoggerFactory.getLogger(SearchQueryCache.class);
+
+    private int maxSize;
+    private long timeToLiveMillis;
+    private LongSupplier clock;
+    private final Map<String, QueryData> queries = new LinkedHashMap<String, QueryData>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, QueryData> eldest) {
+            if (size() > maxSize) {
+                evictions.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+    private ObjectName objectName;
+    private MBeanServer platformMBeanServer;
+
+    SearchQueryCache() {
+    }
+
+    SearchQueryCache(int maxSize, long timeToLiveMillis) {
+        this(maxSize, timeToLiveMillis, System::currentTimeMillis);
+    }
+
+    /**
+     * @param clock
+     *            source of the current time in milliseconds, compared to the {@link QueryData#getDate()} of the
+     *            cached queries
+     */
+    SearchQueryCache(int maxSize, long timeToLiveMillis, LongSupplier clock) {
+        this.maxSize = maxSize;
+        this.timeToLiveMillis = timeToLiveMillis;
+        this.clock = clock;
+    }
+
+    @PostConstruct
+    private void init() {
+        maxSize = Config.<Integer> getValue(ConfigValues.SearchQueriesCacheSize);
+        timeToLiveMillis =
+                TimeUnit.MINUTES.toMillis(Config.<Integer> getValue(ConfigValues.SearchQueriesCacheTimeToLiveInMinutes));
+        clock = System::currentTimeMillis;
+        registerInJMX();
+    }
+
+    private void registerInJMX() {
+        try {
+            objectName = new ObjectName("SearchQueryCache:type=" + this.getClass().getName());
+            platformMBeanServer = ManagementFactory.getPlatformMBeanServer();
+            platformMBeanServer.registerMBean(this, objectName);
+        } catch (Exception e) {
+            log.warn("Problem during registration of the search query cache into JMX: {}", e.getMessage());
+            log.debug("Exception", e);
+        }
+    }
+
+    @PreDestroy
+    private void shutdown() {
+        try {
+            platformMBeanServer.unregisterMBean(objectName);
+        } catch (Exception e) {
+            log.debug("Problem during unregistration of the search query cache from JMX: {}", e);
+        }
+    }
+
+    /**
+     * @return the cached query of the given key, or null if it is missing or expired
+     */
+    QueryData get(String key) {
+        QueryData data;
+        synchronized (queries) {
+            data = queries.get(key);
+            if (data != null && clock.getAsLong() - data.getDate() >= timeToLiveMillis) {
+                queries.remove(key);
+                expirations.incrementAndGet();
+                data = null;
+            }
+        }
+
+        if (data == null) {
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+        return data;
+    }
+
+    void put(String key, QueryData data) {
+        synchronized (queries) {
+            queries.put(key, data);
+        }
+    }
+
+    @Override
+    public int getSize() {
+        synchronized (queries) {
+            return queries.size();
+        }
+    }
+
+    @Override
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    @Override
+    public long getHits() {
+        return hits.get();
+    }
+
+    @Override
+    public long getMisses() {
+        return misses.get();
+    }
+
+    @Override
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    @Override
+    public long getExpirations() {
+        return expirations.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SearchQueryCache{size=%d/%d, hits=%d, misses=%d, evictions=%d, expirations=%d}",
+                getSize(),
+                maxSize,
+                getHits(),
+                getMisses(),
+                getEvictions(),
+                getExpirations());
+    }
+}
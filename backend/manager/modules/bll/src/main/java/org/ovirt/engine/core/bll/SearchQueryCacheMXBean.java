@@ -0,0 +1,37 @@
+package org.ovirt.engine.core.bll;
+
+/**
+ * The following interface is used as interface for JMX bean
+ */
+public interface SearchQueryCacheMXBean {
+
+    /**
+     * The following method will return the number of cached queries
+     */
+    int getSize();
+
+    /**
+     * The following method will return the maximal number of cached queries
+     */
+    int getMaxSize();
+
+    /**
+     * The following method will return the number of searches that used a cached query
+     */
+    long getHits();
+
+    /**
+     * The following method will return the number of searches that compiled their query
+     */
+    long getMisses();
+
+    /**
+     * The following method will return the number of queries removed to keep the size of the cache
+     */
+    long getEvictions();
+
+    /**
+     * The following method will return the number of queries removed because they were older than the time to live
+     */
+    long getExpirations();
+}
@@ -14,9 +14,16 @@ public abstract class SortedMultipleActionsRunnerBase extends PrevalidatingMulti
 
     protected abstract void sortCommands();
 
+    /**
+     * Called after the commands are sorted and before the first of them is executed
+     */
+    protected void prepareSortedCommands() {
+    }
+
     @Override
     protected void runCommands() {
         sortCommands();
+        prepareSortedCommands();
         super.runCommands();
     }
 }
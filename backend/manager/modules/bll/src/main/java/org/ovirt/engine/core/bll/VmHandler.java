@@ -81,6 +81,7 @@ import org.ovirt.engine.core.common.errors.EngineError;
 import org.ovirt.engine.core.common.errors.EngineException;
 import org.ovirt.engine.core.common.errors.EngineMessage;
 import org.ovirt.engine.core.common.interfaces.VDSBrokerFrontend;
+import org.ovirt.engine.core.common.locks.LockInfo;
 import org.ovirt.engine.core.common.locks.LockingGroup;
 import org.ovirt.engine.core.common.osinfo.OsRepository;
 import org.ovirt.engine.core.common.queries.NameQueryParameters;
@@ -575,7 +576,49 @@ public class VmHandler implements BackendService {
     }
 
     public void updateVmLock(final VM vm) {
-        vm.setLockInfo(lockManager.getLockInfo(String.format("%s%s", vm.getId(), LockingGroup.VM.name())));
+        vm.setLockInfo(lockManager.getLockInfo(getVmLockKey(vm)));
+    }
+
+    private static String getVmLockKey(VM vm) {
+        return String.format("%s%s", vm.getId(), LockingGroup.VM.name());
+    }
+
+    /**
+     * Updates the given VMs like {@link #updateVmGuestAgentVersion(VM)}, {@link #updateVmLock(VM)},
+     * {@link #updateOperationProgress(VM)}, {@link #updateVmStatistics(VM)} and
+     * {@link #updateNextRunChangedFields(VM, DbUser, boolean)} do for a single VM, but queries the locks of all the
+     * VMs at once and loads the next run snapshots of all the VMs that have one in a single DB call.
+     */
+    public void updateVmsForListing(final List<VM> vms, DbUser user, boolean isFiltered) {
+        if (vms.isEmpty()) {
+            return;
+        }
+
+        Map<String, LockInfo> lockInfos =
+                lockManager.getLockInfos(vms.stream().map(VmHandler::getVmLockKey).collect(Collectors.toList()));
+        for (VM vm : vms) {
+            updateVmGuestAgentVersion(vm);
+            vm.setLockInfo(lockInfos.get(getVmLockKey(vm)));
+            updateOperationProgress(vm);
+            updateVmStatistics(vm);
+        }
+
+        List<Guid> nextRunVmIds = vms.stream()
+                .filter(VM::isNextRunConfigurationExists)
+                .map(VM::getId)
+                .collect(Collectors.toList());
+        if (nextRunVmIds.isEmpty()) {
+            return;
+        }
+
+        Map<Guid, Snapshot> nextRunSnapshots =
+                snapshotDao.getAllByVmIds(nextRunVmIds, Snapshot.SnapshotType.NEXT_RUN, user.getId(), isFiltered);
+        for (VM vm : vms) {
+            Snapshot snapshot = nextRunSnapshots.get(vm.getId());
+            if (snapshot != null) {
+                updateNextRunChangedFields(vm, getNextRunVmConfiguration(snapshot, true));
+            }
+        }
     }
 
     public void updateOperationProgress(final VM vm) {
@@ -598,19 +641,23 @@ public class VmHandler implements BackendService {
 
     public void updateNextRunChangedFields(final VM currentVM, DbUser user, boolean isFiltered) {
         if (currentVM.isNextRunConfigurationExists()) {
-            VM nextVM = getNextRunVmConfiguration(currentVM.getId(), user.getId(), isFiltered, true);
-            if (nextVM == null) {
-                return;
-            }
-            currentVM.setNextRunChangedFields(
-                getChangedFieldsForStatus(
-                    currentVM.getStaticData(),
-                    nextVM.getStaticData(),
-                    createVmManagementParametersBase(nextVM),
-                    VMStatus.Up));
+            updateNextRunChangedFields(
+                    currentVM, getNextRunVmConfiguration(currentVM.getId(), user.getId(), isFiltered, true));
         }
     }
 
+    private void updateNextRunChangedFields(final VM currentVM, VM nextVM) {
+        if (nextVM == null) {
+            return;
+        }
+        currentVM.setNextRunChangedFields(
+            getChangedFieldsForStatus(
+                currentVM.getStaticData(),
+                nextVM.getStaticData(),
+                createVmManagementParametersBase(nextVM),
+                VMStatus.Up));
+    }
+
     public VmManagementParametersBase createVmManagementParametersBase(VM vm) {
         VmManagementParametersBase params = new VmManagementParametersBase(vm);
         List<VmDevice> devices = new ArrayList<>(vm.getManagedVmDeviceMap().values());
@@ -626,6 +673,10 @@ public class VmHandler implements BackendService {
         if (snapshot == null) {
             return null;
         }
+        return getNextRunVmConfiguration(snapshot, loadAdditionalInformation);
+    }
+
+    private VM getNextRunVmConfiguration(Snapshot snapshot, boolean loadAdditionalInformation) {
         VM nextVM = snapshotVmConfigurationHelper.getVmFromConfiguration(
                 snapshot.getVmConfiguration(), snapshot.getVmId(), snapshot.getId());
         if (nextVM == null) {
@@ -1,18 +1,21 @@
 package org.ovirt.engine.core.bll.aaa;
 
 import java.security.SecureRandom;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
-import java.util.Iterator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
+import java.util.NavigableMap;
+import java.util.Objects;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
 
 import javax.annotation.PostConstruct;
 import javax.enterprise.concurrent.ManagedScheduledExecutorService;
@@ -22,7 +25,6 @@ import javax.inject.Singleton;
 import org.apache.commons.codec.binary.Base64;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.exception.ExceptionUtils;
-import org.apache.commons.lang.time.DateUtils;
 import org.ovirt.engine.api.extensions.aaa.Acct;
 import org.ovirt.engine.core.aaa.AcctUtils;
 import org.ovirt.engine.core.aaa.AuthenticationProfile;
@@ -49,14 +51,173 @@ public class SessionDataContainer {
     @ThreadPools(ThreadPools.ThreadPoolType.EngineScheduledThreadPool)
     private ManagedScheduledExecutorService scheduledExecutorService;
 
-    private static class SessionInfo {
-        private ConcurrentMap<String, Object> contentOfSession = new ConcurrentHashMap<>();
+    /**
+     * The data of a session, the well known data is kept in fields and any other data in a map that is only created
+     * when such data is set.
+     */
+    private static final class SessionInfo {
+        private final String engineSessionId;
+        private volatile DbUser user;
+        private volatile String sourceIp;
+        private volatile AuthenticationProfile profile;
+        private volatile long hardLimit = NO_TIME;
+        private volatile long softLimit = NO_TIME;
+        private volatile Long engineSessionSeqId;
+        private volatile String principalName;
+        private volatile String ssoAccessToken;
+        private volatile Boolean ssoIsOvirtAppApiScope;
+        private volatile Boolean sessionValid;
+        private volatile int softLimitInterval;
+        private volatile long sessionStartTime = NO_TIME;
+        private volatile long sessionLastActiveTime = NO_TIME;
+        private volatile ConcurrentMap<String, Object> otherData;
+        /**
+         * The expiry bucket the session is indexed in, written while holding the lock of the expiry index and read
+         * without it to find out whether the session has to be moved.
+         */
+        private volatile long expiryBucket = NOT_INDEXED;
+
+        private SessionInfo(String engineSessionId) {
+            this.engineSessionId = engineSessionId;
+        }
+
+        private Object get(String key) {
+            switch (key) {
+            case USER_PARAMETER_NAME:
+                return user;
+            case SOURCE_IP:
+                return sourceIp;
+            case PROFILE_PARAMETER_NAME:
+                return profile;
+            case HARD_LIMIT_PARAMETER_NAME:
+                return toDate(hardLimit);
+            case SOFT_LIMIT_PARAMETER_NAME:
+                return toDate(softLimit);
+            case ENGINE_SESSION_SEQ_ID:
+                return engineSessionSeqId;
+            case ENGINE_SESSION_ID:
+                return engineSessionId;
+            case PRINCIPAL_PARAMETER_NAME:
+                return principalName;
+            case SSO_ACCESS_TOKEN_PARAMETER_NAME:
+                return ssoAccessToken;
+            case SSO_IS_OVIRT_APP_API_SCOPE_PARAMETER_NAME:
+                return ssoIsOvirtAppApiScope;
+            case SESSION_VALID_PARAMETER_NAME:
+                return sessionValid;
+            case SOFT_LIMIT_INTERVAL_PARAMETER_NAME:
+                return softLimitInterval;
+            case SESSION_START_TIME:
+                return toDate(sessionStartTime);
+            case SESSION_LAST_ACTIVE_TIME:
+                return toDate(sessionLastActiveTime);
+            default:
+                ConcurrentMap<String, Object> data = otherData;
+                return data == null ? null : data.get(key);
+            }
+        }
+
+        /**
+         * Sets the data of the given key and returns the previous data of the key.
+         */
+        private Object put(String key, Object value) {
+            Object oldValue = get(key);
+            switch (key) {
+            case USER_PARAMETER_NAME:
+                user = (DbUser) value;
+                break;
+            case SOURCE_IP:
+                sourceIp = (String) value;
+                break;
+            case PROFILE_PARAMETER_NAME:
+                profile = (AuthenticationProfile) value;
+                break;
+            case HARD_LIMIT_PARAMETER_NAME:
+                hardLimit = toTime((Date) value);
+                break;
+            case SOFT_LIMIT_PARAMETER_NAME:
+                softLimit = toTime((Date) value);
+                break;
+            case ENGINE_SESSION_SEQ_ID:
+                engineSessionSeqId = (Long) value;
+                break;
+            case ENGINE_SESSION_ID:
+                break;
+            case PRINCIPAL_PARAMETER_NAME:
+                principalName = (String) value;
+                break;
+            case SSO_ACCESS_TOKEN_PARAMETER_NAME:
+                ssoAccessToken = (String) value;
+                break;
+            case SSO_IS_OVIRT_APP_API_SCOPE_PARAMETER_NAME:
+                ssoIsOvirtAppApiScope = (Boolean) value;
+                break;
+            case SESSION_VALID_PARAMETER_NAME:
+                sessionValid = (Boolean) value;
+                break;
+            case SOFT_LIMIT_INTERVAL_PARAMETER_NAME:
+                softLimitInterval = (Integer) value;
+                break;
+            case SESSION_START_TIME:
+                sessionStartTime = toTime((Date) value);
+                break;
+            case SESSION_LAST_ACTIVE_TIME:
+                sessionLastActiveTime = toTime((Date) value);
+                break;
+            default:
+                getOtherData().put(key, value);
+                break;
+            }
+            return oldValue;
+        }
+
+        private synchronized ConcurrentMap<String, Object> getOtherData() {
+            if (otherData == null) {
+                otherData = new ConcurrentHashMap<>(4);
+            }
+            return otherData;
+        }
+
+        /**
+         * Returns the time the session expires at, or {@link #NO_TIME} if the session has no limits.
+         */
+        private long getExpiryTime() {
+            if (Boolean.FALSE.equals(sessionValid)) {
+                return 0;
+            }
+            long hard = hardLimit;
+            long soft = softLimit;
+            if (hard == NO_TIME) {
+                return soft;
+            }
+            return soft == NO_TIME ? hard : Math.min(hard, soft);
+        }
 
+        private static Date toDate(long time) {
+            return time == NO_TIME ? null : new Date(time);
+        }
+
+        private static long toTime(Date date) {
+            return date == null ? NO_TIME : date.getTime();
+        }
     }
 
     protected Logger log = LoggerFactory.getLogger(getClass());
 
-    private ConcurrentMap<String, SessionInfo> sessionInfoMap = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, SessionInfo> sessionInfoMap = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, String> sessionIdsBySeqId = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Set<String>> sessionIdsBySsoToken = new ConcurrentHashMap<>();
+    /**
+     * The sessions that have limits by the minute they expire in, so the cleanup only visits the sessions of the
+     * minutes that passed. A session is moved to an earlier minute when its expiry is brought forward, when its
+     * expiry is pushed back, as on every refresh of the soft limit, it stays in its minute and is moved to its new
+     * minute by the cleanup.
+     */
+    private final NavigableMap<Long, Set<SessionInfo>> expiryIndex = new TreeMap<>();
+
+    private static final long NO_TIME = Long.MAX_VALUE;
+    private static final long NOT_INDEXED = Long.MAX_VALUE;
+    private static final long EXPIRY_BUCKET_MILLIS = TimeUnit.MINUTES.toMillis(1);
 
     private static final String USER_PARAMETER_NAME = "user";
     private static final String SOURCE_IP = "source_ip";
@@ -116,7 +277,7 @@ public class SessionDataContainer {
                 refresh(sessionInfo);
 
             }
-            value = sessionInfo.contentOfSession.get(key);
+            value = sessionInfo.get(key);
         }
         return value;
     }
@@ -124,17 +285,111 @@ public class SessionDataContainer {
     public final void setData(String sessionId, String key, Object value) {
         SessionInfo sessionInfo = getSessionInfo(sessionId);
         if (sessionInfo == null) {
-            sessionInfo = new SessionInfo();
-            sessionInfo.contentOfSession.put(ENGINE_SESSION_ID, sessionId);
+            sessionInfo = new SessionInfo(sessionId);
             // Add default soft-limit interval for new sessions
-            sessionInfo.contentOfSession.put(SOFT_LIMIT_INTERVAL_PARAMETER_NAME,
-                    Config.<Integer> getValue(ConfigValues.UserSessionTimeOutInterval));
+            sessionInfo.softLimitInterval = Config.<Integer> getValue(ConfigValues.UserSessionTimeOutInterval);
             SessionInfo oldSessionInfo = sessionInfoMap.putIfAbsent(sessionId, sessionInfo);
             if (oldSessionInfo != null) {
                 sessionInfo = oldSessionInfo;
             }
         }
-        sessionInfo.contentOfSession.put(key, value);
+        Object oldValue = sessionInfo.put(key, value);
+        switch (key) {
+        case ENGINE_SESSION_SEQ_ID:
+            if (oldValue != null) {
+                sessionIdsBySeqId.remove(oldValue, sessionId);
+            }
+            if (value != null) {
+                sessionIdsBySeqId.put((Long) value, sessionId);
+            }
+            break;
+        case SSO_ACCESS_TOKEN_PARAMETER_NAME:
+            indexSsoAccessToken(sessionId, (String) oldValue, (String) value);
+            break;
+        case HARD_LIMIT_PARAMETER_NAME:
+        case SOFT_LIMIT_PARAMETER_NAME:
+        case SESSION_VALID_PARAMETER_NAME:
+            scheduleExpiry(sessionInfo);
+            break;
+        default:
+            break;
+        }
+    }
+
+    private void indexSsoAccessToken(String sessionId, String oldToken, String newToken) {
+        if (Objects.equals(oldToken, newToken)) {
+            return;
+        }
+        if (oldToken != null) {
+            sessionIdsBySsoToken.computeIfPresent(oldToken, (token, sessionIds) -> {
+                Set<String> remainingSessionIds = new HashSet<>(sessionIds);
+                remainingSessionIds.remove(sessionId);
+                return remainingSessionIds.isEmpty() ? null : remainingSessionIds;
+            });
+        }
+        if (newToken != null) {
+            // a token almost always belongs to a single session, so the sets are copied on write
+            sessionIdsBySsoToken.merge(newToken, Collections.singleton(sessionId), (sessionIds, newSessionIds) -> {
+                Set<String> allSessionIds = new HashSet<>(sessionIds);
+                allSessionIds.addAll(newSessionIds);
+                return allSessionIds;
+            });
+        }
+    }
+
+    /**
+     * Indexes the session by the minute it expires in, if the session is not indexed in an earlier minute already.
+     * Refreshing the soft limit only pushes the expiry back, so the lock of the index is taken only when the session
+     * isn't indexed or its expiry is brought forward. A session that is taken out of the index by the cleanup while
+     * its expiry is pushed back is indexed again by the cleanup.
+     */
+    private void scheduleExpiry(SessionInfo sessionInfo) {
+        long expiryTime = sessionInfo.getExpiryTime();
+        if (expiryTime == NO_TIME) {
+            return;
+        }
+        long bucket = expiryTime / EXPIRY_BUCKET_MILLIS;
+        if (bucket >= sessionInfo.expiryBucket) {
+            return;
+        }
+        synchronized (expiryIndex) {
+            if (bucket >= sessionInfo.expiryBucket) {
+                return;
+            }
+            unscheduleExpiry(sessionInfo);
+            expiryIndex.computeIfAbsent(bucket, k -> new HashSet<>()).add(sessionInfo);
+            sessionInfo.expiryBucket = bucket;
+        }
+    }
+
+    private void unscheduleExpiry(SessionInfo sessionInfo) {
+        synchronized (expiryIndex) {
+            if (sessionInfo.expiryBucket == NOT_INDEXED) {
+                return;
+            }
+            Set<SessionInfo> sessions = expiryIndex.get(sessionInfo.expiryBucket);
+            if (sessions != null && sessions.remove(sessionInfo) && sessions.isEmpty()) {
+                expiryIndex.remove(sessionInfo.expiryBucket);
+            }
+            sessionInfo.expiryBucket = NOT_INDEXED;
+        }
+    }
+
+    /**
+     * Removes and returns the sessions indexed in the minutes up to the given time.
+     */
+    private List<SessionInfo> pollExpirySchedule(long time) {
+        List<SessionInfo> sessions = new ArrayList<>();
+        long bucket = time / EXPIRY_BUCKET_MILLIS;
+        synchronized (expiryIndex) {
+            while (!expiryIndex.isEmpty() && expiryIndex.firstKey() <= bucket) {
+                for (SessionInfo sessionInfo : expiryIndex.pollFirstEntry().getValue()) {
+                    sessionInfo.expiryBucket = NOT_INDEXED;
+                    sessions.add(sessionInfo);
+                }
+            }
+        }
+        return sessions;
     }
 
     private SessionInfo getSessionInfo(String sessionId) {
@@ -144,58 +399,52 @@ public class SessionDataContainer {
     private void persistEngineSession(String sessionId) {
         SessionInfo sessionInfo = getSessionInfo(sessionId);
         if (sessionInfo != null) {
-            sessionInfo.contentOfSession.put(ENGINE_SESSION_SEQ_ID,
+            setData(sessionId, ENGINE_SESSION_SEQ_ID,
                     engineSessionDao.save(new EngineSession(getUser(sessionId, false), sessionId, getSourceIp(sessionId))));
             setSessionStartTime(sessionId);
         }
     }
 
     public long getEngineSessionSeqId(String sessionId) {
-        if (!sessionInfoMap.containsKey(sessionId)) {
+        SessionInfo sessionInfo = getSessionInfo(sessionId);
+        if (sessionInfo == null) {
             throw new RuntimeException("Session not found for sessionId " + sessionId);
         }
-        return (Long) sessionInfoMap.get(sessionId).contentOfSession.get(ENGINE_SESSION_SEQ_ID);
+        return sessionInfo.engineSessionSeqId;
     }
 
     public String getSessionIdBySeqId(long sessionSequenceId) {
-        String sessionId = null;
-        for (SessionInfo sessionInfo : sessionInfoMap.values()) {
-            if (Long.valueOf(sessionSequenceId).equals(sessionInfo.contentOfSession.get(ENGINE_SESSION_SEQ_ID))) {
-                sessionId = (String) sessionInfo.contentOfSession.get(ENGINE_SESSION_ID);
-                break;
-            }
-        }
-        return sessionId;
+        String sessionId = sessionIdsBySeqId.get(sessionSequenceId);
+        return isSessionExists(sessionId) ? sessionId : null;
     }
 
     public String getSessionIdBySsoAccessToken(String ssoToken) {
         String sessionId = null;
         if (StringUtils.isNotEmpty(ssoToken)) {
-            for (SessionInfo sessionInfo : sessionInfoMap.values()) {
-                if (ssoToken.equals(sessionInfo.contentOfSession.get(SSO_ACCESS_TOKEN_PARAMETER_NAME))) {
-                    sessionId = (String) sessionInfo.contentOfSession.get(ENGINE_SESSION_ID);
-                    break;
-                }
-            }
+            sessionId = getSessionIdsBySsoAccessToken(ssoToken).stream()
+                    .filter(this::isSessionExists)
+                    .findFirst()
+                    .orElse(null);
         }
         return sessionId;
     }
 
+    private Set<String> getSessionIdsBySsoAccessToken(String ssoToken) {
+        return sessionIdsBySsoToken.getOrDefault(ssoToken, Collections.emptySet());
+    }
+
     public void cleanupEngineSessionsOnStartup() {
         engineSessionDao.removeAll();
     }
 
     public void cleanupEngineSessionsForSsoAccessToken(String ssoAccessToken) {
         if (StringUtils.isNotEmpty(ssoAccessToken)) {
-            Iterator<Entry<String, SessionInfo>> iter = sessionInfoMap.entrySet().iterator();
-            while (iter.hasNext()) {
-                Entry<String, SessionInfo> entry = iter.next();
-                ConcurrentMap<String, Object> sessionMap = entry.getValue().contentOfSession;
-                if (ssoAccessToken.equals(sessionMap.get(SSO_ACCESS_TOKEN_PARAMETER_NAME))) {
-                    removeSessionImpl(entry.getKey(),
+            for (String sessionId : getSessionIdsBySsoAccessToken(ssoAccessToken)) {
+                if (isSessionExists(sessionId)) {
+                    removeSessionImpl(sessionId,
                             Acct.ReportReason.PRINCIPAL_SESSION_EXPIRED,
                             "Session has expired for principal %1$s",
-                            getUserName(entry.getKey()));
+                            getUserName(sessionId));
                 }
             }
         }
@@ -227,41 +476,81 @@ public class SessionDataContainer {
     }
 
     public final void cleanExpiredUsersSessionsImpl() {
-        Date now = new Date();
-        Iterator<Entry<String, SessionInfo>>  iter = sessionInfoMap.entrySet().iterator();
-        Set<String> tokens = sessionInfoMap.values().stream()
-                .map(sessionInfo -> (String) sessionInfo.contentOfSession.get(SSO_ACCESS_TOKEN_PARAMETER_NAME))
-                .collect(Collectors.toSet());
+        long now = System.currentTimeMillis();
+        Set<String> tokens = new HashSet<>(sessionIdsBySsoToken.keySet());
         // retrieve session statues from SSO
         Map<String, Boolean> sessionStatuses = ssoSessionValidator.getSessionStatuses(tokens);
 
-        while (iter.hasNext()) {
-            Entry<String, SessionInfo> entry = iter.next();
-            ConcurrentMap<String, Object> sessionMap = entry.getValue().contentOfSession;
-            Date hardLimit = (Date) sessionMap.get(HARD_LIMIT_PARAMETER_NAME);
-            Date softLimit = (Date) sessionMap.get(SOFT_LIMIT_PARAMETER_NAME);
-            String token = (String) sessionMap.get(SSO_ACCESS_TOKEN_PARAMETER_NAME);
-            // if the session was created after the tokens statuses were retrieved from the server, the token will not
-            // have a session status in the sessionStatuses map. The session for the token will be checked and cleaned
-            // in the next iteration.
-            if (!sessionStatuses.containsKey(token)) {
-                continue;
+        // only the sessions whose limits passed and the sessions of tokens that are no longer valid are checked
+        Set<SessionInfo> candidates = new LinkedHashSet<>(pollExpirySchedule(now));
+        sessionStatuses.forEach((token, valid) -> {
+            if (StringUtils.isEmpty(token) || !Boolean.TRUE.equals(valid)) {
+                getSessionIdsBySsoAccessToken(token).stream()
+                        .map(this::getSessionInfo)
+                        .filter(Objects::nonNull)
+                        .forEach(candidates::add);
             }
-            boolean sessionValid = StringUtils.isEmpty(token) ? false : sessionStatuses.get(token);
-            if (((hardLimit != null && hardLimit.before(now)) || (softLimit != null && softLimit.before(now))) ||
-                    !(boolean) sessionMap.get(SESSION_VALID_PARAMETER_NAME) ||
-                    !sessionValid) {
-                removeSessionImpl(entry.getKey(),
-                        Acct.ReportReason.PRINCIPAL_SESSION_EXPIRED,
-                        "Session has expired for principal %1$s",
-                        getUserName(entry.getKey()));
-                if (sessionValid) {
-                   SsoOAuthServiceUtils.revoke((String) sessionMap.get(SSO_ACCESS_TOKEN_PARAMETER_NAME), "");
+        });
+
+        List<Long> removedSeqIds = new ArrayList<>();
+        try {
+            for (SessionInfo sessionInfo : candidates) {
+                if (getSessionInfo(sessionInfo.engineSessionId) != sessionInfo) {
+                    continue;
                 }
+                try {
+                    Long seqId = cleanExpiredUserSession(sessionInfo, sessionStatuses, now);
+                    if (seqId != null) {
+                        removedSeqIds.add(seqId);
+                    }
+                } catch (RuntimeException e) {
+                    // the session was taken out of the expiry index, so it has to be checked again
+                    scheduleExpiry(sessionInfo);
+                    log.error("Exception cleaning session '{}': {}",
+                            sessionInfo.engineSessionId,
+                            ExceptionUtils.getRootCauseMessage(e));
+                    log.debug("Exception", e);
+                }
+            }
+        } finally {
+            if (!removedSeqIds.isEmpty()) {
+                engineSessionDao.remove(removedSeqIds);
             }
         }
     }
 
+    /**
+     * Removes the session if it expired, otherwise indexes it by its current expiry.
+     *
+     * @return the sequence id of the removed session, or {@code null} if the session wasn't removed
+     */
+    private Long cleanExpiredUserSession(SessionInfo sessionInfo, Map<String, Boolean> sessionStatuses, long now) {
+        String token = sessionInfo.ssoAccessToken;
+        // if the session was created after the tokens statuses were retrieved from the server, the token will not
+        // have a session status in the sessionStatuses map. The session for the token will be checked and cleaned
+        // in the next iteration.
+        if (!sessionStatuses.containsKey(token)) {
+            scheduleExpiry(sessionInfo);
+            return null;
+        }
+        boolean sessionValid = StringUtils.isEmpty(token) ? false : sessionStatuses.get(token);
+        if (sessionInfo.getExpiryTime() >= now && sessionValid) {
+            scheduleExpiry(sessionInfo);
+            return null;
+        }
+
+        Long seqId = evictSession(sessionInfo.engineSessionId,
+                Acct.ReportReason.PRINCIPAL_SESSION_EXPIRED,
+                "Session has expired for principal %1$s",
+                getUserName(sessionInfo.engineSessionId));
+        if (seqId == null) {
+            scheduleExpiry(sessionInfo);
+        } else if (sessionValid) {
+            SsoOAuthServiceUtils.revoke(token, "");
+        }
+        return seqId;
+    }
+
     /**
      * Sets the user for the given session Id
      * @param sessionId The session to set
@@ -323,10 +612,10 @@ public class SessionDataContainer {
     }
 
     public long getNumUserSessions(DbUser user) {
-        return sessionInfoMap.keySet()
+        return sessionInfoMap.values()
                 .stream()
-                .filter(sessionId -> getUser(sessionId, false).getId().equals(user.getId()))
-                .filter(sessionId -> getSessionValid(sessionId, false))
+                .filter(sessionInfo -> sessionInfo.user.getId().equals(user.getId()))
+                .filter(sessionInfo -> Boolean.TRUE.equals(sessionInfo.sessionValid))
                 .count();
     }
 
@@ -415,10 +704,10 @@ public class SessionDataContainer {
     }
 
     private void refresh(SessionInfo sessionInfo) {
-        int softLimitValue = (Integer) sessionInfo.contentOfSession.get(SOFT_LIMIT_INTERVAL_PARAMETER_NAME);
+        int softLimitValue = sessionInfo.softLimitInterval;
         if (softLimitValue > 0) {
-            sessionInfo.contentOfSession.put(SOFT_LIMIT_PARAMETER_NAME,
-                    DateUtils.addMinutes(new Date(), softLimitValue));
+            sessionInfo.softLimit = System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(softLimitValue);
+            scheduleExpiry(sessionInfo);
         }
     }
 
@@ -427,14 +716,27 @@ public class SessionDataContainer {
     }
 
     private void removeSessionImpl(String sessionId, int reason, String message, Object... msgArgs) {
+        Long seqId = evictSession(sessionId, reason, message, msgArgs);
+        if (seqId != null) {
+            engineSessionDao.remove(seqId);
+        }
+    }
+
+    /**
+     * Removes the session from the container, leaving the removal of the persisted session to the caller.
+     *
+     * @return the sequence id of the removed session, or {@code null} if the session wasn't removed
+     */
+    private Long evictSession(String sessionId, int reason, String message, Object... msgArgs) {
+        long seqId = getEngineSessionSeqId(sessionId);
 
         // Only remove session if there are no running commands for this session
-        if (ssoSessionUtils.isSessionInUse(getEngineSessionSeqId(sessionId))) {
+        if (ssoSessionUtils.isSessionInUse(seqId)) {
             DbUser dbUser = getUser(sessionId, false);
             log.info("Not removing session '{}', session has running commands{}",
                     sessionId,
                     dbUser == null ? "." : String.format(" for user '%s@%s'.", dbUser.getLoginName(), dbUser.getDomain()));
-            return;
+            return null;
         }
 
         /*
@@ -451,8 +753,13 @@ public class SessionDataContainer {
                 message,
                 msgArgs
                 );
-        engineSessionDao.remove(getEngineSessionSeqId(sessionId));
-        sessionInfoMap.remove(sessionId);
+        SessionInfo sessionInfo = sessionInfoMap.remove(sessionId);
+        if (sessionInfo != null) {
+            sessionIdsBySeqId.remove(seqId, sessionId);
+            indexSsoAccessToken(sessionId, sessionInfo.ssoAccessToken, null);
+            unscheduleExpiry(sessionInfo);
+        }
+        return seqId;
     }
 
     class SsoSessionValidator {
@@ -1,18 +1,32 @@
 package org.ovirt.engine.core.bll.gluster;
 
+import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Set;
-
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.concurrent.ManagedExecutorService;
 import javax.inject.Inject;
 import javax.inject.Singleton;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang.StringUtils;
@@ -39,6 +53,7 @@ import org.ovirt.engine.core.common.businessentities.gluster.GlusterStatus;
 import org.ovirt.engine.core.common.businessentities.gluster.GlusterVolumeAdvancedDetails;
 import org.ovirt.engine.core.common.businessentities.gluster.GlusterVolumeEntity;
 import org.ovirt.engine.core.common.businessentities.gluster.GlusterVolumeOptionEntity;
+import org.ovirt.engine.core.common.businessentities.gluster.GlusterVolumeSizeInfo;
 import org.ovirt.engine.core.common.businessentities.gluster.PeerStatus;
 import org.ovirt.engine.core.common.businessentities.gluster.TransportType;
 import org.ovirt.engine.core.common.businessentities.network.Network;
@@ -62,6 +77,7 @@ import org.ovirt.engine.core.dal.dbbroker.auditloghandling.AuditLogDirector;
 import org.ovirt.engine.core.dal.dbbroker.auditloghandling.AuditLogable;
 import org.ovirt.engine.core.dao.gluster.GlusterDBUtils;
 import org.ovirt.engine.core.utils.lock.EngineLock;
+import org.ovirt.engine.core.utils.threadpool.ThreadPools;
 import org.ovirt.engine.core.utils.timer.OnTimerMethodAnnotation;
 import org.ovirt.engine.core.utils.transaction.TransactionSupport;
 import org.slf4j.Logger;
@@ -70,10 +86,12 @@ import org.slf4j.LoggerFactory;
 /**
  * This class is responsible for keeping the Gluster related data of engine in sync with the actual data retrieved from
  * GlusterFS. This helps to make sure that any changes done on Gluster servers using the Gluster CLI are propagated to
- * engine as well.
+ * engine as well. The clusters are refreshed in parallel, each in its own task of the gluster sync thread pool, and the
+ * changes found by the refresh of a cluster are written to the database at once, or per volume by the heavyweight
+ * refresh, which writes the changes of a volume before it releases the lock of the cluster.
  */
 @Singleton
-public class GlusterSyncJob extends GlusterJob {
+public class GlusterSyncJob extends GlusterJob implements GlusterSyncJobMXBean {
     private static final Logger log = LoggerFactory.getLogger(GlusterSyncJob.class);
 
     @Inject
@@ -86,6 +104,57 @@ public class GlusterSyncJob extends GlusterJob {
     private AlertDirector alertDirector;
     @Inject
     private GlusterThinDeviceService thinDeviceService;
+    @Inject
+    @ThreadPools(ThreadPools.ThreadPoolType.GlusterSync)
+    private ManagedExecutorService executor;
+
+    private final Map<RefreshType, Set<Guid>> runningRefreshes = new EnumMap<>(RefreshType.class);
+    private final Map<RefreshType, Map<String, Long>> refreshDurations = new EnumMap<>(RefreshType.class);
+    private ObjectName objectName;
+    private MBeanServer platformMBeanServer;
+
+    public GlusterSyncJob() {
+        for (RefreshType type : RefreshType.values()) {
+            runningRefreshes.put(type, ConcurrentHashMap.newKeySet());
+            refreshDurations.put(type, new ConcurrentHashMap<>());
+        }
+    }
+
+    @PostConstruct
+    private void init() {
+        try {
+            objectName = new ObjectName("GlusterSyncJob:type=" + this.getClass().getName());
+            platformMBeanServer = ManagementFactory.getPlatformMBeanServer();
+            platformMBeanServer.registerMBean(this, objectName);
+        } catch (Exception e) {
+            log.warn("Problem during registration of the gluster sync job into JMX: {}", e.getMessage());
+            log.debug("Exception", e);
+        }
+    }
+
+    @PreDestroy
+    private void shutdown() {
+        try {
+            platformMBeanServer.unregisterMBean(objectName);
+        } catch (Exception e) {
+            log.debug("Problem during unregistration of the gluster sync job from JMX: {}", e);
+        }
+    }
+
+    @Override
+    public Map<String, Long> getLightWeightRefreshDurations() {
+        return new HashMap<>(refreshDurations.get(RefreshType.LIGHT_WEIGHT));
+    }
+
+    @Override
+    public Map<String, Long> getHeavyWeightRefreshDurations() {
+        return new HashMap<>(refreshDurations.get(RefreshType.HEAVY_WEIGHT));
+    }
+
+    @Override
+    public Map<String, Long> getSelfHealRefreshDurations() {
+        return new HashMap<>(refreshDurations.get(RefreshType.SELF_HEAL));
+    }
 
     @Override
     public Collection<GlusterJobSchedulingDetails> getSchedulingDetails() {
@@ -111,23 +180,66 @@ public class GlusterSyncJob extends GlusterJob {
     @OnTimerMethodAnnotation("refreshLightWeightData")
     public void refreshLightWeightData() {
         log.debug("Refreshing Gluster Data [lightweight]");
-        List<Cluster> clusters = clusterDao.getAll();
+        refreshClusters(RefreshType.LIGHT_WEIGHT, this::refreshClusterData);
+    }
 
-        for (Cluster cluster : clusters) {
-            if (cluster.supportsGlusterService()) {
-                try {
-                    refreshClusterData(cluster);
-                } catch (Exception e) {
-                    log.error("Error while refreshing Gluster lightweight data of cluster '{}': {}",
-                            cluster.getName(),
-                            e.getMessage());
-                    log.debug("Exception", e);
-                }
+    /**
+     * Submits the refresh of each cluster supporting the gluster service to the gluster sync thread pool, so a slow
+     * cluster doesn't delay the refresh of the other clusters. A cluster whose previous refresh of the same type is
+     * still running is skipped.
+     */
+    private void refreshClusters(RefreshType type, BiConsumer<Cluster, ClusterRefresh> clusterRefresher) {
+        long deadline =
+                TimeUnit.SECONDS.toNanos(Config.<Integer> getValue(ConfigValues.GlusterClusterRefreshDeadlineInSecs));
+        Set<Guid> runningClusters = runningRefreshes.get(type);
+
+        for (Cluster cluster : clusterDao.getAll()) {
+            if (!cluster.supportsGlusterService()) {
+                continue;
+            }
+            if (!runningClusters.add(cluster.getId())) {
+                log.debug("Previous {} refresh of cluster '{}' is still running, skipping it",
+                        type.getDescription(),
+                        cluster.getName());
+                continue;
+            }
+            try {
+                executor.submit(() -> refreshCluster(type, cluster, deadline, clusterRefresher));
+            } catch (RejectedExecutionException e) {
+                runningClusters.remove(cluster.getId());
+                log.warn("Could not submit the {} refresh of cluster '{}': {}",
+                        type.getDescription(),
+                        cluster.getName(),
+                        e.getMessage());
             }
         }
     }
 
-    private void refreshClusterData(Cluster cluster) {
+    private void refreshCluster(RefreshType type,
+            Cluster cluster,
+            long deadline,
+            BiConsumer<Cluster, ClusterRefresh> clusterRefresher) {
+        long startTime = System.nanoTime();
+        try {
+            clusterRefresher.accept(cluster, new ClusterRefresh(cluster.getName(), deadline));
+        } catch (Exception e) {
+            log.error("Error while refreshing Gluster {} data of cluster '{}': {}",
+                    type.getDescription(),
+                    cluster.getName(),
+                    e.getMessage());
+            log.debug("Exception", e);
+        } finally {
+            long duration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+            refreshDurations.get(type).put(cluster.getName(), duration);
+            runningRefreshes.get(type).remove(cluster.getId());
+            log.debug("Gluster {} data of cluster '{}' refreshed in {} ms",
+                    type.getDescription(),
+                    cluster.getName(),
+                    duration);
+        }
+    }
+
+    private void refreshClusterData(Cluster cluster, ClusterRefresh refresh) {
         log.debug("Refreshing Gluster lightweight Data for cluster '{}'", cluster.getName());
 
         List<VDS> existingServers = vdsDao.getAllForCluster(cluster.getId());
@@ -138,7 +250,7 @@ public class GlusterSyncJob extends GlusterJob {
         }
 
         refreshServerData(cluster, upServer, existingServers);
-        refreshVolumeData(cluster, upServer, existingServers);
+        refreshVolumeData(cluster, upServer, existingServers, refresh);
     }
 
     /**
@@ -446,7 +558,7 @@ public class GlusterSyncJob extends GlusterJob {
         return null;
     }
 
-    private void refreshVolumeData(Cluster cluster, VDS upServer, List<VDS> existingServers) {
+    private void refreshVolumeData(Cluster cluster, VDS upServer, List<VDS> existingServers, ClusterRefresh refresh) {
         acquireLock(cluster.getId());
         try {
             // Pass a copy of the existing servers as the fetchVolumes method can potentially remove elements from it
@@ -461,7 +573,8 @@ public class GlusterSyncJob extends GlusterJob {
             // to handle cases where user deleted a volume and created a
             // new one with same name in a very short time
             removeDeletedVolumes(cluster.getId(), volumesMap);
-            updateExistingAndNewVolumes(cluster.getId(), volumesMap);
+            updateExistingAndNewVolumes(cluster.getId(), volumesMap, refresh);
+            refresh.write();
         } finally {
             releaseLock(cluster.getId());
         }
@@ -523,10 +636,15 @@ public class GlusterSyncJob extends GlusterJob {
         }
     }
 
-    private void updateExistingAndNewVolumes(Guid clusterId, Map<Guid, GlusterVolumeEntity> volumesMap) {
+    private void updateExistingAndNewVolumes(Guid clusterId,
+            Map<Guid, GlusterVolumeEntity> volumesMap,
+            ClusterRefresh refresh) {
         Cluster cluster = clusterDao.get(clusterId);
 
         for (Entry<Guid, GlusterVolumeEntity> entry : volumesMap.entrySet()) {
+            if (refresh.isPastDeadline()) {
+                break;
+            }
             GlusterVolumeEntity volume = entry.getValue();
             log.debug("Analyzing volume '{}'", volume.getName());
 
@@ -545,7 +663,7 @@ public class GlusterSyncJob extends GlusterJob {
                 try {
                     log.debug("Volume '{}' exists in engine. Checking if it needs to be updated.",
                             existingVolume.getName());
-                    updateVolume(existingVolume, volume);
+                    updateVolume(existingVolume, volume, refresh);
                 } catch (Exception e) {
                     log.error("Error while updating volume '{}': {}", volume.getName(), e.getMessage());
                     log.debug("Exception", e);
@@ -615,10 +733,12 @@ public class GlusterSyncJob extends GlusterJob {
         volumeDao.save(volume);
     }
 
-    private void updateVolume(GlusterVolumeEntity existingVolume, GlusterVolumeEntity fetchedVolume) {
+    private void updateVolume(GlusterVolumeEntity existingVolume,
+            GlusterVolumeEntity fetchedVolume,
+            ClusterRefresh refresh) {
         updateVolumeProperties(existingVolume, fetchedVolume);
-        updateBricks(existingVolume, fetchedVolume);
-        updateOptions(existingVolume, fetchedVolume);
+        updateBricks(existingVolume, fetchedVolume, refresh);
+        updateOptions(existingVolume, fetchedVolume, refresh);
         updateTransportTypes(existingVolume, fetchedVolume);
     }
 
@@ -645,7 +765,9 @@ public class GlusterSyncJob extends GlusterJob {
         }
     }
 
-    private void updateBricks(GlusterVolumeEntity existingVolume, GlusterVolumeEntity fetchedVolume) {
+    private void updateBricks(GlusterVolumeEntity existingVolume,
+            GlusterVolumeEntity fetchedVolume,
+            ClusterRefresh refresh) {
         List<GlusterBrickEntity> fetchedBricks = fetchedVolume.getBricks();
         if (fetchedBricks == null) {
             log.warn("Bricks of volume '{}' were not fetched. " +
@@ -654,39 +776,36 @@ public class GlusterSyncJob extends GlusterJob {
             return;
         }
 
-        removeDeletedBricks(existingVolume, fetchedBricks);
-        updateExistingAndNewBricks(existingVolume, fetchedBricks);
+        removeDeletedBricks(existingVolume, fetchedBricks, refresh);
+        updateExistingAndNewBricks(existingVolume, fetchedBricks, refresh);
     }
 
     @SuppressWarnings("serial")
-    private void removeDeletedBricks(GlusterVolumeEntity existingVolume, List<GlusterBrickEntity> fetchedBricks) {
-        List<Guid> idsToRemove = new ArrayList<>();
+    private void removeDeletedBricks(GlusterVolumeEntity existingVolume,
+            List<GlusterBrickEntity> fetchedBricks,
+            ClusterRefresh refresh) {
+        VolumeChanges changes = refresh.of(existingVolume);
         for (final GlusterBrickEntity existingBrick : existingVolume.getBricks()) {
             if (!GlusterCoreUtil.containsBrick(fetchedBricks, existingBrick)) {
-                idsToRemove.add(existingBrick.getId());
+                changes.removedBrickIds.add(existingBrick.getId());
                 log.info("Detected brick '{}' removed from volume '{}'. Removing it from engine DB as well.",
                         existingBrick.getQualifiedName(),
                         existingVolume.getName());
-                logUtil.logAuditMessage(existingVolume.getClusterId(),
+                changes.auditMessages.add(() -> logUtil.logAuditMessage(existingVolume.getClusterId(),
                         existingVolume.getClusterName(),
                         existingVolume,
                         null,
                         AuditLogType.GLUSTER_VOLUME_BRICK_REMOVED_FROM_CLI,
-                        Collections.singletonMap(GlusterConstants.BRICK, existingBrick.getQualifiedName()));
-            }
-        }
-        if (!idsToRemove.isEmpty()) {
-            try {
-                brickDao.removeAll(idsToRemove);
-            } catch (Exception e) {
-                log.error("Error while removing bricks from database: {}", e.getMessage());
-                log.debug("Exception", e);
+                        Collections.singletonMap(GlusterConstants.BRICK, existingBrick.getQualifiedName())));
             }
         }
     }
 
     @SuppressWarnings("serial")
-    private void updateExistingAndNewBricks(GlusterVolumeEntity existingVolume, List<GlusterBrickEntity> fetchedBricks) {
+    private void updateExistingAndNewBricks(GlusterVolumeEntity existingVolume,
+            List<GlusterBrickEntity> fetchedBricks,
+            ClusterRefresh refresh) {
+        VolumeChanges changes = refresh.of(existingVolume);
         for (final GlusterBrickEntity fetchedBrick : fetchedBricks) {
             GlusterBrickEntity existingBrick = GlusterCoreUtil.findBrick(existingVolume.getBricks(), fetchedBrick);
             if (existingBrick == null) {
@@ -697,13 +816,13 @@ public class GlusterSyncJob extends GlusterJob {
                             fetchedBrick.getQualifiedName(),
                             existingVolume.getName());
                     fetchedBrick.setStatus(existingVolume.isOnline() ? GlusterStatus.UP : GlusterStatus.DOWN);
-                    brickDao.save(fetchedBrick);
-                    logUtil.logAuditMessage(existingVolume.getClusterId(),
+                    changes.addedBricks.add(fetchedBrick);
+                    changes.auditMessages.add(() -> logUtil.logAuditMessage(existingVolume.getClusterId(),
                             existingVolume.getClusterName(),
                             existingVolume,
                             null,
                             AuditLogType.GLUSTER_VOLUME_BRICK_ADDED_FROM_CLI,
-                            Collections.singletonMap(GlusterConstants.BRICK, fetchedBrick.getQualifiedName()));
+                            Collections.singletonMap(GlusterConstants.BRICK, fetchedBrick.getQualifiedName())));
                 }
             } else {
                 // brick found. update it if required. Only property that could be different is the brick order
@@ -712,34 +831,37 @@ public class GlusterSyncJob extends GlusterJob {
                             existingBrick.getQualifiedName(),
                             existingBrick.getBrickOrder(),
                             fetchedBrick.getBrickOrder());
-                    brickDao.updateBrickOrder(existingBrick.getId(), fetchedBrick.getBrickOrder());
+                    changes.changedBrickOrders.put(existingBrick.getId(), fetchedBrick.getBrickOrder());
                 }
                 // update network id, if different
                 if (!Objects.equals(existingBrick.getNetworkId(), fetchedBrick.getNetworkId())) {
                     log.info("Network address for brick '{}' detected as  '{}'. Updating engine DB accordingly.",
                             existingBrick.getQualifiedName(),
                             fetchedBrick.getNetworkAddress());
-                    brickDao.updateBrickNetworkId(existingBrick.getId(), fetchedBrick.getNetworkId());
+                    changes.changedBrickNetworkIds.put(existingBrick.getId(), fetchedBrick.getNetworkId());
                 }
             }
         }
     }
 
-    private void updateOptions(GlusterVolumeEntity existingVolume, GlusterVolumeEntity fetchedVolume) {
+    private void updateOptions(GlusterVolumeEntity existingVolume,
+            GlusterVolumeEntity fetchedVolume,
+            ClusterRefresh refresh) {
         Collection<GlusterVolumeOptionEntity> existingOptions = existingVolume.getOptions();
         Collection<GlusterVolumeOptionEntity> fetchedOptions = fetchedVolume.getOptions();
 
-        updateExistingAndNewOptions(existingVolume, fetchedOptions);
-        removeDeletedOptions(fetchedVolume, existingOptions);
+        updateExistingAndNewOptions(existingVolume, fetchedOptions, refresh);
+        removeDeletedOptions(fetchedVolume, existingOptions, refresh);
     }
 
     @SuppressWarnings("serial")
     private void removeDeletedOptions(GlusterVolumeEntity fetchedVolume,
-            Collection<GlusterVolumeOptionEntity> existingOptions) {
-        List<Guid> idsToRemove = new ArrayList<>();
+            Collection<GlusterVolumeOptionEntity> existingOptions,
+            ClusterRefresh refresh) {
+        VolumeChanges changes = refresh.of(fetchedVolume);
         for (final GlusterVolumeOptionEntity existingOption : existingOptions) {
             if (fetchedVolume.getOption(existingOption.getKey()) == null) {
-                idsToRemove.add(existingOption.getId());
+                changes.removedOptionIds.add(existingOption.getId());
                 log.info("Detected option '{}' reset on volume '{}'. Removing it from engine DB as well.",
                         existingOption.getKey(),
                         fetchedVolume.getName());
@@ -749,29 +871,20 @@ public class GlusterSyncJob extends GlusterJob {
                     Map<String, String> customValues = new HashMap<>();
                     customValues.put(GlusterConstants.OPTION_KEY, existingOption.getKey());
                     customValues.put(GlusterConstants.OPTION_VALUE, existingOption.getValue());
-                    logUtil.logAuditMessage(fetchedVolume.getClusterId(),
+                    changes.auditMessages.add(() -> logUtil.logAuditMessage(fetchedVolume.getClusterId(),
                             fetchedVolume.getClusterName(),
                             fetchedVolume,
                             null,
                             AuditLogType.GLUSTER_VOLUME_OPTION_RESET_FROM_CLI,
-                            customValues);
+                            customValues));
                 }
             }
         }
-        if (!idsToRemove.isEmpty()) {
-            try {
-                optionDao.removeAll(idsToRemove);
-            } catch (Exception e) {
-                log.error("Error while removing options of volume '{}' from database: {}",
-                        fetchedVolume.getName(),
-                        e.getMessage());
-                log.debug("Exception", e);
-            }
-        }
     }
 
     private void updateExistingAndNewOptions(final GlusterVolumeEntity existingVolume,
-            Collection<GlusterVolumeOptionEntity> fetchedOptions) {
+            Collection<GlusterVolumeOptionEntity> fetchedOptions,
+            ClusterRefresh refresh) {
 
         Map<String, GlusterVolumeOptionEntity> existingOptions = new HashMap<>();
         Map<String, GlusterVolumeOptionEntity> newOptions = new HashMap<>();
@@ -791,37 +904,25 @@ public class GlusterSyncJob extends GlusterJob {
         Collections.sort(newOptionsSortedList);
         Collections.sort(existingOptionsSortedList);
 
-        // Insert the new options in a single transaction
-        if (!newOptionsSortedList.isEmpty()) {
-            TransactionSupport.executeInScope(TransactionScopeOption.Required,
-                    () -> {
-                        saveNewOptions(existingVolume, newOptionsSortedList);
-                        return null;
-                    });
-        }
-
-        // Update the existing options in a single transaction
-        if (!existingOptionsSortedList.isEmpty()) {
-            TransactionSupport.executeInScope(TransactionScopeOption.Required,
-                    () -> {
-                        updateExistingOptions(existingVolume, existingOptionsSortedList);
-                        return null;
-                    });
-        }
+        saveNewOptions(existingVolume, newOptionsSortedList, refresh);
+        updateExistingOptions(existingVolume, existingOptionsSortedList, refresh);
     }
 
-    private void saveNewOptions(GlusterVolumeEntity volume, Collection<GlusterVolumeOptionEntity> entities) {
-        optionDao.saveAll(entities);
+    private void saveNewOptions(GlusterVolumeEntity volume,
+            Collection<GlusterVolumeOptionEntity> entities,
+            ClusterRefresh refresh) {
+        VolumeChanges changes = refresh.of(volume);
+        changes.addedOptions.addAll(entities);
         for (final GlusterVolumeOptionEntity entity : entities) {
             Map<String, String> customValues = new HashMap<>();
             customValues.put(GlusterConstants.OPTION_KEY, entity.getKey());
             customValues.put(GlusterConstants.OPTION_VALUE, entity.getValue());
-            logUtil.logAuditMessage(volume.getClusterId(),
+            changes.auditMessages.add(() -> logUtil.logAuditMessage(volume.getClusterId(),
                     volume.getClusterName(),
                     volume,
                     null,
                     AuditLogType.GLUSTER_VOLUME_OPTION_SET_FROM_CLI,
-                    customValues);
+                    customValues));
             log.info("New option '{}'='{}' set on volume '{}' from gluster CLI. Updating engine DB accordingly.",
                     entity.getKey(),
                     entity.getValue(),
@@ -829,19 +930,22 @@ public class GlusterSyncJob extends GlusterJob {
         }
     }
 
-    private void updateExistingOptions(final GlusterVolumeEntity volume, Collection<GlusterVolumeOptionEntity> entities) {
-        optionDao.updateAll("UpdateGlusterVolumeOption", entities);
+    private void updateExistingOptions(final GlusterVolumeEntity volume,
+            Collection<GlusterVolumeOptionEntity> entities,
+            ClusterRefresh refresh) {
+        VolumeChanges changes = refresh.of(volume);
+        changes.changedOptions.addAll(entities);
         for (final GlusterVolumeOptionEntity entity : entities) {
             Map<String, String> customValues = new HashMap<>();
             customValues.put(GlusterConstants.OPTION_KEY, entity.getKey());
             customValues.put(GlusterConstants.OPTION_OLD_VALUE, volume.getOption(entity.getKey()).getValue());
             customValues.put(GlusterConstants.OPTION_NEW_VALUE, entity.getValue());
-            logUtil.logAuditMessage(volume.getClusterId(),
+            changes.auditMessages.add(() -> logUtil.logAuditMessage(volume.getClusterId(),
                     volume.getClusterName(),
                     volume,
                     null,
                     AuditLogType.GLUSTER_VOLUME_OPTION_CHANGED_FROM_CLI,
-                    customValues);
+                    customValues));
             log.info("Detected change in value of option '{}' of volume '{}' from '{}' to '{}'. Updating engine DB accordingly.",
                     volume.getOption(entity.getKey()),
                     volume.getName(),
@@ -914,22 +1018,10 @@ public class GlusterSyncJob extends GlusterJob {
     @OnTimerMethodAnnotation("refreshHeavyWeightData")
     public void refreshHeavyWeightData() {
         log.debug("Refreshing Gluster Data [heavyweight]");
-
-        for (Cluster cluster : clusterDao.getAll()) {
-            if (cluster.supportsGlusterService()) {
-                try {
-                    refreshClusterHeavyWeightData(cluster);
-                } catch (Exception e) {
-                    log.error("Error while refreshing Gluster heavyweight data of cluster '{}': {}",
-                            cluster.getName(),
-                            e.getMessage());
-                    log.debug("Exception", e);
-                }
-            }
-        }
+        refreshClusters(RefreshType.HEAVY_WEIGHT, this::refreshClusterHeavyWeightData);
     }
 
-    private void refreshClusterHeavyWeightData(Cluster cluster) {
+    private void refreshClusterHeavyWeightData(Cluster cluster, ClusterRefresh refresh) {
         VDS upServer = glusterUtil.getRandomUpServer(cluster.getId());
         if (upServer == null) {
             log.debug("No server UP in cluster '{}'. Can't refresh it's data at this point.", cluster.getName());
@@ -937,6 +1029,9 @@ public class GlusterSyncJob extends GlusterJob {
         }
 
         for (GlusterVolumeEntity volume : volumeDao.getByClusterId(cluster.getId())) {
+            if (refresh.isPastDeadline()) {
+                break;
+            }
             log.debug("Refreshing brick statuses for volume '{}' of cluster '{}'",
                     volume.getName(),
                     cluster.getName());
@@ -944,7 +1039,9 @@ public class GlusterSyncJob extends GlusterJob {
             if (volume.isOnline()) {
                 acquireLock(cluster.getId());
                 try {
-                    refreshVolumeDetails(upServer, volume);
+                    refreshVolumeDetails(upServer, volume, refresh);
+                    // written before the lock is released, so the bricks can't be changed in between
+                    refresh.write();
                 } catch (Exception e) {
                     log.error("Error while refreshing brick statuses for volume '{}' of cluster '{}': {}",
                             volume.getName(),
@@ -959,7 +1056,15 @@ public class GlusterSyncJob extends GlusterJob {
     }
 
     public void refreshVolumeDetails(VDS upServer, GlusterVolumeEntity volume) {
-        Map<Guid, GlusterLocalVolumeInfo> localVolumeInfo = thinDeviceService.getLocalVolumeInfo(upServer.getClusterId());
+        ClusterRefresh refresh = new ClusterRefresh(volume.getClusterName(), Long.MAX_VALUE);
+        refreshVolumeDetails(upServer, volume, refresh);
+        refresh.write();
+    }
+
+    private void refreshVolumeDetails(VDS upServer, GlusterVolumeEntity volume, ClusterRefresh refresh) {
+        if (refresh.localVolumeInfo == null) {
+            refresh.localVolumeInfo = thinDeviceService.getLocalVolumeInfo(upServer.getClusterId());
+        }
         GlusterVolumeAdvancedDetails volumeAdvancedDetails = getVolumeAdvancedDetails(upServer, volume.getClusterId(), volume.getName());
         if (volumeAdvancedDetails == null) {
             log.error("Error while refreshing brick statuses for volume '{}'. Failed to get volume advanced details ",
@@ -967,62 +1072,53 @@ public class GlusterSyncJob extends GlusterJob {
             return;
         }
 
-        refreshBrickDetails(volume, volumeAdvancedDetails, localVolumeInfo);
+        refreshBrickDetails(volume, volumeAdvancedDetails, refresh);
 
-        refreshVolumeCapacity(volume, volumeAdvancedDetails);
+        refreshVolumeCapacity(volume, volumeAdvancedDetails, refresh);
     }
 
-    private void refreshBrickDetails(GlusterVolumeEntity volume, GlusterVolumeAdvancedDetails volumeAdvancedDetails, Map<Guid, GlusterLocalVolumeInfo> localVolumeInfo) {
-        List<GlusterBrickEntity> bricksToUpdate = new ArrayList<>();
-        List<GlusterBrickEntity> brickPropertiesToUpdate = new ArrayList<>();
-        List<GlusterBrickEntity> brickPropertiesToAdd = new ArrayList<>();
-
+    private void refreshBrickDetails(GlusterVolumeEntity volume,
+            GlusterVolumeAdvancedDetails volumeAdvancedDetails,
+            ClusterRefresh refresh) {
         Map<Guid, BrickProperties> brickPropertiesMap =
                 getBrickPropertiesMap(volumeAdvancedDetails);
+        VolumeChanges changes = refresh.of(volume);
         for (GlusterBrickEntity brick : volume.getBricks()) {
             BrickProperties brickProperties = brickPropertiesMap.get(brick.getId());
             if (brickProperties != null) {
-                brickProperties = thinDeviceService.setConfirmedSize(localVolumeInfo, brick, brickProperties);
+                brickProperties = thinDeviceService.setConfirmedSize(refresh.localVolumeInfo, brick, brickProperties);
                 if (brickProperties.getStatus() != brick.getStatus()) {
-                    logBrickStatusChange(volume, brick, brickProperties.getStatus());
-                    brick.setStatus(brickProperties.getStatus());
-                    bricksToUpdate.add(brick);
+                    GlusterStatus status = brick.getStatus();
+                    GlusterStatus fetchedStatus = brickProperties.getStatus();
+                    changes.auditMessages.add(() -> logBrickStatusChange(volume, brick, status, fetchedStatus));
+                    brick.setStatus(fetchedStatus);
+                    changes.bricksWithChangedStatus.add(brick);
                 }
                 if (brick.getBrickProperties() == null) {
                     BrickDetails brickDetails = new BrickDetails();
                     brickDetails.setBrickProperties(brickProperties);
                     brick.setBrickDetails(brickDetails);
-                    brickPropertiesToAdd.add(brick);
+                    changes.bricksWithAddedProperties.add(brick);
                 } else if (brickProperties.getTotalSize() != brick.getBrickProperties().getTotalSize()
                         || brickProperties.getFreeSize() != brick.getBrickProperties().getFreeSize()) {
                     brick.getBrickDetails().setBrickProperties(brickProperties);
-                    brickPropertiesToUpdate.add(brick);
+                    changes.bricksWithChangedProperties.add(brick);
                 }
             }
         }
-
-        if (!brickPropertiesToAdd.isEmpty()) {
-            brickDao.addBrickProperties(brickPropertiesToAdd);
-        }
-
-        if (!brickPropertiesToUpdate.isEmpty()) {
-            brickDao.updateBrickProperties(brickPropertiesToUpdate);
-        }
-
-        if (!bricksToUpdate.isEmpty()) {
-            brickDao.updateBrickStatuses(bricksToUpdate);
-        }
     }
 
-    private void refreshVolumeCapacity(GlusterVolumeEntity volume, GlusterVolumeAdvancedDetails volumeAdvancedDetails) {
+    private void refreshVolumeCapacity(GlusterVolumeEntity volume,
+            GlusterVolumeAdvancedDetails volumeAdvancedDetails,
+            ClusterRefresh refresh) {
         Long confirmedFreeSize = thinDeviceService.calculateConfirmedVolumeCapacity(volume);
         Integer vdoSavings = thinDeviceService.calculateVolumeSavings(volume);
         if (volume.getAdvancedDetails().getCapacityInfo() == null) {
-            volumeDao.addVolumeCapacityInfo(volumeAdvancedDetails.getCapacityInfo());
+            refresh.of(volume).addedCapacityInfos.add(volumeAdvancedDetails.getCapacityInfo());
         } else {
             volumeAdvancedDetails.getCapacityInfo().setConfirmedFreeSize(confirmedFreeSize);
             volumeAdvancedDetails.getCapacityInfo().setVdoSavings(vdoSavings);
-            volumeDao.updateVolumeCapacityInfo(volumeAdvancedDetails.getCapacityInfo());
+            refresh.of(volume).changedCapacityInfos.add(volumeAdvancedDetails.getCapacityInfo());
         }
         if (confirmedFreeSize != null) {
             List<Guid> sdId = thinDeviceService.getVolumeStorageDomains(volume);
@@ -1032,12 +1128,15 @@ public class GlusterSyncJob extends GlusterJob {
         }
     }
 
-    private void logBrickStatusChange(GlusterVolumeEntity volume, final GlusterBrickEntity brick, final GlusterStatus fetchedStatus) {
+    private void logBrickStatusChange(GlusterVolumeEntity volume,
+            final GlusterBrickEntity brick,
+            final GlusterStatus status,
+            final GlusterStatus fetchedStatus) {
         log.debug("Detected that status of brick '{}' in volume '{}' changed from '{}' to '{}'",
-                brick.getQualifiedName(), volume.getName(), brick.getStatus(), fetchedStatus);
+                brick.getQualifiedName(), volume.getName(), status, fetchedStatus);
         Map<String, String> customValues = new HashMap<>();
         customValues.put(GlusterConstants.BRICK_PATH, brick.getQualifiedName());
-        customValues.put(GlusterConstants.OPTION_OLD_VALUE, brick.getStatus().toString());
+        customValues.put(GlusterConstants.OPTION_OLD_VALUE, status.toString());
         customValues.put(GlusterConstants.OPTION_NEW_VALUE, fetchedStatus.toString());
         customValues.put(GlusterConstants.SOURCE, GlusterConstants.SOURCE_CLI);
         logUtil.logAuditMessage(volume.getClusterId(),
@@ -1100,21 +1199,7 @@ public class GlusterSyncJob extends GlusterJob {
     @OnTimerMethodAnnotation("refreshSelfHealInfo")
     public void refreshSelfHealInfo() {
         log.debug("Refreshing Gluster Self Heal Data");
-
-        for (Cluster cluster : clusterDao.getAll()) {
-            if (cluster.supportsGlusterService()) {
-                try {
-                    refreshSelfHealData(cluster);
-                } catch (Exception e) {
-                    log.error("Error while refreshing Gluster self heal data of cluster '{}': {}",
-                            cluster.getName(),
-                            e.getMessage());
-                    log.debug("Exception", e);
-                }
-            }
-        }
-
-        log.debug("Refreshing Gluster Self Heal data is completed");
+        refreshClusters(RefreshType.SELF_HEAL, this::refreshSelfHealData);
     }
 
     /**
@@ -1122,7 +1207,10 @@ public class GlusterSyncJob extends GlusterJob {
      * directly.
      */
     public void refreshSelfHealData(Cluster cluster) {
+        refreshSelfHealData(cluster, new ClusterRefresh(cluster.getName(), Long.MAX_VALUE));
+    }
 
+    private void refreshSelfHealData(Cluster cluster, ClusterRefresh refresh) {
         VDS upServer = glusterUtil.getRandomUpServer(cluster.getId());
         if (upServer == null) {
             log.debug("No server UP in cluster '{}'. Can't refresh self heal data at this point.", cluster.getName());
@@ -1130,6 +1218,9 @@ public class GlusterSyncJob extends GlusterJob {
         }
 
         for (GlusterVolumeEntity volume : volumeDao.getByClusterId(cluster.getId())) {
+            if (refresh.isPastDeadline()) {
+                break;
+            }
             log.debug("Refreshing self heal status for volume '{}' of cluster '{}'",
                     volume.getName(),
                     cluster.getName());
@@ -1137,7 +1228,7 @@ public class GlusterSyncJob extends GlusterJob {
             // and for replica type volumes
             if (volume.isOnline() && volume.getVolumeType().isReplicatedType()) {
                 try {
-                    refreshSelfHealData(upServer, volume);
+                    refreshSelfHealData(upServer, volume, refresh);
                 } catch (Exception e) {
                     log.error("Error while refreshing brick statuses for volume '{}' of cluster '{}': {}",
                             volume.getName(),
@@ -1147,9 +1238,11 @@ public class GlusterSyncJob extends GlusterJob {
                 }
             }
         }
+
+        refresh.write();
     }
 
-    private void refreshSelfHealData(VDS upServer, GlusterVolumeEntity volume) {
+    private void refreshSelfHealData(VDS upServer, GlusterVolumeEntity volume, ClusterRefresh refresh) {
         Integer usageHistoryLimit = Config.getValue(ConfigValues.GlusterUnSyncedEntriesHistoryLimit);
         Map<Guid, Integer> healInfo = getGlusterVolumeHealInfo(upServer, volume.getName());
         for (GlusterBrickEntity brick : volume.getBricks()) {
@@ -1158,7 +1251,7 @@ public class GlusterSyncJob extends GlusterJob {
                     addToHistory(brick.getUnSyncedEntriesTrend(), healInfo.get(brick.getId()), usageHistoryLimit));
         }
 
-        brickDao.updateUnSyncedEntries(volume.getBricks());
+        refresh.of(volume).bricksWithUnSyncedEntries.addAll(volume.getBricks());
     }
 
     private List<Integer> addToHistory(List<Integer> current, Integer newValue, int limit) {
@@ -1194,4 +1287,171 @@ public class GlusterSyncJob extends GlusterJob {
             return Collections.emptyMap();
         }
     }
+
+    private enum RefreshType {
+        LIGHT_WEIGHT("lightweight"),
+        HEAVY_WEIGHT("heavyweight"),
+        SELF_HEAL("self heal");
+
+        private final String description;
+
+        RefreshType(String description) {
+            this.description = description;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+    }
+
+    /**
+     * The changes of a volume found by a refresh, and the audit messages to log once they are written.
+     */
+    private static class VolumeChanges {
+        private final String volumeName;
+        private final List<Guid> removedBrickIds = new ArrayList<>();
+        private final List<GlusterBrickEntity> addedBricks = new ArrayList<>();
+        private final Map<Guid, Integer> changedBrickOrders = new LinkedHashMap<>();
+        private final Map<Guid, Guid> changedBrickNetworkIds = new LinkedHashMap<>();
+        private final List<GlusterVolumeOptionEntity> addedOptions = new ArrayList<>();
+        private final List<GlusterVolumeOptionEntity> changedOptions = new ArrayList<>();
+        private final List<Guid> removedOptionIds = new ArrayList<>();
+        private final List<GlusterBrickEntity> bricksWithAddedProperties = new ArrayList<>();
+        private final List<GlusterBrickEntity> bricksWithChangedProperties = new ArrayList<>();
+        private final List<GlusterBrickEntity> bricksWithChangedStatus = new ArrayList<>();
+        private final List<GlusterVolumeSizeInfo> addedCapacityInfos = new ArrayList<>();
+        private final List<GlusterVolumeSizeInfo> changedCapacityInfos = new ArrayList<>();
+        private final List<GlusterBrickEntity> bricksWithUnSyncedEntries = new ArrayList<>();
+        private final List<Runnable> auditMessages = new ArrayList<>();
+
+        VolumeChanges(String volumeName) {
+            this.volumeName = volumeName;
+        }
+
+        boolean isEmpty() {
+            return removedBrickIds.isEmpty() && addedBricks.isEmpty() && changedBrickOrders.isEmpty()
+                    && changedBrickNetworkIds.isEmpty() && addedOptions.isEmpty() && changedOptions.isEmpty()
+                    && removedOptionIds.isEmpty() && bricksWithAddedProperties.isEmpty()
+                    && bricksWithChangedProperties.isEmpty() && bricksWithChangedStatus.isEmpty()
+                    && addedCapacityInfos.isEmpty() && changedCapacityInfos.isEmpty()
+                    && bricksWithUnSyncedEntries.isEmpty();
+        }
+
+        void logAuditMessages() {
+            auditMessages.forEach(Runnable::run);
+        }
+    }
+
+    /**
+     * A refresh of the gluster data of a cluster. The changes found by the refresh are collected per volume and
+     * written in a single transaction, with one batch per kind of change. If that transaction fails, the changes of
+     * each volume are written in a transaction of their own, so a volume whose changes can't be written doesn't keep
+     * the changes of the other volumes from being written. The audit messages of the changes of a volume are logged
+     * only once they are written. Once its deadline passed, the refresh doesn't refresh more volumes and the
+     * remaining ones are left to the next refresh.
+     */
+    private class ClusterRefresh {
+        private final String clusterName;
+        private final long startTime = System.nanoTime();
+        private final long deadline;
+        private boolean pastDeadline;
+        private Map<Guid, GlusterLocalVolumeInfo> localVolumeInfo;
+        private final Map<Guid, VolumeChanges> volumeChanges = new LinkedHashMap<>();
+
+        /**
+         * @param deadline
+         *            the time in nanoseconds the refresh may take
+         */
+        ClusterRefresh(String clusterName, long deadline) {
+            this.clusterName = clusterName;
+            this.deadline = deadline;
+        }
+
+        boolean isPastDeadline() {
+            if (!pastDeadline && System.nanoTime() - startTime >= deadline) {
+                pastDeadline = true;
+                log.warn("Refresh of the Gluster data of cluster '{}' passed its deadline of {} seconds, "
+                        + "the remaining volumes will be refreshed by the next refresh",
+                        clusterName,
+                        TimeUnit.NANOSECONDS.toSeconds(deadline));
+            }
+            return pastDeadline;
+        }
+
+        /**
+         * @return The changes of the given volume found so far
+         */
+        VolumeChanges of(GlusterVolumeEntity volume) {
+            return volumeChanges.computeIfAbsent(volume.getId(), id -> new VolumeChanges(volume.getName()));
+        }
+
+        /**
+         * Writes the changes found so far and forgets them, so the refresh can go on with finding changes.
+         */
+        void write() {
+            List<VolumeChanges> changes = new ArrayList<>(volumeChanges.values());
+            volumeChanges.clear();
+            changes.removeIf(VolumeChanges::isEmpty);
+            if (changes.isEmpty()) {
+                return;
+            }
+
+            try {
+                writeInTransaction(changes);
+            } catch (Exception e) {
+                log.warn("Could not write the Gluster changes of cluster '{}' at once, writing them per volume: {}",
+                        clusterName,
+                        e.getMessage());
+                log.debug("Exception", e);
+                changes.forEach(this::writeVolume);
+                return;
+            }
+            changes.forEach(VolumeChanges::logAuditMessages);
+        }
+
+        private void writeVolume(VolumeChanges changes) {
+            try {
+                writeInTransaction(Collections.singletonList(changes));
+            } catch (Exception e) {
+                log.error("Error while writing the Gluster changes of volume '{}' of cluster '{}': {}",
+                        changes.volumeName,
+                        clusterName,
+                        e.getMessage());
+                log.debug("Exception", e);
+                return;
+            }
+            changes.logAuditMessages();
+        }
+
+        private void writeInTransaction(List<VolumeChanges> changes) {
+            TransactionSupport.executeInScope(TransactionScopeOption.Required, () -> {
+                writeBatch(changes, c -> c.removedBrickIds, brickDao::removeAll);
+                changes.forEach(c -> c.addedBricks.forEach(brickDao::save));
+                changes.forEach(c -> c.changedBrickOrders.forEach(brickDao::updateBrickOrder));
+                changes.forEach(c -> c.changedBrickNetworkIds.forEach(brickDao::updateBrickNetworkId));
+                writeBatch(changes, c -> c.addedOptions, optionDao::saveAll);
+                writeBatch(changes,
+                        c -> c.changedOptions,
+                        options -> optionDao.updateAll("UpdateGlusterVolumeOption", options));
+                writeBatch(changes, c -> c.removedOptionIds, optionDao::removeAll);
+                writeBatch(changes, c -> c.bricksWithAddedProperties, brickDao::addBrickProperties);
+                writeBatch(changes, c -> c.bricksWithChangedProperties, brickDao::updateBrickProperties);
+                writeBatch(changes, c -> c.bricksWithChangedStatus, brickDao::updateBrickStatuses);
+                changes.forEach(c -> c.addedCapacityInfos.forEach(volumeDao::addVolumeCapacityInfo));
+                changes.forEach(c -> c.changedCapacityInfos.forEach(volumeDao::updateVolumeCapacityInfo));
+                writeBatch(changes, c -> c.bricksWithUnSyncedEntries, brickDao::updateUnSyncedEntries);
+                return null;
+            });
+        }
+
+        private <T> void writeBatch(List<VolumeChanges> changes,
+                Function<VolumeChanges, List<T>> changesOfVolume,
+                Consumer<List<T>> writer) {
+            List<T> batch = new ArrayList<>();
+            changes.forEach(c -> batch.addAll(changesOfVolume.apply(c)));
+            if (!batch.isEmpty()) {
+                writer.accept(batch);
+            }
+        }
+    }
 }
@@ -0,0 +1,24 @@
+package org.ovirt.engine.core.bll.gluster;
+
+import java.util.Map;
+
+/**
+ * The following interface is used as interface for JMX bean
+ */
+public interface GlusterSyncJobMXBean {
+
+    /**
+     * The following method will return the duration in milliseconds of the last lightweight refresh of each cluster
+     */
+    Map<String, Long> getLightWeightRefreshDurations();
+
+    /**
+     * The following method will return the duration in milliseconds of the last heavyweight refresh of each cluster
+     */
+    Map<String, Long> getHeavyWeightRefreshDurations();
+
+    /**
+     * The following method will return the duration in milliseconds of the last self heal refresh of each cluster
+     */
+    Map<String, Long> getSelfHealRefreshDurations();
+}
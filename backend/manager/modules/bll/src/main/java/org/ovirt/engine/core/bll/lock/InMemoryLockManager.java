@@ -2,6 +2,7 @@ package org.ovirt.engine.core.bll.lock;
 
 import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -9,6 +10,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
@@ -47,17 +49,28 @@ public class InMemoryLockManager implements LockManager, LockManagerMonitorMXBea
 
     private static final Pair<Boolean, Set<String>> LOCK_INSERT_SUCCESS_RESULT = new Pair<>(Boolean.TRUE, Collections.<String>emptySet());
     private static final Pair<Boolean, Set<String>> LOCK_INSERT_FAILURE_RESULT = new Pair<>(Boolean.FALSE, Collections.emptySet());
+    /** Number of stripes guarding the lock table, must be a power of two **/
+    private static final int STRIPES_COUNT = 64;
     /** A map which is contains all internal representation of locks **/
-    private final Map<String, InternalLockView> locks = new HashMap<>();
-    /** A lock which is used to synchronized acquireLock(), acquireLockWait() and releaseLock() operations **/
-    private final Lock globalLock = new ReentrantLock();
-    /** A condition which is used in order to notify for waiting threads that some lock was released**/
-    private final Condition releasedLock = globalLock.newCondition();
+    private final Map<String, InternalLockView> locks = new ConcurrentHashMap<>();
+    /**
+     * Locks which are used to synchronize acquireLock(), acquireLockWait() and releaseLock() operations. A key is
+     * guarded by the stripe its hash falls into, so operations on unrelated keys do not contend with each other
+     **/
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES_COUNT];
+    /** Threads which are waiting for a lock, grouped by the keys they are waiting on **/
+    private final Map<String, Set<LockWaiter>> waiters = new ConcurrentHashMap<>();
 
     private MBeanServer platformMBeanServer;
     private ObjectName objectName = null;
     private static final Logger log = LoggerFactory.getLogger(InMemoryLockManager.class);
 
+    public InMemoryLockManager() {
+        for (int i = 0; i < STRIPES_COUNT; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
     @PostConstruct
     public void registerInJMX() {
         try {
@@ -81,11 +94,12 @@ public class InMemoryLockManager implements LockManager, LockManagerMonitorMXBea
     @Override
     public Pair<Boolean, Set<String>> acquireLock(EngineLock lock) {
         log.debug("Before acquiring lock '{}'", lock);
-        globalLock.lock();
+        int[] lockStripes = lockStripes(lock);
+        lockStripes(lockStripes);
         try {
             return acquireLockInternal(lock);
         } finally {
-            globalLock.unlock();
+            unlockStripes(lockStripes);
         }
     }
 
@@ -93,16 +107,18 @@ public class InMemoryLockManager implements LockManager, LockManagerMonitorMXBea
     public void acquireLockWait(EngineLock lock) {
         log.debug("Before acquiring and wait lock '{}'", lock);
         validateLockForAcquireAndWait(lock);
-        globalLock.lock();
+        int[] lockStripes = lockStripes(lock);
+        Set<String> keys = buildHashMapKeys(lock);
+        LockWaiter waiter = new LockWaiter();
         try {
-            while (!acquireLockInternal(lock).getFirst()) {
+            while (!registerAndAcquire(lock, lockStripes, keys, waiter).getFirst()) {
                 log.info("Failed to acquire lock and wait lock '{}'", lock);
-                releasedLock.await();
+                waiter.await();
             }
         } catch (InterruptedException ignore) {
 
         } finally {
-            globalLock.unlock();
+            unregisterWaiter(keys, waiter);
         }
     }
 
@@ -115,23 +131,25 @@ public class InMemoryLockManager implements LockManager, LockManagerMonitorMXBea
         }
         long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
         Pair<Boolean, Set<String>> lockAcquired = LOCK_INSERT_FAILURE_RESULT;
-        globalLock.lock();
+        int[] lockStripes = lockStripes(lock);
+        Set<String> keys = buildHashMapKeys(lock);
+        LockWaiter waiter = new LockWaiter();
         try {
             do {
-                lockAcquired = acquireLockInternal(lock);
+                lockAcquired = registerAndAcquire(lock, lockStripes, keys, waiter);
                 if (!lockAcquired.getFirst()) {
                     if (timeoutNanos <= 0L) {
                         log.info("Failed to acquire lock because timeout was reached. lock {}", lock);
                         break;
                     }
                     log.info("Failed to acquire lock, will try again until timeout. lock '{}'", lock);
-                    timeoutNanos = releasedLock.awaitNanos(timeoutNanos);
+                    timeoutNanos = waiter.awaitNanos(timeoutNanos);
                 }
             } while (!lockAcquired.getFirst());
         } catch (InterruptedException ignore) {
             log.info("Acquire lock operation was interrupted. lock '{}'", lock);
         } finally {
-            globalLock.unlock();
+            unregisterWaiter(keys, waiter);
         }
         return lockAcquired;
     }
@@ -143,10 +161,28 @@ public class InMemoryLockManager implements LockManager, LockManagerMonitorMXBea
         }
     }
 
+    /**
+     * The waiter is registered on the keys before the attempt is made, so a release of any of these keys which
+     * happens after a failed attempt is never missed
+     */
+    private Pair<Boolean, Set<String>> registerAndAcquire(EngineLock lock,
+            int[] lockStripes,
+            Set<String> keys,
+            LockWaiter waiter) {
+        registerWaiter(keys, waiter);
+        lockStripes(lockStripes);
+        try {
+            return acquireLockInternal(lock);
+        } finally {
+            unlockStripes(lockStripes);
+        }
+    }
+
     @Override
     public void releaseLock(EngineLock lock) {
         log.debug("Before releasing a lock '{}'", lock);
-        globalLock.lock();
+        int[] lockStripes = lockStripes(lock);
+        lockStripes(lockStripes);
         try {
             if (lock.getSharedLocks() != null) {
                 lock.getSharedLocks().entrySet().stream().forEach(entry ->
@@ -156,22 +192,22 @@ public class InMemoryLockManager implements LockManager, LockManagerMonitorMXBea
                 lock.getExclusiveLocks().entrySet().stream().forEach(entry ->
                     releaseExclusiveLock(buildHashMapKey(entry)));
             }
-            releasedLock.signalAll();
         } finally {
-            globalLock.unlock();
+            unlockStripes(lockStripes);
         }
+        buildHashMapKeys(lock).forEach(this::signalWaiters);
     }
 
     @Override
     public void clear() {
         log.warn("Cleaning all in memory locks");
-        globalLock.lock();
+        lockAllStripes();
         try {
             locks.clear();
-            releasedLock.signalAll();
         } finally {
-            globalLock.unlock();
+            unlockAllStripes();
         }
+        waiters.keySet().forEach(this::signalWaiters);
     }
 
     @Override
@@ -179,7 +215,8 @@ public class InMemoryLockManager implements LockManager, LockManagerMonitorMXBea
         log.warn("The following lock is going to be released via external call, lockId '{}', error message can be"
                 + " left for shared lock",
                 lockId);
-        globalLock.lock();
+        ReentrantLock stripe = stripeFor(lockId);
+        stripe.lock();
         try {
             InternalLockView lock = locks.get(lockId);
             if (lock == null) {
@@ -191,10 +228,10 @@ public class InMemoryLockManager implements LockManager, LockManagerMonitorMXBea
             } else {
                 releaseSharedLock(lockId, null);
             }
-            releasedLock.signalAll();
         } finally {
-            globalLock.unlock();
+            stripe.unlock();
         }
+        signalWaiters(lockId);
         log.warn("Lock '{}' was released via external call", lockId);
         return true;
     }
@@ -202,11 +239,11 @@ public class InMemoryLockManager implements LockManager, LockManagerMonitorMXBea
     @Override
     public List<String> showAllLocks() {
         log.debug("All in memory locks will be shown");
-        globalLock.lock();
+        lockAllStripes();
         try {
             return locks.entrySet().stream().map(this::createLockDescription).collect(Collectors.toList());
         } finally {
-            globalLock.unlock();
+            unlockAllStripes();
             log.debug("All in memory locks were shown");
         }
     }
@@ -222,6 +259,90 @@ public class InMemoryLockManager implements LockManager, LockManagerMonitorMXBea
         return entry.getKey() + entry.getValue().getFirst();
     }
 
+    /**
+     * Builds the keys of all shared and exclusive locks of the given lock
+     */
+    private Set<String> buildHashMapKeys(EngineLock lock) {
+        Set<String> keys = new HashSet<>();
+        if (lock.getSharedLocks() != null) {
+            lock.getSharedLocks().entrySet().forEach(entry -> keys.add(buildHashMapKey(entry)));
+        }
+        if (lock.getExclusiveLocks() != null) {
+            lock.getExclusiveLocks().entrySet().forEach(entry -> keys.add(buildHashMapKey(entry)));
+        }
+        return keys;
+    }
+
+    private int stripeIndex(String key) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & (STRIPES_COUNT - 1);
+    }
+
+    private ReentrantLock stripeFor(String key) {
+        return stripes[stripeIndex(key)];
+    }
+
+    /**
+     * Returns the distinct stripes guarding the keys of the given lock, in ascending order so that they are always
+     * taken in the same order and threads acquiring overlapping locks can not deadlock
+     */
+    private int[] lockStripes(EngineLock lock) {
+        return buildHashMapKeys(lock).stream().mapToInt(this::stripeIndex).distinct().sorted().toArray();
+    }
+
+    private void lockStripes(int[] lockStripes) {
+        for (int index : lockStripes) {
+            stripes[index].lock();
+        }
+    }
+
+    private void unlockStripes(int[] lockStripes) {
+        for (int i = lockStripes.length - 1; i >= 0; i--) {
+            stripes[lockStripes[i]].unlock();
+        }
+    }
+
+    private void lockAllStripes() {
+        for (ReentrantLock stripe : stripes) {
+            stripe.lock();
+        }
+    }
+
+    private void unlockAllStripes() {
+        for (int i = stripes.length - 1; i >= 0; i--) {
+            stripes[i].unlock();
+        }
+    }
+
+    private void registerWaiter(Set<String> keys, LockWaiter waiter) {
+        for (String key : keys) {
+            waiters.compute(key, (k, keyWaiters) -> {
+                Set<LockWaiter> result = keyWaiters == null ? new HashSet<>() : keyWaiters;
+                result.add(waiter);
+                return result;
+            });
+        }
+    }
+
+    private void unregisterWaiter(Set<String> keys, LockWaiter waiter) {
+        for (String key : keys) {
+            waiters.computeIfPresent(key, (k, keyWaiters) -> {
+                keyWaiters.remove(waiter);
+                return keyWaiters.isEmpty() ? null : keyWaiters;
+            });
+        }
+    }
+
+    /**
+     * Wakes up only the threads which are waiting for the given key
+     */
+    private void signalWaiters(String key) {
+        waiters.computeIfPresent(key, (k, keyWaiters) -> {
+            keyWaiters.forEach(LockWaiter::signal);
+            return keyWaiters;
+        });
+    }
+
     /**
      * The following method contains a logic for acquiring a lock. It is comprised of two steps:
      * 1. Check if the lock can be acquired
@@ -341,12 +462,52 @@ public class InMemoryLockManager implements LockManager, LockManagerMonitorMXBea
 
     @Override
     public LockInfo getLockInfo(String key) {
-        InternalLockView internalLockView = locks.get(key);
-        if (internalLockView == null) {
-            return null;
+        InternalLockView internalLockView;
+        Set<String> messages;
+        ReentrantLock stripe = stripeFor(key);
+        stripe.lock();
+        try {
+            internalLockView = locks.get(key);
+            if (internalLockView == null) {
+                return null;
+            }
+            messages = internalLockView.getMessages();
+        } finally {
+            stripe.unlock();
         }
 
-        Set<String> messages = internalLockView.getMessages();
+        return toLockInfo(internalLockView.getExclusive(), messages);
+    }
+
+    /**
+     * Queries the locks of the given keys taking each stripe only once, keys are grouped by their stripe
+     */
+    @Override
+    public Map<String, LockInfo> getLockInfos(Collection<String> keys) {
+        Map<Integer, List<String>> keysByStripe = keys.stream().collect(Collectors.groupingBy(this::stripeIndex));
+        Map<String, LockInfo> lockInfos = new HashMap<>();
+        for (Entry<Integer, List<String>> stripeKeys : keysByStripe.entrySet()) {
+            ReentrantLock stripe = stripes[stripeKeys.getKey()];
+            stripe.lock();
+            try {
+                for (String key : stripeKeys.getValue()) {
+                    InternalLockView internalLockView = locks.get(key);
+                    if (internalLockView != null) {
+                        LockInfo lockInfo =
+                                toLockInfo(internalLockView.getExclusive(), internalLockView.getMessages());
+                        if (lockInfo != null) {
+                            lockInfos.put(key, lockInfo);
+                        }
+                    }
+                }
+            } finally {
+                stripe.unlock();
+            }
+        }
+        return lockInfos;
+    }
+
+    private static LockInfo toLockInfo(boolean exclusive, Set<String> messages) {
         messages.remove(EngineMessage.ACTION_TYPE_FAILED_OBJECT_LOCKED.name());
         if (messages.isEmpty()) {
             // EngineMessage.ACTION_TYPE_FAILED_OBJECT_LOCKED should only be used for
@@ -355,7 +516,7 @@ public class InMemoryLockManager implements LockManager, LockManagerMonitorMXBea
             return null;
         }
 
-        return new LockInfo(internalLockView.getExclusive(), messages);
+        return new LockInfo(exclusive, messages);
     }
 
     @Override
@@ -365,6 +526,52 @@ public class InMemoryLockManager implements LockManager, LockManagerMonitorMXBea
                 .anyMatch(entry -> getLockInfo(buildHashMapKey(entry)) != null);
     }
 
+    /**
+     * The following class represents a thread waiting for a lock, it is signaled when one of the keys it waits for
+     * is released. The signal is remembered, so a release which happens before the thread starts waiting is not lost
+     */
+    private static class LockWaiter {
+
+        private final Lock lock = new ReentrantLock();
+        private final Condition released = lock.newCondition();
+        private boolean signaled;
+
+        public void signal() {
+            lock.lock();
+            try {
+                signaled = true;
+                released.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        public void await() throws InterruptedException {
+            lock.lock();
+            try {
+                while (!signaled) {
+                    released.await();
+                }
+                signaled = false;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        public long awaitNanos(long nanosTimeout) throws InterruptedException {
+            lock.lock();
+            try {
+                while (!signaled && nanosTimeout > 0L) {
+                    nanosTimeout = released.awaitNanos(nanosTimeout);
+                }
+                signaled = false;
+                return nanosTimeout;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
     /**
      * The following class represents different locks which are kept inside InMemoryLockManager
      */
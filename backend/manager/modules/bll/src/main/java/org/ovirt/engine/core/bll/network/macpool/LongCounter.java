@@ -0,0 +1,165 @@
+package org.ovirt.engine.core.bll.network.macpool;
+
+/**
+ * Associative array counting occurrences of primitive long values.
+ * <p>
+ * Unlike {@link ObjectCounter} the values are neither boxed nor wrapped in a counter object: keys and counts are
+ * kept in two parallel arrays of an open addressing hash table with linear probing, a zero count marks a free slot.
+ */
+class LongCounter {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final boolean allowDuplicate;
+
+    private long[] keys;
+    private int[] counts;
+    private int mask;
+    private int size;
+    /**
+     * number of keys having count bigger than one.
+     */
+    private int duplicatesCount;
+
+    LongCounter(boolean allowDuplicate) {
+        this.allowDuplicate = allowDuplicate;
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * add instance if possible, incrementing number of its occurrences.
+     * @param key instance to add.
+     * @return true if instance was added  && count incremented.
+     */
+    public boolean increase(long key) {
+        return increase(key, allowDuplicate);
+    }
+
+    public boolean increase(long key, boolean allowDuplicate) {
+        int slot = findSlot(key);
+        if (counts[slot] == 0) {
+            keys[slot] = key;
+            counts[slot] = 1;
+            size++;
+            if (size * 2 > keys.length) {
+                resize(keys.length * 2);
+            }
+            return true;
+        } else if (allowDuplicate) {
+            if (++counts[slot] == 2) {
+                duplicatesCount++;
+            }
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    /**
+     * decrements number of its occurrences, removing instance if possible(count reaches zero).
+     *
+     * @param key instance to remove.
+     */
+    public void decrease(long key) {
+        int slot = findSlot(key);
+        int count = counts[slot];
+        if (count == 0) {
+            return;
+        }
+
+        if (count == 1) {
+            removeAt(slot);
+            size--;
+        } else {
+            if (count == 2) {
+                duplicatesCount--;
+            }
+            counts[slot] = count - 1;
+        }
+    }
+
+    /**
+     * @param key instance to look for
+     * @return true if there's at least one occurrence of given instance.
+     */
+    public boolean contains(long key) {
+        return counts[findSlot(key)] != 0;
+    }
+
+    /**
+     * @param key instance to look for
+     * @return number of occurrences of given instance. When instance was not added
+     */
+    public int count(long key) {
+        return counts[findSlot(key)];
+    }
+
+    public boolean containsDuplicates() {
+        return duplicatesCount > 0;
+    }
+
+    public boolean containsCounts() {
+        return size > 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private int indexFor(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    /**
+     * @return the slot holding the given key, or the free slot the key should be inserted into.
+     */
+    private int findSlot(long key) {
+        int slot = indexFor(key);
+        while (counts[slot] != 0 && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Frees the given slot, shifting back the entries following it in the probe sequence so that no entry becomes
+     * unreachable.
+     */
+    private void removeAt(int slot) {
+        int hole = slot;
+        int i = slot;
+        while (true) {
+            i = (i + 1) & mask;
+            if (counts[i] == 0) {
+                break;
+            }
+            int distanceFromIdealSlot = (i - indexFor(keys[i])) & mask;
+            if (distanceFromIdealSlot >= ((i - hole) & mask)) {
+                keys[hole] = keys[i];
+                counts[hole] = counts[i];
+                hole = i;
+            }
+        }
+        counts[hole] = 0;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        counts = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldCounts = counts;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldCounts[i] != 0) {
+                int slot = findSlot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                counts[slot] = oldCounts[i];
+            }
+        }
+    }
+}
@@ -12,12 +12,12 @@ import org.ovirt.engine.core.common.errors.EngineException;
 class MacsStorage {
     private final boolean allowDuplicates;
     private List<Range> ranges = new LinkedList<>();
-    private ObjectCounter<Long> customMacs;
+    private LongCounter customMacs;
     private int startIndexForEmptyRangeSearch = 0;
 
     public MacsStorage(boolean allowDuplicates) {
         this.allowDuplicates = allowDuplicates;
-        customMacs = new ObjectCounter<>(this.allowDuplicates);
+        customMacs = new LongCounter(this.allowDuplicates);
     }
 
     Range addRange(Range range) {
@@ -0,0 +1,36 @@
+package org.ovirt.engine.core.bll.network.vm;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import javax.inject.Inject;
+
+import org.ovirt.engine.core.bll.QueriesCommandBase;
+import org.ovirt.engine.core.bll.context.EngineContext;
+import org.ovirt.engine.core.common.businessentities.network.VmNetworkInterface;
+import org.ovirt.engine.core.common.queries.IdsQueryParameters;
+import org.ovirt.engine.core.compat.Guid;
+import org.ovirt.engine.core.dao.network.VmNetworkInterfaceDao;
+
+/**
+ * Returns the interfaces of several VMs at once, by the ids of their VMs. The interfaces of each VM are the same as
+ * returned by {@link GetVmInterfacesByVmIdQuery} for the VM, VMs without interfaces are missing.
+ */
+public class GetVmInterfacesByVmIdsQuery<P extends IdsQueryParameters> extends QueriesCommandBase<P> {
+    @Inject
+    private VmNetworkInterfaceDao vmNetworkInterfaceDao;
+
+    public GetVmInterfacesByVmIdsQuery(P parameters, EngineContext engineContext) {
+        super(parameters, engineContext);
+    }
+
+    @Override
+    protected void executeQueryCommand() {
+        Map<Guid, List<VmNetworkInterface>> interfacesByVm = vmNetworkInterfaceDao
+                .getAllForVms(getParameters().getIds(), getUserID(), getParameters().isFiltered())
+                .stream()
+                .collect(Collectors.groupingBy(VmNetworkInterface::getVmId));
+        getQueryReturnValue().setReturnValue(interfacesByVm);
+    }
+}
@@ -2,12 +2,16 @@ package org.ovirt.engine.core.bll.quota;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import javax.annotation.PostConstruct;
 import javax.enterprise.concurrent.ManagedScheduledExecutorService;
@@ -41,10 +45,15 @@ import org.slf4j.LoggerFactory;
 
 @Singleton
 public class QuotaManager implements BackendService {
-    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
     private final Logger log = LoggerFactory.getLogger(QuotaManager.class);
-    private Map<Guid, Map<Guid, Quota>> storagePoolQuotaMap = new HashMap<>();
-    private Map<Guid, Guid> storagePoolDefaultQuotaIdMap = new HashMap<>();
+
+    /**
+     * Immutable snapshots of the cached quotas, per storage pool. A snapshot is never modified once published, so
+     * readers never block; writers of a storage pool are serialized on the lock of the storage pool and publish a
+     * modified copy of its snapshot.
+     */
+    private final ConcurrentMap<Guid, StoragePoolQuotas> storagePoolQuotaMap = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Guid, Object> storagePoolLocks = new ConcurrentHashMap<>();
 
     private final List<Integer> nonCountableQutoaVmStatusesList = new ArrayList<>();
 
@@ -82,20 +91,16 @@ public class QuotaManager implements BackendService {
         return quotaDao;
     }
 
+    private Object getStoragePoolLock(Guid storagePoolId) {
+        return storagePoolLocks.computeIfAbsent(storagePoolId, id -> new Object());
+    }
+
     public void removeQuotaFromCache(Guid storagePoolId, List<Guid> quotaList) {
-        lock.writeLock().lock();
-        try {
-            if (!storagePoolQuotaMap.containsKey(storagePoolId)) {
-                return;
+        synchronized (getStoragePoolLock(storagePoolId)) {
+            StoragePoolQuotas quotas = storagePoolQuotaMap.get(storagePoolId);
+            if (quotas != null) {
+                storagePoolQuotaMap.put(storagePoolId, quotas.withoutQuotas(quotaList));
             }
-            synchronized (storagePoolQuotaMap.get(storagePoolId)) {
-                Map<Guid, Quota> map = storagePoolQuotaMap.get(storagePoolId);
-                for (Guid quotaId : quotaList) {
-                    map.remove(quotaId);
-                }
-            }
-        } finally {
-            lock.writeLock().unlock();
         }
     }
 
@@ -104,35 +109,25 @@ public class QuotaManager implements BackendService {
     }
 
     public void removeStoragePoolFromCache(Guid storagePoolId) {
-        lock.writeLock().lock();
-        try {
+        synchronized (getStoragePoolLock(storagePoolId)) {
             storagePoolQuotaMap.remove(storagePoolId);
-            storagePoolDefaultQuotaIdMap.remove(storagePoolId);
-        } finally {
-            lock.writeLock().unlock();
         }
     }
 
-    private void addStoragePoolToCache(Guid storagePoolId) {
-        if (storagePoolQuotaMap.containsKey(storagePoolId)) {
-            return;
-        }
-
-        storagePoolQuotaMap.put(storagePoolId, new HashMap<>());
-        Quota defaultQuota = getQuotaDao().getDefaultQuotaForStoragePool(storagePoolId);
-        storagePoolDefaultQuotaIdMap.put(storagePoolId, defaultQuota.getId());
-    }
-
-    private void addStoragePoolToCacheWithLock(Guid storagePoolId) {
-        if (storagePoolQuotaMap.containsKey(storagePoolId)) {
-            return;
+    /**
+     * @return the cached quotas of the storage pool, the storage pool is added to the cache if it is not cached yet.
+     */
+    private StoragePoolQuotas getStoragePoolQuotas(Guid storagePoolId) {
+        StoragePoolQuotas quotas = storagePoolQuotaMap.get(storagePoolId);
+        if (quotas != null) {
+            return quotas;
         }
 
-        lock.writeLock().lock();
-        try {
-            addStoragePoolToCache(storagePoolId);
-        } finally {
-            lock.writeLock().unlock();
+        synchronized (getStoragePoolLock(storagePoolId)) {
+            return storagePoolQuotaMap.computeIfAbsent(storagePoolId, id -> {
+                Quota defaultQuota = getQuotaDao().getDefaultQuotaForStoragePool(id);
+                return new StoragePoolQuotas(defaultQuota.getId(), Collections.emptyMap());
+            });
         }
     }
 
@@ -203,42 +198,44 @@ public class QuotaManager implements BackendService {
             throw new InvalidQuotaParametersException("Null storage pool passed to QuotaManager");
         }
 
-        addStoragePoolToCacheWithLock(storagePool.getId());
+        getStoragePoolQuotas(storagePool.getId());
 
         QuotaManagerAuditLogger auditLogger = new QuotaManagerAuditLogger(command, auditLogDirector);
 
-        lock.readLock().lock();
-        try {
-            if (command.getStoragePool().getQuotaEnforcementType() != QuotaEnforcementTypeEnum.DISABLED) {
-                synchronized (storagePoolQuotaMap.get(storagePool.getId())) {
-                    return consumeQuotaParameters(params, command, auditLogger);
-                }
+        if (command.getStoragePool().getQuotaEnforcementType() != QuotaEnforcementTypeEnum.DISABLED) {
+            synchronized (getStoragePoolLock(storagePool.getId())) {
+                return consumeQuotaParameters(params, command, auditLogger);
             }
-        } finally {
-            lock.readLock().unlock();
         }
 
         return true;
     }
 
     /**
-     * Get Quota by Id. If in cache - get from cache. else get from Dao and add to cache.
+     * Get Quota by Id. If in cache - get from cache. else get from Dao and add it to the given map of fetched quotas,
+     * which are to be added to the cache by the caller.
      *
      * @param quotaId - quota id
      * @param storagePoolId - storage pool containing this quota
+     * @param quotas - the cached quotas of the storage pool
+     * @param fetchedQuotas - the quotas that were fetched from the DB
      * @return - found quota. null if not found.
      */
-    private Quota fetchQuotaFromCache(Guid quotaId, Guid storagePoolId) throws InvalidQuotaParametersException {
-        Map<Guid, Quota> quotaMap = storagePoolQuotaMap.get(storagePoolId);
-
-        Quota quota = quotaMap.get(quotaId);
+    private Quota fetchQuotaFromCache(Guid quotaId,
+            Guid storagePoolId,
+            StoragePoolQuotas quotas,
+            Map<Guid, Quota> fetchedQuotas) throws InvalidQuotaParametersException {
+        Quota quota = quotas.getQuota(quotaId);
+        if (quota == null) {
+            quota = fetchedQuotas.get(quotaId);
+        }
         // if quota was not found in cache - look for it in DB
         if (quota == null) {
             quota = getQuotaDao().getById(quotaId);
             if (quota != null) {
                 // cache in quota map
                 if (storagePoolId.equals(quota.getStoragePoolId())) {
-                    quotaMap.put(quotaId, quota);
+                    fetchedQuotas.put(quotaId, quota);
                 } else {
                     throw new InvalidQuotaParametersException(
                             String.format("Quota %s does not match storage pool %s", quotaId.toString()
@@ -256,41 +253,35 @@ public class QuotaManager implements BackendService {
             return;
         }
 
-        lock.readLock().lock();
-        try {
-            for (Quota quotaExternal : quotaList) {
-                // look for the quota in the cache
-                Map<Guid, Quota> quotaMap = storagePoolQuotaMap.get(quotaExternal.getStoragePoolId());
-                Quota quota = null;
-                if (quotaMap != null) {
-                    quota = quotaMap.get(quotaExternal.getId());
-                }
+        for (Quota quotaExternal : quotaList) {
+            // look for the quota in the cache
+            StoragePoolQuotas quotas = storagePoolQuotaMap.get(quotaExternal.getStoragePoolId());
+            Quota quota = null;
+            if (quotas != null) {
+                quota = quotas.getQuota(quotaExternal.getId());
+            }
 
-                // if quota not in cache look for it in DB and add it to cache
-                if (quota == null) {
-                    needToCache.add(quotaExternal);
-                } else {
-                    copyUsageData(quota, quotaExternal);
-                }
+            // if quota not in cache look for it in DB and add it to cache
+            if (quota == null) {
+                needToCache.add(quotaExternal);
+            } else {
+                copyUsageData(quota, quotaExternal);
             }
-        } finally {
-            lock.readLock().unlock();
         }
 
         // if some of the quota are not in cache and need to be cached
-        if (!needToCache.isEmpty()) {
-            lock.writeLock().lock();
-            try {
-                for (Quota quotaExternal : needToCache) {
-                    addStoragePoolToCache(quotaExternal.getStoragePoolId());
-
-                    Quota quota = fetchQuotaFromCache(quotaExternal.getId(), quotaExternal.getStoragePoolId());
-                    if (quota != null) {
-                        copyUsageData(quota, quotaExternal);
-                    }
+        for (Quota quotaExternal : needToCache) {
+            Guid storagePoolId = quotaExternal.getStoragePoolId();
+            synchronized (getStoragePoolLock(storagePoolId)) {
+                StoragePoolQuotas quotas = getStoragePoolQuotas(storagePoolId);
+                Map<Guid, Quota> fetchedQuotas = new HashMap<>();
+                Quota quota = fetchQuotaFromCache(quotaExternal.getId(), storagePoolId, quotas, fetchedQuotas);
+                if (quota != null) {
+                    copyUsageData(quota, quotaExternal);
+                }
+                if (!fetchedQuotas.isEmpty()) {
+                    storagePoolQuotaMap.put(storagePoolId, quotas.withQuotas(fetchedQuotas.values()));
                 }
-            } finally {
-                lock.writeLock().unlock();
             }
         }
     }
@@ -344,6 +335,11 @@ public class QuotaManager implements BackendService {
         }
     }
 
+    /**
+     * Updates the cache with the quotas of the DB. Only the storage pools whose quotas differ from the cached ones
+     * are replaced, each of them while holding just its own lock, so consumption from the other storage pools is not
+     * held back by the update.
+     */
     private synchronized void updateQuotaCacheImpl() {
         if (!isCacheUpdateNeeded()) {
             return;
@@ -361,38 +357,43 @@ public class QuotaManager implements BackendService {
         Map<Guid, Guid> newDefaultQuotaIdMap = new HashMap<>();
 
         for (Quota quota : allQuotaIncludingConsumption) {
-            if (!newStoragePoolQuotaMap.containsKey(quota.getStoragePoolId())) {
-                newStoragePoolQuotaMap.put(quota.getStoragePoolId(), new HashMap<>());
-            }
-            newStoragePoolQuotaMap.get(quota.getStoragePoolId()).put(quota.getId(), quota);
+            newStoragePoolQuotaMap.computeIfAbsent(quota.getStoragePoolId(), id -> new HashMap<>())
+                    .put(quota.getId(), quota);
 
             if (quota.isDefault()) {
                 newDefaultQuotaIdMap.put(quota.getStoragePoolId(), quota.getId());
             }
         }
 
-        lock.writeLock().lock();
-        try {
-            storagePoolQuotaMap = newStoragePoolQuotaMap;
-            storagePoolDefaultQuotaIdMap = newDefaultQuotaIdMap;
-        } finally {
-            lock.writeLock().unlock();
+        int updatedStoragePools = 0;
+        for (Map.Entry<Guid, Map<Guid, Quota>> entry : newStoragePoolQuotaMap.entrySet()) {
+            StoragePoolQuotas newQuotas =
+                    new StoragePoolQuotas(newDefaultQuotaIdMap.get(entry.getKey()), entry.getValue());
+            synchronized (getStoragePoolLock(entry.getKey())) {
+                if (!newQuotas.equals(storagePoolQuotaMap.get(entry.getKey()))) {
+                    storagePoolQuotaMap.put(entry.getKey(), newQuotas);
+                    updatedStoragePools++;
+                }
+            }
+        }
+
+        for (Guid storagePoolId : storagePoolQuotaMap.keySet()) {
+            if (!newStoragePoolQuotaMap.containsKey(storagePoolId)) {
+                removeStoragePoolFromCache(storagePoolId);
+                updatedStoragePools++;
+            }
         }
+
         long timeEnd = System.currentTimeMillis();
-        log.info("Quota Cache updated. ({} msec)", timeEnd-timeStart);
+        log.info("Quota Cache updated, {} storage pools changed. ({} msec)", updatedStoragePools, timeEnd-timeStart);
     }
 
     public boolean isCacheUpdateNeeded() {
         int quotaCount = getQuotaDao().getQuotaCount();
         int cacheCount = 0;
 
-        lock.readLock().lock();
-        try {
-            for(Map<Guid, Quota> quotaMap : storagePoolQuotaMap.values()) {
-                cacheCount += quotaMap.size();
-            }
-        } finally {
-            lock.readLock().unlock();
+        for (StoragePoolQuotas quotas : storagePoolQuotaMap.values()) {
+            cacheCount += quotas.size();
         }
 
         return cacheCount < quotaCount * Config.<Integer> getValue(ConfigValues.MinimumPercentageToUpdateQuotaCache)/100;
@@ -411,11 +412,7 @@ public class QuotaManager implements BackendService {
     }
 
     public Guid getDefaultQuotaId(Guid storagePoolId) {
-        if (!storagePoolDefaultQuotaIdMap.containsKey(storagePoolId)) {
-            addStoragePoolToCacheWithLock(storagePoolId);
-        }
-
-        return storagePoolDefaultQuotaIdMap.get(storagePoolId);
+        return getStoragePoolQuotas(storagePoolId).getDefaultQuotaId();
     }
 
     public Guid getFirstQuotaForUserId(Guid storagePoolId, Guid adElementId) {
@@ -454,26 +451,37 @@ public class QuotaManager implements BackendService {
         boolean hardEnforcement =
                 QuotaEnforcementTypeEnum.HARD_ENFORCEMENT == command.getStoragePool().getQuotaEnforcementType();
 
-        // Process the quota consumption parameters to a list of Requests
-        // Each Request instance aggregates all requested consumptions against a single quota limit
-        Optional<List<Request>> requests = createRequests(parameters, command, hardEnforcement, auditLogger);
-        if (!requests.isPresent()) {
-            return false;
-        }
-
-        // Validate that all requests satisfy the quota limits
-        for (Request request : requests.get()) {
-            ValidationResult validation = request.validate(hardEnforcement, auditLogger);
-            if(!validation.isValid()) {
-                command.getReturnValue().getValidationMessages().addAll(validation.getMessagesAsStrings());
+        StoragePoolQuotas quotas = getStoragePoolQuotas(command.getStoragePoolId());
+        Map<Guid, Quota> fetchedQuotas = new HashMap<>();
+        Map<Guid, Quota> consumedQuotas = new HashMap<>();
+        try {
+            // Process the quota consumption parameters to a list of Requests
+            // Each Request instance aggregates all requested consumptions against a single quota limit
+            Optional<List<Request>> requests =
+                    createRequests(parameters, command, hardEnforcement, auditLogger, quotas, fetchedQuotas);
+            if (!requests.isPresent()) {
                 return false;
             }
-        }
 
-        // After successful validation, the requests are applied.
-        // This changes only the cached quota objects in the QuotaManager, nothing is written to the DB.
-        requests.get().forEach(Request::apply);
-        return true;
+            // Validate that all requests satisfy the quota limits
+            for (Request request : requests.get()) {
+                ValidationResult validation = request.validate(hardEnforcement, auditLogger);
+                if(!validation.isValid()) {
+                    command.getReturnValue().getValidationMessages().addAll(validation.getMessagesAsStrings());
+                    return false;
+                }
+            }
+
+            // After successful validation, the requests are applied on copies of the cached quotas.
+            // This changes only the cached quota objects in the QuotaManager, nothing is written to the DB.
+            requests.get().forEach(request -> request.apply(consumedQuotas));
+            return true;
+        } finally {
+            fetchedQuotas.putAll(consumedQuotas);
+            if (!fetchedQuotas.isEmpty()) {
+                storagePoolQuotaMap.put(command.getStoragePoolId(), quotas.withQuotas(fetchedQuotas.values()));
+            }
+        }
     }
 
     /**
@@ -484,7 +492,9 @@ public class QuotaManager implements BackendService {
     private Optional<List<Request>> createRequests(List<QuotaConsumptionParameter> parameters,
             CommandBase<?> command,
             boolean hardEnforcement,
-            QuotaManagerAuditLogger auditLogger) {
+            QuotaManagerAuditLogger auditLogger,
+            StoragePoolQuotas quotas,
+            Map<Guid, Quota> fetchedQuotas) {
 
         // The key is: Pair <Quota id, Cluster id>
         Map<Pair<Guid, Guid>, ClusterRequest> clusterRequests = new HashMap<>();
@@ -495,10 +505,10 @@ public class QuotaManager implements BackendService {
         for (QuotaConsumptionParameter param: parameters) {
             // Use default quota if the id is empty
             if(Guid.isNullOrEmpty(param.getQuotaGuid())) {
-                param.setQuotaGuid(storagePoolDefaultQuotaIdMap.get(command.getStoragePoolId()));
+                param.setQuotaGuid(quotas.getDefaultQuotaId());
             }
 
-            Quota quota = fetchQuotaFromCache(param.getQuotaGuid(), command.getStoragePoolId());
+            Quota quota = fetchQuotaFromCache(param.getQuotaGuid(), command.getStoragePoolId(), quotas, fetchedQuotas);
             if (quota == null) {
                 log.error("The quota id '{}' is not found in backend and DB.", param.getQuotaGuid());
                 if (hardEnforcement) {
@@ -654,15 +664,24 @@ public class QuotaManager implements BackendService {
             return quota;
         }
 
+        /**
+         * @return the copy of the quota to apply the request on, the cached quota itself is never modified
+         */
+        protected Quota getConsumedQuota(Map<Guid, Quota> consumedQuotas) {
+            return consumedQuotas.computeIfAbsent(quota.getId(), id -> new Quota(quota));
+        }
+
         /**
          * Validate that the request satisfies quota limits
          */
         public abstract ValidationResult validate(boolean hardEnforcement, QuotaManagerAuditLogger auditLogger);
 
         /**
-         * Apply the request on the current quota in the QuotaManager cache
+         * Apply the request on a copy of the current quota in the QuotaManager cache
+         *
+         * @param consumedQuotas - the copies of the quotas consumed so far, by quota id
          */
-        public abstract void apply();
+        public abstract void apply(Map<Guid, Quota> consumedQuotas);
     }
 
     /**
@@ -754,9 +773,15 @@ public class QuotaManager implements BackendService {
         }
 
         @Override
-        public void apply() {
-            quotaCluster.setVirtualCpuUsage(coresRequest);
-            quotaCluster.setMemSizeMBUsage(memoryRequestMB);
+        public void apply(Map<Guid, Quota> consumedQuotas) {
+            Quota consumedQuota = getConsumedQuota(consumedQuotas);
+            QuotaCluster consumedQuotaCluster = consumedQuota.isGlobalClusterQuota() ?
+                    consumedQuota.getGlobalQuotaCluster() :
+                    consumedQuota.getQuotaClusters().stream()
+                            .filter(c -> c.getClusterId().equals(quotaCluster.getClusterId()))
+                            .findAny().get();
+            consumedQuotaCluster.setVirtualCpuUsage(coresRequest);
+            consumedQuotaCluster.setMemSizeMBUsage(memoryRequestMB);
         }
     }
 
@@ -830,8 +855,71 @@ public class QuotaManager implements BackendService {
         }
 
         @Override
-        public void apply() {
-            quotaStorage.setStorageSizeGBUsage(storageRequestGB);
+        public void apply(Map<Guid, Quota> consumedQuotas) {
+            Quota consumedQuota = getConsumedQuota(consumedQuotas);
+            QuotaStorage consumedQuotaStorage = consumedQuota.isGlobalStorageQuota() ?
+                    consumedQuota.getGlobalQuotaStorage() :
+                    consumedQuota.getQuotaStorages().stream()
+                            .filter(s -> s.getStorageId().equals(quotaStorage.getStorageId()))
+                            .findAny().get();
+            consumedQuotaStorage.setStorageSizeGBUsage(storageRequestGB);
+        }
+    }
+
+    /**
+     * Immutable snapshot of the cached quotas of a storage pool.
+     */
+    private static final class StoragePoolQuotas {
+        private final Guid defaultQuotaId;
+        private final Map<Guid, Quota> quotas;
+
+        private StoragePoolQuotas(Guid defaultQuotaId, Map<Guid, Quota> quotas) {
+            this.defaultQuotaId = defaultQuotaId;
+            this.quotas = Collections.unmodifiableMap(quotas);
+        }
+
+        public Guid getDefaultQuotaId() {
+            return defaultQuotaId;
+        }
+
+        public Quota getQuota(Guid quotaId) {
+            return quotas.get(quotaId);
+        }
+
+        public int size() {
+            return quotas.size();
+        }
+
+        public StoragePoolQuotas withQuotas(Collection<Quota> updatedQuotas) {
+            Map<Guid, Quota> newQuotas = new HashMap<>(quotas);
+            for (Quota quota : updatedQuotas) {
+                newQuotas.put(quota.getId(), quota);
+            }
+            return new StoragePoolQuotas(defaultQuotaId, newQuotas);
+        }
+
+        public StoragePoolQuotas withoutQuotas(Collection<Guid> removedQuotaIds) {
+            Map<Guid, Quota> newQuotas = new HashMap<>(quotas);
+            newQuotas.keySet().removeAll(removedQuotaIds);
+            return new StoragePoolQuotas(defaultQuotaId, newQuotas);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(defaultQuotaId, quotas);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof StoragePoolQuotas)) {
+                return false;
+            }
+            StoragePoolQuotas other = (StoragePoolQuotas) obj;
+            return Objects.equals(defaultQuotaId, other.defaultQuotaId)
+                    && quotas.equals(other.quotas);
         }
     }
 }
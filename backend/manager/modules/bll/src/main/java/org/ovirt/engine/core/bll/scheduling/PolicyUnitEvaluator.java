@@ -0,0 +1,166 @@
+package org.ovirt.engine.core.bll.scheduling;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.ovirt.engine.core.common.businessentities.VDS;
+import org.ovirt.engine.core.common.businessentities.VM;
+import org.ovirt.engine.core.common.scheduling.PerHostMessages;
+import org.ovirt.engine.core.common.utils.Pair;
+import org.ovirt.engine.core.compat.Guid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Evaluates internal filters and weight functions for a list of candidate hosts.
+ * <p>
+ * When created with a parallelism bigger than one, units marked as {@link SchedulingUnit#hostIndependent()} are
+ * evaluated concurrently for chunks of the hosts, the first chunk on the calling thread and the rest of them on the
+ * given pool. The results of the chunks are concatenated in the order of the hosts, and the messages collected per
+ * chunk are merged, so the outcome is the same as the outcome of evaluating the unit for the whole list on the calling
+ * thread. All other units are always evaluated on the calling thread.
+ */
+public class PolicyUnitEvaluator {
+
+    private static final Logger log = LoggerFactory.getLogger(PolicyUnitEvaluator.class);
+
+    /**
+     * The minimal number of hosts a single chunk is given, smaller chunks are not worth the hand-off to the pool
+     */
+    static final int MIN_HOSTS_PER_CHUNK = 8;
+
+    private final ExecutorService pool;
+
+    /**
+     * The number of chunks the hosts are split to, 1 when the units are evaluated sequentially on the calling thread
+     */
+    private final int parallelism;
+
+    public PolicyUnitEvaluator(ExecutorService pool, int parallelism) {
+        this.pool = pool;
+        this.parallelism = pool != null ? parallelism : 1;
+    }
+
+    public List<VDS> filter(PolicyUnitImpl filterPolicyUnit,
+            SchedulingContext context,
+            List<VDS> hosts,
+            List<VM> vmGroup,
+            PerHostMessages messages) {
+        List<List<VDS>> chunks = splitToChunks(filterPolicyUnit, hosts);
+        if (chunks.size() == 1) {
+            return filterPolicyUnit.filter(context, hosts, vmGroup, messages);
+        }
+
+        // PerHostMessages is not thread safe, each chunk collects its own messages
+        List<Pair<List<VDS>, PerHostMessages>> chunkResults = evaluateChunks(chunks, chunk -> {
+            PerHostMessages chunkMessages = new PerHostMessages();
+            return new Pair<>(filterPolicyUnit.filter(context, chunk, vmGroup, chunkMessages), chunkMessages);
+        });
+
+        List<VDS> filteredHosts = new ArrayList<>(hosts.size());
+        for (Pair<List<VDS>, PerHostMessages> chunkResult : chunkResults) {
+            filteredHosts.addAll(chunkResult.getFirst());
+            chunkResult.getSecond().getMessages().forEach(messages::addMessages);
+        }
+        return filteredHosts;
+    }
+
+    public List<Pair<Guid, Integer>> score(PolicyUnitImpl scorePolicyUnit,
+            SchedulingContext context,
+            List<VDS> hosts,
+            List<VM> vmGroup) {
+        List<List<VDS>> chunks = splitToChunks(scorePolicyUnit, hosts);
+        if (chunks.size() == 1) {
+            return scorePolicyUnit.score(context, hosts, vmGroup);
+        }
+
+        return evaluateChunks(chunks, chunk -> scorePolicyUnit.score(context, chunk, vmGroup)).stream()
+                .flatMap(List::stream)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * The hosts are kept in a single chunk when parallel evaluation is disabled, when the unit is not host
+     * independent or when there are too few hosts.
+     */
+    private List<List<VDS>> splitToChunks(PolicyUnitImpl policyUnit, List<VDS> hosts) {
+        if (parallelism <= 1 || !policyUnit.isHostIndependent() || hosts.size() < 2 * MIN_HOSTS_PER_CHUNK) {
+            return Collections.singletonList(hosts);
+        }
+
+        int chunkCount = Math.min(parallelism, hosts.size() / MIN_HOSTS_PER_CHUNK);
+        int chunkSize = (hosts.size() + chunkCount - 1) / chunkCount;
+        List<List<VDS>> chunks = new ArrayList<>(chunkCount);
+        for (int from = 0; from < hosts.size(); from += chunkSize) {
+            chunks.add(new ArrayList<>(hosts.subList(from, Math.min(from + chunkSize, hosts.size()))));
+        }
+        return chunks;
+    }
+
+    private <T> List<T> evaluateChunks(List<List<VDS>> chunks, Function<List<VDS>, T> evaluation) {
+        List<Future<T>> futures = chunks.stream()
+                .skip(1)
+                .map(chunk -> submit(new FutureTask<>(() -> evaluation.apply(chunk))))
+                .collect(Collectors.toList());
+
+        List<T> results = new ArrayList<>(chunks.size());
+        results.add(evaluation.apply(chunks.get(0)));
+        results.addAll(awaitAll(futures));
+        return results;
+    }
+
+    /**
+     * Submits the given task to the pool, the task is run on the calling thread if the pool rejects it.
+     */
+    private <T> Future<T> submit(FutureTask<T> task) {
+        try {
+            pool.execute(task);
+        } catch (RejectedExecutionException ex) {
+            log.debug("The scheduling pool rejected a task, running it on the scheduling thread");
+            task.run();
+        }
+        return task;
+    }
+
+    /**
+     * Waits for all the given tasks to finish and returns their results. An interruption of the calling thread is
+     * deferred until they finish, the first failure of a task is thrown once they all finished.
+     */
+    private static <T> List<T> awaitAll(List<Future<T>> futures) {
+        List<T> results = new ArrayList<>(futures.size());
+        boolean interrupted = false;
+        RuntimeException failure = null;
+        for (Future<T> future : futures) {
+            while (true) {
+                try {
+                    results.add(future.get());
+                    break;
+                } catch (InterruptedException ex) {
+                    interrupted = true;
+                } catch (ExecutionException ex) {
+                    if (failure == null) {
+                        failure = ex.getCause() instanceof RuntimeException ?
+                                (RuntimeException) ex.getCause()
+                                : new RuntimeException(ex.getCause());
+                    }
+                    break;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return results;
+    }
+}
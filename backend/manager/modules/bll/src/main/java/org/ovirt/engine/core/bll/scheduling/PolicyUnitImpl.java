@@ -114,6 +114,16 @@ public abstract class PolicyUnitImpl {
         return pendingResourceManager;
     }
 
+    /**
+     * @return true if the unit evaluates each host on its own, so the hosts can be split into chunks that are
+     * evaluated concurrently
+     * @see SchedulingUnit#hostIndependent()
+     */
+    public boolean isHostIndependent() {
+        SchedulingUnit unit = getClass().getAnnotation(SchedulingUnit.class);
+        return policyUnit.isInternal() && unit != null && unit.hostIndependent();
+    }
+
     // The following methods are only used when instantiating an internal policy unit
 
     protected String getName() {
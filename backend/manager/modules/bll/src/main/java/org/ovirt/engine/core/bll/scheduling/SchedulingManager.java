@@ -22,6 +22,7 @@ import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import javax.annotation.PostConstruct;
+import javax.enterprise.concurrent.ManagedExecutorService;
 import javax.enterprise.concurrent.ManagedScheduledExecutorService;
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -139,6 +140,12 @@ public class SchedulingManager implements BackendService {
     @Inject
     @ThreadPools(ThreadPools.ThreadPoolType.EngineScheduledThreadPool)
     private ManagedScheduledExecutorService executor;
+    /**
+     * The pool host independent scheduling units are evaluated on when parallel evaluation is enabled
+     */
+    @Inject
+    @ThreadPools(ThreadPools.ThreadPoolType.SchedulingUnits)
+    private ManagedExecutorService schedulingUnitsPool;
 
     private PendingResourceManager pendingResourceManager;
 
@@ -161,6 +168,8 @@ public class SchedulingManager implements BackendService {
 
     private final int vcpuLoadPerCore = Config.<Integer>getValue(ConfigValues.VcpuConsumptionPercentage);
 
+    private PolicyUnitEvaluator policyUnitEvaluator;
+
     private PendingResourceManager getPendingResourceManager() {
         return pendingResourceManager;
     }
@@ -175,6 +184,7 @@ public class SchedulingManager implements BackendService {
     public void init() {
         log.info("Initializing Scheduling manager");
         initializePendingResourceManager();
+        initializePolicyUnitEvaluator();
         loadPolicyUnits();
         loadClusterPolicies();
         loadExternalScheduler();
@@ -187,6 +197,14 @@ public class SchedulingManager implements BackendService {
         pendingResourceManager = new PendingResourceManager(resourceManager);
     }
 
+    private void initializePolicyUnitEvaluator() {
+        int parallelism = Config.<Integer> getValue(ConfigValues.SchedulingParallelism);
+        if (parallelism > 1) {
+            log.info("Host independent scheduling units will be evaluated on {} threads", parallelism);
+        }
+        policyUnitEvaluator = new PolicyUnitEvaluator(schedulingUnitsPool, parallelism);
+    }
+
     private void loadExternalScheduler() {
         if (Config.<Boolean>getValue(ConfigValues.ExternalSchedulerEnabled)) {
             log.info("Starting external scheduler discovery thread");
@@ -362,10 +380,13 @@ public class SchedulingManager implements BackendService {
 
             Function<List<VM>, Optional<Guid>> findBestHost = group -> {
                 context.getMessages().clear();
-                refreshCachedPendingValues(hosts);
                 return selectHost(policy, hosts, group, destHostIdList, context, correlationId);
             };
 
+            // The pending values are refreshed for all hosts only once, while the batch is placed only the host
+            // that got a VM group changes, other schedulings in the cluster wait for the cluster lock
+            refreshCachedPendingValues(hosts);
+
             Map<Guid, VDS> hostsMap = hosts.stream().collect(Collectors.toMap(VDS::getId, h -> h));
 
             Set<Guid> hostsToNotifyPending = new HashSet<>();
@@ -378,6 +399,7 @@ public class SchedulingManager implements BackendService {
                     log.debug("Delaying scheduling...");
                     runVmDelayer.delay(hosts.stream().map(VDS::getId).collect(Collectors.toList()));
                     context.setCanDelay(false);
+                    refreshCachedPendingValues(hosts);
                     bestHost = findBestHost.apply(vmGroup);
                 }
 
@@ -410,6 +432,7 @@ public class SchedulingManager implements BackendService {
                     hostsToNotifyPending.add(bestHostId);
                     vfsUpdates.add(() -> markVfsAsUsedByVm(vm, bestHostId));
                 }
+                refreshCachedPendingValues(Collections.singletonList(host));
             }
 
             hostsToNotifyPending.forEach(hostId -> getPendingResourceManager().notifyHostManagers(hostId));
@@ -925,7 +948,7 @@ public class SchedulingManager implements BackendService {
                 break;
             }
             List<VDS> currentHostList = new ArrayList<>(hostList);
-            hostList = filterPolicyUnit.filter(context, hostList, vmGroup, result.getDetails());
+            hostList = policyUnitEvaluator.filter(filterPolicyUnit, context, hostList, vmGroup, result.getDetails());
             logFilterActions(currentHostList,
                     toIdSet(hostList),
                     EngineMessage.VAR__FILTERTYPE__INTERNAL,
@@ -1016,7 +1039,8 @@ public class SchedulingManager implements BackendService {
             SchedulingContext context) {
 
         for (Pair<PolicyUnitImpl, Integer> pair : context.getInternalScoreFunctions()) {
-            List<Pair<Guid, Integer>> scoreResult = pair.getFirst().score(context, hostList, vmGroup);
+            List<Pair<Guid, Integer>> scoreResult =
+                    policyUnitEvaluator.score(pair.getFirst(), context, hostList, vmGroup);
             for (Pair<Guid, Integer> result : scoreResult) {
                 selector.record(pair.getFirst().getGuid(), result.getFirst(), result.getSecond());
             }
@@ -1457,6 +1481,12 @@ public class SchedulingManager implements BackendService {
             return this;
         }
 
+        /**
+         * Places all the given VMs in a single pass: the cluster is locked and its hosts and NUMA nodes are fetched
+         * once, the pending resources of each placed VM are added before the next VM is placed.
+         *
+         * @return the host each VM was placed on, VMs that could not be placed are missing
+         */
         public Map<Guid, Guid> schedule(List<VM> vms) {
             return schedule(vms, false);
         }
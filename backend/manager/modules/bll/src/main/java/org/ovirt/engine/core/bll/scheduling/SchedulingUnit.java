@@ -15,4 +15,11 @@ public @interface SchedulingUnit {
     PolicyUnitType type() default PolicyUnitType.FILTER;
     String description() default "";
     PolicyUnitParameter[] parameters() default {};
+
+    /**
+     * Marks a filter or weight unit whose result for a host depends neither on the other candidate hosts nor on
+     * data loaded from the database, so that its results for any split of the host list, concatenated, equal
+     * its result for the whole list.
+     */
+    boolean hostIndependent() default false;
 }
@@ -41,12 +41,12 @@ public class PendingCpuCores extends PendingResource {
         return VmSpecificPendingResourceEqualizer.calcHashCode(this);
     }
 
-    public static int collectForHost(PendingResourceManager manager, Guid host) {
-        int sum = 0;
-        for (PendingCpuCores resource: manager.pendingHostResources(host, PendingCpuCores.class)) {
-            sum += resource.getCoreCount();
-        }
+    @Override
+    void updateHostSummary(PendingHostSummary summary, int sign) {
+        summary.addCpuCores(sign * getCoreCount());
+    }
 
-        return sum;
+    public static int collectForHost(PendingResourceManager manager, Guid host) {
+        return manager.hostSummary(host, summary -> (int) summary.getCpuCores());
     }
 }
@@ -31,12 +31,12 @@ public class PendingCpuLoad extends PendingResource {
         return VmSpecificPendingResourceEqualizer.calcHashCode(this);
     }
 
-    public static int collectForHost(PendingResourceManager manager, Guid host) {
-        int sum = 0;
-        for (PendingCpuLoad resource: manager.pendingHostResources(host, PendingCpuLoad.class)) {
-            sum += resource.getCpuLoad();
-        }
+    @Override
+    void updateHostSummary(PendingHostSummary summary, int sign) {
+        summary.addCpuLoad(sign * getCpuLoad());
+    }
 
-        return sum;
+    public static int collectForHost(PendingResourceManager manager, Guid host) {
+        return manager.hostSummary(host, summary -> (int) summary.getCpuLoad());
     }
 }
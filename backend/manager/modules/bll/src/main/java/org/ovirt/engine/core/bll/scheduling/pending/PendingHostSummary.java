@@ -0,0 +1,106 @@
+package org.ovirt.engine.core.bll.scheduling.pending;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Sums of the pending resources of a single host.
+ *
+ * The sums are kept up to date by {@link PendingResourceManager} when resources are added or removed,
+ * so the per host totals can be read without iterating over the pending resources.
+ * Instances are only modified while holding the lock of the manager.
+ */
+final class PendingHostSummary {
+    private long cpuCores;
+    private long memoryMb;
+    private long overcommitMemoryMb;
+    private long cpuLoad;
+    private final Map<Integer, Long> numaMemoryMb = new HashMap<>();
+    private final Map<Integer, Integer> hugePages = new HashMap<>();
+
+    void addCpuCores(long delta) {
+        cpuCores += delta;
+    }
+
+    void addMemoryMb(long delta) {
+        memoryMb += delta;
+    }
+
+    void addOvercommitMemoryMb(long delta) {
+        overcommitMemoryMb += delta;
+    }
+
+    void addCpuLoad(long delta) {
+        cpuLoad += delta;
+    }
+
+    void addNumaMemoryMb(int nodeIndex, long delta) {
+        numaMemoryMb.merge(nodeIndex, delta, (a, b) -> a + b == 0 ? null : a + b);
+    }
+
+    void addHugePages(int pageSize, int delta) {
+        hugePages.merge(pageSize, delta, (a, b) -> a + b == 0 ? null : a + b);
+    }
+
+    long getCpuCores() {
+        return cpuCores;
+    }
+
+    long getMemoryMb() {
+        return memoryMb;
+    }
+
+    long getOvercommitMemoryMb() {
+        return overcommitMemoryMb;
+    }
+
+    long getCpuLoad() {
+        return cpuLoad;
+    }
+
+    Map<Integer, Long> getNumaMemoryMb() {
+        return Collections.unmodifiableMap(new HashMap<>(numaMemoryMb));
+    }
+
+    Map<Integer, Integer> getHugePages() {
+        return Collections.unmodifiableMap(new HashMap<>(hugePages));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        PendingHostSummary that = (PendingHostSummary) o;
+        return cpuCores == that.cpuCores &&
+                memoryMb == that.memoryMb &&
+                overcommitMemoryMb == that.overcommitMemoryMb &&
+                cpuLoad == that.cpuLoad &&
+                Objects.equals(numaMemoryMb, that.numaMemoryMb) &&
+                Objects.equals(hugePages, that.hugePages);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(cpuCores, memoryMb, overcommitMemoryMb, cpuLoad, numaMemoryMb, hugePages);
+    }
+
+    @Override
+    public String toString() {
+        return "PendingHostSummary{" +
+                "cpuCores=" + cpuCores +
+                ", memoryMb=" + memoryMb +
+                ", overcommitMemoryMb=" + overcommitMemoryMb +
+                ", cpuLoad=" + cpuLoad +
+                ", numaMemoryMb=" + numaMemoryMb +
+                ", hugePages=" + hugePages +
+                '}';
+    }
+}
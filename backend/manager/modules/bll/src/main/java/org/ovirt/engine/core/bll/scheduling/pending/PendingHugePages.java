@@ -1,7 +1,5 @@
 package org.ovirt.engine.core.bll.scheduling.pending;
 
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
 
@@ -61,14 +59,12 @@ public class PendingHugePages extends PendingResource {
      * Count the map of pending hugepages:
      *   maps hugepage size -> count
      */
-    public static Map<Integer, Integer> collectForHost(PendingResourceManager manager, Guid host) {
-        Map<Integer, Integer> pageCount = new HashMap<>();
-
-        for (PendingHugePages resource: manager.pendingHostResources(host, PendingHugePages.class)) {
-            pageCount.compute(resource.getPageSize(),
-                    (hpsize, count) -> (count == null ? 0 : count) + resource.getCount());
-        }
+    @Override
+    void updateHostSummary(PendingHostSummary summary, int sign) {
+        summary.addHugePages(getPageSize(), sign * getCount());
+    }
 
-        return Collections.unmodifiableMap(pageCount);
+    public static Map<Integer, Integer> collectForHost(PendingResourceManager manager, Guid host) {
+        return manager.hostSummary(host, PendingHostSummary::getHugePages);
     }
 }
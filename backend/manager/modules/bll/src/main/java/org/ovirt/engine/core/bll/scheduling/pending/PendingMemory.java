@@ -41,12 +41,12 @@ public class PendingMemory extends PendingResource {
         return VmSpecificPendingResourceEqualizer.calcHashCode(this);
     }
 
-    public static int collectForHost(PendingResourceManager manager, Guid host) {
-        int sumMb = 0;
-        for (PendingMemory resource: manager.pendingHostResources(host, PendingMemory.class)) {
-            sumMb += resource.getSizeInMb();
-        }
+    @Override
+    void updateHostSummary(PendingHostSummary summary, int sign) {
+        summary.addMemoryMb(sign * getSizeInMb());
+    }
 
-        return sumMb;
+    public static int collectForHost(PendingResourceManager manager, Guid host) {
+        return manager.hostSummary(host, summary -> (int) summary.getMemoryMb());
     }
 }
@@ -2,7 +2,6 @@ package org.ovirt.engine.core.bll.scheduling.pending;
 
 import java.util.Map;
 import java.util.Objects;
-import java.util.stream.Collectors;
 
 import org.ovirt.engine.core.common.businessentities.VM;
 import org.ovirt.engine.core.compat.Guid;
@@ -56,12 +55,12 @@ public class PendingNumaMemory extends PendingResource {
         return Objects.hash(getHost(), getVm(), nodeIndex);
     }
 
+    @Override
+    void updateHostSummary(PendingHostSummary summary, int sign) {
+        summary.addNumaMemoryMb(getNodeIndex(), sign * getMemoryMB());
+    }
+
     public static Map<Integer, Long> collectForHost(PendingResourceManager manager, Guid hostId) {
-        return manager.pendingHostResources(hostId, PendingNumaMemory.class).stream()
-                .collect(Collectors.toMap(
-                        PendingNumaMemory::getNodeIndex,
-                        PendingNumaMemory::getMemoryMB,
-                        Long::sum
-                ));
+        return manager.hostSummary(hostId, PendingHostSummary::getNumaMemoryMb);
     }
 }
@@ -21,12 +21,12 @@ public class PendingOvercommitMemory extends PendingMemory {
         super(host, vm, sizeInMb);
     }
 
-    public static int collectForHost(PendingResourceManager manager, Guid host) {
-        int sumMb = 0;
-        for (PendingOvercommitMemory resource: manager.pendingHostResources(host, PendingOvercommitMemory.class)) {
-            sumMb += resource.getSizeInMb();
-        }
+    @Override
+    void updateHostSummary(PendingHostSummary summary, int sign) {
+        summary.addOvercommitMemoryMb(sign * getSizeInMb());
+    }
 
-        return sumMb;
+    public static int collectForHost(PendingResourceManager manager, Guid host) {
+        return manager.hostSummary(host, summary -> (int) summary.getOvercommitMemoryMb());
     }
 }
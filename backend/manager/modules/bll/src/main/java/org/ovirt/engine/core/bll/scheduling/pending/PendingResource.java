@@ -64,4 +64,17 @@ public abstract class PendingResource {
      */
     public abstract boolean equals(Object other);
     public abstract int hashCode();
+
+    /**
+     * Add the amount of this resource to the per host sums (sign 1)
+     * or remove it from them (sign -1).
+     *
+     * Resources that are summed per host by the PendingResourceManager
+     * override this, all other resources are only tracked individually.
+     *
+     * @param summary Sums of the host this resource is pending on
+     * @param sign 1 when the resource is added, -1 when it is removed
+     */
+    void updateHostSummary(PendingHostSummary summary, int sign) {
+    }
 }
@@ -1,11 +1,13 @@
 package org.ovirt.engine.core.bll.scheduling.pending;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
@@ -22,6 +24,9 @@ import org.slf4j.LoggerFactory;
  * Tracking service for all pending resources. All writes are synchronized and ensure that the internal
  * structures are consistent. Reads are best effort operations and require external locking if absolute consistency
  * is needed.
+ *
+ * The per host sums of the countable resources are maintained incrementally on every write, so the
+ * collectForHost methods of the resources do not have to iterate over all resources pending on a host.
  */
 public class PendingResourceManager {
     private static final Logger log = LoggerFactory.getLogger(PendingResourceManager.class);
@@ -30,6 +35,11 @@ public class PendingResourceManager {
     private final Map<Guid, Set<PendingResource>> resourcesByHost = new ConcurrentHashMap<>();
     private final Map<Guid, Set<PendingResource>> resourcesByVm = new ConcurrentHashMap<>();
     private final Map<PendingResource, PendingResource> pendingResources = new ConcurrentHashMap<>();
+    private final Map<Guid, PendingHostSummary> summariesByHost = new ConcurrentHashMap<>();
+
+    private static final PendingHostSummary EMPTY_SUMMARY = new PendingHostSummary();
+
+    private volatile boolean consistencyCheckEnabled;
 
     private final ResourceManager resourceManager;
 
@@ -41,6 +51,18 @@ public class PendingResourceManager {
         this.resourceManager = resourceManager;
     }
 
+    /**
+     * Verify the per host sums against the pending resources after every write.
+     *
+     * This is expensive and meant to be used by tests, an IllegalStateException is thrown
+     * when the sums do not match.
+     *
+     * @param consistencyCheckEnabled true to verify the sums
+     */
+    public void setConsistencyCheckEnabled(boolean consistencyCheckEnabled) {
+        this.consistencyCheckEnabled = consistencyCheckEnabled;
+    }
+
     /**
      * Remove all pending resources associated with the VM.
      * @param vm VmStatic with valid getId()
@@ -63,12 +85,15 @@ public class PendingResourceManager {
                 resources.stream()
                         .peek(pendingResources::remove)
                         .filter(r -> removeFromSetMap(resourcesByHost, r.getHost(), r))
+                        .peek(r -> updateHostSummary(r, -1))
                         .map(PendingResource::getHost)
                         .forEach(modifiedHosts::add);
 
                 resources.clear();
                 return resources;
             });
+
+            modifiedHosts.forEach(this::checkConsistency);
         }
 
         for (Guid hostId: modifiedHosts) {
@@ -106,6 +131,9 @@ public class PendingResourceManager {
                 resources.clear();
                 return resources;
             });
+            summariesByHost.remove(host.getId());
+
+            checkConsistency(host.getId());
         }
 
         notifyHostManagers(host.getId());
@@ -131,7 +159,10 @@ public class PendingResourceManager {
                         old, old.getHost(), old.getVm());
 
                 removeFromSetMap(resourcesByVm, old.getVm(), old);
-                removeFromSetMap(resourcesByHost, old.getHost(), old);
+                if (removeFromSetMap(resourcesByHost, old.getHost(), old)) {
+                    updateHostSummary(old, -1);
+                }
+                checkConsistency(old.getHost());
             }
 
             log.debug("Adding pending resource {} (host: {}, vm: {})",
@@ -139,11 +170,34 @@ public class PendingResourceManager {
 
             /* Update indexes */
             addToSetMap(resourcesByVm, resource.getVm(), resource);
-            addToSetMap(resourcesByHost, resource.getHost(), resource);
+            if (addToSetMap(resourcesByHost, resource.getHost(), resource)) {
+                updateHostSummary(resource, 1);
+            }
             pendingResources.put(resource, resource);
+
+            checkConsistency(resource.getHost());
         }
     }
 
+    /**
+     * Read the sums of the resources pending on a host.
+     *
+     * The getter is called while the sums cannot be modified, so it has to be quick
+     * and must not keep a reference to the summary.
+     *
+     * @param host ID of a host
+     * @param getter Function extracting the requested value from the sums of the host
+     * @return The value returned by the getter
+     */
+    <T> T hostSummary(Guid host, Function<PendingHostSummary, T> getter) {
+        List<T> result = new ArrayList<>(1);
+        summariesByHost.computeIfPresent(host, (k, summary) -> {
+            result.add(getter.apply(summary));
+            return summary;
+        });
+        return result.isEmpty() ? getter.apply(EMPTY_SUMMARY) : result.get(0);
+    }
+
     /**
      * Return all currently pending resources of type "type" associated with host "vds".
      * @param host ID of a host
@@ -227,6 +281,39 @@ public class PendingResourceManager {
         vdsManager.updatePendingData(pendingMemory, pendingCpus);
     }
 
+    private void updateHostSummary(PendingResource resource, int sign) {
+        summariesByHost.compute(resource.getHost(), (hostId, summary) -> {
+            if (summary == null) {
+                summary = new PendingHostSummary();
+            }
+
+            resource.updateHostSummary(summary, sign);
+            return summary;
+        });
+    }
+
+    /**
+     * Recompute the sums of the host from its pending resources and compare them
+     * with the incrementally maintained ones, when enabled.
+     *
+     * Has to be called while holding the lock.
+     */
+    private void checkConsistency(Guid hostId) {
+        if (!consistencyCheckEnabled) {
+            return;
+        }
+
+        PendingHostSummary expected = new PendingHostSummary();
+        resourcesByHost.getOrDefault(hostId, Collections.emptySet())
+                .forEach(r -> r.updateHostSummary(expected, 1));
+
+        PendingHostSummary actual = summariesByHost.getOrDefault(hostId, EMPTY_SUMMARY);
+        if (!expected.equals(actual)) {
+            throw new IllegalStateException(String.format(
+                    "Pending resources of host %s sum up to %s, but %s is tracked", hostId, expected, actual));
+        }
+    }
+
     /**
      * Atomically removes an element from a set that is a value in a map.
      *
@@ -255,15 +342,21 @@ public class PendingResourceManager {
      * @param map Map that contains sets of elements
      * @param id Key to the map
      * @param resource Element to be added to the set
+     *
+     * @return True if the element was not present in the set
      */
-    private static void addToSetMap(Map<Guid, Set<PendingResource>> map, Guid id, PendingResource resource) {
+    private static boolean addToSetMap(Map<Guid, Set<PendingResource>> map, Guid id, PendingResource resource) {
+        boolean[] res = {false};
+
         map.compute(id, (k, resourceSet) -> {
             if (resourceSet == null) {
                 resourceSet = new HashSet<>();
             }
 
-            resourceSet.add(resource);
+            res[0] = resourceSet.add(resource);
             return resourceSet;
         });
+
+        return res[0];
     }
 }
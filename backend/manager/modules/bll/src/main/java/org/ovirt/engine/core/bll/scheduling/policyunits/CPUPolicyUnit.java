@@ -21,7 +21,8 @@ import org.slf4j.LoggerFactory;
         guid = "6d636bf6-a35c-4f9d-b68d-0731f720cddc",
         name = "CPU",
         type = PolicyUnitType.FILTER,
-        description = "Filters out hosts with less CPUs than VM's CPUs"
+        description = "Filters out hosts with less CPUs than VM's CPUs",
+        hostIndependent = true
 )
 public class CPUPolicyUnit extends PolicyUnitImpl {
     private static final Logger log = LoggerFactory.getLogger(CPUPolicyUnit.class);
@@ -21,7 +21,8 @@ import org.slf4j.LoggerFactory;
         guid = "3e4a7d54-9e7f-11e5-8994-feff819cdc9f",
         name = "Compatibility-Version",
         type = PolicyUnitType.FILTER,
-        description = "Runs VMs only on hosts with a proper compatibility-version support"
+        description = "Runs VMs only on hosts with a proper compatibility-version support",
+        hostIndependent = true
 )
 public class CompatibilityVersionFilterPolicyUnit extends PolicyUnitImpl {
 
@@ -21,7 +21,8 @@ import org.ovirt.engine.core.compat.Guid;
         guid = "1b14ac11-20e9-4593-a149-2eb83c60a330",
         name = "CPU and NUMA pinning compatibility",
         description = "Prefers hosts where CPU pinning is compatible with NUMA node pinning",
-        type = PolicyUnitType.WEIGHT
+        type = PolicyUnitType.WEIGHT,
+        hostIndependent = true
 )
 public class CpuAndNumaPinningWeightPolicyUnit extends PolicyUnitImpl {
 
@@ -31,7 +31,8 @@ import org.slf4j.LoggerFactory;
         parameters = {
                 PolicyUnitParameter.HIGH_UTILIZATION,
                 PolicyUnitParameter.CPU_OVERCOMMIT_DURATION_MINUTES
-        }
+        },
+        hostIndependent = true
 )
 public class CpuOverloadPolicyUnit extends PolicyUnitImpl {
     private static final Logger log = LoggerFactory.getLogger(CpuOverloadPolicyUnit.class);
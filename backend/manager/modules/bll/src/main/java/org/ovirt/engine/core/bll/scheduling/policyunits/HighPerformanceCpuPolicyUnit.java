@@ -20,7 +20,8 @@ import org.ovirt.engine.core.compat.Guid;
         guid = "71931e14-f0e6-4f91-a7c8-d494a26e3a09",
         name = "CPU for high performance VMs",
         type = PolicyUnitType.WEIGHT,
-        description = "Prefers hosts that have more or equal number of sockets, cores and threads."
+        description = "Prefers hosts that have more or equal number of sockets, cores and threads.",
+        hostIndependent = true
 )
 public class HighPerformanceCpuPolicyUnit extends PolicyUnitImpl {
 
@@ -28,7 +28,8 @@ import org.slf4j.LoggerFactory;
         guid = "23e07b34-66dd-4735-bc45-bcddded02c05",
         name = "HugePages",
         type = PolicyUnitType.FILTER,
-        description = "Filters out hosts that do not have enough free huge pages"
+        description = "Filters out hosts that do not have enough free huge pages",
+        hostIndependent = true
 )
 public class HugePagesFilterPolicyUnit extends PolicyUnitImpl {
     private static final Logger log = LoggerFactory.getLogger(HugePagesFilterPolicyUnit.class);
@@ -23,7 +23,8 @@ import org.slf4j.LoggerFactory;
         guid = "fcbfe4b1-b83e-4428-b9d3-b3d348b93be6",
         name = "NUMA",
         description = "Filters out hosts that have incompatible NUMA nodes.",
-        type = PolicyUnitType.FILTER
+        type = PolicyUnitType.FILTER,
+        hostIndependent = true
 )
 public class NumaPolicyUnit extends PolicyUnitImpl {
     private static final Logger log = LoggerFactory.getLogger(NumaPolicyUnit.class);
@@ -20,7 +20,8 @@ import org.ovirt.engine.core.compat.Guid;
         guid = "f58c1cb9-d91f-48a6-a196-c6d22fb10c4e",
         name = "Fit VM to single host NUMA node",
         description = "Prefers hosts where a VM without vNUMA can fit in a single host NUMA node.",
-        type = PolicyUnitType.WEIGHT
+        type = PolicyUnitType.WEIGHT,
+        hostIndependent = true
 )
 public class NumaWeightPolicyUnit extends PolicyUnitImpl {
 
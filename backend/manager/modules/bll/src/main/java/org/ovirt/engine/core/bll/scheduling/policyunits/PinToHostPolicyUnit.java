@@ -20,7 +20,8 @@ import org.ovirt.engine.core.common.scheduling.PolicyUnitType;
         guid = "12262ab6-9690-4bc3-a2b3-35573b172d54",
         name = "PinToHost",
         description = "Filters out all hosts that VM is not pinned to",
-        type = PolicyUnitType.FILTER
+        type = PolicyUnitType.FILTER,
+        hostIndependent = true
 )
 public class PinToHostPolicyUnit extends PolicyUnitImpl {
 
@@ -28,7 +28,8 @@ import org.slf4j.LoggerFactory;
         type = PolicyUnitType.FILTER,
         parameters = {
                 PolicyUnitParameter.MAX_ALLOWED_SWAP_USAGE
-        }
+        },
+        hostIndependent = true
 )
 public class SwapFilterPolicyUnit extends PolicyUnitImpl {
     private static final Logger log = LoggerFactory.getLogger(SwapFilterPolicyUnit.class);
@@ -24,7 +24,8 @@ import org.ovirt.engine.core.vdsbroker.ResourceManager;
         guid = "b454ae40-f767-45b1-949a-7e5bd04d83ab",
         name = "VM leases ready",
         type = PolicyUnitType.FILTER,
-        description = "Filters out hosts that are not ready to support VM leases"
+        description = "Filters out hosts that are not ready to support VM leases",
+        hostIndependent = true
 )
 public class VmLeasesReadyFilterPolicyUnit extends PolicyUnitImpl {
 
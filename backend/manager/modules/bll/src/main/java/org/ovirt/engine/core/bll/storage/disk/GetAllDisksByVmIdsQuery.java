@@ -0,0 +1,76 @@
+package org.ovirt.engine.core.bll.storage.disk;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import javax.inject.Inject;
+
+import org.ovirt.engine.core.bll.QueriesCommandBase;
+import org.ovirt.engine.core.bll.context.EngineContext;
+import org.ovirt.engine.core.common.businessentities.VmDeviceId;
+import org.ovirt.engine.core.common.businessentities.storage.Disk;
+import org.ovirt.engine.core.common.businessentities.storage.DiskImage;
+import org.ovirt.engine.core.common.businessentities.storage.DiskStorageType;
+import org.ovirt.engine.core.common.businessentities.storage.DiskVmElement;
+import org.ovirt.engine.core.common.queries.IdsQueryParameters;
+import org.ovirt.engine.core.compat.Guid;
+import org.ovirt.engine.core.dao.DiskDao;
+import org.ovirt.engine.core.dao.DiskImageDao;
+import org.ovirt.engine.core.dao.DiskVmElementDao;
+
+/**
+ * Returns the disks of several VMs at once, by the ids of their VMs. The disks of each VM are the same as returned by
+ * {@link GetAllDisksByVmIdQuery} for the VM, VMs without disks are missing. The disks and their VM elements are read
+ * for all the VMs at once, the snapshots are still read per disk image.
+ */
+public class GetAllDisksByVmIdsQuery<P extends IdsQueryParameters> extends QueriesCommandBase<P> {
+    @Inject
+    private DiskDao diskDao;
+
+    @Inject
+    private DiskVmElementDao diskVmElementDao;
+
+    @Inject
+    private DiskImageDao diskImageDao;
+
+    public GetAllDisksByVmIdsQuery(P parameters, EngineContext context) {
+        super(parameters, context);
+    }
+
+    @Override
+    protected void executeQueryCommand() {
+        Map<Guid, List<Disk>> allDisksByVm =
+                diskDao.getAllForVms(getParameters().getIds(), getUserID(), getParameters().isFiltered());
+        Map<VmDeviceId, DiskVmElement> diskVmElements = allDisksByVm.isEmpty() ? Collections.emptyMap()
+                : diskVmElementDao.getAllForVms(allDisksByVm.keySet(), null, false)
+                        .stream()
+                        .collect(Collectors.toMap(DiskVmElement::getId, Function.identity()));
+
+        Map<Guid, List<Disk>> disksByVm = new HashMap<>();
+        allDisksByVm.forEach((vmId, allDisks) -> {
+            List<Disk> disks = new ArrayList<>();
+            for (Disk disk : allDisks) {
+                if (disk.getDiskStorageType() == DiskStorageType.IMAGE
+                        || disk.getDiskStorageType() == DiskStorageType.CINDER
+                        || disk.getDiskStorageType() == DiskStorageType.MANAGED_BLOCK_STORAGE) {
+                    DiskImage diskImage = (DiskImage) disk;
+                    diskImage.getSnapshots().addAll(diskImageDao.getAllSnapshotsForLeaf(diskImage.getImageId()));
+                }
+                DiskVmElement dve = diskVmElements.get(new VmDeviceId(disk.getId(), vmId));
+                if (dve != null) {
+                    disk.setDiskVmElements(Collections.singletonList(dve));
+                    disks.add(disk);
+                }
+            }
+            if (!disks.isEmpty()) {
+                disksByVm.put(vmId, disks);
+            }
+        });
+        getQueryReturnValue().setReturnValue(disksByVm);
+    }
+}
@@ -0,0 +1,37 @@
+package org.ovirt.engine.core.bll.storage.disk;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import javax.inject.Inject;
+
+import org.ovirt.engine.core.bll.QueriesCommandBase;
+import org.ovirt.engine.core.bll.context.EngineContext;
+import org.ovirt.engine.core.common.businessentities.storage.DiskVmElement;
+import org.ovirt.engine.core.common.queries.IdsQueryParameters;
+import org.ovirt.engine.core.compat.Guid;
+import org.ovirt.engine.core.dao.DiskVmElementDao;
+
+/**
+ * Returns the disk VM elements of several VMs at once, by the ids of their VMs. The elements of each VM are the same
+ * as returned by {@link GetDiskVmElementsByVmIdQuery} for the VM, VMs without disks are missing.
+ */
+public class GetDiskVmElementsByVmIdsQuery<P extends IdsQueryParameters> extends QueriesCommandBase<P> {
+
+    @Inject
+    private DiskVmElementDao diskVmElementDao;
+
+    public GetDiskVmElementsByVmIdsQuery(P parameters, EngineContext engineContext) {
+        super(parameters, engineContext);
+    }
+
+    @Override
+    protected void executeQueryCommand() {
+        Map<Guid, List<DiskVmElement>> diskVmElementsByVm = diskVmElementDao
+                .getAllForVms(getParameters().getIds(), getUserID(), getParameters().isFiltered())
+                .stream()
+                .collect(Collectors.groupingBy(DiskVmElement::getVmId));
+        getQueryReturnValue().setReturnValue(diskVmElementsByVm);
+    }
+}
@@ -0,0 +1,164 @@
+package org.ovirt.engine.core.bll.storage.ovfstore;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.ovirt.engine.core.bll.storage.disk.image.DisksFilter;
+import org.ovirt.engine.core.common.businessentities.Label;
+import org.ovirt.engine.core.common.businessentities.Permission;
+import org.ovirt.engine.core.common.businessentities.Snapshot;
+import org.ovirt.engine.core.common.businessentities.StorageServerConnections;
+import org.ovirt.engine.core.common.businessentities.VM;
+import org.ovirt.engine.core.common.businessentities.aaa.DbUser;
+import org.ovirt.engine.core.common.businessentities.storage.LUNStorageServerConnectionMap;
+import org.ovirt.engine.core.common.businessentities.storage.LunDisk;
+import org.ovirt.engine.core.common.scheduling.AffinityGroup;
+import org.ovirt.engine.core.common.utils.Pair;
+import org.ovirt.engine.core.compat.Guid;
+import org.ovirt.engine.core.dao.DbUserDao;
+import org.ovirt.engine.core.dao.LabelDao;
+import org.ovirt.engine.core.dao.PermissionDao;
+import org.ovirt.engine.core.dao.SnapshotDao;
+import org.ovirt.engine.core.dao.StorageServerConnectionDao;
+import org.ovirt.engine.core.dao.StorageServerConnectionLunMapDao;
+import org.ovirt.engine.core.dao.scheduling.AffinityGroupDao;
+
+/**
+ * Loads the data the OVF of a VM needs beside the VM itself for a chunk of VMs at once. Each kind of data is loaded
+ * by a single query for the whole chunk instead of a query per VM.
+ */
+@Singleton
+public class OvfDataLoader {
+
+    @Inject
+    private SnapshotDao snapshotDao;
+    @Inject
+    private StorageServerConnectionLunMapDao storageServerConnectionLunMapDao;
+    @Inject
+    private StorageServerConnectionDao storageServerConnectionDao;
+    @Inject
+    private AffinityGroupDao affinityGroupDao;
+    @Inject
+    private LabelDao labelDao;
+    @Inject
+    private DbUserDao dbUserDao;
+    @Inject
+    private PermissionDao permissionDao;
+
+    /**
+     * Loads the OVF data of the given VMs, the disks of the VMs are expected to be loaded already.
+     */
+    public VmsOvfData loadVmsData(Collection<VM> vms) {
+        VmsOvfData data = new VmsOvfData();
+        if (vms.isEmpty()) {
+            return data;
+        }
+
+        Set<Guid> vmIds = vms.stream().map(VM::getId).collect(Collectors.toSet());
+        data.snapshots = snapshotDao.getAllWithConfiguration(vmIds);
+        data.lunConnections = loadLunConnections(vms);
+        data.affinityGroups = affinityGroupDao.getAllAffinityGroupsByVmIds(vmIds).stream()
+                .flatMap(group -> group.getVmIds().stream()
+                        .filter(vmIds::contains)
+                        .map(vmId -> new Pair<>(vmId, group)))
+                .collect(Collectors.groupingBy(Pair::getFirst,
+                        Collectors.mapping(Pair::getSecond, Collectors.toList())));
+        data.labels = labelDao.getAllByEntityIds(vmIds).stream()
+                .flatMap(label -> label.getVms().stream()
+                        .filter(vmIds::contains)
+                        .map(vmId -> new Pair<>(vmId, label)))
+                .collect(Collectors.groupingBy(Pair::getFirst,
+                        Collectors.mapping(Pair::getSecond, Collectors.toList())));
+        data.permissions = permissionDao.getAllForObjectIds(vmIds).stream()
+                .collect(Collectors.groupingBy(Permission::getObjectId));
+        data.users = dbUserDao.getAllForVms(vmIds).stream()
+                .collect(Collectors.toMap(DbUser::getId, Function.identity()));
+        return data;
+    }
+
+    private Map<String, List<StorageServerConnections>> loadLunConnections(Collection<VM> vms) {
+        Set<String> lunIds = vms.stream()
+                .flatMap(vm -> DisksFilter.filterLunDisks(vm.getDiskMap().values()).stream())
+                .map(lunDisk -> lunDisk.getLun().getId())
+                .collect(Collectors.toSet());
+        if (lunIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        List<LUNStorageServerConnectionMap> lunConnectionMaps = storageServerConnectionLunMapDao.getAll(lunIds);
+        Map<String, StorageServerConnections> connections = storageServerConnectionDao.getByIds(
+                lunConnectionMaps.stream()
+                        .map(LUNStorageServerConnectionMap::getStorageServerConnection)
+                        .distinct()
+                        .collect(Collectors.toList()))
+                .stream()
+                .collect(Collectors.toMap(StorageServerConnections::getId, Function.identity()));
+        return lunConnectionMaps.stream()
+                .filter(lunConnectionMap -> connections.containsKey(lunConnectionMap.getStorageServerConnection()))
+                .collect(Collectors.groupingBy(LUNStorageServerConnectionMap::getLunId,
+                        Collectors.mapping(lunConnectionMap -> connections.get(
+                                lunConnectionMap.getStorageServerConnection()), Collectors.toList())));
+    }
+
+    /**
+     * The OVF data of a chunk of VMs, the data of a VM is empty if the VM has none.
+     */
+    public static class VmsOvfData {
+        private Map<Guid, List<Snapshot>> snapshots = Collections.emptyMap();
+        private Map<String, List<StorageServerConnections>> lunConnections = Collections.emptyMap();
+        private Map<Guid, List<AffinityGroup>> affinityGroups = Collections.emptyMap();
+        private Map<Guid, List<Label>> labels = Collections.emptyMap();
+        private Map<Guid, List<Permission>> permissions = Collections.emptyMap();
+        private Map<Guid, DbUser> users = Collections.emptyMap();
+
+        public List<Snapshot> getSnapshots(Guid vmId) {
+            return snapshots.getOrDefault(vmId, Collections.emptyList());
+        }
+
+        /**
+         * Sets the connections of the LUNs of the given LUN disks.
+         */
+        public void setLunConnections(List<LunDisk> lunDisks) {
+            for (LunDisk lunDisk : lunDisks) {
+                lunDisk.getLun().setLunConnections(
+                        new ArrayList<>(lunConnections.getOrDefault(lunDisk.getLun().getId(), Collections.emptyList())));
+            }
+        }
+
+        public List<AffinityGroup> getAffinityGroups(Guid vmId) {
+            return affinityGroups.getOrDefault(vmId, Collections.emptyList());
+        }
+
+        public List<Label> getLabels(Guid vmId) {
+            return labels.getOrDefault(vmId, Collections.emptyList());
+        }
+
+        public List<Permission> getPermissions(Guid vmId) {
+            return permissions.getOrDefault(vmId, Collections.emptyList());
+        }
+
+        /**
+         * Returns the users that have permissions on the VM.
+         */
+        public Set<DbUser> getDbUsers(Guid vmId) {
+            Set<DbUser> vmUsers = new HashSet<>();
+            for (Permission permission : getPermissions(vmId)) {
+                DbUser user = users.get(permission.getAdElementId());
+                if (user != null) {
+                    vmUsers.add(user);
+                }
+            }
+            return vmUsers;
+        }
+    }
+}
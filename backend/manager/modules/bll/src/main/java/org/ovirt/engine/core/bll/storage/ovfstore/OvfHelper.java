@@ -4,12 +4,14 @@ import static org.ovirt.engine.core.bll.storage.disk.image.DisksFilter.ONLY_ACTI
 import static org.ovirt.engine.core.bll.storage.disk.image.DisksFilter.ONLY_SNAPABLE;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -227,6 +229,21 @@ public class OvfHelper {
         fullEntityOvfData.setUserToRoles(userToRoles);
     }
 
+    /**
+     * Like {@link #populateUserToRoles(FullEntityOvfData, Guid)}, with the roles taken from the given permissions of
+     * the entity instead of being loaded per user.
+     */
+    public void populateUserToRoles(FullEntityOvfData fullEntityOvfData, Collection<Permission> entityPermissions) {
+        Map<String, Set<String>> userToRoles = new HashMap<>();
+        fullEntityOvfData.getDbUsers().forEach(dbUser -> userToRoles.put(dbUser.getLoginName(),
+                entityPermissions.stream()
+                        .filter(permission -> dbUser.getId().equals(permission.getAdElementId()))
+                        .map(Permission::getRoleName)
+                        .collect(Collectors.toSet())));
+
+        fullEntityOvfData.setUserToRoles(userToRoles);
+    }
+
     private void loadVmData(VM vm) {
         if (vm.getInterfaces().isEmpty()) {
             vm.setInterfaces(vmNetworkInterfaceDao.getAllForVm(vm.getId()));
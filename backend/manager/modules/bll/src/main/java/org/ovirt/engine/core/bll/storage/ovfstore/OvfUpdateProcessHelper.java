@@ -9,6 +9,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.stream.Collectors;
 
 import javax.inject.Inject;
@@ -27,6 +28,7 @@ import org.ovirt.engine.core.common.businessentities.storage.BaseDisk;
 import org.ovirt.engine.core.common.businessentities.storage.DiskImage;
 import org.ovirt.engine.core.common.businessentities.storage.DiskVmElement;
 import org.ovirt.engine.core.common.businessentities.storage.FullEntityOvfData;
+import org.ovirt.engine.core.common.utils.Pair;
 import org.ovirt.engine.core.common.vdscommands.RemoveVMVDSCommandParameters;
 import org.ovirt.engine.core.common.vdscommands.UpdateVMVDSCommandParameters;
 import org.ovirt.engine.core.common.vdscommands.VDSCommandType;
@@ -38,6 +40,7 @@ import org.ovirt.engine.core.dao.DiskVmElementDao;
 import org.ovirt.engine.core.dao.VmTemplateDao;
 import org.ovirt.engine.core.dao.network.VmNetworkInterfaceDao;
 import org.ovirt.engine.core.utils.ovf.OvfManager;
+import org.ovirt.engine.core.utils.threadpool.ThreadPoolUtil;
 import org.ovirt.engine.core.vdsbroker.ResourceManager;
 
 @Singleton
@@ -85,6 +88,31 @@ public class OvfUpdateProcessHelper {
         return vmMeta;
     }
 
+    /**
+     * Adds the metadata of the given vms to the given map. The metadata of the vms is generated concurrently, the
+     * data the metadata is generated from is expected to be loaded already. Returns the metadata of the vms in the
+     * order of the given vms.
+     */
+    public List<String> buildMetadataDictionaryForVms(List<Pair<VM, FullEntityOvfData>> vmsOvfData,
+            Map<Guid, KeyValuePairCompat<String, List<Guid>>> metaDictionary) {
+        List<String> vmsMeta = ThreadPoolUtil.invokeAll(vmsOvfData.stream()
+                .map(vmOvfData -> (Callable<String>) () -> generateVmMetadata(vmOvfData.getFirst(),
+                        vmOvfData.getSecond()))
+                .collect(Collectors.toList()));
+        if (vmsMeta == null) {
+            return Collections.emptyList();
+        }
+
+        for (int i = 0; i < vmsOvfData.size(); i++) {
+            VM vm = vmsOvfData.get(i).getFirst();
+            metaDictionary.put(
+                    vm.getId(),
+                    new KeyValuePairCompat<>(vmsMeta.get(i),
+                            vm.getDiskMap().values().stream().map(BaseDisk::getId).collect(Collectors.toList())));
+        }
+        return vmsMeta;
+    }
+
     protected String generateVmTemplateMetadata(FullEntityOvfData fullEntityOvfData) {
         return ovfManager.exportTemplate(fullEntityOvfData,
                 clusterUtils.getCompatibilityVersion(fullEntityOvfData.getVmBase()));
@@ -1,8 +1,12 @@
 package org.ovirt.engine.core.bll.storage.ovfstore;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
@@ -223,36 +227,58 @@ public class ProcessOvfUpdateForStorageDomainCommand<T extends ProcessOvfUpdateP
         }
     }
 
-    private byte[] buildOvfInfoFileByteArray(List<Guid> vmAndTemplatesIds) {
-        ByteArrayOutputStream bufferedOutputStream = new ByteArrayOutputStream();
+    /**
+     * Writes the OVF_STORE archive of the given vms and templates to a temporary file. The OVFs are loaded and written
+     * to the archive chunk by chunk, so only a chunk of OVFs is held in memory at a time.
+     */
+    private Path buildOvfStoreArchive(List<Guid> vmAndTemplatesIds) {
         Set<Guid> processedIds = new HashSet<>();
+        Path archive = null;
 
-        try (InMemoryTar inMemoryTar = new InMemoryTar(bufferedOutputStream)) {
-            inMemoryTar.addTarEntry(generateInfoFileData().getBytes(),
-                    OvfInfoFileConstants.InfoFileName);
-            Map<String, Object> metaDataForEntities = generateMetaDataFile(vmAndTemplatesIds);
-            int i = 0;
-            while (i < vmAndTemplatesIds.size()) {
-                int size =
-                        Math.min(StorageConstants.OVF_MAX_ITEMS_PER_SQL_STATEMENT, vmAndTemplatesIds.size() - i);
-                List<Guid> idsToProcess = vmAndTemplatesIds.subList(i, i + size);
-                i += size;
-
-                List<Pair<Guid, String>> ovfs = vmAndTemplatesGenerationsDao.loadOvfDataForIds(idsToProcess);
-                if (!ovfs.isEmpty()) {
-                    processedIds.addAll(buildFilesForOvfs(ovfs, inMemoryTar));
+        try {
+            archive = Files.createTempFile("ovf-store-", ".tar");
+            try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(archive));
+                    InMemoryTar tar = new InMemoryTar(outputStream)) {
+                tar.addTarEntry(generateInfoFileData().getBytes(),
+                        OvfInfoFileConstants.InfoFileName);
+                Map<String, Object> metaDataForEntities = generateMetaDataFile(vmAndTemplatesIds);
+                int i = 0;
+                while (i < vmAndTemplatesIds.size()) {
+                    int size =
+                            Math.min(StorageConstants.OVF_MAX_ITEMS_PER_SQL_STATEMENT, vmAndTemplatesIds.size() - i);
+                    List<Guid> idsToProcess = vmAndTemplatesIds.subList(i, i + size);
+                    i += size;
+
+                    List<Pair<Guid, String>> ovfs = vmAndTemplatesGenerationsDao.loadOvfDataForIds(idsToProcess);
+                    if (!ovfs.isEmpty()) {
+                        processedIds.addAll(buildFilesForOvfs(ovfs, tar));
+                    }
                 }
-            }
 
-            List<Pair<Guid, String>> unprocessedOvfData = retrieveUnprocessedUnregisteredOvfData(processedIds, metaDataForEntities);
-            inMemoryTar.addTarEntry(buildJson(metaDataForEntities, true).getBytes(), OvfInfoFileConstants.MetaDataFileName);
-            buildFilesForOvfs(unprocessedOvfData, inMemoryTar);
+                List<Pair<Guid, String>> unprocessedOvfData = retrieveUnprocessedUnregisteredOvfData(processedIds, metaDataForEntities);
+                tar.addTarEntry(buildJson(metaDataForEntities, true).getBytes(), OvfInfoFileConstants.MetaDataFileName);
+                buildFilesForOvfs(unprocessedOvfData, tar);
+            }
         } catch (Exception e) {
-            throw new RuntimeException(String.format("Exception while building in memory tar of the OVFs of domain %s",
+            deleteOvfStoreArchive(archive);
+            throw new RuntimeException(String.format("Exception while building the tar of the OVFs of domain %s",
                     getParameters().getStorageDomainId()), e);
         }
 
-        return bufferedOutputStream.toByteArray();
+        return archive;
+    }
+
+    private void deleteOvfStoreArchive(Path archive) {
+        if (archive == null) {
+            return;
+        }
+
+        try {
+            Files.deleteIfExists(archive);
+        } catch (IOException e) {
+            log.warn("Failed to delete the OVF_STORE archive '{}': {}", archive, e.getMessage());
+            log.debug("Exception", e);
+        }
     }
 
     private List<Pair<Guid, String>> retrieveUnprocessedUnregisteredOvfData(Set<Guid> processedIds,
@@ -285,38 +311,41 @@ public class ProcessOvfUpdateForStorageDomainCommand<T extends ProcessOvfUpdateP
 
         vmAndTemplatesIds.addAll(vmStaticDao.getVmAndTemplatesIdsWithoutAttachedImageDisks(getParameters().getStoragePoolId(), false));
 
-        byte[] bytes = buildOvfInfoFileByteArray(vmAndTemplatesIds);
-
-        Pair<StorageDomainOvfInfo, DiskImage> lastOvfStoreForUpdate = domainOvfStoresInfoForUpdate.getLast();
-
-        // means that the last ovf store was never updated, if it was - we don't want to update
-        // it within the loop unless some other ovf store was updated successfully (we use it as best effort backup so
-        // we'll
-        // possibly have some ovf data on storage)
-        if (lastOvfStoreForUpdate.getFirst().getLastUpdated() != null) {
-            domainOvfStoresInfoForUpdate.removeLast();
-        } else {
-            lastOvfStoreForUpdate = null;
-        }
+        Path archive = buildOvfStoreArchive(vmAndTemplatesIds);
+        try {
+            Pair<StorageDomainOvfInfo, DiskImage> lastOvfStoreForUpdate = domainOvfStoresInfoForUpdate.getLast();
+
+            // means that the last ovf store was never updated, if it was - we don't want to update
+            // it within the loop unless some other ovf store was updated successfully (we use it as best effort backup so
+            // we'll
+            // possibly have some ovf data on storage)
+            if (lastOvfStoreForUpdate.getFirst().getLastUpdated() != null) {
+                domainOvfStoresInfoForUpdate.removeLast();
+            } else {
+                lastOvfStoreForUpdate = null;
+            }
 
-        boolean shouldUpdateLastOvfStore = false;
-        failedOvfDisks = new ArrayList<>();
+            boolean shouldUpdateLastOvfStore = false;
+            failedOvfDisks = new ArrayList<>();
 
-        for (Pair<StorageDomainOvfInfo, DiskImage> pair : domainOvfStoresInfoForUpdate) {
-            shouldUpdateLastOvfStore |=
-                    performOvfUpdateForDomain(bytes,
-                            pair.getFirst(),
-                            pair.getSecond(),
-                            vmAndTemplatesIds);
-        }
+            for (Pair<StorageDomainOvfInfo, DiskImage> pair : domainOvfStoresInfoForUpdate) {
+                shouldUpdateLastOvfStore |=
+                        performOvfUpdateForDomain(archive,
+                                pair.getFirst(),
+                                pair.getSecond(),
+                                vmAndTemplatesIds);
+            }
 
-        // if we successfully updated any ovf store, we can attempt to also update the one we kept for best effort
-        // backup (if we did)
-        if (shouldUpdateLastOvfStore && lastOvfStoreForUpdate != null) {
-            performOvfUpdateForDomain(bytes,
-                    lastOvfStoreForUpdate.getFirst(),
-                    lastOvfStoreForUpdate.getSecond(),
-                    vmAndTemplatesIds);
+            // if we successfully updated any ovf store, we can attempt to also update the one we kept for best effort
+            // backup (if we did)
+            if (shouldUpdateLastOvfStore && lastOvfStoreForUpdate != null) {
+                performOvfUpdateForDomain(archive,
+                        lastOvfStoreForUpdate.getFirst(),
+                        lastOvfStoreForUpdate.getSecond(),
+                        vmAndTemplatesIds);
+            }
+        } finally {
+            deleteOvfStoreArchive(archive);
         }
 
         if (!failedOvfDisks.isEmpty()) {
@@ -347,7 +376,7 @@ public class ProcessOvfUpdateForStorageDomainCommand<T extends ProcessOvfUpdateP
         runVdsCommand(VDSCommandType.SetVolumeDescription, vdsCommandParameters);
     }
 
-    private boolean performOvfUpdateForDomain(byte[] ovfData,
+    private boolean performOvfUpdateForDomain(Path ovfStoreArchive,
             StorageDomainOvfInfo storageDomainOvfInfo,
             DiskImage ovfDisk,
             List<Guid> vmAndTemplatesIds) {
@@ -367,20 +396,20 @@ public class ProcessOvfUpdateForStorageDomainCommand<T extends ProcessOvfUpdateP
 
             storageDomainOvfInfoDao.update(storageDomainOvfInfo);
 
-            ByteArrayInputStream byteArrayInputStream =
-                    new ByteArrayInputStream(ovfData);
-
-            Long size = Long.valueOf(ovfData.length);
-            UploadStreamParameters uploadStreamParameters =
-                    new UploadStreamParameters(storagePoolId, storageDomainId,
-                            diskId, volumeId, byteArrayInputStream,
-                            size);
-
-            uploadStreamParameters.setParentCommand(getActionType());
-            uploadStreamParameters.setParentParameters(getParameters());
-            uploadStreamParameters.setEndProcedure(EndProcedure.COMMAND_MANAGED);
-            ActionReturnValue actionReturnValue =
-                    runInternalActionWithTasksContext(ActionType.UploadStream, uploadStreamParameters);
+            Long size = Files.size(ovfStoreArchive);
+            ActionReturnValue actionReturnValue;
+            try (InputStream inputStream = new BufferedInputStream(Files.newInputStream(ovfStoreArchive))) {
+                UploadStreamParameters uploadStreamParameters =
+                        new UploadStreamParameters(storagePoolId, storageDomainId,
+                                diskId, volumeId, inputStream,
+                                size);
+
+                uploadStreamParameters.setParentCommand(getActionType());
+                uploadStreamParameters.setParentParameters(getParameters());
+                uploadStreamParameters.setEndProcedure(EndProcedure.COMMAND_MANAGED);
+                actionReturnValue =
+                        runInternalActionWithTasksContext(ActionType.UploadStream, uploadStreamParameters);
+            }
             if (actionReturnValue.getSucceeded()) {
                 storageDomainOvfInfo.setStatus(StorageDomainOvfInfoStatus.UPDATED);
                 storageDomainOvfInfo.setStoredOvfIds(vmAndTemplatesIds);
@@ -392,7 +421,7 @@ public class ProcessOvfUpdateForStorageDomainCommand<T extends ProcessOvfUpdateP
                 imageDao.update(ovfDisk.getImage());
                 return true;
             }
-        } catch (EngineException e) {
+        } catch (EngineException | IOException e) {
             log.warn("failed to update domain '{}' ovf store disk '{}'", storageDomainId, diskId);
         }
 
@@ -465,11 +494,11 @@ public class ProcessOvfUpdateForStorageDomainCommand<T extends ProcessOvfUpdateP
         }
     }
 
-    protected Set<Guid> buildFilesForOvfs(List<Pair<Guid, String>> ovfs, InMemoryTar inMemoryTar) throws Exception {
+    protected Set<Guid> buildFilesForOvfs(List<Pair<Guid, String>> ovfs, InMemoryTar tar) throws Exception {
         Set<Guid> addedOvfIds = new HashSet<>();
         for (Pair<Guid, String> pair : ovfs) {
             if (pair.getSecond() != null) {
-                inMemoryTar.addTarEntry(pair.getSecond().getBytes(), pair.getFirst() + ".ovf");
+                tar.addTarEntry(pair.getSecond().getBytes(), pair.getFirst() + ".ovf");
                 addedOvfIds.add(pair.getFirst());
             }
         }
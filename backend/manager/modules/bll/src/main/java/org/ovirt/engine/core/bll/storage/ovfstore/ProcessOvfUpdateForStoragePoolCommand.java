@@ -9,6 +9,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import javax.inject.Inject;
 
@@ -20,10 +21,10 @@ import org.ovirt.engine.core.bll.VmTemplateHandler;
 import org.ovirt.engine.core.bll.context.CommandContext;
 import org.ovirt.engine.core.bll.storage.StorageHandlingCommandBase;
 import org.ovirt.engine.core.bll.storage.disk.image.DisksFilter;
+import org.ovirt.engine.core.bll.storage.ovfstore.OvfDataLoader.VmsOvfData;
 import org.ovirt.engine.core.common.AuditLogType;
 import org.ovirt.engine.core.common.action.LockProperties;
 import org.ovirt.engine.core.common.action.ProcessOvfUpdateParameters;
-import org.ovirt.engine.core.common.businessentities.Label;
 import org.ovirt.engine.core.common.businessentities.Snapshot;
 import org.ovirt.engine.core.common.businessentities.StorageDomain;
 import org.ovirt.engine.core.common.businessentities.StorageDomainOvfInfo;
@@ -34,7 +35,6 @@ import org.ovirt.engine.core.common.businessentities.VM;
 import org.ovirt.engine.core.common.businessentities.VMStatus;
 import org.ovirt.engine.core.common.businessentities.VmTemplate;
 import org.ovirt.engine.core.common.businessentities.VmTemplateStatus;
-import org.ovirt.engine.core.common.businessentities.aaa.DbUser;
 import org.ovirt.engine.core.common.businessentities.storage.DiskImage;
 import org.ovirt.engine.core.common.businessentities.storage.FullEntityOvfData;
 import org.ovirt.engine.core.common.businessentities.storage.ImageStatus;
@@ -44,21 +44,15 @@ import org.ovirt.engine.core.common.config.ConfigValues;
 import org.ovirt.engine.core.common.constants.StorageConstants;
 import org.ovirt.engine.core.common.errors.EngineMessage;
 import org.ovirt.engine.core.common.locks.LockingGroup;
-import org.ovirt.engine.core.common.scheduling.AffinityGroup;
 import org.ovirt.engine.core.common.utils.Pair;
 import org.ovirt.engine.core.compat.Guid;
 import org.ovirt.engine.core.compat.KeyValuePairCompat;
-import org.ovirt.engine.core.dao.DbUserDao;
-import org.ovirt.engine.core.dao.LabelDao;
-import org.ovirt.engine.core.dao.SnapshotDao;
 import org.ovirt.engine.core.dao.StorageDomainDao;
 import org.ovirt.engine.core.dao.StorageDomainOvfInfoDao;
-import org.ovirt.engine.core.dao.StorageServerConnectionDao;
 import org.ovirt.engine.core.dao.VmAndTemplatesGenerationsDao;
 import org.ovirt.engine.core.dao.VmDao;
 import org.ovirt.engine.core.dao.VmStaticDao;
 import org.ovirt.engine.core.dao.VmTemplateDao;
-import org.ovirt.engine.core.dao.scheduling.AffinityGroupDao;
 
 @NonTransactiveCommandAttribute
 @InternalCommandAttribute
@@ -75,25 +69,17 @@ public class ProcessOvfUpdateForStoragePoolCommand <T extends ProcessOvfUpdatePa
     @Inject
     private VmStaticDao vmStaticDao;
     @Inject
-    private SnapshotDao snapshotDao;
-    @Inject
     private StorageDomainDao storageDomainDao;
     @Inject
     private StorageDomainOvfInfoDao storageDomainOvfInfoDao;
     @Inject
-    private StorageServerConnectionDao storageServerConnectionDao;
-    @Inject
     private VmTemplateDao vmTemplateDao;
     @Inject
     private VmDao vmDao;
     @Inject
-    private AffinityGroupDao affinityGroupDao;
-    @Inject
-    private LabelDao labelDao;
-    @Inject
-    private DbUserDao dbUserDao;
-    @Inject
     private OvfHelper ovfHelper;
+    @Inject
+    private OvfDataLoader ovfDataLoader;
 
     private int itemsCountPerUpdate;
     private List<Guid> proccessedIdsInfo;
@@ -236,25 +222,31 @@ public class ProcessOvfUpdateForStoragePoolCommand <T extends ProcessOvfUpdatePa
     protected Map<Guid, KeyValuePairCompat<String, List<Guid>>> populateTemplatesMetadataForOvfUpdate(List<Guid> idsToProcess) {
         Map<Guid, KeyValuePairCompat<String, List<Guid>>> vmsAndTemplateMetadata = new HashMap<>();
         List<VmTemplate> templates = vmTemplateDao.getVmTemplatesByIds(idsToProcess);
-
+        List<VmTemplate> templatesToUpdate = new ArrayList<>();
         for (VmTemplate template : templates) {
             if (VmTemplateStatus.Locked != template.getStatus()) {
                 updateTemplateDisksFromDb(template);
                 boolean verifyDisksNotLocked = verifyImagesStatus(template.getDiskList());
                 if (verifyDisksNotLocked) {
                     ovfUpdateProcessHelper.loadTemplateData(template);
-                    Long currentDbGeneration = vmStaticDao.getDbGeneration(template.getId());
-                    // currentDbGeneration can be null in case that the template was deleted during the run of OvfDataUpdater.
-                    if (currentDbGeneration != null && template.getDbGeneration() == currentDbGeneration) {
-                        proccessedOvfConfigurationsInfo.add(ovfUpdateProcessHelper.buildMetadataDictionaryForTemplate(template, vmsAndTemplateMetadata));
-                        proccessedIdsInfo.add(template.getId());
-                        proccessedOvfGenerationsInfo.add(template.getDbGeneration());
-                        proccessDisksDomains(template.getDiskList());
-                    }
+                    templatesToUpdate.add(template);
                 }
             }
         }
 
+        Map<Guid, Long> currentDbGenerations = getCurrentDbGenerations(
+                templatesToUpdate.stream().map(VmTemplate::getId).collect(Collectors.toList()));
+        for (VmTemplate template : templatesToUpdate) {
+            Long currentDbGeneration = currentDbGenerations.get(template.getId());
+            // currentDbGeneration can be null in case that the template was deleted during the run of OvfDataUpdater.
+            if (currentDbGeneration != null && template.getDbGeneration() == currentDbGeneration) {
+                proccessedOvfConfigurationsInfo.add(ovfUpdateProcessHelper.buildMetadataDictionaryForTemplate(template, vmsAndTemplateMetadata));
+                proccessedIdsInfo.add(template.getId());
+                proccessedOvfGenerationsInfo.add(template.getDbGeneration());
+                proccessDisksDomains(template.getDiskList());
+            }
+        }
+
         return vmsAndTemplateMetadata;
     }
 
@@ -321,6 +313,8 @@ public class ProcessOvfUpdateForStoragePoolCommand <T extends ProcessOvfUpdatePa
      */
     protected Map<Guid, KeyValuePairCompat<String, List<Guid>>> populateVmsMetadataForOvfUpdate(List<Guid> idsToProcess) {
         Map<Guid, KeyValuePairCompat<String, List<Guid>>> vmsAndTemplateMetadata = new HashMap<>();
+        List<VM> vmsToUpdate = new ArrayList<>();
+        Map<Guid, ArrayList<DiskImage>> vmsImages = new HashMap<>();
         List<VM> vms = vmDao.getVmsByIds(idsToProcess);
         for (VM vm : vms) {
             if (VMStatus.ImageLocked != vm.getStatus()) {
@@ -332,47 +326,69 @@ public class ProcessOvfUpdateForStoragePoolCommand <T extends ProcessOvfUpdatePa
                 if (!verifyImagesStatus(vmImages)) {
                     continue;
                 }
-                vm.setSnapshots(snapshotDao.getAllWithConfiguration(vm.getId()));
-                if (!verifySnapshotsStatus(vm.getSnapshots())) {
-                    continue;
-                }
+                vmsToUpdate.add(vm);
+                vmsImages.put(vm.getId(), vmImages);
+            }
+        }
 
-                ovfUpdateProcessHelper.loadVmData(vm);
-                Long currentDbGeneration = vmStaticDao.getDbGeneration(vm.getId());
-                if (currentDbGeneration == null) {
-                    log.warn("currentDbGeneration of VM (name: '{}', id: '{}') is null, probably because the VM was deleted during the run of OvfDataUpdater.",
-                            vm.getName(),
-                            vm.getId());
-                    continue;
-                }
-                if (vm.getStaticData().getDbGeneration() == currentDbGeneration) {
-                    List<LunDisk> lunDisks = DisksFilter.filterLunDisks(vm.getDiskMap().values());
-                    for (LunDisk lun : lunDisks) {
-                        lun.getLun().setLunConnections(storageServerConnectionDao.getAllForLun(lun.getLun().getId()));
-                    }
-
-                    List<AffinityGroup> affinityGroups = affinityGroupDao.getAllAffinityGroupsByVmId(vm.getId());
-                    List<Label> affinityLabels = labelDao.getAllByEntityIds(Collections.singletonList(vm.getId()));
-                    Set<DbUser> dbUsers = new HashSet<>(dbUserDao.getAllForVm(vm.getId()));
-                    FullEntityOvfData fullEntityOvfData = new FullEntityOvfData(vm);
-                    fullEntityOvfData.setDiskImages(vmImages);
-                    fullEntityOvfData.setLunDisks(lunDisks);
-                    fullEntityOvfData.setAffinityGroups(affinityGroups);
-                    fullEntityOvfData.setAffinityLabels(affinityLabels);
-                    fullEntityOvfData.setDbUsers(dbUsers);
-                    ovfHelper.populateUserToRoles(fullEntityOvfData, vm.getId());
-                    proccessedOvfConfigurationsInfo.add(ovfUpdateProcessHelper.buildMetadataDictionaryForVm(vm,
-                            vmsAndTemplateMetadata,
-                            fullEntityOvfData));
-                    proccessedIdsInfo.add(vm.getId());
-                    proccessedOvfGenerationsInfo.add(vm.getStaticData().getDbGeneration());
-                    proccessDisksDomains(vm.getDiskList());
-                }
+        VmsOvfData vmsOvfData = ovfDataLoader.loadVmsData(vmsToUpdate);
+        List<VM> loadedVms = new ArrayList<>();
+        for (VM vm : vmsToUpdate) {
+            vm.setSnapshots(vmsOvfData.getSnapshots(vm.getId()));
+            if (!verifySnapshotsStatus(vm.getSnapshots())) {
+                continue;
             }
+
+            ovfUpdateProcessHelper.loadVmData(vm);
+            loadedVms.add(vm);
+        }
+
+        Map<Guid, Long> currentDbGenerations = getCurrentDbGenerations(
+                loadedVms.stream().map(VM::getId).collect(Collectors.toList()));
+        List<Pair<VM, FullEntityOvfData>> vmsOvfDataForUpdate = new ArrayList<>();
+        for (VM vm : loadedVms) {
+            Long currentDbGeneration = currentDbGenerations.get(vm.getId());
+            if (currentDbGeneration == null) {
+                log.warn("currentDbGeneration of VM (name: '{}', id: '{}') is null, probably because the VM was deleted during the run of OvfDataUpdater.",
+                        vm.getName(),
+                        vm.getId());
+                continue;
+            }
+            if (vm.getStaticData().getDbGeneration() == currentDbGeneration) {
+                List<LunDisk> lunDisks = DisksFilter.filterLunDisks(vm.getDiskMap().values());
+                vmsOvfData.setLunConnections(lunDisks);
+
+                FullEntityOvfData fullEntityOvfData = new FullEntityOvfData(vm);
+                fullEntityOvfData.setDiskImages(vmsImages.get(vm.getId()));
+                fullEntityOvfData.setLunDisks(lunDisks);
+                fullEntityOvfData.setAffinityGroups(vmsOvfData.getAffinityGroups(vm.getId()));
+                fullEntityOvfData.setAffinityLabels(vmsOvfData.getLabels(vm.getId()));
+                fullEntityOvfData.setDbUsers(vmsOvfData.getDbUsers(vm.getId()));
+                ovfHelper.populateUserToRoles(fullEntityOvfData, vmsOvfData.getPermissions(vm.getId()));
+                vmsOvfDataForUpdate.add(new Pair<>(vm, fullEntityOvfData));
+            }
+        }
+
+        proccessedOvfConfigurationsInfo.addAll(
+                ovfUpdateProcessHelper.buildMetadataDictionaryForVms(vmsOvfDataForUpdate, vmsAndTemplateMetadata));
+        for (Pair<VM, FullEntityOvfData> vmOvfData : vmsOvfDataForUpdate) {
+            VM vm = vmOvfData.getFirst();
+            proccessedIdsInfo.add(vm.getId());
+            proccessedOvfGenerationsInfo.add(vm.getStaticData().getDbGeneration());
+            proccessDisksDomains(vm.getDiskList());
         }
         return vmsAndTemplateMetadata;
     }
 
+    /**
+     * Returns the current db generations of the given VMs or templates, to be called once their data is loaded. A VM or
+     * template changed while its data was loaded is then skipped, instead of having an OVF mixing its data from before
+     * and after the change recorded as up to date.
+     */
+    private Map<Guid, Long> getCurrentDbGenerations(List<Guid> ids) {
+        return ids.isEmpty() ? Collections.emptyMap() : vmStaticDao.getDbGenerations(ids);
+    }
+
     protected void proccessDisksDomains(List<DiskImage> disks) {
         if (disks.isEmpty()) {
             proccessedDomains.addAll(activeDataDomainsIds);
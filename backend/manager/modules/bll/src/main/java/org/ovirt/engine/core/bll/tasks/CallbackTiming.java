@@ -1,13 +1,17 @@
 package org.ovirt.engine.core.bll.tasks;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 import org.ovirt.engine.core.bll.tasks.interfaces.CommandCallback;
 
 class CallbackTiming {
+    static final long UNSCHEDULED = -1;
+
     // Total delay between callback executions
     private long initialDelay;
 
-    // Remaining delay to next callback execution
-    private long remainingDelay;
+    // Time of the next callback execution on the clock of the CallbacksSchedule, or UNSCHEDULED
+    private final AtomicLong dueTime = new AtomicLong(UNSCHEDULED);
     private CommandCallback callback;
 
     // the end-time, where the callback shouldn't wait for the event any longer and change to polling mode
@@ -16,7 +20,6 @@ class CallbackTiming {
     public CallbackTiming(CommandCallback callback, long executionDelay) {
         this.callback = callback;
         this.initialDelay = executionDelay;
-        this.remainingDelay = executionDelay;
     }
 
     public long getInitialDelay() {
@@ -27,8 +30,35 @@ class CallbackTiming {
         this.initialDelay = initialDelay;
     }
 
-    public long getRemainingDelay() {
-        return remainingDelay;
+    public long getDueTime() {
+        return dueTime.get();
+    }
+
+    /**
+     * Sets the time of the next callback execution, unless the callback is already scheduled for the same or an
+     * earlier time.
+     *
+     * @return {@code true} if the time was set
+     */
+    boolean setDueTimeIfEarlier(long dueTime) {
+        while (true) {
+            long current = this.dueTime.get();
+            if (current != UNSCHEDULED && current <= dueTime) {
+                return false;
+            }
+            if (this.dueTime.compareAndSet(current, dueTime)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Marks the callback as no longer scheduled, unless it was scheduled again for a different time meanwhile.
+     *
+     * @return {@code true} if the callback was scheduled for the given time
+     */
+    boolean clearDueTime(long expectedDueTime) {
+        return dueTime.compareAndSet(expectedDueTime, UNSCHEDULED);
     }
 
     public void setWaitOnEventEndTime(long waitOnEventEndTime) {
@@ -39,10 +69,6 @@ class CallbackTiming {
         return waitOnEventEndTime;
     }
 
-    public void setRemainingDelay(long remainingDelay) {
-        this.remainingDelay = remainingDelay;
-    }
-
     public CommandCallback getCallback() {
         return callback;
     }
@@ -0,0 +1,102 @@
+package org.ovirt.engine.core.bll.tasks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.PriorityBlockingQueue;
+
+import org.ovirt.engine.core.compat.Guid;
+
+/**
+ * Orders the command callbacks by the time their next invocation is due, so the {@link CommandCallbacksPoller} only
+ * visits the callbacks that are due and callbacks waiting for a later time cost nothing.
+ * <p>
+ * The time is measured by a clock that is advanced by the poller for every polling cycle, in seconds. A callback
+ * scheduled with a delay is due once the clock advanced by the delay, the same as a remaining delay that is
+ * decremented on every cycle. A callback scheduled again keeps the earlier of its times, so a callback made due by
+ * an event is not delayed by a later scheduling that raced with it. The queued entry of a replaced time is dropped
+ * when it is polled.
+ * <p>
+ * A due entry carries the {@link CallbackTiming} it was scheduled for. The timing of a command may be replaced while
+ * its entry is queued, so the poller has to check that the timing of a due entry is still the command's one, else the
+ * entry of the replaced timing would invoke the callback in addition to the entry of the new one.
+ */
+class CallbacksSchedule {
+
+    private final PriorityBlockingQueue<ScheduledCallback> queue = new PriorityBlockingQueue<>();
+    private volatile long clock;
+
+    /**
+     * Advances the clock, only called by the poller.
+     *
+     * @param seconds
+     *            the length of the polling cycle
+     */
+    void advance(long seconds) {
+        clock += seconds;
+    }
+
+    /**
+     * Schedules the callback to be due after the given delay, unless it is already scheduled to be due sooner.
+     */
+    void schedule(Guid commandId, CallbackTiming callbackTiming, long delay) {
+        long dueTime = clock + Math.max(0, delay);
+        if (callbackTiming.setDueTimeIfEarlier(dueTime)) {
+            queue.add(new ScheduledCallback(commandId, callbackTiming, dueTime));
+        }
+    }
+
+    /**
+     * Removes the callbacks that are due from the schedule. The callbacks have to be scheduled again in order to be
+     * invoked again.
+     *
+     * @return the callbacks that are due, ordered by the time they got due
+     */
+    List<ScheduledCallback> pollDue() {
+        long now = clock;
+        List<ScheduledCallback> due = new ArrayList<>();
+        ScheduledCallback scheduledCallback;
+        while ((scheduledCallback = queue.poll()) != null) {
+            if (scheduledCallback.dueTime > now) {
+                queue.add(scheduledCallback);
+                break;
+            }
+
+            if (scheduledCallback.callbackTiming.clearDueTime(scheduledCallback.dueTime)) {
+                due.add(scheduledCallback);
+            }
+        }
+        return due;
+    }
+
+    /**
+     * @return the number of queued entries, including entries replaced by a later scheduling
+     */
+    int size() {
+        return queue.size();
+    }
+
+    static class ScheduledCallback implements Comparable<ScheduledCallback> {
+        private final Guid commandId;
+        private final CallbackTiming callbackTiming;
+        private final long dueTime;
+
+        ScheduledCallback(Guid commandId, CallbackTiming callbackTiming, long dueTime) {
+            this.commandId = commandId;
+            this.callbackTiming = callbackTiming;
+            this.dueTime = dueTime;
+        }
+
+        Guid getCommandId() {
+            return commandId;
+        }
+
+        CallbackTiming getCallbackTiming() {
+            return callbackTiming;
+        }
+
+        @Override
+        public int compareTo(ScheduledCallback other) {
+            return Long.compare(dueTime, other.dueTime);
+        }
+    }
+}
@@ -75,6 +75,8 @@ public class CoCoEventSubscriber extends EventSubscriber {
             if (commandEntityFromCache != null) {
                 commandEntityFromCache.setWaitingForEvent(false);
             }
+            // the callback continues right away instead of waiting for the event's timeout
+            commandsRepository.wakeUpCallback(cmdId);
         }
     }
 }
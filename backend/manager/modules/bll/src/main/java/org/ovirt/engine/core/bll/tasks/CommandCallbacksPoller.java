@@ -1,9 +1,7 @@
 package org.ovirt.engine.core.bll.tasks;
 
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
-import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
@@ -27,8 +25,15 @@ import org.ovirt.engine.core.utils.threadpool.ThreadPools;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Invokes the callbacks of the commands when they are due. The callbacks are kept in a schedule ordered by their
+ * next due time, so a polling cycle only visits the due callbacks. A callback whose command received the event it
+ * was waiting for is invoked right away, without waiting for the next cycle.
+ */
 public class CommandCallbacksPoller implements BackendService {
 
+    private static final long EXPIRED_COMMANDS_CHECK_INTERVAL = TimeUnit.MINUTES.toMillis(1);
+
     @Inject
     @ThreadPools(ThreadPools.ThreadPoolType.EngineScheduledThreadPool)
     private ManagedScheduledExecutorService executor;
@@ -43,12 +48,15 @@ public class CommandCallbacksPoller implements BackendService {
 
     private int repeatEndMethodsOnFailMaxRetries;
 
+    private long lastExpiredCommandsCheck;
+
     @PostConstruct
-    private void init() {
+    void init() {
         log.info("Start initializing {}", getClass().getSimpleName());
         pollingRate = Config.<Long>getValue(ConfigValues.AsyncCommandPollingLoopInSeconds);
         repeatEndMethodsOnFailMaxRetries = Config.<Integer>getValue(ConfigValues.RepeatEndMethodsOnFailMaxRetries);
         initCommandExecutor();
+        commandsRepository.setCallbackWakeUpListener(this::wakeUp);
         executor.scheduleWithFixedDelay(this::invokeCallbackMethods,
                 pollingRate,
                 pollingRate,
@@ -106,12 +114,42 @@ public class CommandCallbacksPoller implements BackendService {
 
     private void invokeCallbackMethods() {
         try {
+            commandsRepository.advanceCallbacksClock(pollingRate);
             invokeCallbackMethodsImpl();
+            markExpiredCommandsAsFailure();
         } catch (Throwable t) {
             logInvocationCallbackError(t);
         }
     }
 
+    /**
+     * Invokes the callbacks made due by an event on the executor, without advancing the clock of the schedule.
+     */
+    private void wakeUp() {
+        executor.execute(() -> {
+            try {
+                invokeCallbackMethodsImpl();
+            } catch (Throwable t) {
+                logInvocationCallbackError(t);
+            }
+        });
+    }
+
+    /**
+     * Looking for expired commands requires all of them, so it is done once in a while and not on every cycle.
+     */
+    private void markExpiredCommandsAsFailure() {
+        long now = currentTimeMillis();
+        if (now - lastExpiredCommandsCheck >= EXPIRED_COMMANDS_CHECK_INTERVAL) {
+            lastExpiredCommandsCheck = now;
+            commandsRepository.markExpiredCommandsAsFailure();
+        }
+    }
+
+    long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
     /**
      * Ignore any errors that occur during logging. Any exception thrown in invokeCallbackMethods will stop the
      * method from being invoked again, so we need to wrap all statements in try catch blocks including logging to
@@ -129,106 +167,116 @@ public class CommandCallbacksPoller implements BackendService {
         }
     }
 
-    private void invokeCallbackMethodsImpl() {
-        Iterator<Entry<Guid, CallbackTiming>> iterator = commandsRepository.getCallbacksTiming().entrySet().iterator();
-        while (iterator.hasNext()) {
-            Entry<Guid, CallbackTiming> entry = iterator.next();
-
-            Guid cmdId = entry.getKey();
-            CallbackTiming callbackTiming = entry.getValue();
-            CommandEntity commandEntity = commandsRepository.getCommandEntity(cmdId);
-            CorrelationIdTracker.setCorrelationId(commandEntity != null
-                    ? commandEntity.getCommandParameters().getCorrelationId() : null);
-            if (commandEntity != null && updateCommandWaitingForEvent(commandEntity, callbackTiming)) {
+    private synchronized void invokeCallbackMethodsImpl() {
+        for (CallbacksSchedule.ScheduledCallback dueCallback : commandsRepository.pollDueCallbacks()) {
+            Guid cmdId = dueCallback.getCommandId();
+            CallbackTiming callbackTiming = commandsRepository.getCallbackTiming(cmdId);
+            // the entry of a removed or replaced timing, the entry of the new timing invokes the callback
+            if (callbackTiming == null || callbackTiming != dueCallback.getCallbackTiming()) {
                 continue;
             }
 
-            // Decrement counter; execute if it reaches 0
-            callbackTiming.setRemainingDelay(callbackTiming.getRemainingDelay() - pollingRate);
-            ActionType cmdActionType = commandEntity == null ? ActionType.Unknown : commandEntity.getCommandType();
-            if (callbackTiming.getRemainingDelay() > 0) {
-                log.debug("The command {} ({}) has remaining delay {}, polling will be skipped.",
-                        cmdActionType,
-                        cmdId,
-                        callbackTiming.getRemainingDelay());
-                continue;
+            try {
+                invokeCallbackMethod(cmdId, callbackTiming);
+            } catch (Throwable t) {
+                // keep polling the command, a callback that is not scheduled again is never invoked
+                commandsRepository.scheduleCallback(cmdId, pollingRate);
+                logInvocationCallbackError(t);
             }
+        }
+        CorrelationIdTracker.setCorrelationId(null);
+    }
 
-            CommandCallback callback = callbackTiming.getCallback();
-            CommandStatus status = commandsRepository.getCommandStatus(cmdId);
-            log.debug("Command {} ({}) in status {}", cmdActionType, cmdId, status);
-            boolean runCallbackAgain = false;
-            boolean errorInCallback = false;
-            try {
-                switch (status) {
-                    case FAILED:
-                    case SUCCEEDED:
-                        runCallbackAgain = endCallback(cmdId, callback, status);
-                        break;
-                    case ACTIVE:
-                        if (commandEntity == null) {
-                            log.info("Not invoking command's {} doPolling method command entity is null, callback is {}.",
-                                    cmdId,
-                                    callbackTiming.getCallback() == null ? "NULL" : callbackTiming.getCallback().getClass().getCanonicalName());
-                        } else if (commandEntity.isExecuted()) {
-                            log.debug("Invoking command's {} ({}) doPolling method.", cmdActionType, cmdId);
-                            callback.doPolling(cmdId, getChildCommandIds(cmdId));
-                        }
-                        break;
-                    case EXECUTION_FAILED:
-                        if (callback.pollOnExecutionFailed()) {
-                            log.debug("Invoking command's {} ({}) doPolling method.", cmdActionType, cmdId);
-                            callback.doPolling(cmdId, getChildCommandIds(cmdId));
-                        } else {
-                            log.info("Not invoking command's {} ({}) doPolling method callback's pollOnExecutionFailed is false.",
-                                    cmdActionType, cmdId);
-                        }
-                        break;
-                    default:
-                        break;
-                }
-            } catch (Throwable ex) {
-                errorInCallback = true;
-                log.info("Exception in invoking callback of command {} ({}): {}",
-                        cmdActionType,
-                        cmdId,
-                        ExceptionUtils.getRootCauseMessage(ex));
-                log.debug("Exception", ex);
-                handleError(ex, status, cmdId);
-            } finally {
-                if ((CommandStatus.FAILED == status || (CommandStatus.SUCCEEDED == status && !errorInCallback))
-                        && !runCallbackAgain) {
-                    log.debug("Callback of command {} ({}) has been notified, removing command from command repository.",
-                            cmdActionType, cmdId);
-                    commandsRepository.updateCallbackNotified(cmdId);
-                    iterator.remove();
-                    CommandEntity cmdEntity = commandsRepository.getCommandEntity(entry.getKey());
-                    if (cmdEntity != null) {
-                        // When a child finishes, its parent's callback should execute shortly thereafter
-                        CallbackTiming rootCmdContainer =
-                                commandsRepository.getCallbackTiming(cmdEntity.getRootCommandId());
-                        if (rootCmdContainer != null) {
-                            rootCmdContainer.setInitialDelay(pollingRate);
-                            rootCmdContainer.setRemainingDelay(pollingRate);
-                        }
+    private void invokeCallbackMethod(Guid cmdId, CallbackTiming callbackTiming) {
+        CommandEntity commandEntity = commandsRepository.getCommandEntity(cmdId);
+        CorrelationIdTracker.setCorrelationId(commandEntity != null
+                ? commandEntity.getCommandParameters().getCorrelationId() : null);
+        if (commandEntity != null && updateCommandWaitingForEvent(commandEntity, callbackTiming)) {
+            commandsRepository.scheduleCallback(cmdId, getRemainingWaitOnEvent(callbackTiming));
+            return;
+        }
+
+        ActionType cmdActionType = commandEntity == null ? ActionType.Unknown : commandEntity.getCommandType();
+        CommandCallback callback = callbackTiming.getCallback();
+        CommandStatus status = commandsRepository.getCommandStatus(cmdId);
+        log.debug("Command {} ({}) in status {}", cmdActionType, cmdId, status);
+        boolean runCallbackAgain = false;
+        boolean errorInCallback = false;
+        try {
+            switch (status) {
+                case FAILED:
+                case SUCCEEDED:
+                    runCallbackAgain = endCallback(cmdId, callback, status);
+                    break;
+                case ACTIVE:
+                    if (commandEntity == null) {
+                        log.info("Not invoking command's {} doPolling method command entity is null, callback is {}.",
+                                cmdId,
+                                callbackTiming.getCallback() == null ? "NULL" : callbackTiming.getCallback().getClass().getCanonicalName());
+                    } else if (commandEntity.isExecuted()) {
+                        log.debug("Invoking command's {} ({}) doPolling method.", cmdActionType, cmdId);
+                        callback.doPolling(cmdId, getChildCommandIds(cmdId));
+                    }
+                    break;
+                case EXECUTION_FAILED:
+                    if (callback.pollOnExecutionFailed()) {
+                        log.debug("Invoking command's {} ({}) doPolling method.", cmdActionType, cmdId);
+                        callback.doPolling(cmdId, getChildCommandIds(cmdId));
+                    } else {
+                        log.info("Not invoking command's {} ({}) doPolling method callback's pollOnExecutionFailed is false.",
+                                cmdActionType, cmdId);
+                    }
+                    break;
+                default:
+                    break;
+            }
+        } catch (Throwable ex) {
+            errorInCallback = true;
+            log.info("Exception in invoking callback of command {} ({}): {}",
+                    cmdActionType,
+                    cmdId,
+                    ExceptionUtils.getRootCauseMessage(ex));
+            log.debug("Exception", ex);
+            handleError(ex, status, cmdId);
+        } finally {
+            if ((CommandStatus.FAILED == status || (CommandStatus.SUCCEEDED == status && !errorInCallback))
+                    && !runCallbackAgain) {
+                log.debug("Callback of command {} ({}) has been notified, removing command from command repository.",
+                        cmdActionType, cmdId);
+                commandsRepository.updateCallbackNotified(cmdId);
+                commandsRepository.removeFromCallbackMap(cmdId);
+                CommandEntity cmdEntity = commandsRepository.getCommandEntity(cmdId);
+                if (cmdEntity != null) {
+                    // When a child finishes, its parent's callback should execute shortly thereafter
+                    CallbackTiming rootCmdContainer =
+                            commandsRepository.getCallbackTiming(cmdEntity.getRootCommandId());
+                    if (rootCmdContainer != null) {
+                        rootCmdContainer.setInitialDelay(pollingRate);
+                        commandsRepository.scheduleCallback(cmdEntity.getRootCommandId(), pollingRate);
                     }
-                } else if (status != commandsRepository.getCommandStatus(cmdId)) {
-                    log.debug("Command {} ({}) status {} has been updated to {}, command will be polled again.",
-                            cmdActionType, cmdId,
-                            commandsRepository.getCommandStatus(cmdId),
-                            status);
-                    callbackTiming.setInitialDelay(pollingRate);
-                    callbackTiming.setRemainingDelay(pollingRate);
-                } else {
-                    log.debug("Command {} ({}) will be polled again, updating initial and remaining delay.", cmdActionType, cmdId);
-                    long maxDelay = Config.<Long>getValue(ConfigValues.AsyncCommandPollingRateInSeconds);
-                    callbackTiming.setInitialDelay(Math.min(maxDelay, callbackTiming.getInitialDelay() * 2));
-                    callbackTiming.setRemainingDelay(callbackTiming.getInitialDelay());
                 }
+            } else if (status != commandsRepository.getCommandStatus(cmdId)) {
+                log.debug("Command {} ({}) status {} has been updated to {}, command will be polled again.",
+                        cmdActionType, cmdId,
+                        commandsRepository.getCommandStatus(cmdId),
+                        status);
+                callbackTiming.setInitialDelay(pollingRate);
+                commandsRepository.scheduleCallback(cmdId, pollingRate);
+            } else {
+                log.debug("Command {} ({}) will be polled again, updating initial and remaining delay.", cmdActionType, cmdId);
+                long maxDelay = Config.<Long>getValue(ConfigValues.AsyncCommandPollingRateInSeconds);
+                callbackTiming.setInitialDelay(Math.min(maxDelay, callbackTiming.getInitialDelay() * 2));
+                commandsRepository.scheduleCallback(cmdId, callbackTiming.getInitialDelay());
             }
         }
-        CorrelationIdTracker.setCorrelationId(null);
-        commandsRepository.markExpiredCommandsAsFailure();
+    }
+
+    /**
+     * @return the number of seconds until the command stops waiting for its event, at least a polling cycle
+     */
+    private long getRemainingWaitOnEvent(CallbackTiming callbackTiming) {
+        long remainingMillis = callbackTiming.getWaitOnEventEndTime() - System.currentTimeMillis();
+        return Math.max(pollingRate, TimeUnit.MILLISECONDS.toSeconds(remainingMillis) + 1);
     }
 
     private void handleError(Throwable ex, CommandStatus status, Guid cmdId) {
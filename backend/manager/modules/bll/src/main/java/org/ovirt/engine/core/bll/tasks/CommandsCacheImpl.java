@@ -1,12 +1,20 @@
 package org.ovirt.engine.core.bll.tasks;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
 
+import javax.annotation.PreDestroy;
+import javax.enterprise.concurrent.ManagedScheduledExecutorService;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import javax.transaction.Transaction;
@@ -14,24 +22,58 @@ import javax.transaction.Transaction;
 import org.apache.commons.collections.CollectionUtils;
 import org.ovirt.engine.core.common.businessentities.CommandAssociatedEntity;
 import org.ovirt.engine.core.common.businessentities.CommandEntity;
+import org.ovirt.engine.core.common.config.Config;
+import org.ovirt.engine.core.common.config.ConfigValues;
 import org.ovirt.engine.core.compat.CommandStatus;
 import org.ovirt.engine.core.compat.DateTime;
 import org.ovirt.engine.core.compat.Guid;
 import org.ovirt.engine.core.dao.CommandEntityDao;
+import org.ovirt.engine.core.utils.threadpool.ThreadPools;
 import org.ovirt.engine.core.utils.transaction.TransactionSupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+/**
+ * Caches the command entities in memory and writes their changes to the database.
+ * <p>
+ * Status updates are written behind: the updated commands are collected for
+ * {@link ConfigValues#CommandStatusWriteDelayInMillis} and then written in a single batch, so a command whose status
+ * changed several times meanwhile is written once. All other changes are written immediately, together with a
+ * pending status of the same command. Pending status updates are written before commands are removed and before
+ * commands are read from the database, so the database never gets behind the cache for longer than the delay.
+ */
 @Singleton
 public class CommandsCacheImpl implements CommandsCache {
 
-    private Map<Guid, CommandEntity> commandMap;
+    private static final Logger log = LoggerFactory.getLogger(CommandsCacheImpl.class);
+
+    private static final long MIN_RETRY_DELAY_IN_MILLIS = 1000;
+
+    private final Map<Guid, CommandEntity> commandMap;
     private volatile boolean cacheInitialized;
     private Object LOCK = new Object();
 
+    // ids of the commands whose status update was not written yet
+    private final Set<Guid> pendingStatusUpdates = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    // guards the writes that must not interleave with a flush of the pending status updates
+    private final Object writeLock = new Object();
+
     @Inject
     private CommandEntityDao commandEntityDao;
 
+    @Inject
+    @ThreadPools(ThreadPools.ThreadPoolType.EngineScheduledThreadPool)
+    private ManagedScheduledExecutorService executor;
+
     public CommandsCacheImpl() {
-        commandMap = new HashMap<>();
+        commandMap = new ConcurrentHashMap<>();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        flushPendingStatusUpdates();
     }
 
     private void initializeCache() {
@@ -62,21 +104,41 @@ public class CommandsCacheImpl implements CommandsCache {
 
     @Override
     public void remove(final Guid commandId) {
-        commandMap.remove(commandId);
-        commandEntityDao.remove(commandId);
+        synchronized (writeLock) {
+            pendingStatusUpdates.remove(commandId);
+            commandMap.remove(commandId);
+            commandEntityDao.remove(commandId);
+        }
     }
 
     @Override
     public void put(final CommandEntity cmdEntity) {
         commandMap.put(cmdEntity.getId(), cmdEntity);
+        pendingStatusUpdates.remove(cmdEntity.getId());
         saveOrUpdateWithoutTransaction(cmdEntity);
     }
 
+    /**
+     * Removes the old commands from the database and evicts the removed ones from the cache, commands that are kept
+     * by the database because of their tasks stay cached.
+     */
     @Override
     public void removeAllCommandsBeforeDate(DateTime cutoff) {
-        commandEntityDao.removeAllBeforeDate(cutoff);
-        cacheInitialized = false;
-        initializeCache();
+        synchronized (writeLock) {
+            flushPendingStatusUpdates();
+            commandEntityDao.removeAllBeforeDate(cutoff);
+            if (!cacheInitialized) {
+                return;
+            }
+
+            Set<Guid> keptCommandIds = new HashSet<>(commandEntityDao.getCommandIdsBeforeDate(cutoff));
+            commandMap.values().stream()
+                    .filter(cmdEntity -> cmdEntity.getCreatedAt() != null && cmdEntity.getCreatedAt().before(cutoff))
+                    .map(CommandEntity::getId)
+                    .filter(commandId -> !keptCommandIds.contains(commandId))
+                    .collect(Collectors.toList())
+                    .forEach(commandMap::remove);
+        }
     }
 
     @Override
@@ -84,7 +146,64 @@ public class CommandsCacheImpl implements CommandsCache {
         final CommandEntity cmdEntity = get(commandId);
         if (cmdEntity != null) {
             cmdEntity.setCommandStatus(status);
-            saveOrUpdateWithoutTransaction(cmdEntity);
+            int writeDelay = Config.<Integer>getValue(ConfigValues.CommandStatusWriteDelayInMillis);
+            if (writeDelay <= 0) {
+                saveOrUpdateWithoutTransaction(cmdEntity);
+                return;
+            }
+
+            pendingStatusUpdates.add(commandId);
+            scheduleFlush(writeDelay);
+        }
+    }
+
+    private void scheduleFlush(long delay) {
+        if (flushScheduled.compareAndSet(false, true)) {
+            try {
+                executor.schedule(this::flushPendingStatusUpdates, delay, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                flushScheduled.set(false);
+                log.error("Failed to schedule the write of the status of {} commands: {}",
+                        pendingStatusUpdates.size(),
+                        e.getMessage());
+                log.debug("Exception", e);
+            }
+        }
+    }
+
+    /**
+     * Writes the pending status updates in a single batch. If the write fails the updates stay pending and the write
+     * is retried, a status update is dropped only when the command is removed.
+     */
+    void flushPendingStatusUpdates() {
+        flushScheduled.set(false);
+        if (pendingStatusUpdates.isEmpty()) {
+            return;
+        }
+
+        synchronized (writeLock) {
+            List<CommandEntity> cmdEntities = new ArrayList<>(pendingStatusUpdates.size());
+            for (Guid commandId : pendingStatusUpdates) {
+                pendingStatusUpdates.remove(commandId);
+                CommandEntity cmdEntity = commandMap.get(commandId);
+                if (cmdEntity != null) {
+                    cmdEntities.add(cmdEntity);
+                }
+            }
+
+            try {
+                saveOrUpdateAllWithoutTransaction(cmdEntities);
+            } catch (RuntimeException e) {
+                cmdEntities.forEach(cmdEntity -> pendingStatusUpdates.add(cmdEntity.getId()));
+                long retryDelay = Math.max(Config.<Integer>getValue(ConfigValues.CommandStatusWriteDelayInMillis),
+                        MIN_RETRY_DELAY_IN_MILLIS);
+                log.error("Failed to write the status of {} commands, retrying in {} ms: {}",
+                        cmdEntities.size(),
+                        retryDelay,
+                        e.getMessage());
+                log.debug("Exception", e);
+                scheduleFlush(retryDelay);
+            }
         }
     }
 
@@ -93,6 +212,7 @@ public class CommandsCacheImpl implements CommandsCache {
         final CommandEntity cmdEntity = get(commandId);
         if (cmdEntity != null) {
             cmdEntity.setData(data);
+            pendingStatusUpdates.remove(commandId);
             saveOrUpdateWithoutTransaction(cmdEntity);
         }
     }
@@ -117,6 +237,17 @@ public class CommandsCacheImpl implements CommandsCache {
         }
     }
 
+    private void saveOrUpdateAllWithoutTransaction(Collection<CommandEntity> cmdEntities) {
+        Transaction transaction = TransactionSupport.suspend();
+        try {
+            commandEntityDao.saveOrUpdateAll(cmdEntities);
+        } finally {
+            if (transaction != null) {
+                TransactionSupport.resume(transaction);
+            }
+        }
+    }
+
     @Override
     public void updateCallbackNotified(final Guid commandId) {
         CommandEntity cmdEntity = get(commandId);
@@ -154,6 +285,7 @@ public class CommandsCacheImpl implements CommandsCache {
 
     @Override
     public List<CommandEntity> getChildCmdsByParentCmdId(Guid cmdId) {
+        flushPendingStatusUpdates();
         return commandEntityDao.getCmdEntitiesByParentCmdId(cmdId);
     }
 }
@@ -41,6 +41,8 @@ public class CommandsRepository {
 
     private static final Logger log = LoggerFactory.getLogger(CommandsRepository.class);
     private final ConcurrentMap<Guid, CallbackTiming> callbacksTiming;
+    private final CallbacksSchedule callbacksSchedule;
+    private volatile Runnable callbackWakeUpListener;
     private final CommandsCache commandsCache;
     private final CommandContextsCache contextsCache;
     private final ConcurrentHashMap<Guid, List<Guid>> childHierarchy;
@@ -56,6 +58,7 @@ public class CommandsRepository {
         this.contextsCache = contextsCache;
 
         callbacksTiming = new ConcurrentHashMap<>();
+        callbacksSchedule = new CallbacksSchedule();
         childHierarchy = new ConcurrentHashMap<>();
         subscriptions = new ConcurrentHashMap<>();
         LOCK = new Object();
@@ -110,6 +113,61 @@ public class CommandsRepository {
 
     public void addToCallbackMap(Guid commandId, CallbackTiming callbackTiming) {
         callbacksTiming.put(commandId, callbackTiming);
+        callbacksSchedule.schedule(commandId, callbackTiming, callbackTiming.getInitialDelay());
+    }
+
+    public void removeFromCallbackMap(Guid commandId) {
+        callbacksTiming.remove(commandId);
+    }
+
+    /**
+     * Schedules the next invocation of the command's callback, unless it is already due sooner.
+     *
+     * @param commandId
+     *            the id of the command
+     * @param delay
+     *            the number of seconds of polling after which the callback is invoked
+     */
+    public void scheduleCallback(Guid commandId, long delay) {
+        CallbackTiming callbackTiming = getCallbackTiming(commandId);
+        if (callbackTiming != null) {
+            callbacksSchedule.schedule(commandId, callbackTiming, delay);
+        }
+    }
+
+    /**
+     * Makes the command's callback due and lets the poller invoke it without waiting for the next polling cycle.
+     *
+     * @param commandId
+     *            the id of the command
+     */
+    public void wakeUpCallback(Guid commandId) {
+        scheduleCallback(commandId, 0);
+        Runnable listener = callbackWakeUpListener;
+        if (listener != null) {
+            listener.run();
+        }
+    }
+
+    public void setCallbackWakeUpListener(Runnable callbackWakeUpListener) {
+        this.callbackWakeUpListener = callbackWakeUpListener;
+    }
+
+    /**
+     * Advances the clock of the callbacks schedule by a polling cycle.
+     */
+    public void advanceCallbacksClock(long seconds) {
+        callbacksSchedule.advance(seconds);
+    }
+
+    /**
+     * Removes the due callbacks from the schedule, each of them has to be scheduled again or removed from the
+     * callback map once invoked.
+     *
+     * @return the callbacks that are due, the timing of a due callback may have been replaced meanwhile
+     */
+    public List<CallbacksSchedule.ScheduledCallback> pollDueCallbacks() {
+        return callbacksSchedule.pollDue();
     }
 
     public void persistCommand(CommandEntity cmdEntity, CommandContext cmdContext) {
@@ -268,10 +326,6 @@ public class CommandsRepository {
         return Collections.emptyList();
     }
 
-    public ConcurrentMap<Guid, CallbackTiming> getCallbacksTiming() {
-        return callbacksTiming;
-    }
-
     public void persistCommandAssociatedEntities(Collection<CommandAssociatedEntity> cmdAssociatedEntities) {
         commandsCache.persistCommandAssociatedEntities(cmdAssociatedEntities);
     }
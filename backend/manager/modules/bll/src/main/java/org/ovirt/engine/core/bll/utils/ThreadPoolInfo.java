@@ -27,6 +27,10 @@ public class ThreadPoolInfo {
         configMaxThreadAttrNamesMap.put("engine", "ENGINE_THREAD_POOL_MAX_SIZE");
         configMaxThreadAttrNamesMap.put("engineScheduled", "ENGINE_SCHEDULED_THREAD_POOL_SIZE");
         configMaxThreadAttrNamesMap.put("hostUpdatesChecker", "HOST_CHECK_FOR_UPDATES_THREAD_POOL_SIZE");
+        configMaxThreadAttrNamesMap.put("glusterSync", "GLUSTER_SYNC_THREAD_POOL_SIZE");
+        configMaxThreadAttrNamesMap.put("vmsMonitoring", "VMS_MONITORING_THREAD_POOL_SIZE");
+        configMaxThreadAttrNamesMap.put("schedulingUnits", "SCHEDULING_UNITS_THREAD_POOL_SIZE");
+        configMaxThreadAttrNamesMap.put("vmStatusEvents", "VM_STATUS_EVENTS_THREAD_POOL_SIZE");
     }
 
     public ThreadPoolInfo(String poolName) {
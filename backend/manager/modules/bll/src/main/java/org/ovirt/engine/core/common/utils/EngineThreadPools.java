@@ -22,10 +22,15 @@ public class EngineThreadPools implements BackendService {
 
     public static final String COMMAND_COORDINATOR_POOL_NAME = "java:jboss/ee/concurrency/executor/commandCoordinator";
     public static final String HOST_UPDATES_CHECKER_POOL_NAME = "java:jboss/ee/concurrency/executor/hostUpdatesChecker";
+    public static final String GLUSTER_SYNC_POOL_NAME = "java:jboss/ee/concurrency/executor/glusterSync";
+    public static final String VMS_MONITORING_POOL_NAME = "java:jboss/ee/concurrency/executor/vmsMonitoring";
+    public static final String SCHEDULING_UNITS_POOL_NAME = "java:jboss/ee/concurrency/executor/schedulingUnits";
     public static final String ENGINE_SCHEDULED_POOL_NAME =
             "java:jboss/ee/concurrency/scheduler/engineScheduledThreadPool";
     public static final String ENGINE_THREAD_MONITORING_POOL_NAME =
             "java:jboss/ee/concurrency/scheduler/engineThreadMonitoringThreadPool";
+    public static final String VM_STATUS_EVENTS_POOL_NAME = "java:jboss/ee/concurrency/scheduler/vmStatusEvents";
+    public static final String HOST_STATISTICS_POOL_NAME = "java:jboss/ee/concurrency/scheduler/hostStatistics";
     public static final String ENGINE_THREAD_FACTORY_NAME = "java:jboss/ee/concurrency/factory/engine";
 
     @Resource(lookup = EngineThreadPools.COMMAND_COORDINATOR_POOL_NAME)
@@ -34,12 +39,27 @@ public class EngineThreadPools implements BackendService {
     @Resource(lookup = EngineThreadPools.HOST_UPDATES_CHECKER_POOL_NAME)
     private ManagedExecutorService hostUpdatesCheckerPool;
 
+    @Resource(lookup = EngineThreadPools.GLUSTER_SYNC_POOL_NAME)
+    private ManagedExecutorService glusterSyncPool;
+
+    @Resource(lookup = EngineThreadPools.VMS_MONITORING_POOL_NAME)
+    private ManagedExecutorService vmsMonitoringPool;
+
+    @Resource(lookup = EngineThreadPools.SCHEDULING_UNITS_POOL_NAME)
+    private ManagedExecutorService schedulingUnitsPool;
+
     @Resource(lookup = EngineThreadPools.ENGINE_SCHEDULED_POOL_NAME)
     private ManagedScheduledExecutorService engineScheduledThreadPool;
 
     @Resource(lookup = EngineThreadPools.ENGINE_THREAD_MONITORING_POOL_NAME)
     private ManagedScheduledExecutorService engineThreadMonitoringThreadPool;
 
+    @Resource(lookup = EngineThreadPools.VM_STATUS_EVENTS_POOL_NAME)
+    private ManagedScheduledExecutorService vmStatusEventsPool;
+
+    @Resource(lookup = EngineThreadPools.HOST_STATISTICS_POOL_NAME)
+    private ManagedScheduledExecutorService hostStatisticsPool;
+
     @Resource(lookup = ENGINE_THREAD_FACTORY_NAME)
     private static ManagedThreadFactory threadFactory;
 
@@ -67,6 +87,24 @@ public class EngineThreadPools implements BackendService {
         return hostUpdatesCheckerPool;
     }
 
+    @Produces
+    @ThreadPools(ThreadPools.ThreadPoolType.GlusterSync)
+    public ManagedExecutorService glusterSyncPoolProducer() {
+        return glusterSyncPool;
+    }
+
+    @Produces
+    @ThreadPools(ThreadPools.ThreadPoolType.VmsMonitoring)
+    public ManagedExecutorService vmsMonitoringPoolProducer() {
+        return vmsMonitoringPool;
+    }
+
+    @Produces
+    @ThreadPools(ThreadPools.ThreadPoolType.SchedulingUnits)
+    public ManagedExecutorService schedulingUnitsPoolProducer() {
+        return schedulingUnitsPool;
+    }
+
     @Produces
     @ThreadPools(ThreadPools.ThreadPoolType.EngineScheduledThreadPool)
     public ManagedScheduledExecutorService engineScheduledThreadPoolProducer() {
@@ -78,4 +116,16 @@ public class EngineThreadPools implements BackendService {
     public ManagedScheduledExecutorService engineThreadMonitoringThreadPoolProducer() {
         return engineThreadMonitoringThreadPool;
     }
+
+    @Produces
+    @ThreadPools(ThreadPools.ThreadPoolType.VmStatusEvents)
+    public ManagedScheduledExecutorService vmStatusEventsPoolProducer() {
+        return vmStatusEventsPool;
+    }
+
+    @Produces
+    @ThreadPools(ThreadPools.ThreadPoolType.HostStatistics)
+    public ManagedScheduledExecutorService hostStatisticsPoolProducer() {
+        return hostStatisticsPool;
+    }
 }
@@ -76,9 +76,9 @@ public class MultipleActionsRunnerBaseTest extends BaseCommandTest {
         return spy(command);
     }
 
-    protected void setUpFactory(TestCommand... commands) {
+    protected void setUpFactory(CommandBase<?>... commands) {
         OngoingStubbing stubbing = when(commandFactory.createWrappedCommand(any(), any(), any(), anyBoolean()));
-        for (TestCommand command : commands) {
+        for (CommandBase<?> command : commands) {
             stubbing = stubbing.thenReturn(command);
         }
     }
@@ -0,0 +1,107 @@
+package org.ovirt.engine.core.bll;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Answers;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.ovirt.engine.core.bll.context.CommandContext;
+import org.ovirt.engine.core.bll.context.NoOpCompensationContext;
+import org.ovirt.engine.core.bll.scheduling.SchedulingManager;
+import org.ovirt.engine.core.common.action.ActionParametersBase;
+import org.ovirt.engine.core.common.action.ActionReturnValue;
+import org.ovirt.engine.core.common.action.ActionType;
+import org.ovirt.engine.core.common.action.RunVmParams;
+import org.ovirt.engine.core.common.businessentities.Cluster;
+import org.ovirt.engine.core.common.businessentities.VM;
+import org.ovirt.engine.core.compat.Guid;
+import org.ovirt.engine.core.dao.VmStaticDao;
+
+public class RunVMActionRunnerTest extends MultipleActionsRunnerBaseTest {
+
+    private static CommandContext commandContext = CommandContext.createContext(new
+            RunVmParams().getSessionId()).withCompensationContext(NoOpCompensationContext.getInstance());
+
+    private final List<Guid> vmIds = Arrays.asList(Guid.newGuid(), Guid.newGuid(), Guid.newGuid());
+
+    @Mock
+    private VmStaticDao vmStaticDao;
+
+    @Mock
+    private SchedulingManager schedulingManager;
+
+    @Mock(answer = Answers.RETURNS_SELF)
+    private SchedulingManager.CallBuilder callBuilder;
+
+    @InjectMocks
+    private RunVMActionRunner runner = new RunVMActionRunner(ActionType.RunVm,
+            vmIds.stream().map(RunVmParams::new).collect(Collectors.<ActionParametersBase> toList()),
+            commandContext,
+            true);
+
+    private Cluster cluster;
+    private Map<Guid, Guid> vmToHostAssignment;
+
+    @BeforeEach
+    public void setUp() {
+        runner.setIsWaitForResult(true);
+        cluster = new Cluster();
+        cluster.setId(Guid.newGuid());
+        vmToHostAssignment = new HashMap<>();
+        vmIds.forEach(vmId -> vmToHostAssignment.put(vmId, Guid.newGuid()));
+        when(vmStaticDao.getOrderedVmGuidsForRunMultipleActions(any())).thenReturn(vmIds);
+        when(schedulingManager.prepareCall(cluster)).thenReturn(callBuilder);
+        when(callBuilder.schedule(anyList())).thenReturn(vmToHostAssignment);
+    }
+
+    @Test
+    public void shouldReleaseScheduledHostsOfAllCommands() {
+        RunVmCommand<?> first = runVmCommand(vmIds.get(0));
+        RunVmCommand<?> second = runVmCommand(vmIds.get(1));
+        RunVmCommand<?> failing = runVmCommand(vmIds.get(2));
+        doThrow(new RuntimeException("failed before running the VM")).when(failing).executeAction();
+        setUpFactory(first, second, failing);
+
+        runner.execute();
+
+        verify(callBuilder, times(1)).schedule(anyList());
+        for (RunVmCommand<?> command : Arrays.asList(first, second, failing)) {
+            verify(command).setScheduledVdsId(vmToHostAssignment.get(command.getVmId()));
+            verify(command).executeAction();
+            verify(command).releaseUnusedScheduledVds();
+        }
+    }
+
+    private RunVmCommand<?> runVmCommand(Guid vmId) {
+        VM vm = new VM();
+        vm.setId(vmId);
+        vm.setClusterId(cluster.getId());
+
+        ActionReturnValue returnValue = new ActionReturnValue();
+        returnValue.setValid(true);
+
+        RunVmCommand<?> command = mock(RunVmCommand.class);
+        when(command.getActionType()).thenReturn(ActionType.RunVm);
+        when(command.validateOnly()).thenReturn(returnValue);
+        when(command.getReturnValue()).thenReturn(returnValue);
+        when(command.getVmId()).thenReturn(vmId);
+        when(command.getVm()).thenReturn(vm);
+        when(command.getCluster()).thenReturn(cluster);
+        when(command.canBeScheduledInBatch()).thenReturn(true);
+        return command;
+    }
+}
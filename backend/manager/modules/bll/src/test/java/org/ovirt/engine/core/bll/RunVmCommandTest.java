@@ -13,6 +13,7 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.ovirt.engine.core.common.vdscommands.VDSCommandType.ConnectStorageServer;
@@ -36,6 +37,9 @@ import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
+import org.ovirt.engine.core.bll.network.host.NetworkDeviceHelper;
+import org.ovirt.engine.core.bll.network.host.VfScheduler;
+import org.ovirt.engine.core.bll.scheduling.SchedulingManager;
 import org.ovirt.engine.core.bll.storage.domain.IsoDomainListSynchronizer;
 import org.ovirt.engine.core.bll.validator.RunVmValidator;
 import org.ovirt.engine.core.common.AuditLogType;
@@ -71,6 +75,9 @@ import org.ovirt.engine.core.dao.VmDeviceDao;
 import org.ovirt.engine.core.utils.InjectedMock;
 import org.ovirt.engine.core.utils.MockConfigDescriptor;
 import org.ovirt.engine.core.utils.MockedConfig;
+import org.ovirt.engine.core.vdsbroker.ResourceManager;
+import org.ovirt.engine.core.vdsbroker.VdsManager;
+import org.ovirt.engine.core.vdsbroker.VdsMonitor;
 
 @MockitoSettings(strictness = Strictness.LENIENT)
 public class RunVmCommandTest extends BaseCommandTest {
@@ -106,6 +113,18 @@ public class RunVmCommandTest extends BaseCommandTest {
     @Mock
     private StorageServerConnectionDao storageServerConnectionDao;
 
+    @Mock
+    private VfScheduler vfScheduler;
+
+    @Mock
+    private NetworkDeviceHelper networkDeviceHelper;
+
+    @Mock
+    private SchedulingManager schedulingManager;
+
+    @Mock
+    private ResourceManager resourceManager;
+
     @Spy
     @InjectMocks
     VmHandler vmHandler;
@@ -461,6 +480,64 @@ public class RunVmCommandTest extends BaseCommandTest {
         assertEquals(RunVmFlow.RUN, command.getFlow());
     }
 
+    @Test
+    public void testCanBeScheduledInBatchOnDehibernate() {
+        final VM vm = new VM();
+        vm.setStatus(VMStatus.Suspended);
+        command.setVm(vm);
+        assertTrue(command.canBeScheduledInBatch());
+    }
+
+    @Test
+    public void testCannotBeScheduledInBatchOnResume() {
+        final VM vm = new VM();
+        vm.setStatus(VMStatus.Paused);
+        command.setVm(vm);
+        assertFalse(command.canBeScheduledInBatch());
+    }
+
+    @Test
+    public void testCannotBeScheduledInBatchOnRerun() {
+        final VM vm = new VM();
+        vm.setStatus(VMStatus.Suspended);
+        command.setVm(vm);
+        command.getRunVdssList().add(Guid.newGuid());
+        assertFalse(command.canBeScheduledInBatch());
+    }
+
+    @Test
+    public void testCannotBeScheduledInBatchWhenStateless() {
+        final VM vm = new VM();
+        vm.setStatus(VMStatus.Down);
+        command.setVm(vm);
+        command.getParameters().setRunAsStateless(true);
+        doReturn(false).when(command).isStatelessSnapshotExistsForVm();
+        doNothing().when(command).fetchVmDisksFromDb();
+        assertFalse(command.canBeScheduledInBatch());
+    }
+
+    @Test
+    public void testReleaseUnusedScheduledVds() {
+        final VM vm = new VM();
+        vm.setId(command.getVmId());
+        command.setVm(vm);
+        Guid vdsId = Guid.newGuid();
+        VdsManager vdsManager = mock(VdsManager.class);
+        when(vdsManager.getVdsMonitor()).thenReturn(new VdsMonitor());
+        when(resourceManager.getVdsManager(vdsId)).thenReturn(vdsManager);
+        when(vfScheduler.getVnicToVfMap(command.getVmId(), vdsId))
+                .thenReturn(Collections.singletonMap(Guid.newGuid(), "vf1"));
+        command.setScheduledVdsId(vdsId);
+
+        command.releaseUnusedScheduledVds();
+        command.releaseUnusedScheduledVds();
+
+        verify(networkDeviceHelper, times(1)).setVmIdOnVfs(vdsId, null, Collections.singleton("vf1"));
+        verify(vfScheduler, times(1)).cleanVmData(command.getVmId());
+        verify(schedulingManager, times(1)).clearPendingVm(vm.getStaticData());
+        verify(vdsManager, times(1)).getVdsMonitor();
+    }
+
     private RunVmValidator mockSuccessfulRunVmValidator() {
         RunVmValidator runVmValidator = mock(RunVmValidator.class);
         when(runVmValidator.canRunVm(any(), any(), any(), any(), any(), anyBoolean())).thenReturn(true);
@@ -0,0 +1,67 @@
+package org.ovirt.engine.core.bll;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.ovirt.engine.core.aaa.QueryData;
+
+public class SearchQueryCacheTest {
+
+    private static final long TIME_TO_LIVE = TimeUnit.DAYS.toMillis(1);
+
+    private long now;
+    private SearchQueryCache cache;
+
+    @BeforeEach
+    public void setUp() {
+        now = TimeUnit.DAYS.toMillis(1000);
+        cache = new SearchQueryCache(2, TIME_TO_LIVE, () -> now);
+    }
+
+    @Test
+    public void cachedQueryIsReturned() {
+        assertNull(cache.get("Vms:"));
+        cache.put("Vms:", queryData());
+
+        assertNotNull(cache.get("Vms:"));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void leastRecentlyUsedQueryIsEvicted() {
+        cache.put("Vms:", queryData());
+        cache.put("Hosts:", queryData());
+        cache.get("Vms:");
+
+        cache.put("Templates:", queryData());
+
+        assertEquals(2, cache.getSize());
+        assertEquals(1, cache.getEvictions());
+        assertNotNull(cache.get("Vms:"));
+        assertNull(cache.get("Hosts:"));
+        assertNotNull(cache.get("Templates:"));
+    }
+
+    @Test
+    public void expiredQueryIsRemoved() {
+        cache.put("Vms:", queryData());
+
+        now += TIME_TO_LIVE - 1;
+        assertNotNull(cache.get("Vms:"));
+
+        now += 1;
+        assertNull(cache.get("Vms:"));
+        assertEquals(0, cache.getSize());
+        assertEquals(1, cache.getExpirations());
+    }
+
+    private QueryData queryData() {
+        return new QueryData("SELECT * FROM vms", now, null, null);
+    }
+}
@@ -9,12 +9,14 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Stream;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
 import org.ovirt.engine.core.bll.quota.QuotaManager;
@@ -91,6 +93,10 @@ public class SearchQueryTest extends AbstractQueryTest<SearchParameters, SearchQ
     private LockManager lockManager;
     @Mock
     private HostLocking hostLocking;
+    @Mock
+    private VmHandler vmHandler;
+    @Spy
+    private SearchQueryCache queriesCache = new SearchQueryCache(10, TimeUnit.DAYS.toMillis(1));
 
     List<Disk> diskImageResultList = new ArrayList<>();
     List<Quota> quotaResultList = new ArrayList<>();
@@ -127,6 +127,25 @@ public class SessionDataContainerTest {
         assertNotNull(container.getData(TEST_SESSION_ID, TEST_KEY, false), "Get found the session");
     }
 
+    @Test
+    public void testCleanSessionsOfInvalidSsoTokens() {
+        when(ssoSessionValidator.getSessionStatuses(any())).thenReturn(Collections.singletonMap(TEST_SSO_TOKEN, false));
+        container.refresh(TEST_SESSION_ID);
+
+        container.cleanExpiredUsersSessions();
+        assertNull(container.getUser(TEST_SESSION_ID, false), "The session of the invalid token should be removed");
+    }
+
+    @Test
+    public void testGetSessionIdBySsoAccessToken() {
+        assertEquals(TEST_SESSION_ID, container.getSessionIdBySsoAccessToken(TEST_SSO_TOKEN));
+        assertEquals(TEST_SESSION_ID,
+                container.getSessionIdBySeqId(container.getEngineSessionSeqId(TEST_SESSION_ID)));
+
+        clearSession();
+        assertNull(container.getSessionIdBySsoAccessToken(TEST_SSO_TOKEN));
+    }
+
     /** Initializes the {@link #key} data */
     private void initDataForClearTest(String key) {
         container.setData(TEST_SESSION_ID, key, mock(DbUser.class));
@@ -1,12 +1,18 @@
 package org.ovirt.engine.core.bll.gluster;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -14,8 +20,10 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.FutureTask;
 import java.util.stream.Stream;
 
+import javax.enterprise.concurrent.ManagedExecutorService;
 import javax.transaction.TransactionManager;
 
 import org.junit.jupiter.api.Test;
@@ -32,6 +40,7 @@ import org.mockito.quality.Strictness;
 import org.mockito.verification.VerificationMode;
 import org.ovirt.engine.core.bll.utils.GlusterAuditLogUtil;
 import org.ovirt.engine.core.bll.utils.GlusterUtil;
+import org.ovirt.engine.core.common.AuditLogType;
 import org.ovirt.engine.core.common.businessentities.Cluster;
 import org.ovirt.engine.core.common.businessentities.VDS;
 import org.ovirt.engine.core.common.businessentities.VDSStatus;
@@ -69,6 +78,7 @@ import org.ovirt.engine.core.utils.InjectedMock;
 import org.ovirt.engine.core.utils.InjectorExtension;
 import org.ovirt.engine.core.utils.MockConfigDescriptor;
 import org.ovirt.engine.core.utils.MockConfigExtension;
+import org.ovirt.engine.core.utils.MockedConfig;
 
 @ExtendWith({MockitoExtension.class, MockConfigExtension.class, InjectorExtension.class})
 @MockitoSettings(strictness = Strictness.LENIENT)
@@ -82,7 +92,13 @@ public class GlusterSyncJobTest {
     private GlusterUtil glusterUtil;
 
     public static Stream<MockConfigDescriptor<?>> mockConfiguration() {
-        return Stream.of(MockConfigDescriptor.of(ConfigValues.GlusterMetaVolumeName, "gluster_shared_storage"));
+        return Stream.of(MockConfigDescriptor.of(ConfigValues.GlusterMetaVolumeName, "gluster_shared_storage"),
+                MockConfigDescriptor.of(ConfigValues.GlusterClusterRefreshDeadlineInSecs, 120));
+    }
+
+    public static Stream<MockConfigDescriptor<?>> mockConfigurationPastDeadline() {
+        return Stream.of(MockConfigDescriptor.of(ConfigValues.GlusterMetaVolumeName, "gluster_shared_storage"),
+                MockConfigDescriptor.of(ConfigValues.GlusterClusterRefreshDeadlineInSecs, 0));
     }
 
     @Spy
@@ -92,6 +108,12 @@ public class GlusterSyncJobTest {
     @Mock
     private GlusterAuditLogUtil logUtil;
 
+    @Mock
+    private GlusterThinDeviceService thinDeviceService;
+
+    @Mock
+    private ManagedExecutorService executor;
+
     private static final String OPTION_AUTH_ALLOW = "auth.allow";
     private static final String OPTION_AUTH_REJECT = "auth.reject";
     private static final String OPTION_NFS_DISABLE = "nfs.disable";
@@ -255,6 +277,16 @@ public class GlusterSyncJobTest {
 
         doNothing().when(glusterManager).acquireLock(CLUSTER_ID);
         doNothing().when(glusterManager).releaseLock(CLUSTER_ID);
+
+        when(thinDeviceService.setConfirmedSize(any(), any(), any()))
+                .thenAnswer(invocation -> invocation.getArgument(2));
+
+        // run the refresh of the clusters synchronously
+        doAnswer(invocation -> {
+            FutureTask<?> task = new FutureTask<>(invocation.<Runnable> getArgument(0), null);
+            task.run();
+            return task;
+        }).when(executor).submit(any(Runnable.class));
     }
 
     private ArgumentMatcher<RemoveVdsVDSCommandParameters> isRemovedServer() {
@@ -490,17 +522,113 @@ public class GlusterSyncJobTest {
         // get volumes of the cluster
         inOrder.verify(volumeDao, mode).getByClusterId(CLUSTER_ID);
 
-        // acquire lock on the cluster
+        // acquire and release lock on the cluster for dist volume
         inOrder.verify(glusterManager, mode).acquireLock(CLUSTER_ID);
+        inOrder.verify(glusterManager, mode).releaseLock(CLUSTER_ID);
 
-        // acquire lock on the cluster for repl volume
+        // the changed brick statuses of repl volume are updated before the lock on the cluster is released
         inOrder.verify(glusterManager, mode).acquireLock(CLUSTER_ID);
-
-        // release lock on the cluster
+        inOrder.verify(brickDao, mode).updateBrickStatuses(argThat(hasBricksWithChangedStatus()));
         inOrder.verify(glusterManager, mode).releaseLock(CLUSTER_ID);
 
-        // release lock on the cluster
-        inOrder.verify(glusterManager, mode).releaseLock(CLUSTER_ID);
+        verify(brickDao, times(1)).updateBrickStatuses(any());
+        verifyAuditMessage(AuditLogType.GLUSTER_BRICK_STATUS_CHANGED, times(2));
+    }
+
+    @Test
+    @MockedConfig("mockConfigurationPastDeadline")
+    public void testRefreshLightWeightPastDeadline() {
+        createCluster();
+        setupMocks();
+        doReturn(getGlusterServer()).when(glusterServerDao).getByServerId(any());
+
+        glusterManager.refreshLightWeightData();
+
+        // the removed volumes are still removed, but the other volumes are left to the next refresh
+        verify(volumeDao, times(1)).removeAll(argThat(areRemovedVolumes()));
+        verify(volumeDao, never()).getById(any());
+        verify(volumeDao, never()).save(any());
+        verify(brickDao, never()).removeAll(any());
+        verify(optionDao, never()).saveAll(any());
+    }
+
+    @Test
+    @MockedConfig("mockConfigurationPastDeadline")
+    public void testRefreshHeavyWeightPastDeadline() {
+        createCluster();
+        setupMocks();
+
+        glusterManager.refreshHeavyWeightData();
+
+        verify(glusterManager, never()).getVolumeAdvancedDetails(any(), any(), any());
+        verify(glusterManager, never()).acquireLock(any());
+        verify(brickDao, never()).updateBrickStatuses(any());
+    }
+
+    @Test
+    public void testRefreshOfClusterStillBeingRefreshedIsSkipped() {
+        createCluster();
+        setupMocks();
+        List<Runnable> refreshes = new ArrayList<>();
+        doAnswer(invocation -> {
+            refreshes.add(invocation.getArgument(0));
+            return null;
+        }).when(executor).submit(any(Runnable.class));
+
+        glusterManager.refreshHeavyWeightData();
+        glusterManager.refreshHeavyWeightData();
+        assertEquals(1, refreshes.size());
+
+        // a refresh of another type isn't skipped
+        glusterManager.refreshSelfHealInfo();
+        assertEquals(2, refreshes.size());
+
+        refreshes.get(0).run();
+        glusterManager.refreshHeavyWeightData();
+        assertEquals(3, refreshes.size());
+    }
+
+    @Test
+    public void testChangesAreWrittenPerVolumeWhenWritingThemAtOnceFails() {
+        createCluster();
+        setupMocks();
+        doReturn(getGlusterServer()).when(glusterServerDao).getByServerId(any());
+
+        // an option is also set on dist volume, whose changes can be written unlike the ones of repl volume
+        Map<Guid, GlusterVolumeEntity> fetchedVolumes = getFetchedVolumesList();
+        GlusterVolumeEntity fetchedDistVol = createVolume(DIST_VOL_NAME, EXISTING_VOL_DIST_ID);
+        existingDistVol.getBricks().forEach(fetchedDistVol::addBrick);
+        fetchedDistVol.setOption(OPTION_NFS_DISABLE, OPTION_VALUE_ON);
+        fetchedVolumes.put(EXISTING_VOL_DIST_ID, fetchedDistVol);
+        doReturn(fetchedVolumes).when(glusterManager).fetchVolumes(any());
+        doReturn(existingDistVol).when(volumeDao).getById(EXISTING_VOL_DIST_ID);
+        doThrow(new RuntimeException("write failed")).when(optionDao)
+                .saveAll(argThat(containsOption(OPTION_AUTH_REJECT)));
+
+        glusterManager.refreshLightWeightData();
+
+        // written at once, then per volume
+        verify(optionDao, times(2)).saveAll(argThat(containsOption(OPTION_NFS_DISABLE)));
+        verify(logUtil, times(1)).logAuditMessage(any(),
+                any(),
+                eq(existingDistVol),
+                any(),
+                eq(AuditLogType.GLUSTER_VOLUME_OPTION_SET_FROM_CLI),
+                any());
+
+        // the changes of repl volume weren't written, so they aren't logged
+        verifyAuditMessage(AuditLogType.GLUSTER_VOLUME_BRICK_ADDED_FROM_CLI, never());
+        verifyAuditMessage(AuditLogType.GLUSTER_VOLUME_BRICK_REMOVED_FROM_CLI, never());
+        verifyAuditMessage(AuditLogType.GLUSTER_VOLUME_OPTION_RESET_FROM_CLI, never());
+        verifyAuditMessage(AuditLogType.GLUSTER_VOLUME_OPTION_CHANGED_FROM_CLI, never());
+    }
+
+    private void verifyAuditMessage(AuditLogType logType, VerificationMode mode) {
+        verify(logUtil, mode).logAuditMessage(any(), any(), any(), any(), eq(logType), any());
+    }
+
+    private ArgumentMatcher<Collection<GlusterVolumeOptionEntity>> containsOption(String key) {
+        return options -> options.stream().anyMatch(option -> key.equals(option.getKey()));
     }
 
     /**
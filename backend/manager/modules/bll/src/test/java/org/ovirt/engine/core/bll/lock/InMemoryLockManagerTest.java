@@ -5,12 +5,20 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.ovirt.engine.core.common.locks.LockInfo;
 import org.ovirt.engine.core.common.utils.Pair;
 import org.ovirt.engine.core.compat.Guid;
 import org.ovirt.engine.core.utils.lock.EngineLock;
@@ -175,6 +183,55 @@ public class InMemoryLockManagerTest {
         assertEquals(0, lockManager.showAllLocks().size());
     }
 
+    @Test
+    public void testAcquireLockWaitOnUnrelatedKey() throws Exception {
+        assertTrue(lockManager.acquireLockWait(lockLock1, 1000L).getFirst());
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            // a waiter of the held key must not hold back the waiter of an unrelated key
+            CountDownLatch waiterStarted = new CountDownLatch(1);
+            Future<?> blockedWaiter = executor.submit(() -> {
+                waiterStarted.countDown();
+                lockManager.acquireLockWait(lockLock1);
+            });
+            assertTrue(waiterStarted.await(10, TimeUnit.SECONDS));
+
+            // the untimed wait never returns if the lock of the unrelated key is not granted right away
+            executor.submit(() -> lockManager.acquireLockWait(lockLock2)).get(10, TimeUnit.SECONDS);
+            assertFalse(blockedWaiter.isDone());
+            assertEquals(2, lockManager.showAllLocks().size());
+
+            lockManager.releaseLock(lockLock1);
+            blockedWaiter.get(10, TimeUnit.SECONDS);
+            lockManager.releaseLock(lockLock1);
+            lockManager.releaseLock(lockLock2);
+            assertEquals(0, lockManager.showAllLocks().size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testConcurrentAcquireLockWait() throws InterruptedException {
+        int threads = 8;
+        int iterations = 200;
+        int[] counter = new int[1];
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int i = 0; i < threads; i++) {
+            executor.submit(() -> {
+                for (int j = 0; j < iterations; j++) {
+                    lockManager.acquireLockWait(lockLock1);
+                    counter[0]++;
+                    lockManager.releaseLock(lockLock1);
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        assertEquals(threads * iterations, counter[0]);
+        assertTrue(lockManager.showAllLocks().isEmpty());
+    }
+
     @Test
     public void testAcquireLockNegativeTimeout() {
         assertThrows(IllegalArgumentException.class, () -> lockManager.acquireLockWait(lockLock1, -1000L));
@@ -207,6 +264,21 @@ public class InMemoryLockManagerTest {
         sleep();
     }
 
+    @Test
+    public void checkGetLockInfos() {
+        assertTrue(lockManager.acquireLock(updateAndLockLock).getFirst());
+
+        Map<String, LockInfo> lockInfos = lockManager.getLockInfos(
+                Arrays.asList(updateGuid + "1", lockGuid + "2", Guid.newGuid().toString()));
+
+        assertEquals(2, lockInfos.size());
+        assertFalse(lockInfos.get(updateGuid + "1").isExclusive());
+        assertEquals(Collections.singleton(ERROR1), lockInfos.get(updateGuid + "1").getMessages());
+        assertTrue(lockInfos.get(lockGuid + "2").isExclusive());
+        assertEquals(Collections.singleton(ERROR2), lockInfos.get(lockGuid + "2").getMessages());
+        lockManager.releaseLock(updateAndLockLock);
+    }
+
     private void sleep() {
         try {
             Thread.sleep(2000L);
@@ -0,0 +1,95 @@
+package org.ovirt.engine.core.bll.network.macpool;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+public class LongCounterTest {
+
+    @Test
+    public void testIncreaseNoDuplicates() {
+        final LongCounter longCounter = new LongCounter(false);
+
+        assertThat(longCounter.increase(1), is(true));
+        assertThat(longCounter.containsDuplicates(), is(false));
+        assertThat(longCounter.containsCounts(), is(true));
+        assertThat(longCounter.increase(1), is(false));
+        assertThat(longCounter.containsDuplicates(), is(false));
+        assertThat(longCounter.increase(2), is(true));
+        assertThat(longCounter.increase(-3), is(true));
+
+        assertThat(longCounter.contains(0), is(false));
+        assertThat(longCounter.contains(1), is(true));
+        assertThat(longCounter.contains(2), is(true));
+        assertThat(longCounter.contains(-3), is(true));
+        assertThat(longCounter.count(1), is(1));
+        assertThat(longCounter.containsDuplicates(), is(false));
+        assertThat(longCounter.containsCounts(), is(true));
+    }
+
+    @Test
+    public void testIncreaseWithDuplicates() {
+        final LongCounter longCounter = new LongCounter(true);
+
+        assertThat(longCounter.increase(1), is(true));
+        assertThat(longCounter.containsDuplicates(), is(false));
+        assertThat(longCounter.increase(1), is(true));
+        assertThat(longCounter.containsDuplicates(), is(true));
+        assertThat(longCounter.increase(2), is(true));
+        assertThat(longCounter.increase(-3), is(true));
+
+        assertThat(longCounter.contains(0), is(false));
+        assertThat(longCounter.count(1), is(2));
+        assertThat(longCounter.count(2), is(1));
+        assertThat(longCounter.count(-3), is(1));
+        assertThat(longCounter.containsDuplicates(), is(true));
+    }
+
+    @Test
+    public void testDecreaseWithDuplicates() {
+        final LongCounter longCounter = new LongCounter(true);
+
+        assertThat(longCounter.containsCounts(), is(false));
+        longCounter.increase(1);
+        longCounter.increase(1);
+        longCounter.increase(2);
+        assertThat(longCounter.containsDuplicates(), is(true));
+
+        longCounter.decrease(0);
+        assertThat(longCounter.contains(0), is(false));
+        assertThat(longCounter.containsDuplicates(), is(true));
+
+        longCounter.decrease(1);
+        assertThat(longCounter.containsDuplicates(), is(false));
+        assertThat(longCounter.contains(1), is(true));
+        longCounter.decrease(1);
+        assertThat(longCounter.contains(1), is(false));
+        assertThat(longCounter.containsCounts(), is(true));
+
+        longCounter.decrease(2);
+        assertThat(longCounter.contains(2), is(false));
+        assertThat(longCounter.containsCounts(), is(false));
+    }
+
+    @Test
+    public void testManyKeys() {
+        final LongCounter longCounter = new LongCounter(false);
+        final long firstKey = 0x001a4a160000L;
+        final int numberOfKeys = 100_000;
+
+        for (long key = firstKey; key < firstKey + numberOfKeys; key++) {
+            assertThat(longCounter.increase(key), is(true));
+        }
+        assertThat(longCounter.size(), is(numberOfKeys));
+
+        // remove every other key so the remaining ones must stay reachable after the entries are shifted back
+        for (long key = firstKey; key < firstKey + numberOfKeys; key += 2) {
+            longCounter.decrease(key);
+        }
+        assertThat(longCounter.size(), is(numberOfKeys / 2));
+        for (long key = firstKey; key < firstKey + numberOfKeys; key++) {
+            assertThat(longCounter.contains(key), is((key - firstKey) % 2 == 1));
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package org.ovirt.engine.core.bll.network.vm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.ovirt.engine.core.bll.AbstractUserQueryTest;
+import org.ovirt.engine.core.common.businessentities.network.VmNetworkInterface;
+import org.ovirt.engine.core.common.queries.IdsQueryParameters;
+import org.ovirt.engine.core.compat.Guid;
+import org.ovirt.engine.core.dao.network.VmNetworkInterfaceDao;
+
+/** A test case for {@link GetVmInterfacesByVmIdsQuery} */
+public class GetVmInterfacesByVmIdsQueryTest
+        extends AbstractUserQueryTest<IdsQueryParameters, GetVmInterfacesByVmIdsQuery<IdsQueryParameters>> {
+    @Mock
+    private VmNetworkInterfaceDao daoMock;
+
+    /** A test that checks that the interfaces returned by the Dao are grouped by their VMs */
+    @Test
+    public void testExecuteQuery() {
+        Guid vmId1 = Guid.newGuid();
+        Guid vmId2 = Guid.newGuid();
+        VmNetworkInterface nic11 = createInterface(vmId1);
+        VmNetworkInterface nic21 = createInterface(vmId2);
+        VmNetworkInterface nic12 = createInterface(vmId1);
+
+        List<Guid> vmIds = Arrays.asList(vmId1, vmId2, Guid.newGuid());
+        IdsQueryParameters params = getQueryParameters();
+        when(params.getIds()).thenReturn(vmIds);
+        when(daoMock.getAllForVms(vmIds, getUser().getId(), params.isFiltered()))
+                .thenReturn(Arrays.asList(nic11, nic21, nic12));
+
+        GetVmInterfacesByVmIdsQuery<?> query = getQuery();
+        query.executeQueryCommand();
+
+        Map<Guid, List<VmNetworkInterface>> result = query.getQueryReturnValue().getReturnValue();
+        assertEquals(2, result.size());
+        assertEquals(Arrays.asList(nic11, nic12), result.get(vmId1));
+        assertEquals(Collections.singletonList(nic21), result.get(vmId2));
+    }
+
+    private static VmNetworkInterface createInterface(Guid vmId) {
+        VmNetworkInterface nic = new VmNetworkInterface();
+        nic.setId(Guid.newGuid());
+        nic.setVmId(vmId);
+        return nic;
+    }
+}
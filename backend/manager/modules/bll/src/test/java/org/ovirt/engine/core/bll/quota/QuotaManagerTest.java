@@ -1,5 +1,6 @@
 package org.ovirt.engine.core.bll.quota;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
@@ -219,6 +220,18 @@ public class QuotaManagerTest {
         validationMessages.clear();
     }
 
+    @Test
+    public void testConsumeDoesNotModifyFetchedQuota() {
+        quota.setGlobalQuotaStorage(getQuotaStorage(100, 9));
+
+        assertTrue(consumeForStorageQuota(1d));
+        assertEquals(9d, quota.getGlobalQuotaStorage().getStorageSizeGBUsage(), 0);
+
+        // the consumption is cached, the quota is not fetched again
+        assertTrue(consumeForStorageQuota(1d));
+        verify(quotaDao, times(1)).getById(quota.getId());
+    }
+
     @Test
     public void testConsumeClusterQuotaForVCPUGlobalNotExceeded() {
         quota.setGlobalQuotaCluster(getQuotaCluster(100, 18, UNLIMITED_MEM, 0));
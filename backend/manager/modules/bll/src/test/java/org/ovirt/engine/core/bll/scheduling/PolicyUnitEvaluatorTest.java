@@ -0,0 +1,139 @@
+package org.ovirt.engine.core.bll.scheduling;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.ovirt.engine.core.bll.scheduling.policyunits.CpuPinningPolicyUnit;
+import org.ovirt.engine.core.bll.scheduling.policyunits.HighPerformanceCpuPolicyUnit;
+import org.ovirt.engine.core.common.businessentities.Cluster;
+import org.ovirt.engine.core.common.businessentities.VDS;
+import org.ovirt.engine.core.common.businessentities.VM;
+import org.ovirt.engine.core.common.businessentities.VmType;
+import org.ovirt.engine.core.common.config.ConfigValues;
+import org.ovirt.engine.core.common.scheduling.PerHostMessages;
+import org.ovirt.engine.core.common.utils.Pair;
+import org.ovirt.engine.core.compat.Guid;
+import org.ovirt.engine.core.utils.MockConfigDescriptor;
+import org.ovirt.engine.core.utils.MockConfigExtension;
+
+@ExtendWith(MockConfigExtension.class)
+public class PolicyUnitEvaluatorTest {
+
+    private static final int HOSTS = 100;
+
+    public static Stream<MockConfigDescriptor<?>> mockConfiguration() {
+        return Stream.of(
+                MockConfigDescriptor.of(ConfigValues.MaxSchedulerWeight, 1000)
+        );
+    }
+
+    private final ExecutorService pool = Executors.newFixedThreadPool(3);
+    private final PolicyUnitEvaluator sequential = new PolicyUnitEvaluator(pool, 1);
+    private final PolicyUnitEvaluator parallel = new PolicyUnitEvaluator(pool, 4);
+
+    private SchedulingContext context;
+    private List<VDS> hosts;
+    private List<VM> vmGroup;
+
+    @BeforeEach
+    public void setUp() {
+        context = new SchedulingContext(new Cluster(), Collections.emptyMap());
+
+        hosts = new ArrayList<>();
+        for (int i = 0; i < HOSTS; i++) {
+            VDS host = new VDS();
+            host.setId(Guid.newGuid());
+            host.setOnlineCpus(i % 3 == 0 ? "0,1" : "0,1,2,3");
+            host.setCpuSockets(1 + i % 2);
+            host.setCpuCores(4);
+            host.setCpuThreads(4);
+            hosts.add(host);
+        }
+
+        VM vm = new VM();
+        vm.setId(Guid.newGuid());
+        vm.setVmType(VmType.HighPerformance);
+        vm.setCpuPinning("0#3");
+        vm.setNumOfSockets(2);
+        vm.setCpuPerSocket(1);
+        vm.setThreadsPerCpu(1);
+        vm.setvNumaNodeList(Collections.emptyList());
+        vmGroup = Collections.singletonList(vm);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    public void parallelFilterMatchesSequentialFilter() {
+        CpuPinningPolicyUnit unit = new CpuPinningPolicyUnit(null, null);
+        PerHostMessages sequentialMessages = new PerHostMessages();
+        PerHostMessages parallelMessages = new PerHostMessages();
+
+        List<VDS> expected = sequential.filter(unit, context, hosts, vmGroup, sequentialMessages);
+        List<VDS> actual = parallel.filter(unit, context, hosts, vmGroup, parallelMessages);
+
+        assertNotEquals(hosts.size(), expected.size());
+        assertEquals(expected, actual);
+        assertEquals(sequentialMessages.getMessages(), parallelMessages.getMessages());
+    }
+
+    @Test
+    public void parallelScoreMatchesSequentialScore() {
+        HighPerformanceCpuPolicyUnit unit = new HighPerformanceCpuPolicyUnit(null, null);
+
+        List<Pair<Guid, Integer>> expected = sequential.score(unit, context, hosts, vmGroup);
+        List<Pair<Guid, Integer>> actual = parallel.score(unit, context, hosts, vmGroup);
+
+        // The weights of a VM group are summed up in a hash map, only the weight of each host matters
+        assertEquals(expected.size(), actual.size());
+        assertEquals(new HashSet<>(expected), new HashSet<>(actual));
+    }
+
+    @Test
+    public void chunksRejectedByThePoolAreEvaluatedOnTheCallingThread() {
+        ExecutorService rejectingPool = mock(ExecutorService.class);
+        doThrow(new RejectedExecutionException()).when(rejectingPool).execute(any());
+        PolicyUnitEvaluator evaluator = new PolicyUnitEvaluator(rejectingPool, 4);
+        CpuPinningPolicyUnit unit = new CpuPinningPolicyUnit(null, null);
+
+        List<VDS> expected = sequential.filter(unit, context, hosts, vmGroup, new PerHostMessages());
+        List<VDS> actual = evaluator.filter(unit, context, hosts, vmGroup, new PerHostMessages());
+
+        assertEquals(expected, actual);
+        verify(rejectingPool, times(3)).execute(any());
+    }
+
+    @Test
+    public void hostDependentUnitIsEvaluatedForAllHostsAtOnce() {
+        PolicyUnitImpl unit = mock(PolicyUnitImpl.class);
+        when(unit.filter(any(), anyList(), anyList(), any(PerHostMessages.class))).thenReturn(hosts);
+
+        parallel.filter(unit, context, hosts, vmGroup, new PerHostMessages());
+
+        verify(unit, times(1)).filter(eq(context), eq(hosts), eq(vmGroup), any(PerHostMessages.class));
+    }
+}
@@ -2,8 +2,12 @@ package org.ovirt.engine.core.bll.scheduling.pending;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.junit.jupiter.api.Test;
@@ -13,9 +17,15 @@ import org.ovirt.engine.core.compat.Guid;
 
 public class PendingResourceManagerTest {
 
+    private static PendingResourceManager createManager() {
+        PendingResourceManager manager = new PendingResourceManager();
+        manager.setConsistencyCheckEnabled(true);
+        return manager;
+    }
+
     @Test
     public void testClearVm() {
-        PendingResourceManager manager = new PendingResourceManager();
+        PendingResourceManager manager = createManager();
 
         VDS host = new VDS();
         host.setId(Guid.newGuid());
@@ -45,7 +55,7 @@ public class PendingResourceManagerTest {
 
     @Test
     public void testClearHost() {
-        PendingResourceManager manager = new PendingResourceManager();
+        PendingResourceManager manager = createManager();
 
         VDS host = new VDS();
         host.setId(Guid.newGuid());
@@ -71,7 +81,7 @@ public class PendingResourceManagerTest {
 
     @Test
     public void testAddPending() {
-        PendingResourceManager manager = new PendingResourceManager();
+        PendingResourceManager manager = createManager();
 
         VDS host = new VDS();
         host.setId(Guid.newGuid());
@@ -100,7 +110,7 @@ public class PendingResourceManagerTest {
 
     @Test
     public void testGetScheduledHost() {
-        PendingResourceManager manager = new PendingResourceManager();
+        PendingResourceManager manager = createManager();
 
         VDS host1 = new VDS();
         host1.setId(Guid.newGuid());
@@ -128,7 +138,7 @@ public class PendingResourceManagerTest {
 
     @Test
     public void testGetPendingHostResources() {
-        PendingResourceManager manager = new PendingResourceManager();
+        PendingResourceManager manager = createManager();
 
         VDS host1 = new VDS();
         host1.setId(Guid.newGuid());
@@ -168,7 +178,7 @@ public class PendingResourceManagerTest {
 
     @Test
     public void testGetPendingVmResources() {
-        PendingResourceManager manager = new PendingResourceManager();
+        PendingResourceManager manager = createManager();
 
         VDS host1 = new VDS();
         host1.setId(Guid.newGuid());
@@ -197,4 +207,97 @@ public class PendingResourceManagerTest {
                 .extracting(PendingMemory::getSizeInMb)
                 .containsOnly(768L);
     }
+
+    @Test
+    public void testStaleResourceIsReplaced() {
+        PendingResourceManager manager = createManager();
+
+        VDS host1 = new VDS();
+        host1.setId(Guid.newGuid());
+
+        VDS host2 = new VDS();
+        host2.setId(Guid.newGuid());
+
+        VM vm = new VM();
+        vm.setId(Guid.newGuid());
+
+        manager.addPending(new PendingMemory(host1, vm, 768));
+        manager.addPending(new PendingOvercommitMemory(host1, vm, 1024));
+        manager.addPending(new PendingCpuCores(host1, vm, 2));
+
+        manager.addPending(new PendingMemory(host1, vm, 512));
+        manager.addPending(new PendingOvercommitMemory(host2, vm, 2048));
+        manager.addPending(new PendingCpuCores(host2, vm, 4));
+
+        assertEquals(512, PendingMemory.collectForHost(manager, host1.getId()));
+        assertEquals(0, PendingOvercommitMemory.collectForHost(manager, host1.getId()));
+        assertEquals(0, PendingCpuCores.collectForHost(manager, host1.getId()));
+        assertEquals(0, PendingMemory.collectForHost(manager, host2.getId()));
+        assertEquals(2048, PendingOvercommitMemory.collectForHost(manager, host2.getId()));
+        assertEquals(4, PendingCpuCores.collectForHost(manager, host2.getId()));
+    }
+
+    @Test
+    public void testCollectNumaMemoryAndHugePages() {
+        PendingResourceManager manager = createManager();
+
+        VDS host = new VDS();
+        host.setId(Guid.newGuid());
+
+        VM vm1 = new VM();
+        vm1.setId(Guid.newGuid());
+
+        VM vm2 = new VM();
+        vm2.setId(Guid.newGuid());
+
+        manager.addPending(new PendingNumaMemory(host.getId(), vm1, 0, 1024));
+        manager.addPending(new PendingNumaMemory(host.getId(), vm1, 1, 512));
+        manager.addPending(new PendingNumaMemory(host.getId(), vm2, 0, 256));
+        manager.addPending(new PendingHugePages(host, vm1, 2048, 10));
+        manager.addPending(new PendingHugePages(host, vm2, 2048, 5));
+        manager.addPending(new PendingHugePages(host, vm2, 1048576, 1));
+
+        Map<Integer, Long> numaMemory = new HashMap<>();
+        numaMemory.put(0, 1280L);
+        numaMemory.put(1, 512L);
+        assertEquals(numaMemory, PendingNumaMemory.collectForHost(manager, host.getId()));
+
+        Map<Integer, Integer> hugePages = new HashMap<>();
+        hugePages.put(2048, 15);
+        hugePages.put(1048576, 1);
+        assertEquals(hugePages, PendingHugePages.collectForHost(manager, host.getId()));
+
+        manager.clearVm(vm1);
+
+        assertEquals(Collections.singletonMap(0, 256L), PendingNumaMemory.collectForHost(manager, host.getId()));
+        hugePages.put(2048, 5);
+        assertEquals(hugePages, PendingHugePages.collectForHost(manager, host.getId()));
+
+        manager.clearHost(host);
+
+        assertEquals(Collections.emptyMap(), PendingNumaMemory.collectForHost(manager, host.getId()));
+        assertEquals(Collections.emptyMap(), PendingHugePages.collectForHost(manager, host.getId()));
+    }
+
+    @Test
+    public void testConsistencyCheckDetectsModifiedResource() {
+        PendingResourceManager manager = createManager();
+
+        VDS host = new VDS();
+        host.setId(Guid.newGuid());
+
+        VM vm1 = new VM();
+        vm1.setId(Guid.newGuid());
+
+        VM vm2 = new VM();
+        vm2.setId(Guid.newGuid());
+
+        PendingCpuCores cpuCores = new PendingCpuCores(host, vm1, 2);
+        manager.addPending(cpuCores);
+
+        // Resources must not be modified once they are pending
+        cpuCores.setCoreCount(4);
+
+        assertThrows(IllegalStateException.class, () -> manager.addPending(new PendingCpuCores(host, vm2, 1)));
+    }
 }
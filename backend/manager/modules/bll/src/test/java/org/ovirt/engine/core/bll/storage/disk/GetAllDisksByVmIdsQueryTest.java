@@ -0,0 +1,89 @@
+package org.ovirt.engine.core.bll.storage.disk;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.ovirt.engine.core.bll.AbstractUserQueryTest;
+import org.ovirt.engine.core.common.businessentities.VmDeviceId;
+import org.ovirt.engine.core.common.businessentities.storage.Disk;
+import org.ovirt.engine.core.common.businessentities.storage.DiskImage;
+import org.ovirt.engine.core.common.businessentities.storage.DiskVmElement;
+import org.ovirt.engine.core.common.businessentities.storage.ImageStatus;
+import org.ovirt.engine.core.common.queries.IdsQueryParameters;
+import org.ovirt.engine.core.compat.Guid;
+import org.ovirt.engine.core.dao.DiskDao;
+import org.ovirt.engine.core.dao.DiskImageDao;
+import org.ovirt.engine.core.dao.DiskVmElementDao;
+
+/** A test case for {@link GetAllDisksByVmIdsQuery} */
+public class GetAllDisksByVmIdsQueryTest
+        extends AbstractUserQueryTest<IdsQueryParameters, GetAllDisksByVmIdsQuery<IdsQueryParameters>> {
+    @Mock
+    private DiskDao diskDaoMock;
+
+    @Mock
+    private DiskImageDao diskImageDao;
+
+    @Mock
+    private DiskVmElementDao diskVmElementDao;
+
+    /**
+     * A test that checks that the disks of each VM get their VM element and snapshots, and that disks without a VM
+     * element are left out
+     */
+    @Test
+    public void testExecuteQuery() {
+        Guid vmId1 = Guid.newGuid();
+        Guid vmId2 = Guid.newGuid();
+        DiskImage disk11 = createDiskImage();
+        DiskImage disk12 = createDiskImage();
+        DiskImage disk21 = createDiskImage();
+        DiskImage diskWithoutElement = createDiskImage();
+        DiskVmElement dve11 = new DiskVmElement(new VmDeviceId(disk11.getId(), vmId1));
+        DiskVmElement dve12 = new DiskVmElement(new VmDeviceId(disk12.getId(), vmId1));
+        DiskVmElement dve21 = new DiskVmElement(new VmDeviceId(disk21.getId(), vmId2));
+        DiskImage snapshot = createDiskImage();
+
+        List<Guid> vmIds = Arrays.asList(vmId1, vmId2, Guid.newGuid());
+        IdsQueryParameters params = getQueryParameters();
+        when(params.getIds()).thenReturn(vmIds);
+        Map<Guid, List<Disk>> allDisksByVm = new HashMap<>();
+        allDisksByVm.put(vmId1, Arrays.asList(disk11, disk12));
+        allDisksByVm.put(vmId2, Arrays.asList(disk21, diskWithoutElement));
+        when(diskDaoMock.getAllForVms(vmIds, getUser().getId(), params.isFiltered())).thenReturn(allDisksByVm);
+        when(diskVmElementDao.getAllForVms(eq(allDisksByVm.keySet()), any(), eq(false)))
+                .thenReturn(Arrays.asList(dve11, dve12, dve21));
+        when(diskImageDao.getAllSnapshotsForLeaf(disk11.getImageId())).thenReturn(Collections.singletonList(snapshot));
+
+        GetAllDisksByVmIdsQuery<?> query = getQuery();
+        query.executeQueryCommand();
+
+        Map<Guid, List<Disk>> result = query.getQueryReturnValue().getReturnValue();
+        assertEquals(2, result.size());
+        assertEquals(Arrays.asList(disk11, disk12), result.get(vmId1));
+        assertEquals(Collections.singletonList(disk21), result.get(vmId2));
+        assertEquals(dve11, disk11.getDiskVmElementForVm(vmId1));
+        assertEquals(dve21, disk21.getDiskVmElementForVm(vmId2));
+        assertEquals(Collections.singletonList(snapshot), disk11.getSnapshots());
+    }
+
+    private static DiskImage createDiskImage() {
+        DiskImage di = new DiskImage();
+        di.setId(Guid.newGuid());
+        di.setImageId(Guid.newGuid());
+        di.setParentId(Guid.newGuid());
+        di.setImageStatus(ImageStatus.OK);
+        di.setActive(true);
+        return di;
+    }
+}
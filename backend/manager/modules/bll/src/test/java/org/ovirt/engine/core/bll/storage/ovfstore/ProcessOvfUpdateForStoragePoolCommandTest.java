@@ -57,6 +57,7 @@ import org.ovirt.engine.core.compat.Guid;
 import org.ovirt.engine.core.compat.KeyValuePairCompat;
 import org.ovirt.engine.core.dao.DbUserDao;
 import org.ovirt.engine.core.dao.LabelDao;
+import org.ovirt.engine.core.dao.PermissionDao;
 import org.ovirt.engine.core.dao.SnapshotDao;
 import org.ovirt.engine.core.dao.StorageDomainDao;
 import org.ovirt.engine.core.dao.StorageDomainOvfInfoDao;
@@ -66,10 +67,11 @@ import org.ovirt.engine.core.dao.VmDao;
 import org.ovirt.engine.core.dao.VmStaticDao;
 import org.ovirt.engine.core.dao.VmTemplateDao;
 import org.ovirt.engine.core.dao.scheduling.AffinityGroupDao;
+import org.ovirt.engine.core.utils.ExecutorServiceExtension;
 import org.ovirt.engine.core.utils.MockConfigDescriptor;
 import org.ovirt.engine.core.utils.MockConfigExtension;
 
-@ExtendWith(MockConfigExtension.class)
+@ExtendWith({MockConfigExtension.class, ExecutorServiceExtension.class})
 @MockitoSettings(strictness = Strictness.LENIENT)
 public class ProcessOvfUpdateForStoragePoolCommandTest extends BaseCommandTest {
     private static final int ITEMS_COUNT_PER_UPDATE = 100;
@@ -112,6 +114,9 @@ public class ProcessOvfUpdateForStoragePoolCommandTest extends BaseCommandTest {
     @Mock
     private DbUserDao dbUserDao;
 
+    @Mock
+    private PermissionDao permissionDao;
+
     @Mock
     private OvfHelper ovfHelper;
 
@@ -119,6 +124,10 @@ public class ProcessOvfUpdateForStoragePoolCommandTest extends BaseCommandTest {
     @InjectMocks
     private OvfUpdateProcessHelper ovfUpdateProcessHelper;
 
+    @Spy
+    @InjectMocks
+    private OvfDataLoader ovfDataLoader;
+
     private StoragePool pool1;
     private Map<Guid, VM> vms;
     private Map<Guid, VmTemplate> templates;
@@ -145,7 +154,7 @@ public class ProcessOvfUpdateForStoragePoolCommandTest extends BaseCommandTest {
         doNothing().when(command).updateTemplateDisksFromDb(any());
 
         // dao related mocks.
-        doReturn(1L).when(vmStaticDao).getDbGeneration(any());
+        mockDbGenerations(1L);
         doReturn(pool1).when(command).getStoragePool();
 
         mockAnswers();
@@ -244,6 +253,13 @@ public class ProcessOvfUpdateForStoragePoolCommandTest extends BaseCommandTest {
         }).when(storageDomainOvfInfoDao).getAllForDomain(any());
     }
 
+    private void mockDbGenerations(long dbGeneration) {
+        doAnswer(invocation -> {
+            Collection<Guid> ids = (Collection<Guid>) invocation.getArguments()[0];
+            return ids.stream().collect(Collectors.toMap(id -> id, id -> dbGeneration));
+        }).when(vmStaticDao).getDbGenerations(any());
+    }
+
     private List<StoragePool> buildStoragePoolsList() {
         return Collections.singletonList(pool1);
     }
@@ -539,7 +555,7 @@ public class ProcessOvfUpdateForStoragePoolCommandTest extends BaseCommandTest {
 
         initTestForPool(pool1, vmGuids, templatesGuids, removedGuids);
 
-        doReturn(2L).when(vmStaticDao).getDbGeneration(any());
+        mockDbGenerations(2L);
 
         executeCommand();
 
@@ -549,6 +565,32 @@ public class ProcessOvfUpdateForStoragePoolCommandTest extends BaseCommandTest {
         verifyOvfUpdatedForSupportedPools(Collections.emptyList(), Collections.emptyMap());
     }
 
+    @Test
+    public void testDbGenerationUpdatedWhileLoadingData() {
+        int size = ITEMS_COUNT_PER_UPDATE - 1;
+        List<Guid> vmGuids = generateGuidList(size);
+        List<Guid> templatesGuids = generateGuidList(size);
+        addVms(vmGuids, 2, VMStatus.Down, ImageStatus.OK);
+        addTemplates(templatesGuids, 2, VmTemplateStatus.OK, ImageStatus.OK);
+
+        initTestForPool(pool1, vmGuids, templatesGuids, Collections.emptyList());
+
+        // the vms and templates are updated after they were read, while the rest of their data is loaded
+        doAnswer(invocation -> {
+            mockDbGenerations(2L);
+            return null;
+        }).when(ovfUpdateProcessHelper).loadVmData(any());
+        doAnswer(invocation -> {
+            mockDbGenerations(2L);
+            return null;
+        }).when(ovfUpdateProcessHelper).loadTemplateData(any());
+
+        executeCommand();
+
+        verify(command, never()).performOvfUpdate(any());
+        verifyCorrectOvfDataUpdaterRun(Collections.emptyList());
+    }
+
     @Test
     public void testUpdateCalledForUnupdatedDomain() {
         Guid poolId = pool1.getId();
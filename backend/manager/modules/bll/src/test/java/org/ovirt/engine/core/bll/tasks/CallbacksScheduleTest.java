@@ -0,0 +1,92 @@
+package org.ovirt.engine.core.bll.tasks;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.ovirt.engine.core.compat.Guid;
+
+public class CallbacksScheduleTest {
+
+    private static final long POLLING_RATE = 10;
+
+    private final CallbacksSchedule schedule = new CallbacksSchedule();
+
+    @Test
+    public void callbackIsDueAfterItsDelay() {
+        Guid cmdId = Guid.newGuid();
+        schedule.schedule(cmdId, new CallbackTiming(null, POLLING_RATE), 3 * POLLING_RATE);
+
+        schedule.advance(POLLING_RATE);
+        assertTrue(pollDueCommandIds().isEmpty());
+        schedule.advance(POLLING_RATE);
+        assertTrue(pollDueCommandIds().isEmpty());
+        schedule.advance(POLLING_RATE);
+        assertEquals(Collections.singletonList(cmdId), pollDueCommandIds());
+
+        // the callback has to be scheduled again to be due again
+        schedule.advance(POLLING_RATE);
+        assertTrue(pollDueCommandIds().isEmpty());
+    }
+
+    @Test
+    public void dueCallbacksAreOrderedByDueTime() {
+        Guid later = Guid.newGuid();
+        Guid sooner = Guid.newGuid();
+        schedule.schedule(later, new CallbackTiming(null, POLLING_RATE), 2 * POLLING_RATE);
+        schedule.schedule(sooner, new CallbackTiming(null, POLLING_RATE), POLLING_RATE);
+
+        schedule.advance(2 * POLLING_RATE);
+
+        assertEquals(Arrays.asList(sooner, later), pollDueCommandIds());
+    }
+
+    @Test
+    public void schedulingSoonerReplacesThePreviousTime() {
+        Guid cmdId = Guid.newGuid();
+        CallbackTiming callbackTiming = new CallbackTiming(null, POLLING_RATE);
+        schedule.schedule(cmdId, callbackTiming, 4 * POLLING_RATE);
+        schedule.schedule(cmdId, callbackTiming, 0);
+
+        assertEquals(Collections.singletonList(cmdId), pollDueCommandIds());
+
+        schedule.advance(4 * POLLING_RATE);
+        assertTrue(pollDueCommandIds().isEmpty());
+        assertEquals(0, schedule.size());
+    }
+
+    @Test
+    public void callbackScheduledTwiceForTheSameTimeIsDueOnce() {
+        Guid cmdId = Guid.newGuid();
+        CallbackTiming callbackTiming = new CallbackTiming(null, POLLING_RATE);
+        schedule.schedule(cmdId, callbackTiming, POLLING_RATE);
+        schedule.schedule(cmdId, callbackTiming, POLLING_RATE);
+
+        schedule.advance(POLLING_RATE);
+
+        assertEquals(Collections.singletonList(cmdId), pollDueCommandIds());
+        assertEquals(CallbackTiming.UNSCHEDULED, callbackTiming.getDueTime());
+    }
+
+    @Test
+    public void schedulingLaterKeepsTheEarlierTime() {
+        Guid cmdId = Guid.newGuid();
+        CallbackTiming callbackTiming = new CallbackTiming(null, POLLING_RATE);
+        schedule.schedule(cmdId, callbackTiming, 0);
+        schedule.schedule(cmdId, callbackTiming, 4 * POLLING_RATE);
+
+        assertEquals(Collections.singletonList(cmdId), pollDueCommandIds());
+        assertEquals(0, schedule.size());
+    }
+
+    private List<Guid> pollDueCommandIds() {
+        return schedule.pollDue().stream()
+                .map(CallbacksSchedule.ScheduledCallback::getCommandId)
+                .collect(Collectors.toList());
+    }
+}
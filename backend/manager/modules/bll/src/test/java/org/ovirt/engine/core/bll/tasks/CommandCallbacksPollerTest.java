@@ -0,0 +1,175 @@
+package org.ovirt.engine.core.bll.tasks;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.enterprise.concurrent.ManagedScheduledExecutorService;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.ovirt.engine.core.bll.tasks.interfaces.CommandCallback;
+import org.ovirt.engine.core.common.action.ActionParametersBase;
+import org.ovirt.engine.core.common.businessentities.CommandEntity;
+import org.ovirt.engine.core.common.config.ConfigValues;
+import org.ovirt.engine.core.compat.CommandStatus;
+import org.ovirt.engine.core.compat.Guid;
+import org.ovirt.engine.core.utils.MockConfigDescriptor;
+import org.ovirt.engine.core.utils.MockConfigExtension;
+
+@ExtendWith({MockitoExtension.class, MockConfigExtension.class})
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class CommandCallbacksPollerTest {
+
+    private static final long POLLING_RATE = 10;
+
+    public static Stream<MockConfigDescriptor<?>> mockConfiguration() {
+        return Stream.of(
+                MockConfigDescriptor.of(ConfigValues.AsyncCommandPollingLoopInSeconds, POLLING_RATE),
+                MockConfigDescriptor.of(ConfigValues.AsyncCommandPollingRateInSeconds, POLLING_RATE),
+                MockConfigDescriptor.of(ConfigValues.RepeatEndMethodsOnFailMaxRetries, 5));
+    }
+
+    @Mock
+    private ManagedScheduledExecutorService executor;
+
+    @Mock
+    private CommandsRepository commandsRepository;
+
+    @Mock
+    private CommandCallback callback;
+
+    @Spy
+    @InjectMocks
+    private CommandCallbacksPoller poller;
+
+    private final CallbacksSchedule schedule = new CallbacksSchedule();
+    private Runnable pollingCycle;
+
+    @BeforeEach
+    public void setUp() {
+        doAnswer(invocation -> {
+            schedule.advance(invocation.getArgument(0));
+            return null;
+        }).when(commandsRepository).advanceCallbacksClock(anyLong());
+        when(commandsRepository.pollDueCallbacks()).thenAnswer(invocation -> schedule.pollDue());
+
+        poller.init();
+
+        ArgumentCaptor<Runnable> cycleCaptor = ArgumentCaptor.forClass(Runnable.class);
+        verify(executor).scheduleWithFixedDelay(cycleCaptor.capture(),
+                eq(POLLING_RATE),
+                eq(POLLING_RATE),
+                eq(TimeUnit.SECONDS));
+        pollingCycle = cycleCaptor.getValue();
+    }
+
+    @Test
+    public void eventArrivingWhileRescheduledKeepsTheCallbackDue() {
+        Guid cmdId = Guid.newGuid();
+        CallbackTiming callbackTiming = new CallbackTiming(callback, POLLING_RATE);
+        callbackTiming.setWaitOnEventEndTime(System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(10));
+        when(commandsRepository.getCallbackTiming(cmdId)).thenReturn(callbackTiming);
+        doAnswer(invocation -> {
+            schedule.schedule(cmdId, callbackTiming, invocation.getArgument(1));
+            return null;
+        }).when(commandsRepository).scheduleCallback(eq(cmdId), anyLong());
+
+        CommandEntity commandEntity = spy(new CommandEntity());
+        commandEntity.setId(cmdId);
+        commandEntity.setCommandParameters(new ActionParametersBase());
+        commandEntity.setWaitingForEvent(true);
+        when(commandsRepository.getCommandEntity(cmdId)).thenReturn(commandEntity);
+        // the event arrives right after the poller found the command waiting for it, like CoCoEventSubscriber
+        doAnswer(invocation -> {
+            boolean waitingForEvent = (boolean) invocation.callRealMethod();
+            commandEntity.setWaitingForEvent(false);
+            schedule.schedule(cmdId, callbackTiming, 0);
+            return waitingForEvent;
+        }).doCallRealMethod().when(commandEntity).isWaitingForEvent();
+        schedule.schedule(cmdId, callbackTiming, POLLING_RATE);
+
+        pollingCycle.run();
+
+        verify(commandsRepository).scheduleCallback(eq(cmdId), anyLong());
+        assertEquals(Collections.singletonList(callbackTiming),
+                schedule.pollDue().stream()
+                        .map(CallbacksSchedule.ScheduledCallback::getCallbackTiming)
+                        .collect(Collectors.toList()));
+    }
+
+    @Test
+    public void expiredCommandsAreMarkedOnceAMinute() {
+        long start = TimeUnit.HOURS.toMillis(1);
+        doReturn(start).when(poller).currentTimeMillis();
+        pollingCycle.run();
+        verify(commandsRepository, times(1)).markExpiredCommandsAsFailure();
+
+        doReturn(start + TimeUnit.SECONDS.toMillis(30)).when(poller).currentTimeMillis();
+        pollingCycle.run();
+        doReturn(start + TimeUnit.SECONDS.toMillis(59)).when(poller).currentTimeMillis();
+        pollingCycle.run();
+        verify(commandsRepository, times(1)).markExpiredCommandsAsFailure();
+
+        doReturn(start + TimeUnit.MINUTES.toMillis(1)).when(poller).currentTimeMillis();
+        pollingCycle.run();
+        verify(commandsRepository, times(2)).markExpiredCommandsAsFailure();
+    }
+
+    @Test
+    public void callbacksThatAreNotDueAreNotInvoked() {
+        Guid cmdId = Guid.newGuid();
+        CallbackTiming callbackTiming = new CallbackTiming(callback, POLLING_RATE);
+        when(commandsRepository.getCallbackTiming(cmdId)).thenReturn(callbackTiming);
+        schedule.schedule(cmdId, callbackTiming, 2 * POLLING_RATE);
+
+        pollingCycle.run();
+
+        verify(commandsRepository, never()).getCommandEntity(any());
+    }
+
+    @Test
+    public void entryOfAReplacedTimingDoesNotInvokeTheCallback() {
+        Guid cmdId = Guid.newGuid();
+        CallbackTiming replacedTiming = new CallbackTiming(callback, POLLING_RATE);
+        CallbackTiming callbackTiming = new CallbackTiming(callback, POLLING_RATE);
+        schedule.schedule(cmdId, replacedTiming, POLLING_RATE);
+        schedule.schedule(cmdId, callbackTiming, 2 * POLLING_RATE);
+        when(commandsRepository.getCallbackTiming(cmdId)).thenReturn(callbackTiming);
+
+        CommandEntity commandEntity = new CommandEntity();
+        commandEntity.setId(cmdId);
+        commandEntity.setCommandParameters(new ActionParametersBase());
+        commandEntity.setExecuted(true);
+        when(commandsRepository.getCommandEntity(cmdId)).thenReturn(commandEntity);
+        when(commandsRepository.getCommandStatus(cmdId)).thenReturn(CommandStatus.ACTIVE);
+
+        pollingCycle.run();
+        verify(callback, never()).doPolling(eq(cmdId), anyList());
+
+        pollingCycle.run();
+        verify(callback, times(1)).doPolling(eq(cmdId), anyList());
+    }
+}
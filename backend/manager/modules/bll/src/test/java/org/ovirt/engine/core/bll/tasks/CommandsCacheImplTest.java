@@ -0,0 +1,190 @@
+package org.ovirt.engine.core.bll.tasks;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import javax.enterprise.concurrent.ManagedScheduledExecutorService;
+import javax.transaction.TransactionManager;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Answers;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.ovirt.engine.core.common.businessentities.CommandEntity;
+import org.ovirt.engine.core.common.config.ConfigValues;
+import org.ovirt.engine.core.compat.CommandStatus;
+import org.ovirt.engine.core.compat.DateTime;
+import org.ovirt.engine.core.compat.Guid;
+import org.ovirt.engine.core.dao.CommandEntityDao;
+import org.ovirt.engine.core.utils.InjectedMock;
+import org.ovirt.engine.core.utils.InjectorExtension;
+import org.ovirt.engine.core.utils.MockConfigDescriptor;
+import org.ovirt.engine.core.utils.MockConfigExtension;
+
+@ExtendWith({MockitoExtension.class, MockConfigExtension.class, InjectorExtension.class})
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class CommandsCacheImplTest {
+
+    private static final int WRITE_DELAY = 500;
+
+    public static Stream<MockConfigDescriptor<?>> mockConfiguration() {
+        return Stream.of(MockConfigDescriptor.of(ConfigValues.CommandStatusWriteDelayInMillis, WRITE_DELAY));
+    }
+
+    @Mock(answer = Answers.RETURNS_DEEP_STUBS)
+    @InjectedMock
+    public TransactionManager transactionManager;
+
+    @Mock
+    private CommandEntityDao commandEntityDao;
+
+    @Mock
+    private ManagedScheduledExecutorService executor;
+
+    @InjectMocks
+    private CommandsCacheImpl commandsCache;
+
+    private List<Runnable> scheduledFlushes;
+
+    @BeforeEach
+    public void setUp() {
+        scheduledFlushes = new ArrayList<>();
+        when(executor.schedule(any(Runnable.class), anyLong(), any())).thenAnswer(invocation -> {
+            scheduledFlushes.add(invocation.getArgument(0));
+            return null;
+        });
+    }
+
+    @Test
+    public void statusUpdatesAreWrittenOnceAfterTheDelay() {
+        CommandEntity cmdEntity = putCommand(new Date());
+
+        commandsCache.updateCommandStatus(cmdEntity.getId(), CommandStatus.ACTIVE);
+        commandsCache.updateCommandStatus(cmdEntity.getId(), CommandStatus.ENDED_SUCCESSFULLY);
+        commandsCache.updateCommandStatus(cmdEntity.getId(), CommandStatus.SUCCEEDED);
+
+        verify(executor).schedule(any(Runnable.class), eq((long) WRITE_DELAY), eq(TimeUnit.MILLISECONDS));
+        verify(commandEntityDao, never()).saveOrUpdateAll(anyCollection());
+
+        runScheduledFlushes();
+
+        assertEquals(Collections.singletonList(cmdEntity), writtenStatuses(1).get(0));
+        assertEquals(CommandStatus.SUCCEEDED, cmdEntity.getCommandStatus());
+    }
+
+    @Test
+    public void pendingStatusOfRemovedCommandIsNotWritten() {
+        CommandEntity cmdEntity = putCommand(new Date());
+        commandsCache.updateCommandStatus(cmdEntity.getId(), CommandStatus.SUCCEEDED);
+
+        commandsCache.remove(cmdEntity.getId());
+        runScheduledFlushes();
+
+        verify(commandEntityDao).remove(cmdEntity.getId());
+        verify(commandEntityDao, never()).saveOrUpdateAll(anyCollection());
+    }
+
+    @Test
+    public void pendingStatusesAreWrittenOnShutdown() {
+        CommandEntity cmdEntity = putCommand(new Date());
+        commandsCache.updateCommandStatus(cmdEntity.getId(), CommandStatus.SUCCEEDED);
+
+        commandsCache.shutdown();
+
+        assertEquals(Collections.singletonList(cmdEntity), writtenStatuses(1).get(0));
+    }
+
+    @Test
+    public void pendingStatusesAreWrittenBeforeOldCommandsAreRemoved() {
+        CommandEntity cmdEntity = putCommand(new Date());
+        commandsCache.updateCommandStatus(cmdEntity.getId(), CommandStatus.SUCCEEDED);
+
+        commandsCache.removeAllCommandsBeforeDate(new DateTime(new Date(0)));
+
+        assertEquals(Collections.singletonList(cmdEntity), writtenStatuses(1).get(0));
+    }
+
+    @Test
+    public void failedStatusWriteIsRetried() {
+        CommandEntity cmdEntity = putCommand(new Date());
+        commandsCache.updateCommandStatus(cmdEntity.getId(), CommandStatus.SUCCEEDED);
+        doThrow(new RuntimeException("write failed")).doNothing()
+                .when(commandEntityDao).saveOrUpdateAll(anyCollection());
+
+        runScheduledFlushes();
+        verify(executor, times(2)).schedule(any(Runnable.class), anyLong(), any());
+        runScheduledFlushes();
+
+        List<Collection<CommandEntity>> writes = writtenStatuses(2);
+        assertEquals(Collections.singletonList(cmdEntity), writes.get(0));
+        assertEquals(Collections.singletonList(cmdEntity), writes.get(1));
+    }
+
+    @Test
+    public void removedOldCommandsAreEvictedWithOneQuery() {
+        commandsCache.keySet();
+        Date createdAt = new Date(System.currentTimeMillis() - 60000);
+        CommandEntity removed = putCommand(createdAt);
+        CommandEntity kept = putCommand(createdAt);
+        CommandEntity recent = putCommand(new Date());
+        DateTime cutoff = new DateTime(new Date(System.currentTimeMillis() - 30000));
+        when(commandEntityDao.getCommandIdsBeforeDate(cutoff)).thenReturn(Collections.singletonList(kept.getId()));
+
+        commandsCache.removeAllCommandsBeforeDate(cutoff);
+
+        verify(commandEntityDao).removeAllBeforeDate(cutoff);
+        verify(commandEntityDao).getCommandIdsBeforeDate(cutoff);
+        verify(commandEntityDao, never()).get(any());
+        assertNull(commandsCache.get(removed.getId()));
+        assertNotNull(commandsCache.get(kept.getId()));
+        assertNotNull(commandsCache.get(recent.getId()));
+    }
+
+    private CommandEntity putCommand(Date createdAt) {
+        CommandEntity cmdEntity = new CommandEntity();
+        cmdEntity.setId(Guid.newGuid());
+        cmdEntity.setCreatedAt(createdAt);
+        cmdEntity.setCommandStatus(CommandStatus.NOT_STARTED);
+        commandsCache.put(cmdEntity);
+        return cmdEntity;
+    }
+
+    private void runScheduledFlushes() {
+        List<Runnable> flushes = new ArrayList<>(scheduledFlushes);
+        scheduledFlushes.clear();
+        flushes.forEach(Runnable::run);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Collection<CommandEntity>> writtenStatuses(int writes) {
+        ArgumentCaptor<Collection<CommandEntity>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(commandEntityDao, times(writes)).saveOrUpdateAll(captor.capture());
+        List<Collection<CommandEntity>> written = new ArrayList<>();
+        captor.getAllValues().forEach(cmdEntities -> written.add(new ArrayList<>(cmdEntities)));
+        return written;
+    }
+}
@@ -32,6 +32,15 @@ public class NumaNodeStatistics implements Serializable {
         cpuUsagePercent = 0;
     }
 
+    public NumaNodeStatistics(NumaNodeStatistics statistics) {
+        memFree = statistics.memFree;
+        cpuSys = statistics.cpuSys;
+        cpuUser = statistics.cpuUser;
+        cpuIdle = statistics.cpuIdle;
+        memUsagePercent = statistics.memUsagePercent;
+        cpuUsagePercent = statistics.cpuUsagePercent;
+    }
+
     public long getMemFree() {
         return memFree;
     }
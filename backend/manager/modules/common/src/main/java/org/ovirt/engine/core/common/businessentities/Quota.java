@@ -132,6 +132,41 @@ public class Quota implements Queryable, BusinessEntity<Guid>, Nameable {
         description = "";
     }
 
+    /**
+     * Copy constructor of Quota, the global and specific limitations are copied as well.
+     */
+    public Quota(Quota quota) {
+        id = quota.getId();
+        storagePoolId = quota.getStoragePoolId();
+        storagePoolName = quota.getStoragePoolName();
+        isDefault = quota.isDefault();
+        quotaName = quota.getQuotaName();
+        description = quota.getDescription();
+        thresholdClusterPercentage = quota.getThresholdClusterPercentage();
+        thresholdStoragePercentage = quota.getThresholdStoragePercentage();
+        graceClusterPercentage = quota.getGraceClusterPercentage();
+        graceStoragePercentage = quota.getGraceStoragePercentage();
+        quotaEnforcementType = quota.getQuotaEnforcementType();
+        if (quota.getGlobalQuotaCluster() != null) {
+            globalQuotaCluster = new QuotaCluster(quota.getGlobalQuotaCluster());
+        }
+        if (quota.getGlobalQuotaStorage() != null) {
+            globalQuotaStorage = new QuotaStorage(quota.getGlobalQuotaStorage());
+        }
+        if (quota.getQuotaClusters() != null) {
+            quotaClusterList = new ArrayList<>();
+            for (QuotaCluster quotaCluster : quota.getQuotaClusters()) {
+                quotaClusterList.add(new QuotaCluster(quotaCluster));
+            }
+        }
+        if (quota.getQuotaStorages() != null) {
+            quotaStorageList = new ArrayList<>();
+            for (QuotaStorage quotaStorage : quota.getQuotaStorages()) {
+                quotaStorageList.add(new QuotaStorage(quotaStorage));
+            }
+        }
+    }
+
     /**
      * @return the quota id.
      */
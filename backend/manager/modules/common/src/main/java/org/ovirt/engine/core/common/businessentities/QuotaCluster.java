@@ -83,6 +83,17 @@ public class QuotaCluster implements Queryable {
         this.memSizeMBUsage = memSizeMBUsage;
     }
 
+    public QuotaCluster(QuotaCluster quotaCluster) {
+        this.quotaClusterId = quotaCluster.getQuotaClusterId();
+        this.quotaId = quotaCluster.getQuotaId();
+        this.clusterId = quotaCluster.getClusterId();
+        this.clusterName = quotaCluster.getClusterName();
+        this.virtualCpu = quotaCluster.getVirtualCpu();
+        this.virtualCpuUsage = quotaCluster.getVirtualCpuUsage();
+        this.memSizeMB = quotaCluster.getMemSizeMB();
+        this.memSizeMBUsage = quotaCluster.getMemSizeMBUsage();
+    }
+
     /**
      * @return the quotaId
      */
@@ -66,6 +66,45 @@ public class VdsStatistics implements BusinessEntity<Guid> {
         hugePages = new ArrayList<>();
     }
 
+    /**
+     * Creates a copy of the given statistics, the lists of the statistics are copied but not their elements.
+     */
+    public VdsStatistics(VdsStatistics statistics) {
+        id = statistics.id;
+        cpuIdle = statistics.cpuIdle;
+        cpuLoad = statistics.cpuLoad;
+        cpuSys = statistics.cpuSys;
+        cpuUser = statistics.cpuUser;
+        usageMemPercent = statistics.usageMemPercent;
+        usageCpuPercent = statistics.usageCpuPercent;
+        usageNetworkPercent = statistics.usageNetworkPercent;
+        memAvailable = statistics.memAvailable;
+        memFree = statistics.memFree;
+        memShared = statistics.memShared;
+        swapFree = statistics.swapFree;
+        swapTotal = statistics.swapTotal;
+        ksmCpuPercent = statistics.ksmCpuPercent;
+        ksmPages = statistics.ksmPages;
+        ksmState = statistics.ksmState;
+        anonymousHugePages = statistics.anonymousHugePages;
+        hugePages = copyOf(statistics.hugePages);
+        bootTime = statistics.bootTime;
+        highlyAvailableScore = statistics.highlyAvailableScore;
+        highlyAvailableIsConfigured = statistics.highlyAvailableIsConfigured;
+        highlyAvailableIsActive = statistics.highlyAvailableIsActive;
+        highlyAvailableGlobalMaintenance = statistics.highlyAvailableGlobalMaintenance;
+        highlyAvailableLocalMaintenance = statistics.highlyAvailableLocalMaintenance;
+        cpuOverCommitTimeStamp = statistics.cpuOverCommitTimeStamp == null ?
+                null
+                : new Date(statistics.cpuOverCommitTimeStamp.getTime());
+        cpuCoreStatistics = copyOf(statistics.cpuCoreStatistics);
+        v2vJobs = copyOf(statistics.v2vJobs);
+    }
+
+    private static <T> List<T> copyOf(List<T> list) {
+        return list == null ? null : new ArrayList<>(list);
+    }
+
     @Override
     public int hashCode() {
         return Objects.hash(
@@ -12,6 +12,14 @@ public class VdsNetworkStatistics extends NetworkStatistics {
 
     private Guid vdsId;
 
+    public VdsNetworkStatistics() {
+    }
+
+    public VdsNetworkStatistics(VdsNetworkStatistics statistics) {
+        super(statistics);
+        setVdsId(statistics.getVdsId());
+    }
+
     /**
      * Sets the VDS instance id.
      *
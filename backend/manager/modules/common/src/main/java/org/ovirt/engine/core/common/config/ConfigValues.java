@@ -1587,6 +1587,105 @@ public enum ConfigValues {
     @TypeConverterAttribute(Integer.class)
     SetupNetworksWaitTimeoutSeconds,
 
+    /**
+     * The number of parallel tasks the VMs reported by a host are analyzed in on the VMs monitoring thread pool, 1
+     * means the VMs are monitored sequentially on the monitoring thread.
+     */
+    @TypeConverterAttribute(Integer.class)
+    VmsMonitoringParallelism,
+
+    /**
+     * The relative change, in percents, a VM statistics value needs to move past in order for the statistics of the
+     * VM to be saved by the monitoring, 0 means any change.
+     */
+    @TypeConverterAttribute(Integer.class)
+    VmStatisticsChangeThresholdPercent,
+
+    /**
+     * The number of consecutive monitoring cycles the saving of unchanged VM statistics can be skipped,
+     * 0 means the statistics are saved on every cycle.
+     */
+    @TypeConverterAttribute(Integer.class)
+    VmStatisticsMaxSkippedSaves,
+
+    /**
+     * The interval, in milliseconds, in which queued audit log events are written to the database in a batch,
+     * 0 means every audit log event is written synchronously by the thread logging it.
+     */
+    @TypeConverterAttribute(Integer.class)
+    AuditLogFlushIntervalInMillis,
+
+    /**
+     * The maximal number of audit log events waiting to be written to the database, events logged while the queue
+     * is full are dropped.
+     */
+    @TypeConverterAttribute(Integer.class)
+    AuditLogQueueCapacity,
+
+    /**
+     * The maximal number of queued audit log events written to the database in a single batch.
+     */
+    @TypeConverterAttribute(Integer.class)
+    AuditLogMaxBatchSize,
+
+    /**
+     * The maximal number of compiled search queries kept in the cache, the least recently used query is evicted when
+     * it is reached.
+     */
+    @TypeConverterAttribute(Integer.class)
+    SearchQueriesCacheSize,
+
+    /**
+     * The time, in minutes, after which a cached search query is compiled again.
+     */
+    @TypeConverterAttribute(Integer.class)
+    SearchQueriesCacheTimeToLiveInMinutes,
+
+    /**
+     * The number of threads host independent scheduling filters and weight functions are evaluated on, each thread
+     * evaluating a chunk of the candidate hosts. The scheduling thread evaluates one of the chunks, the rest of them
+     * are evaluated in the scheduling units thread pool. 1 means the units are evaluated sequentially on the
+     * scheduling thread.
+     */
+    @TypeConverterAttribute(Integer.class)
+    SchedulingParallelism,
+
+    /**
+     * The time in milliseconds command status updates are held in memory, so the updates of that time are written
+     * to the database in a single batch and repeated updates of a command are written once. 0 writes every update
+     * immediately.
+     */
+    @TypeConverterAttribute(Integer.class)
+    CommandStatusWriteDelayInMillis,
+
+    /**
+     * The time in milliseconds VM status events of a host are collected before they are monitored in a single pass,
+     * so several events of a VM are merged into its newest state. 0 monitors the events one at a time.
+     */
+    @TypeConverterAttribute(Integer.class)
+    VmStatusEventsCoalescingWindowInMillis,
+
+    /**
+     * The time in seconds a refresh of the gluster data of a cluster may take. A refresh past its deadline stops
+     * refreshing more volumes of the cluster, the remaining volumes are refreshed by the next refresh.
+     */
+    @TypeConverterAttribute(Integer.class)
+    GlusterClusterRefreshDeadlineInSecs,
+
+    /**
+     * The interval in seconds in which the statistics of all the hosts are written to the database in a single batch.
+     * 0 means the statistics of every host are written synchronously by the monitoring of the host.
+     */
+    @TypeConverterAttribute(Integer.class)
+    HostStatisticsFlushIntervalInSecs,
+
+    /**
+     * The time in seconds the cluster and networks data the host monitoring needs is cached before it is read again
+     * from the database. 0 means the data is read from the database on every refresh.
+     */
+    @TypeConverterAttribute(Integer.class)
+    HostMonitoringCacheTimeoutInSecs,
+
     Invalid;
 
     private ClientAccessLevel accessLevel;
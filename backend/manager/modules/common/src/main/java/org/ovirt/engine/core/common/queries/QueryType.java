@@ -109,6 +109,7 @@ public enum QueryType implements Serializable {
 
     // Vm Network
     GetVmInterfacesByVmId(QueryAuthType.User),
+    GetVmInterfacesByVmIds(QueryAuthType.User),
     GetVmGuestAgentInterfacesByVmId(QueryAuthType.User),
     GetVmInterfaceFilterParametersByVmInterfaceId(QueryAuthType.User),
     GetVmInterfaceFilterParameterById(QueryAuthType.User),
@@ -206,6 +207,7 @@ public enum QueryType implements Serializable {
     GetImagesList(QueryAuthType.User),
     GetImagesListByStoragePoolId(QueryAuthType.User),
     GetAllDisksByVmId(QueryAuthType.User),
+    GetAllDisksByVmIds(QueryAuthType.User),
     GetAllAttachableDisksForVm(QueryAuthType.User),
     GetAllDisksByStorageDomainId,
     GetAllDisksWithSnapshots(QueryAuthType.User),
@@ -223,6 +225,7 @@ public enum QueryType implements Serializable {
 
     GetDiskVmElementById(QueryAuthType.User),
     GetDiskVmElementsByVmId(QueryAuthType.User),
+    GetDiskVmElementsByVmIds(QueryAuthType.User),
 
     // Users queries
     GetUserVmsByUserIdAndGroups(QueryAuthType.User),
@@ -8,8 +8,6 @@ import javax.inject.Singleton;
 import org.apache.commons.lang.StringUtils;
 import org.ovirt.engine.core.common.AuditLogType;
 import org.ovirt.engine.core.common.businessentities.AuditLog;
-import org.ovirt.engine.core.dao.AuditLogDao;
-import org.ovirt.engine.core.utils.transaction.TransactionSupport;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -19,7 +17,7 @@ public class AuditLogDirector {
     private static final int USERNAME_LENGTH = 255;
 
     @Inject
-    private AuditLogDao auditLogDao;
+    private AuditLogWriter auditLogWriter;
 
     public void log(AuditLogable auditLogable, AuditLogType logType) {
         log(auditLogable, logType, "");
@@ -65,10 +63,7 @@ public class AuditLogDirector {
         // truncate user name
         auditLog.setUserName(StringUtils.abbreviate(auditLog.getUserName(), USERNAME_LENGTH));
 
-        TransactionSupport.executeInNewTransaction(() -> {
-            auditLogDao.save(auditLog);
-            return null;
-        });
+        auditLogWriter.write(auditLog);
         return auditLog;
     }
 
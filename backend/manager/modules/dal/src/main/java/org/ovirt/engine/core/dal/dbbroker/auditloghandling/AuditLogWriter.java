@@ -0,0 +1,206 @@
+package org.ovirt.engine.core.dal.dbbroker.auditloghandling;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.concurrent.ManagedScheduledExecutorService;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.ovirt.engine.core.common.AuditLogSeverity;
+import org.ovirt.engine.core.common.businessentities.AuditLog;
+import org.ovirt.engine.core.common.config.Config;
+import org.ovirt.engine.core.common.config.ConfigValues;
+import org.ovirt.engine.core.dao.AuditLogDao;
+import org.ovirt.engine.core.utils.threadpool.ThreadPools;
+import org.ovirt.engine.core.utils.transaction.TransactionSupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes audit log events to the database. Events are queued and written periodically in batches, so the threads
+ * logging them, e.g. the monitoring threads, do not wait for an insert per event.
+ * <p>
+ * Alerts and external events are written synchronously: alerts may be removed right after they are logged, and the
+ * id of an external event is fetched by the command adding it. When the queue is full, events are dropped from the
+ * database, they are still logged to the engine log by the {@link AuditLogDirector}.
+ * <p>
+ * The id of an event is assigned by the database when it is inserted, so a queued event has no id until it is
+ * written. The queued events are written before an event that is written synchronously, so the ids of the events
+ * keep the order they were logged in.
+ */
+@Singleton
+public class AuditLogWriter implements AuditLogWriterMXBean {
+
+    private static final Logger log = LoggerFactory.getLogger(AuditLogWriter.class);
+
+    @Inject
+    private AuditLogDao auditLogDao;
+
+    @Inject
+    @ThreadPools(ThreadPools.ThreadPoolType.EngineScheduledThreadPool)
+    private ManagedScheduledExecutorService executor;
+
+    private BlockingQueue<AuditLog> queue;
+    private int maxBatchSize;
+    private ScheduledFuture<?> flushJob;
+    private final AtomicLong droppedEvents = new AtomicLong();
+    private final AtomicLong failedEvents = new AtomicLong();
+    private final AtomicLong writtenEvents = new AtomicLong();
+    private ObjectName objectName;
+    private MBeanServer platformMBeanServer;
+
+    @PostConstruct
+    void init() {
+        int flushIntervalInMillis = Config.<Integer> getValue(ConfigValues.AuditLogFlushIntervalInMillis);
+        if (flushIntervalInMillis <= 0) {
+            return;
+        }
+
+        queue = new ArrayBlockingQueue<>(Config.<Integer> getValue(ConfigValues.AuditLogQueueCapacity));
+        maxBatchSize = Config.<Integer> getValue(ConfigValues.AuditLogMaxBatchSize);
+        flushJob = executor.scheduleWithFixedDelay(this::flush,
+                flushIntervalInMillis,
+                flushIntervalInMillis,
+                TimeUnit.MILLISECONDS);
+        registerInJMX();
+    }
+
+    private void registerInJMX() {
+        try {
+            objectName = new ObjectName("AuditLogWriter:type=" + this.getClass().getName());
+            platformMBeanServer = ManagementFactory.getPlatformMBeanServer();
+            platformMBeanServer.registerMBean(this, objectName);
+        } catch (Exception e) {
+            log.warn("Problem during registration of the audit log writer into JMX: {}", e.getMessage());
+            log.debug("Exception", e);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (queue == null) {
+            return;
+        }
+
+        flushJob.cancel(false);
+        flush();
+        try {
+            platformMBeanServer.unregisterMBean(objectName);
+        } catch (Exception e) {
+            log.debug("Problem during unregistration of the audit log writer from JMX: {}", e);
+        }
+    }
+
+    /**
+     * Writes the given event, either synchronously or by queuing it for the next batch.
+     */
+    public void write(AuditLog auditLog) {
+        if (queue == null) {
+            save(auditLog);
+        } else if (isCritical(auditLog)) {
+            writeSynchronously(auditLog);
+        } else if (!queue.offer(auditLog)) {
+            droppedEvents.incrementAndGet();
+            log.warn("Audit log queue is full, event '{}' is not written to the database", auditLog.getLogType());
+        }
+    }
+
+    private boolean isCritical(AuditLog auditLog) {
+        return auditLog.getSeverity() == AuditLogSeverity.ALERT || auditLog.isExternal();
+    }
+
+    /**
+     * Writes the queued events before the given event, so it does not get an id lower than events logged before it.
+     */
+    private synchronized void writeSynchronously(AuditLog auditLog) {
+        flush();
+        save(auditLog);
+    }
+
+    private void save(AuditLog auditLog) {
+        TransactionSupport.executeInNewTransaction(() -> {
+            auditLogDao.save(auditLog);
+            return null;
+        });
+    }
+
+    /**
+     * Writes the queued events to the database, in batches of up to <code>AuditLogMaxBatchSize</code> events.
+     */
+    synchronized void flush() {
+        List<AuditLog> batch;
+        while (!(batch = nextBatch()).isEmpty()) {
+            writeBatch(batch);
+        }
+    }
+
+    private List<AuditLog> nextBatch() {
+        List<AuditLog> batch = new ArrayList<>();
+        queue.drainTo(batch, maxBatchSize);
+        return batch;
+    }
+
+    private void writeBatch(List<AuditLog> batch) {
+        try {
+            TransactionSupport.executeInNewTransaction(() -> {
+                auditLogDao.saveAll(batch);
+                return null;
+            });
+            writtenEvents.addAndGet(batch.size());
+        } catch (RuntimeException e) {
+            log.warn("Failed to write {} audit log events in a batch, writing them one by one: {}",
+                    batch.size(),
+                    e.getMessage());
+            log.debug("Exception", e);
+            writeOneByOne(batch);
+        }
+    }
+
+    /**
+     * Writes the events of a failed batch each in its own transaction, so an event that cannot be written does not
+     * prevent the others from being written.
+     */
+    private void writeOneByOne(List<AuditLog> batch) {
+        for (AuditLog auditLog : batch) {
+            try {
+                save(auditLog);
+                writtenEvents.incrementAndGet();
+            } catch (RuntimeException e) {
+                failedEvents.incrementAndGet();
+                log.error("Failed to write audit log event '{}': {}", auditLog.getLogType(), e.getMessage());
+                log.debug("Exception", e);
+            }
+        }
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return queue == null ? 0 : queue.size();
+    }
+
+    @Override
+    public long getDroppedEvents() {
+        return droppedEvents.get();
+    }
+
+    @Override
+    public long getFailedEvents() {
+        return failedEvents.get();
+    }
+
+    @Override
+    public long getWrittenEvents() {
+        return writtenEvents.get();
+    }
+}
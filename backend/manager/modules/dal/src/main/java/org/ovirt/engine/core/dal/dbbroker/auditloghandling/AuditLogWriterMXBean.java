@@ -0,0 +1,27 @@
+package org.ovirt.engine.core.dal.dbbroker.auditloghandling;
+
+/**
+ * The following interface is used as interface for JMX bean
+ */
+public interface AuditLogWriterMXBean {
+
+    /**
+     * The following method will return the number of audit log events waiting to be written to the database
+     */
+    int getQueueDepth();
+
+    /**
+     * The following method will return the number of audit log events dropped since the queue was full
+     */
+    long getDroppedEvents();
+
+    /**
+     * The following method will return the number of audit log events that failed to be written to the database
+     */
+    long getFailedEvents();
+
+    /**
+     * The following method will return the number of audit log events written to the database from the queue
+     */
+    long getWrittenEvents();
+}
@@ -0,0 +1,92 @@
+package org.ovirt.engine.core.dal.dbbroker.auditloghandling;
+
+import java.util.Objects;
+
+import org.ovirt.engine.core.common.AuditLogType;
+import org.ovirt.engine.core.compat.Guid;
+
+/**
+ * Identifies the events regulated together by the {@link EventFloodStore}.
+ *
+ * Two keys are equal when their log type, all their entity ids and their custom id are equal, where an empty id
+ * equals a missing one. The hash is computed once from the ordinal of the log type and the hashes of the ids, so no
+ * string is built for the key of an event.
+ */
+public final class EventFloodKey {
+
+    private final AuditLogType logType;
+    private final Guid storageDomainId;
+    private final Guid storagePoolId;
+    private final Guid userId;
+    private final Guid clusterId;
+    private final Guid vdsId;
+    private final Guid vmId;
+    private final Guid vmTemplateId;
+    private final String customId;
+    private final int hash;
+
+    /**
+     * Time in milliseconds until which the events of this key are regulated, only set and read by the store
+     */
+    long expiresAt;
+
+    public EventFloodKey(AuditLogable event, AuditLogType logType) {
+        this.logType = logType;
+        storageDomainId = nonEmpty(event.getStorageDomainId());
+        storagePoolId = nonEmpty(event.getStoragePoolId());
+        userId = nonEmpty(event.getUserId());
+        clusterId = nonEmpty(event.getClusterId());
+        vdsId = nonEmpty(event.getVdsId());
+        vmId = nonEmpty(event.getVmId());
+        vmTemplateId = nonEmpty(event.getVmTemplateId());
+        customId = event.getCustomId() == null ? "" : event.getCustomId();
+
+        int h = logType.ordinal();
+        h = 31 * h + hashOf(storageDomainId);
+        h = 31 * h + hashOf(storagePoolId);
+        h = 31 * h + hashOf(userId);
+        h = 31 * h + hashOf(clusterId);
+        h = 31 * h + hashOf(vdsId);
+        h = 31 * h + hashOf(vmId);
+        h = 31 * h + hashOf(vmTemplateId);
+        h = 31 * h + customId.hashCode();
+        hash = h;
+    }
+
+    /**
+     * Null and empty ids are not distinguished by the composed object id, both are kept as null
+     */
+    private static Guid nonEmpty(Guid id) {
+        return id == null || Guid.Empty.equals(id) ? null : id;
+    }
+
+    private static int hashOf(Guid id) {
+        return id == null ? 0 : id.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof EventFloodKey)) {
+            return false;
+        }
+        EventFloodKey other = (EventFloodKey) obj;
+        return hash == other.hash
+                && logType == other.logType
+                && Objects.equals(vmId, other.vmId)
+                && Objects.equals(vdsId, other.vdsId)
+                && Objects.equals(storageDomainId, other.storageDomainId)
+                && Objects.equals(storagePoolId, other.storagePoolId)
+                && Objects.equals(userId, other.userId)
+                && Objects.equals(clusterId, other.clusterId)
+                && Objects.equals(vmTemplateId, other.vmTemplateId)
+                && customId.equals(other.customId);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+}
@@ -3,15 +3,15 @@ package org.ovirt.engine.core.dal.dbbroker.auditloghandling;
 import java.util.concurrent.TimeUnit;
 
 import org.ovirt.engine.core.common.AuditLogType;
-import org.ovirt.engine.core.dal.utils.CacheManager;
 
 public class EventFloodRegulator {
 
+    private static final EventFloodStore floodStore = new EventFloodStore();
+
     private final AuditLogable event;
     private final AuditLogType logType;
     private boolean useTimeout;
     private long endTime;
-    private String timeoutObjectId;
 
     public EventFloodRegulator(AuditLogable event, AuditLogType logType) {
         this.event = event;
@@ -27,13 +27,7 @@ public class EventFloodRegulator {
      */
     public boolean isLegal() {
         if (useTimeout) {
-            String key = "".equals(timeoutObjectId) ? logType.toString() : timeoutObjectId;
-            String oldValue = CacheManager.getTimeoutBaseCache().putIfAbsent(
-                    key,
-                    key,
-                    endTime,
-                    TimeUnit.MILLISECONDS);
-            return oldValue == null;
+            return floodStore.tryAcquire(new EventFloodKey(event, logType), endTime);
         }
         return true;
     }
@@ -47,18 +41,11 @@ public class EventFloodRegulator {
                 : logType.getEventFloodRate();
         if (eventFloodRate > 0) {
             setEndTime(TimeUnit.SECONDS.toMillis(eventFloodRate));
-            timeoutObjectId = composeObjectId();
-        } else {
-            timeoutObjectId = "";
         }
     }
 
-    private String composeObjectId() {
-        return EventKeyComposer.composeObjectId(event, logType);
-    }
-
     public void evict() {
-        CacheManager.getTimeoutBaseCache().computeIfPresent(composeObjectId(), (k, v) -> null);
+        floodStore.release(new EventFloodKey(event, logType));
     }
 
     private void setEndTime(long value) {
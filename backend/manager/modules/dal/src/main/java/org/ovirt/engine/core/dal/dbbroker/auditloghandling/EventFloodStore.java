@@ -0,0 +1,146 @@
+package org.ovirt.engine.core.dal.dbbroker.auditloghandling;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Keeps the events that are currently regulated by the {@link EventFloodRegulator}.
+ * <p>
+ * The keys are spread over shards by their hash, each shard is guarded by its own lock. Expired keys are removed by
+ * a time wheel of one second slots: a key is queued in the slot of its expiry time and the slots the clock passed
+ * are swept by the next call that touches the shard. Keys expiring further than a full turn of the wheel are queued
+ * again when their slot is swept too early.
+ */
+public class EventFloodStore {
+
+    private static final int SHARDS = 32;
+    private static final int WHEEL_SLOTS = 512;
+    private static final long SLOT_MILLIS = 1000;
+
+    private final Shard[] shards = new Shard[SHARDS];
+    private final LongSupplier clock;
+
+    public EventFloodStore() {
+        this(System::currentTimeMillis);
+    }
+
+    /**
+     * @param clock
+     *            source of the current time in milliseconds
+     */
+    public EventFloodStore(LongSupplier clock) {
+        this.clock = clock;
+        long now = clock.getAsLong();
+        for (int i = 0; i < SHARDS; i++) {
+            shards[i] = new Shard(now / SLOT_MILLIS);
+        }
+    }
+
+    /**
+     * Starts regulating the events of the given key unless they are already regulated.
+     *
+     * @param key
+     *            the key of the event, must not be passed to the store again
+     * @param timeoutMillis
+     *            how long the events of the key are regulated
+     * @return true if the event should be logged
+     */
+    public boolean tryAcquire(EventFloodKey key, long timeoutMillis) {
+        long now = clock.getAsLong();
+        Shard shard = shardOf(key);
+        synchronized (shard) {
+            shard.sweep(now);
+            EventFloodKey current = shard.keys.get(key);
+            if (current != null && current.expiresAt > now) {
+                return false;
+            }
+
+            key.expiresAt = now + timeoutMillis;
+            shard.keys.put(key, key);
+            shard.schedule(key);
+            return true;
+        }
+    }
+
+    /**
+     * Stops regulating the events of the given key.
+     */
+    public void release(EventFloodKey key) {
+        Shard shard = shardOf(key);
+        synchronized (shard) {
+            // the key stays queued in the wheel, it is dropped when its slot is swept
+            shard.keys.remove(key);
+        }
+    }
+
+    /**
+     * @return the number of keys currently kept, including expired keys whose slot was not swept yet
+     */
+    public int size() {
+        int size = 0;
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                size += shard.keys.size();
+            }
+        }
+        return size;
+    }
+
+    private Shard shardOf(EventFloodKey key) {
+        int h = key.hashCode();
+        return shards[(h ^ (h >>> 16)) & (SHARDS - 1)];
+    }
+
+    private static class Shard {
+        private final Map<EventFloodKey, EventFloodKey> keys = new HashMap<>();
+        private final ArrayDeque<EventFloodKey>[] wheel;
+        private long sweptSlot;
+
+        @SuppressWarnings("unchecked")
+        Shard(long currentSlot) {
+            wheel = new ArrayDeque[WHEEL_SLOTS];
+            for (int i = 0; i < WHEEL_SLOTS; i++) {
+                wheel[i] = new ArrayDeque<>();
+            }
+            sweptSlot = currentSlot - 1;
+        }
+
+        void schedule(EventFloodKey key) {
+            wheel[slotIndex(key.expiresAt / SLOT_MILLIS)].add(key);
+        }
+
+        /**
+         * Removes the expired keys of all the slots the clock fully passed since the previous sweep.
+         */
+        void sweep(long now) {
+            long lastPassedSlot = now / SLOT_MILLIS - 1;
+            if (lastPassedSlot <= sweptSlot) {
+                return;
+            }
+
+            long firstSlot = Math.max(sweptSlot + 1, lastPassedSlot - WHEEL_SLOTS + 1);
+            for (long slot = firstSlot; slot <= lastPassedSlot; slot++) {
+                ArrayDeque<EventFloodKey> queued = wheel[slotIndex(slot)];
+                for (int i = queued.size(); i > 0; i--) {
+                    EventFloodKey key = queued.poll();
+                    // keys that were released or replaced are no longer the kept instance
+                    if (keys.get(key) != key) {
+                        continue;
+                    }
+                    if (key.expiresAt <= now) {
+                        keys.remove(key);
+                    } else {
+                        queued.add(key);
+                    }
+                }
+            }
+            sweptSlot = lastPassedSlot;
+        }
+
+        private static int slotIndex(long slot) {
+            return (int) (slot % WHEEL_SLOTS);
+        }
+    }
+}
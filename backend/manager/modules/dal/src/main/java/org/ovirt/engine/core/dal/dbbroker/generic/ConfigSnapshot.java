@@ -0,0 +1,100 @@
+package org.ovirt.engine.core.dal.dbbroker.generic;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.ovirt.engine.core.common.config.ConfigCommon;
+import org.ovirt.engine.core.common.config.ConfigValues;
+
+/**
+ * Immutable snapshot of the values of the configuration options. The values are kept in arrays indexed by the ordinal
+ * of the {@link ConfigValues} and by the index of the version, so finding a value doesn't need to hash the name of
+ * the option. The default configuration version always has the first index.
+ */
+final class ConfigSnapshot {
+    /**
+     * Marks a version that has no value for an option, as {@code null} is a valid value.
+     */
+    static final Object MISSING = new Object();
+
+    private static final int DEFAULT_VERSION_INDEX = 0;
+
+    private final Map<String, Integer> versionIndexes;
+    private final Object[][] values;
+    private final Map<String, Object>[] valuesForAllVersions;
+
+    @SuppressWarnings("unchecked")
+    private ConfigSnapshot(Builder builder) {
+        versionIndexes = new HashMap<>(builder.versionIndexes);
+        int versions = versionIndexes.size();
+        Object[] noValues = new Object[versions];
+        Arrays.fill(noValues, MISSING);
+
+        int configValues = ConfigValues.values().length;
+        values = new Object[configValues][];
+        valuesForAllVersions = new Map[configValues];
+        Arrays.fill(values, noValues);
+        builder.options.forEach((configValue, optionValues) -> {
+            Object[] indexedValues = noValues.clone();
+            optionValues.forEach((version, value) -> indexedValues[versionIndexes.get(version)] = value);
+            values[configValue.ordinal()] = indexedValues;
+            valuesForAllVersions[configValue.ordinal()] = new HashMap<>(optionValues);
+        });
+    }
+
+    /**
+     * Returns the value of the given option for the given version, or {@link #MISSING} if the option has no value for
+     * the version.
+     */
+    Object get(ConfigValues configValue, String version) {
+        int versionIndex;
+        if (ConfigCommon.defaultConfigurationVersion.equals(version)) {
+            versionIndex = DEFAULT_VERSION_INDEX;
+        } else {
+            Integer index = versionIndexes.get(version);
+            if (index == null) {
+                return MISSING;
+            }
+            versionIndex = index;
+        }
+        return values[configValue.ordinal()][versionIndex];
+    }
+
+    /**
+     * Returns the values of the given option by version, or {@code null} if the option has no values.
+     */
+    Map<String, Object> getValuesForAllVersions(ConfigValues configValue) {
+        return valuesForAllVersions[configValue.ordinal()];
+    }
+
+    /**
+     * Collects the values of the options of a new snapshot.
+     */
+    static final class Builder {
+        private final Map<String, Integer> versionIndexes = new HashMap<>();
+        private final Map<ConfigValues, Map<String, Object>> options = new EnumMap<>(ConfigValues.class);
+
+        Builder() {
+            versionIndexes.put(ConfigCommon.defaultConfigurationVersion, DEFAULT_VERSION_INDEX);
+        }
+
+        void put(ConfigValues configValue, String version, Object value) {
+            versionIndexes.putIfAbsent(version, versionIndexes.size());
+            options.computeIfAbsent(configValue, k -> new HashMap<>()).put(version, value);
+        }
+
+        /**
+         * Returns the value collected for the given option and version, or {@link #MISSING} if there is none yet.
+         */
+        Object get(ConfigValues configValue, String version) {
+            Map<String, Object> optionValues = options.get(configValue);
+            return optionValues != null && optionValues.containsKey(version) ? optionValues.get(version) : MISSING;
+        }
+
+        ConfigSnapshot build() {
+            return new ConfigSnapshot(this);
+        }
+    }
+}
@@ -24,7 +24,6 @@ import org.ovirt.engine.core.common.config.ConfigCommon;
 import org.ovirt.engine.core.common.config.ConfigValues;
 import org.ovirt.engine.core.common.config.IConfigUtilsInterface;
 import org.ovirt.engine.core.common.config.OptionBehaviourAttribute;
-import org.ovirt.engine.core.common.config.Reloadable;
 import org.ovirt.engine.core.common.config.TypeConverterAttribute;
 import org.ovirt.engine.core.compat.Version;
 import org.ovirt.engine.core.dao.VdcOptionDao;
@@ -38,7 +37,7 @@ public class DBConfigUtils implements IConfigUtilsInterface {
     private static final Logger log = LoggerFactory.getLogger(DBConfigUtils.class);
 
     private static final String TEMP = "Temp";
-    private final Map<String, Map<String, Object>> _vdcOptionCache = new HashMap<>();
+    private volatile ConfigSnapshot snapshot = new ConfigSnapshot.Builder().build();
 
     @Inject
     private VdcOptionDao vdcOptionDao;
@@ -126,58 +125,45 @@ public class DBConfigUtils implements IConfigUtilsInterface {
     }
 
     /**
-     * Refreshes the VDC option cache.
+     * Refreshes the VDC option cache. The options are loaded into a new snapshot, which replaces the current one only
+     * when it is complete, so the values are never missing for concurrent readers.
      */
     @PostConstruct
     public void refresh() {
-        _vdcOptionCache.clear();
+        ConfigSnapshot.Builder builder = new ConfigSnapshot.Builder();
         List<VdcOption> list = moveDependentToEnd(vdcOptionDao.getAll());
         for (VdcOption option : list) {
+            ConfigValues configValue;
             try {
-                if (!_vdcOptionCache.containsKey(option.getOptionName()) ||
-                        !_vdcOptionCache.get(option.getOptionName()).containsKey(option.getVersion()) ||
-                        isReloadable(option.getOptionName())) {
-                    updateOption(option);
-                }
-            } catch (NoSuchFieldException e) {
-                log.error("Not refreshing field '{}': does not exist in class {}.", option.getOptionName(),
-                        ConfigValues.class.getSimpleName());
+                configValue = ConfigValues.valueOf(option.getOptionName());
+            } catch (IllegalArgumentException e) {
+                // Options that don't exist in the enum are reported by parseEnumValue, and can't be read anyway.
+                continue;
             }
+            builder.put(configValue, option.getVersion(), getValue(option, builder));
         }
+        snapshot = builder.build();
     }
 
     @Override
     @SuppressWarnings("unchecked")
     public <T> Map<String, T> getValuesForAllVersions(ConfigValues configValue) {
-        return (Map<String, T>) _vdcOptionCache.get(configValue.toString());
+        return (Map<String, T>) snapshot.getValuesForAllVersions(configValue);
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     public <T> T getValue(ConfigValues name, String version) {
-        Map<String, T> values = getValuesForAllVersions(name);
-        if (valueExists(name, version)) {
-            return values.get(version);
+        Object value = snapshot.get(name, version);
+        if (value == ConfigSnapshot.MISSING) {
+            throw new IllegalArgumentException(name.toString() + " has no value for version: " + version);
         }
-        throw new IllegalArgumentException(name.toString() + " has no value for version: " + version);
+        return (T) value;
     }
 
     @Override
     public boolean valueExists(ConfigValues configValue, String version) {
-        Map<String, Object> values = getValuesForAllVersions(configValue);
-        return values != null && values.containsKey(version);
-    }
-
-    private void updateOption(VdcOption option) {
-        Map<String, Object> values = _vdcOptionCache.get(option.getOptionName());
-        if (values == null) {
-            values = new HashMap<>();
-            _vdcOptionCache.put(option.getOptionName(), values);
-        }
-        values.put(option.getVersion(), getValue(option));
-    }
-
-    private static boolean isReloadable(String optionName) throws NoSuchFieldException {
-        return ConfigValues.class.getField(optionName).isAnnotationPresent(Reloadable.class);
+        return snapshot.get(configValue, version) != ConfigSnapshot.MISSING;
     }
 
     private List<VdcOption> moveDependentToEnd(List<VdcOption> list) {
@@ -196,9 +182,10 @@ public class DBConfigUtils implements IConfigUtilsInterface {
     }
 
     /**
-     * Returns the typed value of the given option. returns default value if option.option_value is null
+     * Returns the typed value of the given option. returns default value if option.option_value is null. Values that
+     * depend on other options are resolved from the given builder of the snapshot being loaded.
      */
-    protected Object getValue(VdcOption option) {
+    private Object getValue(VdcOption option, ConfigSnapshot.Builder builder) {
         Object result = option.getOptionValue();
         EnumValue enumValue = parseEnumValue(option.getOptionName());
         if (enumValue != null) {
@@ -224,11 +211,11 @@ public class DBConfigUtils implements IConfigUtilsInterface {
                         break;
                     case ValueDependent:
                         // get the config that this value depends on
-                        String prefix = getValue(optionBehaviour.dependentOn(), ConfigCommon.defaultConfigurationVersion);
+                        String prefix = getLoadedValue(builder, optionBehaviour.dependentOn());
                         // combine the prefix with the 'real value'
                         if (prefix != null) {
                             String realName = String.format("%1$s%2$s", prefix, optionBehaviour.realValue());
-                            result = getValue(ConfigValues.valueOf(realName), ConfigCommon.defaultConfigurationVersion);
+                            result = getLoadedValue(builder, ConfigValues.valueOf(realName));
                         }
                         break;
                     case CommaSeparatedVersionArray:
@@ -249,6 +236,16 @@ public class DBConfigUtils implements IConfigUtilsInterface {
         return result;
     }
 
+    @SuppressWarnings("unchecked")
+    private static <T> T getLoadedValue(ConfigSnapshot.Builder builder, ConfigValues configValue) {
+        Object value = builder.get(configValue, ConfigCommon.defaultConfigurationVersion);
+        if (value == ConfigSnapshot.MISSING) {
+            throw new IllegalArgumentException(configValue.toString() + " has no value for version: "
+                    + ConfigCommon.defaultConfigurationVersion);
+        }
+        return (T) value;
+    }
+
     public static final class EnumValue {
         final Class<?> fieldType;
         final OptionBehaviourAttribute optionBehaviour;
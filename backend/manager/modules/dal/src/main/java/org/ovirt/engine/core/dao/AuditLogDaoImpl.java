@@ -1,5 +1,6 @@
 package org.ovirt.engine.core.dao;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
@@ -168,6 +169,11 @@ public class AuditLogDaoImpl extends BaseDao implements AuditLogDao {
         event.setAuditLogId((Long) outParameters.get("audit_log_id"));
     }
 
+    @Override
+    public void saveAll(Collection<AuditLog> events) {
+        getCallsHandler().executeStoredProcAsBatch("InsertAuditLogWithoutId", events, this::getSqlMapper);
+    }
+
     @Override
     public void update(AuditLog event) {
         throw new UnsupportedOperationException();
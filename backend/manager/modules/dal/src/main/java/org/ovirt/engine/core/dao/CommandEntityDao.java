@@ -13,6 +13,11 @@ public interface CommandEntityDao extends GenericDao<CommandEntity, Guid> {
 
     void saveOrUpdate(CommandEntity commandEntity);
 
+    /**
+     * Saves or updates the given commands in a single batch.
+     */
+    void saveOrUpdateAll(Collection<CommandEntity> commandEntities);
+
     void updateStatus(Guid command, CommandStatus status);
 
     void updateExecuted(Guid id);
@@ -21,6 +26,11 @@ public interface CommandEntityDao extends GenericDao<CommandEntity, Guid> {
 
     void removeAllBeforeDate(Date cutoff);
 
+    /**
+     * @return The ids of the commands created before the given date
+     */
+    List<Guid> getCommandIdsBeforeDate(Date cutoff);
+
     List<CommandEntity> getCmdEntitiesByParentCmdId(Guid parentId);
 
     List<Guid> getCommandIdsByEntity(Guid entityId);
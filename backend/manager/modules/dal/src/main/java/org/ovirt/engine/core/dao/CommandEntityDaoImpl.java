@@ -148,6 +148,13 @@ public class CommandEntityDaoImpl extends DefaultGenericDao<CommandEntity, Guid>
         getCallsHandler().executeModification("InsertOrUpdateCommandEntity", parameterSource);
     }
 
+    @Override
+    public void saveOrUpdateAll(Collection<CommandEntity> commandEntities) {
+        getCallsHandler().executeStoredProcAsBatch("InsertOrUpdateCommandEntity",
+                commandEntities,
+                this::createFullParametersMapper);
+    }
+
     @Override
     public void updateStatus(Guid id, CommandStatus status) {
         getCallsHandler().executeModification("UpdateCommandEntityStatus", createIdParameterMapper(id).addValue("status", status.toString()));
@@ -171,6 +178,15 @@ public class CommandEntityDaoImpl extends DefaultGenericDao<CommandEntity, Guid>
         getCallsHandler().executeModification("DeleteCommandEntitiesOlderThanDate", parameterSource);
     }
 
+    @Override
+    public List<Guid> getCommandIdsBeforeDate(Date cutoff) {
+        MapSqlParameterSource parameterSource = getCustomMapSqlParameterSource()
+                .addValue("date", cutoff);
+        return getCallsHandler().executeReadList("GetCommandIdsOlderThanDate",
+                idRowMapper,
+                parameterSource);
+    }
+
     @Override
     public List<CommandEntity> getCmdEntitiesByParentCmdId(Guid parentId) {
         MapSqlParameterSource parameterSource = getCustomMapSqlParameterSource()
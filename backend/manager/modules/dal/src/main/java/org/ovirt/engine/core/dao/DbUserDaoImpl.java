@@ -1,5 +1,6 @@
 package org.ovirt.engine.core.dao;
 
+import java.util.Collection;
 import java.util.List;
 
 import javax.inject.Named;
@@ -120,6 +121,14 @@ public class DbUserDaoImpl extends BaseDao implements DbUserDao {
                         .addValue("vm_guid", id));
     }
 
+    @Override
+    public List<DbUser> getAllForVms(Collection<Guid> ids) {
+        return getCallsHandler().executeReadList("GetUsersByVmGuids",
+                dbUserRowMapper,
+                getCustomMapSqlParameterSource()
+                        .addValue("vm_guids", createArrayOfUUIDs(ids)));
+    }
+
     @Override
     public List<DbUser> getAllForTemplate(Guid id) {
         return getCallsHandler().executeReadList("GetUsersByTemplateGuid",
@@ -80,8 +80,15 @@ public class DiskDaoImpl extends BaseDao implements DiskDao {
 
     @Override
     public Map<Guid, List<Disk>> getAllForVms(Collection<Guid> vmIds) {
+        return getAllForVms(vmIds, null, false);
+    }
+
+    @Override
+    public Map<Guid, List<Disk>> getAllForVms(Collection<Guid> vmIds, Guid userID, boolean isFiltered) {
         MapSqlParameterSource parameterSource = getCustomMapSqlParameterSource()
-                .addValue("vm_guids", createArrayOfUUIDs(vmIds));
+                .addValue("vm_guids", createArrayOfUUIDs(vmIds))
+                .addValue("user_id", userID)
+                .addValue("is_filtered", isFiltered);
 
         List<Pair<Guid, Disk>> pairs = getCallsHandler().executeReadList(
                 "GetDisksVmGuids",
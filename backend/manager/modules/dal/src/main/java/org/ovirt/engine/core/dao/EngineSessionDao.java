@@ -1,5 +1,7 @@
 package org.ovirt.engine.core.dao;
 
+import java.util.Collection;
+
 import org.ovirt.engine.core.common.businessentities.EngineSession;
 
 /**
@@ -34,6 +36,11 @@ public interface EngineSessionDao extends Dao, SearchDao<EngineSession> {
      */
     int remove(long id);
 
+    /**
+     * Removes the sessions with the specified ids in a single call.
+     */
+    int remove(Collection<Long> ids);
+
     /**
      * Remove all sessions from the table
      */
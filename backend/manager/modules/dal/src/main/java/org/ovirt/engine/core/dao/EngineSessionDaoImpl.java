@@ -1,5 +1,6 @@
 package org.ovirt.engine.core.dao;
 
+import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -85,6 +86,13 @@ public class EngineSessionDaoImpl extends BaseDao implements EngineSessionDao {
                         .addValue("id", id));
     }
 
+    @Override
+    public int remove(Collection<Long> ids) {
+        return getCallsHandler().executeModificationReturnResult("DeleteEngineSessions",
+                getCustomMapSqlParameterSource()
+                        .addValue("ids", createArrayOf("bigint", ids.toArray())));
+    }
+
     @Override
     public int removeAll() {
         return getCallsHandler().executeModificationReturnResult("DeleteAllFromEngineSessions",
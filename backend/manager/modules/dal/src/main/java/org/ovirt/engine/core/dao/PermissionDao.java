@@ -125,6 +125,15 @@ public interface PermissionDao extends GenericDao<Permission, Guid> {
      */
     List<Permission> getAllForAdElementAndObjectId(Guid elementid, Guid objectid);
 
+    /**
+     * Retrieves all permissions given directly on the specified objects.
+     *
+     * @param objectIds
+     *            the objects
+     * @return the list of permissions
+     */
+    List<Permission> getAllForObjectIds(Collection<Guid> objectIds);
+
 
     /**
      * Retrieves all permissions for the specified role and object.
@@ -154,6 +154,16 @@ public class PermissionDaoImpl extends BaseDao implements PermissionDao {
                 parameterSource);
     }
 
+    @Override
+    public List<Permission> getAllForObjectIds(Collection<Guid> objectIds) {
+        MapSqlParameterSource parameterSource = getCustomMapSqlParameterSource()
+                .addValue("object_ids", createArrayOfUUIDs(objectIds));
+
+        return getCallsHandler().executeReadList("GetPermissionsByObjectIds",
+                permissionRowMapper,
+                parameterSource);
+    }
+
     @Override
     public List<Permission> getAllForEntity(Guid id) {
         return getAllForEntity(id, -1, false);
@@ -1,6 +1,8 @@
 package org.ovirt.engine.core.dao;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 import org.ovirt.engine.core.common.businessentities.Snapshot;
 import org.ovirt.engine.core.common.businessentities.Snapshot.SnapshotStatus;
@@ -77,6 +79,22 @@ public interface SnapshotDao extends GenericDao<Snapshot, Guid>, StatusAwareDao<
      */
     Snapshot get(Guid vmId, SnapshotType type, Guid userId, boolean isFiltered);
 
+    /**
+     * Return the <b>first</b> {@link Snapshot} of the given type of each of the given VMs, like
+     * {@link #get(Guid, SnapshotType, Guid, boolean)} does for a single VM.
+     *
+     * @param vmIds
+     *            The ids of the VMs to check for.
+     * @param type
+     *            The type of snapshot.
+     * @param userId
+     *            ID of the user that invoked the query
+     * @param isFiltered
+     *            whether the filtering will be performed
+     * @return The snapshots by the ids of their VMs, VMs without such a snapshot are missing.
+     */
+    Map<Guid, Snapshot> getAllByVmIds(Collection<Guid> vmIds, SnapshotType type, Guid userId, boolean isFiltered);
+
     /**
      * Return the <b>first</b> {@link Snapshot} that matches the given parameters.<br>
      * <b>Note:</b> If more than one snapshot answers to the parameters, only the first will be returned (oldest by
@@ -131,6 +149,16 @@ public interface SnapshotDao extends GenericDao<Snapshot, Guid>, StatusAwareDao<
      */
     List<Snapshot> getAllWithConfiguration(Guid vmId);
 
+    /**
+     * Get all the snapshots of the given VMs, like {@link #getAllWithConfiguration(Guid)} does for a single VM.
+     *
+     * @param vmIds
+     *            The ids of the VMs.
+     * @return The snapshots by the ids of their VMs, each list ordered by creation date (earliest to latest). VMs
+     *         without snapshots are missing.
+     */
+    Map<Guid, List<Snapshot>> getAllWithConfiguration(Collection<Guid> vmIds);
+
     /**
      * Get all the snapshots of the given VM. The {@link Snapshot#getVmConfiguration()} field will always be null, and
      * instead the {@link Snapshot#isVmConfigurationAvailable()} field will specify if configuration is available or
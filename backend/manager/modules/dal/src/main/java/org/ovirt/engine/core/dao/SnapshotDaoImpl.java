@@ -3,8 +3,12 @@ package org.ovirt.engine.core.dao;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import javax.inject.Named;
 import javax.inject.Singleton;
@@ -111,6 +115,17 @@ public class SnapshotDaoImpl extends DefaultGenericDao<Snapshot, Guid> implement
         return getAll(vmId, null, false, true);
     }
 
+    @Override
+    public Map<Guid, List<Snapshot>> getAllWithConfiguration(Collection<Guid> vmIds) {
+        MapSqlParameterSource parameterSource = getCustomMapSqlParameterSource()
+                .addValue("vm_ids", createArrayOfUUIDs(vmIds))
+                .addValue("fill_configuration", true);
+
+        return getCallsHandler().executeReadList("GetAllFromSnapshotsByVmIds", NO_CONFIG_ROW_MAPPER, parameterSource)
+                .stream()
+                .collect(Collectors.groupingBy(Snapshot::getVmId));
+    }
+
     @Override
     public List<Snapshot> getAll(Guid vmId) {
         return getAll(vmId, null, false);
@@ -241,6 +256,22 @@ public class SnapshotDaoImpl extends DefaultGenericDao<Snapshot, Guid> implement
                 parameterSource);
     }
 
+    @Override
+    public Map<Guid, Snapshot> getAllByVmIds(Collection<Guid> vmIds, SnapshotType type, Guid userId,
+            boolean isFiltered) {
+        MapSqlParameterSource parameterSource = getCustomMapSqlParameterSource()
+                .addValue("vm_ids", createArrayOfUUIDs(vmIds))
+                .addValue("snapshot_type", EnumUtils.nameOrNull(type))
+                .addValue("user_id", userId)
+                .addValue("is_filtered", isFiltered);
+
+        return getCallsHandler().executeReadList("GetSnapshotsByVmIdsAndType",
+                createEntityRowMapper(),
+                parameterSource)
+                .stream()
+                .collect(Collectors.toMap(Snapshot::getVmId, Function.identity()));
+    }
+
     @Override
     public Snapshot get(Guid vmId, SnapshotStatus status) {
         MapSqlParameterSource parameterSource = getCustomMapSqlParameterSource()
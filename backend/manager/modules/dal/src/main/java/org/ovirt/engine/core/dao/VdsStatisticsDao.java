@@ -1,5 +1,7 @@
 package org.ovirt.engine.core.dao;
 
+import java.util.Collection;
+
 import org.ovirt.engine.core.common.businessentities.VdsStatistics;
 import org.ovirt.engine.core.compat.Guid;
 
@@ -7,4 +9,13 @@ import org.ovirt.engine.core.compat.Guid;
  * {@code VdsStatisticsDao} defines a type that performs CRUD operations on instances of {@link VdsStatistics}.
  */
 public interface VdsStatisticsDao extends GenericDao<VdsStatistics, Guid> {
+
+    /**
+     * Updates the given collection of vds statistics using a more efficient method to update all of them at once,
+     * rather than each at a time.
+     *
+     * @param statistics
+     *            The collection of statistics to update.
+     */
+    void massUpdate(Collection<VdsStatistics> statistics);
 }
@@ -3,7 +3,9 @@ package org.ovirt.engine.core.dao;
 import java.io.IOException;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import javax.inject.Named;
 import javax.inject.Singleton;
@@ -93,7 +95,11 @@ public class VdsStatisticsDaoImpl extends BaseDao implements VdsStatisticsDao {
 
     @Override
     public void save(VdsStatistics stats) {
-        MapSqlParameterSource parameterSource = getCustomMapSqlParameterSource()
+        getCallsHandler().executeModification("InsertVdsStatistics", createFullParametersMapper(stats));
+    }
+
+    private MapSqlParameterSource createFullParametersMapper(VdsStatistics stats) {
+        return getCustomMapSqlParameterSource()
                 .addValue("cpu_idle", stats.getCpuIdle())
                 .addValue("cpu_load", stats.getCpuLoad())
                 .addValue("cpu_sys", stats.getCpuSys())
@@ -120,8 +126,6 @@ public class VdsStatisticsDaoImpl extends BaseDao implements VdsStatisticsDao {
                 .addValue("ha_local_maintenance", stats.getHighlyAvailableLocalMaintenance())
                 .addValue("cpu_over_commit_time_stamp", stats.getCpuOverCommitTimeStamp())
                 .addValue("hugepages", serializeHugePages(stats.getHugePages()));
-
-        getCallsHandler().executeModification("InsertVdsStatistics", parameterSource);
     }
 
     private static String serializeHugePages(List<HugePage> hugePages) {
@@ -139,35 +143,15 @@ public class VdsStatisticsDaoImpl extends BaseDao implements VdsStatisticsDao {
 
     @Override
     public void update(VdsStatistics stats) {
-        MapSqlParameterSource parameterSource = getCustomMapSqlParameterSource()
-                .addValue("cpu_idle", stats.getCpuIdle())
-                .addValue("cpu_load", stats.getCpuLoad())
-                .addValue("cpu_sys", stats.getCpuSys())
-                .addValue("cpu_user", stats.getCpuUser())
-                .addValue("usage_cpu_percent", stats.getUsageCpuPercent())
-                .addValue("usage_mem_percent", stats.getUsageMemPercent())
-                .addValue("usage_network_percent",
-                        stats.getUsageNetworkPercent())
-                .addValue("vds_id", stats.getId())
-                .addValue("mem_available", stats.getMemAvailable())
-                .addValue("mem_free" , stats.getMemFree())
-                .addValue("mem_shared", stats.getMemShared())
-                .addValue("swap_free", stats.getSwapFree())
-                .addValue("swap_total", stats.getSwapTotal())
-                .addValue("ksm_cpu_percent", stats.getKsmCpuPercent())
-                .addValue("ksm_pages", stats.getKsmPages())
-                .addValue("ksm_state", stats.getKsmState())
-                .addValue("anonymous_hugepages", stats.getAnonymousHugePages())
-                .addValue("boot_time", stats.getBootTime())
-                .addValue("ha_score", stats.getHighlyAvailableScore())
-                .addValue("ha_configured", stats.getHighlyAvailableIsConfigured())
-                .addValue("ha_active", stats.getHighlyAvailableIsActive())
-                .addValue("ha_global_maintenance", stats.getHighlyAvailableGlobalMaintenance())
-                .addValue("ha_local_maintenance", stats.getHighlyAvailableLocalMaintenance())
-                .addValue("cpu_over_commit_time_stamp", stats.getCpuOverCommitTimeStamp())
-                .addValue("hugepages", serializeHugePages(stats.getHugePages()));
+        getCallsHandler().executeModification("UpdateVdsStatistics", createFullParametersMapper(stats));
+    }
+
+    @Override
+    public void massUpdate(Collection<VdsStatistics> statistics) {
+        List<MapSqlParameterSource> executions =
+                statistics.stream().map(this::createFullParametersMapper).collect(Collectors.toList());
 
-        getCallsHandler().executeModification("UpdateVdsStatistics", parameterSource);
+        getCallsHandler().executeStoredProcAsBatch("UpdateVdsStatistics", executions);
     }
 
     @Override
@@ -1,6 +1,8 @@
 package org.ovirt.engine.core.dao;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 import org.ovirt.engine.core.common.businessentities.VmStatic;
 import org.ovirt.engine.core.compat.Guid;
@@ -60,6 +62,14 @@ public interface VmStaticDao extends GenericDao<VmStatic, Guid> {
      */
     public Long getDbGeneration(Guid id);
 
+    /**
+     * Get the db generations of the given vms/templates.
+     *
+     * @param ids - vm/template ids
+     * @return the db generations by the ids of their vms/templates, removed vms/templates are missing
+     */
+    Map<Guid, Long> getDbGenerations(Collection<Guid> ids);
+
     /**
      * Increment the db version for all vms/templates in a specific storage pool.
      */
@@ -1,5 +1,6 @@
 package org.ovirt.engine.core.dao.scheduling;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.ovirt.engine.core.common.scheduling.AffinityGroup;
@@ -17,6 +18,11 @@ public interface AffinityGroupDao extends GenericDao<AffinityGroup, Guid> {
      */
     List<AffinityGroup> getAllAffinityGroupsByVmId(Guid vmId);
 
+    /**
+     * get all Affinity Groups that contain any of the given vms
+     */
+    List<AffinityGroup> getAllAffinityGroupsByVmIds(Collection<Guid> vmIds);
+
     /**
      * get Affinity Group by name
      */
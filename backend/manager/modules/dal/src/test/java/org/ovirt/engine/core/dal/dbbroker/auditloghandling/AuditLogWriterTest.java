@@ -0,0 +1,146 @@
+package org.ovirt.engine.core.dal.dbbroker.auditloghandling;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.ScheduledFuture;
+import java.util.stream.Stream;
+
+import javax.enterprise.concurrent.ManagedScheduledExecutorService;
+import javax.transaction.TransactionManager;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Answers;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.ovirt.engine.core.common.AuditLogSeverity;
+import org.ovirt.engine.core.common.AuditLogType;
+import org.ovirt.engine.core.common.businessentities.AuditLog;
+import org.ovirt.engine.core.common.config.ConfigValues;
+import org.ovirt.engine.core.compat.Guid;
+import org.ovirt.engine.core.dao.AuditLogDao;
+import org.ovirt.engine.core.utils.InjectedMock;
+import org.ovirt.engine.core.utils.InjectorExtension;
+import org.ovirt.engine.core.utils.MockConfigDescriptor;
+import org.ovirt.engine.core.utils.MockConfigExtension;
+
+@ExtendWith({ MockitoExtension.class, MockConfigExtension.class, InjectorExtension.class })
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class AuditLogWriterTest {
+
+    private static final int MAX_BATCH_SIZE = 2;
+
+    public static Stream<MockConfigDescriptor<?>> mockConfiguration() {
+        return Stream.of(
+                MockConfigDescriptor.of(ConfigValues.AuditLogFlushIntervalInMillis, 1000),
+                MockConfigDescriptor.of(ConfigValues.AuditLogQueueCapacity, 10),
+                MockConfigDescriptor.of(ConfigValues.AuditLogMaxBatchSize, MAX_BATCH_SIZE));
+    }
+
+    @InjectedMock
+    @Mock(answer = Answers.RETURNS_DEEP_STUBS)
+    public TransactionManager transactionManager;
+    @Mock
+    private AuditLogDao auditLogDao;
+    @Mock
+    private ManagedScheduledExecutorService executor;
+
+    @InjectMocks
+    private AuditLogWriter writer;
+
+    @BeforeEach
+    public void setUp() {
+        doReturn(mock(ScheduledFuture.class)).when(executor).scheduleWithFixedDelay(any(), anyLong(), anyLong(), any());
+        writer.init();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        writer.shutdown();
+    }
+
+    @Test
+    public void queuedEventsAreWrittenInBatches() {
+        AuditLog event1 = event(AuditLogSeverity.NORMAL);
+        AuditLog event2 = event(AuditLogSeverity.NORMAL);
+        AuditLog event3 = event(AuditLogSeverity.NORMAL);
+        writer.write(event1);
+        writer.write(event2);
+        writer.write(event3);
+        verify(auditLogDao, never()).saveAll(anyCollection());
+        assertEquals(3, writer.getQueueDepth());
+
+        writer.flush();
+
+        verify(auditLogDao).saveAll(Arrays.asList(event1, event2));
+        verify(auditLogDao).saveAll(Collections.singletonList(event3));
+        verify(auditLogDao, never()).save(any());
+        assertEquals(0, writer.getQueueDepth());
+        assertEquals(3, writer.getWrittenEvents());
+    }
+
+    @Test
+    public void eventsOfAFailedBatchAreWrittenOneByOne() {
+        AuditLog event1 = event(AuditLogSeverity.NORMAL);
+        AuditLog event2 = event(AuditLogSeverity.NORMAL);
+        doThrow(new RuntimeException()).when(auditLogDao).saveAll(anyCollection());
+        doThrow(new RuntimeException()).when(auditLogDao).save(event1);
+        writer.write(event1);
+        writer.write(event2);
+
+        writer.flush();
+
+        verify(auditLogDao).save(event1);
+        verify(auditLogDao).save(event2);
+        assertEquals(1, writer.getWrittenEvents());
+        assertEquals(1, writer.getFailedEvents());
+    }
+
+    @Test
+    public void queuedEventsAreWrittenBeforeACriticalEvent() {
+        AuditLog queued = event(AuditLogSeverity.NORMAL);
+        AuditLog alert = event(AuditLogSeverity.ALERT);
+        writer.write(queued);
+
+        writer.write(alert);
+
+        InOrder inOrder = inOrder(auditLogDao);
+        inOrder.verify(auditLogDao).saveAll(Collections.singletonList(queued));
+        inOrder.verify(auditLogDao).save(alert);
+    }
+
+    @Test
+    public void queuedEventsAreWrittenOnShutdown() {
+        AuditLog event = event(AuditLogSeverity.NORMAL);
+        writer.write(event);
+
+        writer.shutdown();
+
+        verify(auditLogDao).saveAll(Collections.singletonList(event));
+        assertEquals(0, writer.getQueueDepth());
+    }
+
+    private static AuditLog event(AuditLogSeverity severity) {
+        AuditLog event = new AuditLog(AuditLogType.UNASSIGNED, severity);
+        // events are compared by value
+        event.setMessage(Guid.newGuid().toString());
+        return event;
+    }
+}
@@ -0,0 +1,147 @@
+package org.ovirt.engine.core.dal.dbbroker.auditloghandling;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.ovirt.engine.core.common.AuditLogType;
+import org.ovirt.engine.core.compat.Guid;
+
+public class EventFloodStoreTest {
+
+    private static final long TIMEOUT = TimeUnit.SECONDS.toMillis(30);
+
+    private long now;
+    private EventFloodStore store;
+    private Guid vmId;
+
+    @BeforeEach
+    public void setUp() {
+        now = TimeUnit.DAYS.toMillis(1000);
+        store = new EventFloodStore(() -> now);
+        vmId = Guid.newGuid();
+    }
+
+    @Test
+    public void eventIsRegulatedUntilTimeout() {
+        assertTrue(store.tryAcquire(key(AuditLogType.USER_RUN_VM, vmId), TIMEOUT));
+        assertFalse(store.tryAcquire(key(AuditLogType.USER_RUN_VM, vmId), TIMEOUT));
+
+        now += TIMEOUT - 1;
+        assertFalse(store.tryAcquire(key(AuditLogType.USER_RUN_VM, vmId), TIMEOUT));
+
+        now += 1;
+        assertTrue(store.tryAcquire(key(AuditLogType.USER_RUN_VM, vmId), TIMEOUT));
+    }
+
+    @Test
+    public void differentEventsAreRegulatedSeparately() {
+        assertTrue(store.tryAcquire(key(AuditLogType.USER_RUN_VM, vmId), TIMEOUT));
+        assertTrue(store.tryAcquire(key(AuditLogType.USER_STOP_VM, vmId), TIMEOUT));
+        assertTrue(store.tryAcquire(key(AuditLogType.USER_RUN_VM, Guid.newGuid()), TIMEOUT));
+    }
+
+    @Test
+    public void releasedEventIsLoggedAgain() {
+        assertTrue(store.tryAcquire(key(AuditLogType.USER_RUN_VM, vmId), TIMEOUT));
+
+        store.release(key(AuditLogType.USER_RUN_VM, vmId));
+
+        assertTrue(store.tryAcquire(key(AuditLogType.USER_RUN_VM, vmId), TIMEOUT));
+    }
+
+    @Test
+    public void expiredEventsAreRemoved() {
+        for (int i = 0; i < 100; i++) {
+            store.tryAcquire(key(AuditLogType.USER_RUN_VM, Guid.newGuid()), TIMEOUT);
+        }
+        store.tryAcquire(key(AuditLogType.USER_RUN_VM, vmId), TimeUnit.HOURS.toMillis(1));
+        assertEquals(101, store.size());
+
+        // touch all the shards after the timeout passed
+        now += TIMEOUT + TimeUnit.SECONDS.toMillis(1);
+        for (int i = 0; i < 1000; i++) {
+            store.tryAcquire(key(AuditLogType.USER_STOP_VM, Guid.newGuid()), 0);
+        }
+
+        assertFalse(store.tryAcquire(key(AuditLogType.USER_RUN_VM, vmId), TIMEOUT));
+        assertEquals(1001, store.size());
+    }
+
+    @Test
+    public void eventOutlastingTheWheelIsRegulated() {
+        assertTrue(store.tryAcquire(key(AuditLogType.USER_RUN_VM, vmId), TimeUnit.HOURS.toMillis(1)));
+
+        for (int i = 0; i < 59; i++) {
+            now += TimeUnit.MINUTES.toMillis(1);
+            assertFalse(store.tryAcquire(key(AuditLogType.USER_RUN_VM, vmId), TimeUnit.HOURS.toMillis(1)));
+        }
+
+        now += TimeUnit.MINUTES.toMillis(1);
+        assertTrue(store.tryAcquire(key(AuditLogType.USER_RUN_VM, vmId), TimeUnit.HOURS.toMillis(1)));
+    }
+
+    @Test
+    public void emptyAndMissingIdsMatch() {
+        AuditLogable withEmptyIds = new AuditLogableImpl();
+        withEmptyIds.setVmId(vmId);
+        withEmptyIds.setVdsId(Guid.Empty);
+        withEmptyIds.setCustomId("");
+
+        AuditLogable withMissingIds = new AuditLogableImpl();
+        withMissingIds.setVmId(vmId);
+
+        assertEquals(new EventFloodKey(withEmptyIds, AuditLogType.USER_RUN_VM),
+                new EventFloodKey(withMissingIds, AuditLogType.USER_RUN_VM));
+        assertNotEquals(new EventFloodKey(withEmptyIds, AuditLogType.USER_RUN_VM),
+                new EventFloodKey(withMissingIds, AuditLogType.USER_STOP_VM));
+    }
+
+    @Test
+    public void everyIdTellsEventsApart() {
+        assertEquals(new EventFloodKey(eventWithAllIds(new AuditLogableBase()), AuditLogType.USER_RUN_VM),
+                new EventFloodKey(eventWithAllIds(new AuditLogableImpl()), AuditLogType.USER_RUN_VM));
+
+        List<Consumer<AuditLogable>> idChanges = Arrays.asList(
+                event -> event.setStorageDomainId(Guid.newGuid()),
+                event -> event.setStoragePoolId(Guid.newGuid()),
+                event -> event.setUserId(Guid.newGuid()),
+                event -> event.setClusterId(Guid.newGuid()),
+                event -> event.setVdsId(Guid.newGuid()),
+                event -> event.setVmId(Guid.newGuid()),
+                event -> event.setVmTemplateId(Guid.newGuid()),
+                event -> event.setCustomId("654321"));
+        EventFloodKey key = new EventFloodKey(eventWithAllIds(new AuditLogableImpl()), AuditLogType.USER_RUN_VM);
+        for (Consumer<AuditLogable> idChange : idChanges) {
+            AuditLogable event = eventWithAllIds(new AuditLogableImpl());
+            idChange.accept(event);
+            assertNotEquals(key, new EventFloodKey(event, AuditLogType.USER_RUN_VM));
+        }
+    }
+
+    private static AuditLogable eventWithAllIds(AuditLogable event) {
+        event.setStorageDomainId(Guid.createGuidFromString("11111111-1111-1111-1111-111111111111"));
+        event.setStoragePoolId(Guid.createGuidFromString("22222222-2222-2222-2222-222222222222"));
+        event.setUserId(Guid.createGuidFromString("33333333-3333-3333-3333-333333333333"));
+        event.setClusterId(Guid.createGuidFromString("44444444-4444-4444-4444-444444444444"));
+        event.setVdsId(Guid.createGuidFromString("55555555-5555-5555-5555-555555555555"));
+        event.setVmId(Guid.createGuidFromString("66666666-6666-6666-6666-666666666666"));
+        event.setVmTemplateId(Guid.createGuidFromString("77777777-7777-7777-7777-777777777777"));
+        event.setCustomId("123456");
+        return event;
+    }
+
+    private static EventFloodKey key(AuditLogType logType, Guid vmId) {
+        AuditLogable event = new AuditLogableImpl();
+        event.setVmId(vmId);
+        return new EventFloodKey(event, logType);
+    }
+}
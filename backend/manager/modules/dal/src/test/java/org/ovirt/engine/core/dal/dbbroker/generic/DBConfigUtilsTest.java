@@ -0,0 +1,106 @@
+package org.ovirt.engine.core.dal.dbbroker.generic;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.ovirt.engine.core.common.businessentities.VdcOption;
+import org.ovirt.engine.core.common.config.ConfigCommon;
+import org.ovirt.engine.core.common.config.ConfigValues;
+import org.ovirt.engine.core.dao.VdcOptionDao;
+
+@ExtendWith(MockitoExtension.class)
+public class DBConfigUtilsTest {
+
+    private static final String GENERAL = ConfigCommon.defaultConfigurationVersion;
+
+    @Mock
+    private VdcOptionDao vdcOptionDao;
+
+    @InjectMocks
+    private DBConfigUtils configUtils;
+
+    @Test
+    public void testGetValue() {
+        when(vdcOptionDao.getAll()).thenReturn(Arrays.asList(
+                option(ConfigValues.MaxNumOfVmCpus.name(), "16", GENERAL),
+                option(ConfigValues.MaxNumOfVmCpus.name(), "384", "4.2"),
+                option(ConfigValues.VdsRefreshRate.name(), "3", GENERAL)));
+        configUtils.refresh();
+
+        assertEquals(16, (int) configUtils.getValue(ConfigValues.MaxNumOfVmCpus, GENERAL));
+        assertEquals(384, (int) configUtils.getValue(ConfigValues.MaxNumOfVmCpus, "4.2"));
+        assertEquals(3L, (long) configUtils.getValue(ConfigValues.VdsRefreshRate, GENERAL));
+
+        Map<String, Integer> values = configUtils.getValuesForAllVersions(ConfigValues.MaxNumOfVmCpus);
+        assertEquals(2, values.size());
+        assertEquals(384, (int) values.get("4.2"));
+    }
+
+    @Test
+    public void testMissingValue() {
+        when(vdcOptionDao.getAll()).thenReturn(Collections.singletonList(
+                option(ConfigValues.MaxNumOfVmCpus.name(), "16", GENERAL)));
+        configUtils.refresh();
+
+        assertTrue(configUtils.valueExists(ConfigValues.MaxNumOfVmCpus, GENERAL));
+        assertFalse(configUtils.valueExists(ConfigValues.MaxNumOfVmCpus, "4.2"));
+        assertFalse(configUtils.valueExists(ConfigValues.VdsRefreshRate, GENERAL));
+        assertNull(configUtils.getValuesForAllVersions(ConfigValues.VdsRefreshRate));
+        assertThrows(IllegalArgumentException.class, () -> configUtils.getValue(ConfigValues.MaxNumOfVmCpus, "4.2"));
+    }
+
+    @Test
+    public void testNullValueExists() {
+        when(vdcOptionDao.getAll()).thenReturn(Collections.singletonList(
+                option(ConfigValues.MaxNumOfVmCpus.name(), null, GENERAL)));
+        configUtils.refresh();
+
+        assertTrue(configUtils.valueExists(ConfigValues.MaxNumOfVmCpus, GENERAL));
+        assertNull(configUtils.getValue(ConfigValues.MaxNumOfVmCpus, GENERAL));
+    }
+
+    @Test
+    public void testValueDependentOnLaterOption() {
+        when(vdcOptionDao.getAll()).thenReturn(Arrays.asList(
+                option(ConfigValues.DBLikeSyntax.name(), "", GENERAL),
+                option(ConfigValues.DBEngine.name(), "Postgres", GENERAL),
+                option(ConfigValues.PostgresLikeSyntax.name(), "ILIKE", GENERAL)));
+        configUtils.refresh();
+
+        assertEquals("ILIKE", configUtils.getValue(ConfigValues.DBLikeSyntax, GENERAL));
+    }
+
+    @Test
+    public void testRefreshReplacesValues() {
+        when(vdcOptionDao.getAll()).thenReturn(Arrays.asList(
+                option(ConfigValues.MaxNumOfVmCpus.name(), "16", GENERAL),
+                option("TempUpgradeFlag", "true", GENERAL)));
+        configUtils.refresh();
+        when(vdcOptionDao.getAll()).thenReturn(Collections.singletonList(
+                option(ConfigValues.MaxNumOfVmCpus.name(), "32", GENERAL)));
+        configUtils.refresh();
+
+        assertEquals(32, (int) configUtils.getValue(ConfigValues.MaxNumOfVmCpus, GENERAL));
+    }
+
+    private static VdcOption option(String name, String value, String version) {
+        VdcOption option = new VdcOption();
+        option.setOptionName(name);
+        option.setOptionValue(value);
+        option.setVersion(version);
+        return option;
+    }
+}
@@ -69,6 +69,17 @@ public class AffinityGroupDaoTest extends BaseDaoTestCase<AffinityGroupDao> {
         assertTrue(affinityGroupList.isEmpty());
     }
 
+    @Test
+    public void testGetByVmIds() {
+        List<AffinityGroup> affinityGroupList =
+                dao.getAllAffinityGroupsByVmIds(Arrays.asList(FixturesTool.VM_RHEL5_POOL_50, Guid.newGuid()));
+        assertEquals(NUM_OF_AFFINITY_GROUPS_FOR_VM, affinityGroupList.size());
+        assertTrue(affinityGroupList.stream().allMatch(g -> g.getVmIds().contains(FixturesTool.VM_RHEL5_POOL_50)));
+        // empty
+        affinityGroupList = dao.getAllAffinityGroupsByVmIds(Collections.singletonList(Guid.newGuid()));
+        assertTrue(affinityGroupList.isEmpty());
+    }
+
     @Test
     public void testGetByName() {
         AffinityGroup affinityGroup = dao.getByName(AFFINITY_GROUP_NAME);
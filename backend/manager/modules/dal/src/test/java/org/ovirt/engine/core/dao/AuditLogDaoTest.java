@@ -7,6 +7,7 @@ import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.text.SimpleDateFormat;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 
@@ -271,6 +272,18 @@ public class AuditLogDaoTest extends BaseDaoTestCase<AuditLogDao> {
         assertEquals(newAuditLog, result);
     }
 
+    @Test
+    public void testSaveAll() {
+        AuditLog otherAuditLog = new AuditLog(AuditLogType.IRS_DISK_SPACE_LOW, AuditLogSeverity.WARNING);
+        otherAuditLog.setLogTime(new Date());
+        otherAuditLog.setMessage("Low disk space");
+        int countBefore = dao.getAll(null, false).size();
+
+        dao.saveAll(Arrays.asList(newAuditLog, otherAuditLog));
+
+        assertEquals(countBefore + 2, dao.getAll(null, false).size());
+    }
+
     @Test
     public void testSaveExternalEvent() {
         AuditLog newExternalEvent = new AuditLog();
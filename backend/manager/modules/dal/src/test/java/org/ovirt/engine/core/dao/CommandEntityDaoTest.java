@@ -4,11 +4,13 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.hasItems;
 import static org.hamcrest.Matchers.hasSize;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.Serializable;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -80,6 +82,30 @@ public class CommandEntityDaoTest extends BaseGenericDaoTestCase<Guid, CommandEn
         assertTrue(cmds.size() > 0);
     }
 
+    @Test
+    public void testSaveOrUpdateAll() {
+        CommandEntity existing = dao.get(getExistingEntityId());
+        existing.setCommandStatus(CommandStatus.SUCCEEDED);
+        CommandEntity newEntity = generateNewEntity();
+
+        dao.saveOrUpdateAll(Arrays.asList(existing, newEntity));
+
+        assertEquals(CommandStatus.SUCCEEDED, dao.get(getExistingEntityId()).getCommandStatus());
+        assertNotNull(dao.get(newEntity.getId()));
+    }
+
+    @Test
+    public void testGetCommandIdsBeforeDate() {
+        CommandEntity newEntity = generateNewEntity();
+        newEntity.setCreatedAt(new Date(System.currentTimeMillis() + 60000));
+        dao.save(newEntity);
+
+        List<Guid> cmdIds = dao.getCommandIdsBeforeDate(new Date());
+
+        assertThat(cmdIds, hasItems(getExistingEntityId()));
+        assertFalse(cmdIds.contains(newEntity.getId()));
+    }
+
     @Test
     public void testGetCommandIdsByEntity() {
         Guid storageId = Guid.newGuid();
@@ -7,7 +7,9 @@ import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -147,6 +149,16 @@ public class DbUserDaoTest extends BaseDaoTestCase<DbUserDao> {
         assertFalse(result.isEmpty());
     }
 
+    /**
+     * Ensures that retrieving all users for several VMs works as expected.
+     */
+    @Test
+    public void testGetAllForVms() {
+        List<DbUser> result = dao.getAllForVms(Arrays.asList(vm, Guid.newGuid()));
+
+        assertEquals(new HashSet<>(dao.getAllForVm(vm)), new HashSet<>(result));
+    }
+
     @Test
     public void testGetAll() {
         List<DbUser> result = dao.getAll();
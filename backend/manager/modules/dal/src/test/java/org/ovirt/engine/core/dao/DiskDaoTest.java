@@ -135,6 +135,23 @@ public class DiskDaoTest extends BaseReadDaoTestCase<Guid, Disk, DiskDao> {
         assertFullGetAllForVMResult(vmDisksMap.get(FixturesTool.VM_RHEL5_POOL_57));
     }
 
+    @Test
+    public void testGetAllForVMsFilteredWithPermissions() {
+        Map<Guid, List<Disk>> vmDisksMap = dao.getAllForVms(
+                Arrays.asList(FixturesTool.VM_RHEL5_POOL_57, Guid.newGuid()), PRIVILEGED_USER_ID, true);
+
+        assertEquals(Collections.singleton(FixturesTool.VM_RHEL5_POOL_57), vmDisksMap.keySet());
+        assertFullGetAllForVMResult(vmDisksMap.get(FixturesTool.VM_RHEL5_POOL_57));
+    }
+
+    @Test
+    public void testGetAllForVMsFilteredWithPermissionsNoPermissions() {
+        Map<Guid, List<Disk>> vmDisksMap = dao.getAllForVms(
+                Collections.singletonList(FixturesTool.VM_RHEL5_POOL_57), UNPRIVILEGED_USER_ID, true);
+
+        assertTrue(vmDisksMap.isEmpty(), "VM should have no disks viewable to the user");
+    }
+
     @Test
     public void testGetAllAttachableDisksByPoolIdNoDisks() {
         List<Disk> result =
@@ -4,6 +4,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 
@@ -84,6 +85,20 @@ public class EngineSessionDaoTest extends BaseDaoTestCase<EngineSessionDao> {
 
     }
 
+    /**
+     * Ensures that removing several sessions at once works as expected.
+     */
+    @Test
+    public void testRemoveByIds() {
+        EngineSession otherEngineSession = dao.getBySessionId(UNPRIVILEGED_USER_ENGINE_SESSION_ID);
+
+        assertEquals(2, dao.remove(Arrays.asList(existingEngineSession.getId(), otherEngineSession.getId())));
+
+        assertNull(dao.get(existingEngineSession.getId()));
+        assertNull(dao.get(otherEngineSession.getId()));
+        assertEquals(0, dao.remove(Collections.singletonList(existingEngineSession.getId())));
+    }
+
     /**
      * Ensures that removing all sessions works as expected.
      */
@@ -394,6 +394,20 @@ public class PermissionDaoTest extends BaseDaoTestCase<PermissionDao> {
         }
     }
 
+    /**
+     * Ensures that the permissions of several objects are returned at once.
+     */
+    @Test
+    public void testGetAllForObjectIds() {
+        List<Permission> result = dao.getAllForObjectIds(Arrays.asList(VM_ENTITY_ID, Guid.newGuid()));
+
+        assertNotNull(result);
+        assertTrue(result.stream().anyMatch(permission -> AD_ELEMENT_ID.equals(permission.getAdElementId())));
+        for (Permission permission : result) {
+            assertEquals(VM_ENTITY_ID, permission.getObjectId());
+        }
+    }
+
     /**
      * Ensures an empty collection is returned when the entity has no permissions tree.
      */
@@ -567,6 +581,29 @@ public class PermissionDaoTest extends BaseDaoTestCase<PermissionDao> {
                 VdcObjectType.VM));
     }
 
+    @Test
+    public void testGetEntityPermissionsOfSessionGroup() {
+        // A group of the session of the user
+        Permission permission = new Permission(new Guid("35487601-05ef-43b0-932d-8663ea4c9495"),
+                new Guid("f5972bfa-7102-4d33-ad22-9dd421bfba78"),
+                VM_TEMPLATE_ENTITY_ID,
+                VdcObjectType.VmTemplate);
+        assertNull(dao.getEntityPermissions(USER_ENTITY_ID, ActionGroup.RUN_VM, VM_TEMPLATE_ENTITY_ID,
+                VdcObjectType.VM));
+
+        // Should not return null since the permission is added to the session of the user
+        dao.save(permission);
+        assertEquals(permission.getId(), dao.getEntityPermissions(USER_ENTITY_ID,
+                ActionGroup.RUN_VM,
+                VM_TEMPLATE_ENTITY_ID,
+                VdcObjectType.VM));
+
+        // Should return null since the permission is removed from the session of the user
+        dao.remove(permission.getId());
+        assertNull(dao.getEntityPermissions(USER_ENTITY_ID, ActionGroup.RUN_VM, VM_TEMPLATE_ENTITY_ID,
+                VdcObjectType.VM));
+    }
+
     @Test
     public void testGetEntityPermissionsByUserAndGroups() {
         // Should not return null since the user has the relevant permission
@@ -6,8 +6,11 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.commons.lang.StringUtils;
 import org.junit.jupiter.api.Test;
@@ -158,6 +161,27 @@ public class SnapshotDaoTest extends BaseGenericDaoTestCase<Guid, Snapshot, Snap
         assertNull(dao.get(EXISTING_VM_ID, SnapshotType.REGULAR, SnapshotStatus.LOCKED));
     }
 
+    @Test
+    public void getAllByVmIdsAndType() {
+        Map<Guid, Snapshot> snapshots =
+                dao.getAllByVmIds(Arrays.asList(EXISTING_VM_ID, Guid.Empty), SnapshotType.REGULAR, null, false);
+        assertEquals(Collections.singletonMap(EXISTING_VM_ID, existingEntity), snapshots);
+    }
+
+    @Test
+    public void getAllByVmIdsAndTypeFilteredWithPermissions() {
+        Map<Guid, Snapshot> snapshots = dao.getAllByVmIds(Collections.singletonList(EXISTING_VM_ID),
+                SnapshotType.REGULAR, PRIVILEGED_USER_ID, true);
+        assertEquals(existingEntity, snapshots.get(EXISTING_VM_ID));
+    }
+
+    @Test
+    public void getAllByVmIdsAndTypeFilteredWithPermissionsNoPermissions() {
+        Map<Guid, Snapshot> snapshots = dao.getAllByVmIds(Collections.singletonList(EXISTING_VM_ID),
+                SnapshotType.REGULAR, UNPRIVILEGED_USER_ID, true);
+        assertTrue(snapshots.isEmpty());
+    }
+
     @Test
     public void getIdByTypeReturnsIdForExistingByTypeAndStatus() {
         assertEquals(getExistingEntityId(), dao.getId(EXISTING_VM_ID, SnapshotType.REGULAR));
@@ -203,6 +227,17 @@ public class SnapshotDaoTest extends BaseGenericDaoTestCase<Guid, Snapshot, Snap
         }
     }
 
+    @Test
+    public void getAllByVmIdsWithConfiguration() {
+        Map<Guid, List<Snapshot>> snapshots = dao.getAllWithConfiguration(
+                Arrays.asList(FixturesTool.VM_RHEL5_POOL_50, FixturesTool.VM_RHEL5_POOL_57, Guid.Empty));
+        assertEquals(2, snapshots.size(), "Only the VMs with snapshots should be returned");
+        assertEquals(dao.getAllWithConfiguration(FixturesTool.VM_RHEL5_POOL_50),
+                snapshots.get(FixturesTool.VM_RHEL5_POOL_50));
+        assertEquals(dao.getAllWithConfiguration(FixturesTool.VM_RHEL5_POOL_57),
+                snapshots.get(FixturesTool.VM_RHEL5_POOL_57));
+    }
+
     @Test
     public void getAllByVm() {
         List<Snapshot> snapshots = dao.getAll(FixturesTool.VM_RHEL5_POOL_57);
@@ -4,6 +4,8 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 
 import org.junit.jupiter.api.Disabled;
@@ -61,4 +63,12 @@ public class StorageServerConnectionLunMapDaoTest extends BaseGenericDaoTestCase
             assertEquals(existingEntity.getId().lunId, mapping.getId().lunId);
         }
     }
+
+    @Test
+    public void testGetAllByLunIds() {
+        List<LUNStorageServerConnectionMap> result =
+                dao.getAll(Arrays.asList(existingEntity.getId().lunId, generateNonExistingId().lunId));
+
+        assertEquals(new HashSet<>(dao.getAll(existingEntity.getId().lunId)), new HashSet<>(result));
+    }
 }
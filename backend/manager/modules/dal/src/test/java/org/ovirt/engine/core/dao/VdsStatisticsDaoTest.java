@@ -1,6 +1,11 @@
 package org.ovirt.engine.core.dao;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+
 import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
 import org.ovirt.engine.core.common.businessentities.VdsStatistics;
 import org.ovirt.engine.core.compat.Guid;
 
@@ -32,6 +37,21 @@ public class VdsStatisticsDaoTest extends BaseGenericDaoTestCase<Guid, VdsStatis
         return 5;
     }
 
+    /**
+     * Ensures that updating the statistics of several hosts at once works as expected.
+     */
+    @Test
+    public void testMassUpdate() {
+        updateExistingEntity();
+        VdsStatistics otherEntity = dao.get(FixturesTool.VDS_RHEL6_NFS_SPM);
+        otherEntity.setMemFree(1024L);
+
+        dao.massUpdate(Arrays.asList(existingEntity, otherEntity));
+
+        assertEquals(existingEntity, dao.get(existingEntity.getId()));
+        assertEquals(otherEntity, dao.get(otherEntity.getId()));
+    }
+
     @Disabled
     @Override
     public void testGetAll() {
@@ -6,6 +6,8 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -199,6 +201,28 @@ public class VmNetworkInterfaceDaoTest extends BaseDaoTestCase<VmNetworkInterfac
         }
     }
 
+    /**
+     * Ensures that the interfaces of all the given VMs are returned, like for each VM on its own
+     */
+    @Test
+    public void testGetAllInterfacesForVms() {
+        List<VmNetworkInterface> result =
+                dao.getAllForVms(Arrays.asList(VM_ID, Guid.newGuid()), PRIVILEGED_USER_ID, true);
+
+        assertEquals(dao.getAllForVm(VM_ID), result);
+    }
+
+    /**
+     * Ensures that no interfaces are returned for an unprivileged user with filtering enabled
+     */
+    @Test
+    public void testGetAllInterfacesForVmsFilteredWithoutPermissions() {
+        List<VmNetworkInterface> result =
+                dao.getAllForVms(Collections.singletonList(VM_ID), UNPRIVILEGED_USER_ID, true);
+
+        assertTrue(result.isEmpty());
+    }
+
     @Test
     public void testGetAll() {
         List<VmNetworkInterface> interfaces = dao.getAll();
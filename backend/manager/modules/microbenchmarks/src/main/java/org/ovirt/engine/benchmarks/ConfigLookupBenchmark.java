@@ -0,0 +1,114 @@
+package org.ovirt.engine.benchmarks;
+
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.ovirt.engine.core.common.businessentities.VdcOption;
+import org.ovirt.engine.core.common.config.ConfigCommon;
+import org.ovirt.engine.core.common.config.ConfigValues;
+import org.ovirt.engine.core.common.config.TypeConverterAttribute;
+import org.ovirt.engine.core.dal.dbbroker.generic.DBConfigUtils;
+import org.ovirt.engine.core.dao.VdcOptionDao;
+
+/**
+ * <p> Benchmark's the lookup of configuration values, for a batch of lookups of random options and versions.</p>
+ * <p> The lookups of {@link DBConfigUtils} are compared to lookups in a map of maps keyed by the names of the options
+ * and by the versions, as the values were cached before, including the check that the value exists.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ConfigLookupBenchmark {
+
+    private static final int LOOKUPS = 1000;
+    private static final String[] VERSIONS = { ConfigCommon.defaultConfigurationVersion, "4.2", "4.3", "4.4" };
+
+    @Benchmark
+    public void optionNameMap(BenchmarkState state, Blackhole blackhole) {
+        for (int i = 0; i < LOOKUPS; i++) {
+            ConfigValues name = state.names[i];
+            String version = state.versions[i];
+            Map<String, Object> values = state.optionNameMap.get(name.toString());
+            if (values != null && state.optionNameMap.get(name.toString()).containsKey(version)) {
+                blackhole.consume(values.get(version));
+            }
+        }
+    }
+
+    @Benchmark
+    public void configUtils(BenchmarkState state, Blackhole blackhole) {
+        for (int i = 0; i < LOOKUPS; i++) {
+            blackhole.consume(state.configUtils.<Integer>getValue(state.names[i], state.versions[i]));
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class BenchmarkState {
+
+        @Mock
+        private VdcOptionDao vdcOptionDao;
+
+        @InjectMocks
+        private DBConfigUtils configUtils;
+
+        private Map<String, Map<String, Object>> optionNameMap = new HashMap<>();
+        private ConfigValues[] names = new ConfigValues[LOOKUPS];
+        private String[] versions = new String[LOOKUPS];
+
+        @Setup
+        public void setup() throws NoSuchFieldException {
+            MockitoAnnotations.initMocks(this);
+
+            // all the integer options have a value for all the versions
+            List<ConfigValues> integerOptions = new ArrayList<>();
+            List<VdcOption> options = new ArrayList<>();
+            for (ConfigValues configValue : ConfigValues.values()) {
+                TypeConverterAttribute type =
+                        ConfigValues.class.getField(configValue.name()).getAnnotation(TypeConverterAttribute.class);
+                if (type == null || type.value() != Integer.class) {
+                    continue;
+                }
+                integerOptions.add(configValue);
+                for (String version : VERSIONS) {
+                    VdcOption option = new VdcOption();
+                    option.setOptionName(configValue.name());
+                    option.setOptionValue(String.valueOf(options.size()));
+                    option.setVersion(version);
+                    options.add(option);
+                    optionNameMap.computeIfAbsent(configValue.name(), k -> new HashMap<>())
+                            .put(version, options.size());
+                }
+            }
+            when(vdcOptionDao.getAll()).thenReturn(options);
+            configUtils.refresh();
+
+            // most of the lookups are for the default version, as by Config.getValue(ConfigValues)
+            Random random = new Random(0);
+            for (int i = 0; i < LOOKUPS; i++) {
+                names[i] = integerOptions.get(random.nextInt(integerOptions.size()));
+                versions[i] = random.nextInt(4) == 0 ? VERSIONS[1 + random.nextInt(VERSIONS.length - 1)]
+                        : ConfigCommon.defaultConfigurationVersion;
+            }
+        }
+    }
+}
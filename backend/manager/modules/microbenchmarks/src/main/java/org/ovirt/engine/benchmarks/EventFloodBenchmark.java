@@ -0,0 +1,155 @@
+package org.ovirt.engine.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang.StringUtils;
+import org.infinispan.Cache;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.configuration.global.GlobalConfigurationBuilder;
+import org.infinispan.eviction.EvictionStrategy;
+import org.infinispan.manager.DefaultCacheManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.ovirt.engine.core.common.AuditLogType;
+import org.ovirt.engine.core.compat.Guid;
+import org.ovirt.engine.core.dal.dbbroker.auditloghandling.AuditLogable;
+import org.ovirt.engine.core.dal.dbbroker.auditloghandling.AuditLogableImpl;
+import org.ovirt.engine.core.dal.dbbroker.auditloghandling.EventFloodKey;
+import org.ovirt.engine.core.dal.dbbroker.auditloghandling.EventFloodStore;
+
+/**
+ * <p> Benchmark's the flood regulation of one second of audit log events, for a given rate of events spread over a
+ * given number of VMs.</p>
+ * <p> The regulation by the {@link EventFloodStore}, which is used by the {@code EventFloodRegulator}, is compared to
+ * the regulation it replaced: a local infinispan cache that is configured like the timeout-base cache of the engine and
+ * is keyed by a string composed of the log type and the ids of the event. A result below a second means that the
+ * regulation keeps up with the rate on a single thread.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class EventFloodBenchmark {
+
+    private static final AuditLogType[] LOG_TYPES = {
+            AuditLogType.VDS_BROKER_COMMAND_FAILURE,
+            AuditLogType.VM_DOWN_ERROR,
+            AuditLogType.VM_MIGRATION_FAILED,
+            AuditLogType.USER_RUN_VM
+    };
+
+    @Benchmark
+    public void timeoutBaseCache(BenchmarkState state, Blackhole blackhole) {
+        for (int i = 0; i < state.eventsPerSecond; i++) {
+            AuditLogable event = state.nextEvent();
+            AuditLogType logType = state.nextLogType();
+            String key = composeObjectId(event, logType);
+            blackhole.consume(state.cache.putIfAbsent(key, key, state.timeoutMillis, TimeUnit.MILLISECONDS) == null);
+        }
+    }
+
+    @Benchmark
+    public void floodStore(BenchmarkState state, Blackhole blackhole) {
+        for (int i = 0; i < state.eventsPerSecond; i++) {
+            AuditLogable event = state.nextEvent();
+            AuditLogType logType = state.nextLogType();
+            state.tick();
+            blackhole.consume(state.store.tryAcquire(new EventFloodKey(event, logType), state.timeoutMillis));
+        }
+    }
+
+    /**
+     * Composes the key the events were regulated by in the timeout-base cache.
+     */
+    private static String composeObjectId(AuditLogable event, AuditLogType logType) {
+        return "type=" + logType
+                + ",sd=" + idToString(event.getStorageDomainId())
+                + ",dc=" + idToString(event.getStoragePoolId())
+                + ",user=" + idToString(event.getUserId())
+                + ",cluster=" + idToString(event.getClusterId())
+                + ",vds=" + idToString(event.getVdsId())
+                + ",vm=" + idToString(event.getVmId())
+                + ",template=" + idToString(event.getVmTemplateId())
+                + ",customId=" + StringUtils.defaultString(event.getCustomId());
+    }
+
+    private static String idToString(Guid id) {
+        return id == null || Guid.Empty.equals(id) ? "" : id.toString();
+    }
+
+    @State(Scope.Benchmark)
+    public static class BenchmarkState {
+
+        @Param({ "50000" })
+        private int eventsPerSecond;
+
+        @Param({ "1000", "10000" })
+        private int vms;
+
+        @Param({ "30000" })
+        private long timeoutMillis;
+
+        private DefaultCacheManager cacheManager;
+        private Cache<String, String> cache;
+        private EventFloodStore store;
+        private long nowNanos;
+        private List<AuditLogable> events;
+        private int eventIndex;
+        private int logTypeIndex;
+
+        @Setup
+        public void setup() {
+            cacheManager = new DefaultCacheManager(
+                    new GlobalConfigurationBuilder().build(),
+                    new ConfigurationBuilder()
+                            .eviction().strategy(EvictionStrategy.LRU).size(10000)
+                            .expiration().wakeUpInterval(60000)
+                            .build());
+            cache = cacheManager.getCache("timeout-base");
+
+            // the store runs on a clock that passes a second for each benchmark invocation
+            nowNanos = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis());
+            store = new EventFloodStore(() -> TimeUnit.NANOSECONDS.toMillis(nowNanos));
+
+            events = new ArrayList<>(vms);
+            for (int i = 0; i < vms; i++) {
+                AuditLogable event = new AuditLogableImpl();
+                event.setVmId(Guid.newGuid());
+                event.setClusterId(Guid.newGuid());
+                event.setVdsId(Guid.newGuid());
+                events.add(event);
+            }
+        }
+
+        @TearDown
+        public void teardown() {
+            cacheManager.stop();
+        }
+
+        private AuditLogable nextEvent() {
+            eventIndex = eventIndex + 1 == events.size() ? 0 : eventIndex + 1;
+            return events.get(eventIndex);
+        }
+
+        private AuditLogType nextLogType() {
+            logTypeIndex = logTypeIndex + 1 == LOG_TYPES.length ? 0 : logTypeIndex + 1;
+            return LOG_TYPES[logTypeIndex];
+        }
+
+        private void tick() {
+            nowNanos += TimeUnit.SECONDS.toNanos(1) / eventsPerSecond;
+        }
+    }
+}
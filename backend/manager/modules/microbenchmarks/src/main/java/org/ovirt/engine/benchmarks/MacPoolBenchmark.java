@@ -0,0 +1,141 @@
+package org.ovirt.engine.benchmarks;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.ovirt.engine.core.bll.network.macpool.MacPool;
+import org.ovirt.engine.core.bll.network.macpool.MacPoolFactory;
+import org.ovirt.engine.core.bll.network.macpool.MacsUsedAcrossWholeSystem;
+import org.ovirt.engine.core.common.businessentities.MacRange;
+import org.ovirt.engine.core.compat.Guid;
+import org.ovirt.engine.core.dal.dbbroker.auditloghandling.AuditLogDirector;
+import org.ovirt.engine.core.utils.MacAddressRangeUtils;
+
+/**
+ * <p> Benchmark's the custom MACs of a MAC pool, the MACs that are out of the ranges of the pool, e.g. MACs set by the
+ * user or imported with a VM. The pool keeps them in a counter of MACs instead of the ranges.</p>
+ * <p> <b>addCustomMacs</b> adds the custom MACs to an empty pool, <b>customMacsInUse</b> looks them up and
+ * <b>freeCustomMacs</b> frees them from a pool that uses them. The pools are created by the {@link MacPoolFactory}
+ * like the pools of the engine, without MACs used by VMs.</p>
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MacPoolBenchmark {
+
+    private static final long FIRST_MAC_OF_RANGE = 0x001a4a160000L;
+    private static final long RANGE_SIZE = 1L << 16;
+
+    @Benchmark
+    public void addCustomMacs(EmptyPoolState state, Blackhole blackhole) {
+        for (String mac : state.customMacs.macs) {
+            blackhole.consume(state.macPool.addMac(mac));
+        }
+    }
+
+    @Benchmark
+    public void customMacsInUse(UsedPoolState state, Blackhole blackhole) {
+        for (String mac : state.customMacs.macs) {
+            blackhole.consume(state.macPool.isMacInUse(mac));
+        }
+    }
+
+    @Benchmark
+    public void freeCustomMacs(UsedPoolState state) {
+        state.macPool.freeMacs(state.customMacs.macs);
+    }
+
+    @State(Scope.Benchmark)
+    public static class CustomMacs {
+
+        @Param({ "100000", "1000000" })
+        private int numberOfMacs;
+
+        @Param({ "false", "true" })
+        private boolean allowDuplicates;
+
+        @Mock
+        private MacsUsedAcrossWholeSystem macsUsedAcrossWholeSystem;
+
+        @Mock
+        private AuditLogDirector auditLogDirector;
+
+        @InjectMocks
+        private MacPoolFactory macPoolFactory;
+
+        private List<String> macs;
+
+        @Setup
+        public void setup() {
+            MockitoAnnotations.initMocks(this);
+            when(macsUsedAcrossWholeSystem.getMacsForMacPool(any())).thenReturn(Collections.emptyList());
+
+            // the custom MACs follow the range of the pool
+            macs = new ArrayList<>(numberOfMacs);
+            for (long mac = FIRST_MAC_OF_RANGE + RANGE_SIZE; macs.size() < numberOfMacs; mac++) {
+                macs.add(MacAddressRangeUtils.macToString(mac));
+            }
+        }
+
+        MacPool createMacPool() {
+            MacRange range = new MacRange();
+            range.setMacFrom(MacAddressRangeUtils.macToString(FIRST_MAC_OF_RANGE));
+            range.setMacTo(MacAddressRangeUtils.macToString(FIRST_MAC_OF_RANGE + RANGE_SIZE - 1));
+
+            org.ovirt.engine.core.common.businessentities.MacPool macPool =
+                    new org.ovirt.engine.core.common.businessentities.MacPool();
+            macPool.setId(Guid.newGuid());
+            macPool.setAllowDuplicateMacAddresses(allowDuplicates);
+            macPool.setRanges(Collections.singletonList(range));
+            return macPoolFactory.createMacPool(macPool, false);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class EmptyPoolState {
+
+        private CustomMacs customMacs;
+        private MacPool macPool;
+
+        @Setup(Level.Invocation)
+        public void setup(CustomMacs customMacs) {
+            this.customMacs = customMacs;
+            macPool = customMacs.createMacPool();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class UsedPoolState {
+
+        private CustomMacs customMacs;
+        private MacPool macPool;
+
+        @Setup(Level.Invocation)
+        public void setup(CustomMacs customMacs) {
+            this.customMacs = customMacs;
+            macPool = customMacs.createMacPool();
+            macPool.addMacs(customMacs.macs);
+        }
+    }
+}
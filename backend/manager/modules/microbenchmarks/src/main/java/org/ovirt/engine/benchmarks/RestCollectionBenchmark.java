@@ -0,0 +1,91 @@
+package org.ovirt.engine.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <p> Benchmark's the listing of large collections of the REST API of a running engine, in XML and in JSON.</p>
+ * <p> {@link #firstByte(BenchmarkState)} measures the latency until the first byte of the response is received and
+ * {@link #fullResponse(BenchmarkState)} the time to receive the whole response. The peak heap of a request is
+ * measured on the engine side, for example by running the benchmark with a single thread while watching the heap of
+ * the engine with jstat.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RestCollectionBenchmark {
+
+    @Benchmark
+    public int firstByte(BenchmarkState state) throws IOException {
+        HttpURLConnection connection = state.open();
+        try (InputStream in = connection.getInputStream()) {
+            return in.read();
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    @Benchmark
+    public long fullResponse(BenchmarkState state) throws IOException {
+        HttpURLConnection connection = state.open();
+        byte[] buffer = new byte[64 * 1024];
+        long size = 0;
+        try (InputStream in = connection.getInputStream()) {
+            for (int read = in.read(buffer); read != -1; read = in.read(buffer)) {
+                size += read;
+            }
+        } finally {
+            connection.disconnect();
+        }
+        return size;
+    }
+
+    @State(Scope.Thread)
+    public static class BenchmarkState {
+
+        @Param({ "events", "vms", "disks" })
+        private String collection;
+
+        @Param({ "application/xml", "application/json" })
+        private String mediaType;
+
+        private URL url;
+        private String authorization;
+
+        @Setup
+        public void setup() throws IOException {
+            String user = System.getProperty("benchmarks.api.user", "admin@internal");
+            String pass = System.getProperty("benchmarks.api.pass", "123");
+            String engineUrl = System.getProperty("benchmarks.api.engineUrl", "http://localhost:8080");
+
+            url = new URL(engineUrl + "/ovirt-engine/api/" + collection);
+            authorization = "Basic " + Base64.getEncoder()
+                    .encodeToString((user + ":" + pass).getBytes(StandardCharsets.UTF_8));
+        }
+
+        private HttpURLConnection open() throws IOException {
+            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+            connection.setRequestProperty("Authorization", authorization);
+            connection.setRequestProperty("Accept", mediaType);
+            connection.setRequestProperty("Version", "4");
+            return connection;
+        }
+    }
+}
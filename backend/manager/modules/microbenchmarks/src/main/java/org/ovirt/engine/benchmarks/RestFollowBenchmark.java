@@ -0,0 +1,83 @@
+package org.ovirt.engine.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <p> Benchmark's the listing of the VMs of the REST API of a running engine with their sub-collections followed,
+ * e.g. <code>GET /vms?follow=nics,disk_attachments</code>.</p>
+ * <p> The empty <code>follow</code> parameter lists the VMs alone, as a baseline for the cost of following the links.
+ * The requests are sent with {@link HttpURLConnection}, since the SDK used by {@link RestInvocationBenchmark} has no
+ * follow parameter on list requests.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RestFollowBenchmark {
+
+    @Benchmark
+    public long listVms(BenchmarkState state) throws IOException {
+        HttpURLConnection connection = state.open();
+        byte[] buffer = new byte[64 * 1024];
+        long size = 0;
+        try (InputStream in = connection.getInputStream()) {
+            for (int read = in.read(buffer); read != -1; read = in.read(buffer)) {
+                size += read;
+            }
+        } finally {
+            connection.disconnect();
+        }
+        return size;
+    }
+
+    @State(Scope.Thread)
+    public static class BenchmarkState {
+
+        @Param({ "", "nics", "disk_attachments", "nics,disk_attachments" })
+        private String follow;
+
+        @Param({ "application/xml", "application/json" })
+        private String mediaType;
+
+        private URL url;
+        private String authorization;
+
+        @Setup
+        public void setup() throws IOException {
+            String user = System.getProperty("benchmarks.api.user", "admin@internal");
+            String pass = System.getProperty("benchmarks.api.pass", "123");
+            String engineUrl = System.getProperty("benchmarks.api.engineUrl", "http://localhost:8080");
+
+            String query = follow.isEmpty() ? "" : "?follow=" + URLEncoder.encode(follow, "UTF-8");
+            url = new URL(engineUrl + "/ovirt-engine/api/vms" + query);
+            authorization = "Basic " + Base64.getEncoder()
+                    .encodeToString((user + ":" + pass).getBytes(StandardCharsets.UTF_8));
+        }
+
+        private HttpURLConnection open() throws IOException {
+            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+            connection.setRequestProperty("Authorization", authorization);
+            connection.setRequestProperty("Accept", mediaType);
+            connection.setRequestProperty("Version", "4");
+            return connection;
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package org.ovirt.engine.benchmarks;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.ovirt.engine.core.bll.scheduling.PolicyUnitEvaluator;
+import org.ovirt.engine.core.bll.scheduling.PolicyUnitImpl;
+import org.ovirt.engine.core.bll.scheduling.SchedulingContext;
+import org.ovirt.engine.core.bll.scheduling.SchedulingUnit;
+import org.ovirt.engine.core.bll.scheduling.policyunits.CPUPolicyUnit;
+import org.ovirt.engine.core.bll.scheduling.policyunits.CpuPinningPolicyUnit;
+import org.ovirt.engine.core.bll.scheduling.policyunits.EmulatedMachineFilterPolicyUnit;
+import org.ovirt.engine.core.bll.scheduling.policyunits.HighPerformanceCpuPolicyUnit;
+import org.ovirt.engine.core.bll.scheduling.policyunits.NumaWeightPolicyUnit;
+import org.ovirt.engine.core.common.businessentities.Cluster;
+import org.ovirt.engine.core.common.businessentities.VDS;
+import org.ovirt.engine.core.common.businessentities.VM;
+import org.ovirt.engine.core.common.businessentities.VdsNumaNode;
+import org.ovirt.engine.core.common.businessentities.VmType;
+import org.ovirt.engine.core.common.config.Config;
+import org.ovirt.engine.core.common.config.ConfigValues;
+import org.ovirt.engine.core.common.config.IConfigUtilsInterface;
+import org.ovirt.engine.core.common.scheduling.PerHostMessages;
+import org.ovirt.engine.core.common.scheduling.PolicyUnitType;
+import org.ovirt.engine.core.common.utils.Pair;
+import org.ovirt.engine.core.compat.Guid;
+
+/**
+ * <p> Benchmark's the evaluation of the internal filters and weight functions of a scheduling run for a synthetic
+ * cluster of a given number of hosts.</p>
+ * <p> Besides a few of the real host independent units, a simulated filter and a simulated weight function burn CPU
+ * for each host they evaluate, so the result shows the time of the sequential evaluation compared to the chunked
+ * evaluation that is enabled by {@link ConfigValues#SchedulingParallelism}.</p>
+ *
+ * @see PolicyUnitEvaluator
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SchedulingBenchmark {
+
+    @Benchmark
+    public List<VDS> filter(BenchmarkState state) {
+        List<VDS> hosts = state.hosts;
+        for (PolicyUnitImpl filter : state.filters) {
+            hosts = state.evaluator.filter(filter, state.context, hosts, state.vmGroup, new PerHostMessages());
+        }
+        return hosts;
+    }
+
+    @Benchmark
+    public void score(BenchmarkState state, Blackhole blackhole) {
+        for (PolicyUnitImpl function : state.functions) {
+            blackhole.consume(state.evaluator.score(function, state.context, state.hosts, state.vmGroup));
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class BenchmarkState {
+
+        @Param({ "50", "200", "1000" })
+        private int hostsInCluster;
+
+        @Param({ "1", "4" })
+        private int parallelism;
+
+        /** CPU work of evaluating a single host by the simulated units, in JMH tokens */
+        @Param({ "2000" })
+        private long evaluationTokens;
+
+        private ExecutorService pool;
+        private PolicyUnitEvaluator evaluator;
+        private SchedulingContext context;
+        private List<VDS> hosts;
+        private List<VM> vmGroup;
+        private List<PolicyUnitImpl> filters;
+        private List<PolicyUnitImpl> functions;
+
+        @Setup
+        public void setup() {
+            IConfigUtilsInterface configUtils = mock(IConfigUtilsInterface.class);
+            when(configUtils.getValue(any(), any())).thenReturn(1000);
+            Config.setConfigUtils(configUtils);
+
+            Cluster cluster = new Cluster();
+            cluster.setCountThreadsAsCores(false);
+            context = new SchedulingContext(cluster, Collections.emptyMap());
+
+            hosts = new ArrayList<>(hostsInCluster);
+            for (int i = 0; i < hostsInCluster; i++) {
+                hosts.add(createHost(i));
+            }
+            vmGroup = Collections.singletonList(createVm());
+
+            filters = Arrays.asList(
+                    new CPUPolicyUnit(null, null),
+                    new CpuPinningPolicyUnit(null, null),
+                    new EmulatedMachineFilterPolicyUnit(null, null),
+                    new SimulatedFilterPolicyUnit(evaluationTokens));
+            functions = Arrays.asList(
+                    new HighPerformanceCpuPolicyUnit(null, null),
+                    new NumaWeightPolicyUnit(null, null),
+                    new SimulatedWeightPolicyUnit(evaluationTokens));
+
+            // stands for the container managed pool, the calling thread evaluates one of the chunks
+            pool = Executors.newFixedThreadPool(Math.max(1, parallelism - 1));
+            evaluator = new PolicyUnitEvaluator(pool, parallelism);
+        }
+
+        @TearDown
+        public void teardown() {
+            pool.shutdownNow();
+        }
+
+        private VDS createHost(int index) {
+            VDS host = new VDS();
+            host.setId(Guid.newGuid());
+            host.setVdsName("host" + index);
+            host.setCpuSockets(2);
+            host.setCpuCores(16);
+            host.setCpuThreads(32);
+            host.setOnlineCpus(index % 10 == 0 ? "0,1,2,3" : "0,1,2,3,4,5,6,7");
+            host.setSupportedEmulatedMachines("pc-i440fx-rhel7.6.0,pc-q35-rhel7.6.0,pc-q35-rhel8.0.0");
+            host.setNumaSupport(true);
+
+            VdsNumaNode node = new VdsNumaNode();
+            node.setIndex(0);
+            node.setMemTotal(index % 2 == 0 ? 65536 : 8192);
+            node.setCpuIds(Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7));
+            host.setNumaNodeList(Collections.singletonList(node));
+            return host;
+        }
+
+        private VM createVm() {
+            VM vm = new VM();
+            vm.setId(Guid.newGuid());
+            vm.setVmType(VmType.HighPerformance);
+            vm.setNumOfSockets(1);
+            vm.setCpuPerSocket(4);
+            vm.setThreadsPerCpu(1);
+            vm.setVmMemSizeMb(16384);
+            vm.setCpuPinning("0#4_1#5");
+            vm.setEmulatedMachine("pc-q35-rhel8.0.0");
+            vm.setvNumaNodeList(Collections.emptyList());
+            return vm;
+        }
+    }
+
+    /**
+     * A host independent filter that accepts all hosts after burning the given CPU tokens for each of them
+     */
+    @SchedulingUnit(
+            guid = "5d0b4c5e-0a5e-4a4b-9d38-7f0f2ba0c9a1",
+            name = "SimulatedFilter",
+            type = PolicyUnitType.FILTER,
+            hostIndependent = true
+    )
+    private static class SimulatedFilterPolicyUnit extends PolicyUnitImpl {
+
+        private final long evaluationTokens;
+
+        SimulatedFilterPolicyUnit(long evaluationTokens) {
+            super(null, null);
+            this.evaluationTokens = evaluationTokens;
+        }
+
+        @Override
+        public List<VDS> filter(SchedulingContext context, List<VDS> hosts, VM vm, PerHostMessages messages) {
+            List<VDS> result = new ArrayList<>(hosts.size());
+            for (VDS host : hosts) {
+                Blackhole.consumeCPU(evaluationTokens);
+                result.add(host);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * A host independent weight function that gives all hosts the same weight after burning the given CPU tokens
+     * for each of them
+     */
+    @SchedulingUnit(
+            guid = "0c2a9a41-3f4e-4bb1-8f6a-2d5c1b7e8a63",
+            name = "SimulatedWeight",
+            type = PolicyUnitType.WEIGHT,
+            hostIndependent = true
+    )
+    private static class SimulatedWeightPolicyUnit extends PolicyUnitImpl {
+
+        private final long evaluationTokens;
+
+        SimulatedWeightPolicyUnit(long evaluationTokens) {
+            super(null, null);
+            this.evaluationTokens = evaluationTokens;
+        }
+
+        @Override
+        public List<Pair<Guid, Integer>> score(SchedulingContext context, List<VDS> hosts, VM vm) {
+            List<Pair<Guid, Integer>> scores = new ArrayList<>(hosts.size());
+            for (VDS host : hosts) {
+                Blackhole.consumeCPU(evaluationTokens);
+                scores.add(new Pair<>(host.getId(), 1));
+            }
+            return scores;
+        }
+    }
+}
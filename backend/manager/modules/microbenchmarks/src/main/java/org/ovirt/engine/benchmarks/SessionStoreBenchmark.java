@@ -0,0 +1,159 @@
+package org.ovirt.engine.benchmarks;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.RETURNS_DEFAULTS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import java.lang.reflect.Field;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.ovirt.engine.core.bll.aaa.SessionDataContainer;
+import org.ovirt.engine.core.bll.aaa.SsoSessionUtils;
+import org.ovirt.engine.core.common.businessentities.aaa.DbUser;
+import org.ovirt.engine.core.common.config.Config;
+import org.ovirt.engine.core.common.config.IConfigUtilsInterface;
+import org.ovirt.engine.core.compat.Guid;
+import org.ovirt.engine.core.dao.EngineSessionDao;
+
+/**
+ * <p> Benchmark's the session store of {@link SessionDataContainer}.</p>
+ * <p> {@link #cleanExpiredSessions(CleanupState)} measures the periodic cleanup of a given number of sessions, one
+ * percent of which expired since the previous cleanup. The statuses of the SSO sessions are returned from memory.</p>
+ * <p> {@link #createSession(CreationState)} measures the creation of a session as on login. When run with
+ * {@code -prof gc}, its {@code gc.alloc.rate.norm} is the memory allocated per session. That is an upper bound of the
+ * memory a session retains.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SessionStoreBenchmark {
+
+    private static final String SESSION_ID_PREFIX =
+            "pXr7yK2mQ9vB4nL6tW8sD1fG3hJ5kZ0cV7bN9mA2sD4fG6hJ8kL1qW3eR5tY7uI9oP2aS4dF6gH8jK0lZ2xC4";
+
+    @Benchmark
+    public void cleanExpiredSessions(CleanupState state) {
+        state.container.cleanExpiredUsersSessions();
+    }
+
+    @Benchmark
+    public void createSession(CreationState state) {
+        state.createSession(state.sessions++);
+    }
+
+    @State(Scope.Benchmark)
+    public static class CleanupState extends ContainerState {
+
+        @Param({ "200000" })
+        private int sessions;
+
+        @Setup
+        public void setup() throws ReflectiveOperationException {
+            init();
+            for (int i = 0; i < sessions; i++) {
+                createSession(i);
+                sessionStatuses.put(token(i), true);
+            }
+            // the tokens of the expired sessions are no longer valid, so they are not revoked
+            for (int i = sessions; i < sessions + sessions / 100; i++) {
+                sessionStatuses.put(token(i), false);
+            }
+        }
+
+        @Setup(Level.Invocation)
+        public void expireSessions() {
+            Date softLimit = new Date(System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(1));
+            for (int i = sessions; i < sessions + sessions / 100; i++) {
+                createSession(i);
+                container.setSoftLimit(sessionId(i), softLimit);
+            }
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class CreationState extends ContainerState {
+
+        private int sessions;
+
+        @Setup(Level.Iteration)
+        public void setup() throws ReflectiveOperationException {
+            init();
+            sessions = 0;
+        }
+    }
+
+    public abstract static class ContainerState {
+
+        protected SessionDataContainer container;
+        protected Map<String, Boolean> sessionStatuses = new HashMap<>();
+        private DbUser user;
+
+        protected void init() throws ReflectiveOperationException {
+            IConfigUtilsInterface configUtils = mock(IConfigUtilsInterface.class, withSettings().stubOnly());
+            when(configUtils.getValue(any(), any())).thenReturn(30);
+            Config.setConfigUtils(configUtils);
+
+            EngineSessionDao engineSessionDao = mock(EngineSessionDao.class, withSettings().stubOnly());
+            AtomicLong seqIds = new AtomicLong();
+            when(engineSessionDao.save(any())).thenAnswer(invocation -> seqIds.incrementAndGet());
+
+            container = new SessionDataContainer();
+            inject(container, "engineSessionDao", engineSessionDao);
+            inject(container, "ssoSessionUtils", mock(SsoSessionUtils.class, withSettings().stubOnly()));
+            Class<?> validatorType = SessionDataContainer.class.getDeclaredField("ssoSessionValidator").getType();
+            inject(container, "ssoSessionValidator", mock(validatorType, withSettings().stubOnly()
+                    .defaultAnswer(invocation -> "getSessionStatuses".equals(invocation.getMethod().getName()) ?
+                            sessionStatuses : RETURNS_DEFAULTS.answer(invocation))));
+
+            user = new DbUser();
+            user.setId(Guid.newGuid());
+            user.setLoginName("user");
+            user.setDomain("internal-authz");
+        }
+
+        /**
+         * Creates a session the way {@code CreateUserSessionCommand} does.
+         */
+        protected void createSession(int index) {
+            String sessionId = sessionId(index);
+            container.setSourceIp(sessionId, "192.168.0.1");
+            container.setUser(sessionId, user);
+            container.refresh(sessionId);
+            container.setPrincipalName(sessionId, "user");
+            container.setSsoAccessToken(sessionId, token(index));
+            container.setSsoOvirtAppApiScope(sessionId, "ovirt-app-api");
+        }
+
+        protected static String sessionId(int index) {
+            return SESSION_ID_PREFIX + index;
+        }
+
+        protected static String token(int index) {
+            return "token-" + index;
+        }
+
+        private static void inject(Object target, String fieldName, Object value) throws ReflectiveOperationException {
+            Field field = target.getClass().getDeclaredField(fieldName);
+            field.setAccessible(true);
+            field.set(target, value);
+        }
+    }
+}
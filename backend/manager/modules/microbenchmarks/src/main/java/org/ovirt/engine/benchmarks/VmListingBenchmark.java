@@ -0,0 +1,139 @@
+package org.ovirt.engine.benchmarks;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.ovirt.engine.core.bll.VmHandler;
+import org.ovirt.engine.core.bll.lock.InMemoryLockManager;
+import org.ovirt.engine.core.common.businessentities.Snapshot;
+import org.ovirt.engine.core.common.businessentities.VM;
+import org.ovirt.engine.core.common.businessentities.aaa.DbUser;
+import org.ovirt.engine.core.common.errors.EngineMessage;
+import org.ovirt.engine.core.common.locks.LockingGroup;
+import org.ovirt.engine.core.common.utils.Pair;
+import org.ovirt.engine.core.compat.Guid;
+import org.ovirt.engine.core.dao.SnapshotDao;
+import org.ovirt.engine.core.utils.lock.EngineLock;
+import org.ovirt.engine.core.vdsbroker.ResourceManager;
+
+/**
+ * <p> Benchmark's the runtime information added to the VMs returned by a VM search, for a given number of VMs.</p>
+ * <p> The VMs are updated one by one as the search did before, and all together by
+ * {@link VmHandler#updateVmsForListing(List, DbUser, boolean)}. Every call of the snapshot Dao simulates the round
+ * trip to the database, so the result shows how the per VM lookups of the next run snapshots add up.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class VmListingBenchmark {
+
+    @Benchmark
+    public List<VM> perVm(BenchmarkState state) {
+        for (VM vm : state.vms) {
+            state.vmHandler.updateVmGuestAgentVersion(vm);
+            state.vmHandler.updateVmLock(vm);
+            state.vmHandler.updateOperationProgress(vm);
+            state.vmHandler.updateVmStatistics(vm);
+            state.vmHandler.updateNextRunChangedFields(vm, state.user, true);
+        }
+        return state.vms;
+    }
+
+    @Benchmark
+    public List<VM> bulk(BenchmarkState state) {
+        state.vmHandler.updateVmsForListing(state.vms, state.user, true);
+        return state.vms;
+    }
+
+    @State(Scope.Benchmark)
+    public static class BenchmarkState {
+
+        @Param({ "500", "5000" })
+        private int vmCount;
+
+        /** Percentage of the VMs that have a configuration for their next run */
+        @Param({ "10" })
+        private int nextRunPercent;
+
+        /** Percentage of the VMs that are locked */
+        @Param({ "5" })
+        private int lockedPercent;
+
+        @Param({ "200" })
+        private long dbRoundTripMicros;
+
+        @Mock
+        private SnapshotDao snapshotDao;
+        @Mock
+        private ResourceManager resourceManager;
+        @Spy
+        private InMemoryLockManager lockManager = new InMemoryLockManager();
+
+        @InjectMocks
+        private VmHandler vmHandler;
+
+        private List<VM> vms;
+        private DbUser user;
+
+        @Setup
+        public void setup() {
+            MockitoAnnotations.initMocks(this);
+
+            // the snapshots are not found, so only the lookups themselves are measured
+            when(snapshotDao.get(any(Guid.class), any(Snapshot.SnapshotType.class), any(), anyBoolean()))
+                    .thenAnswer(invocation -> {
+                        LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(dbRoundTripMicros));
+                        return null;
+                    });
+            when(snapshotDao.getAllByVmIds(anyCollection(), any(Snapshot.SnapshotType.class), any(), anyBoolean()))
+                    .thenAnswer(invocation -> {
+                        LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(dbRoundTripMicros));
+                        return Collections.emptyMap();
+                    });
+
+            user = new DbUser();
+            user.setId(Guid.newGuid());
+
+            vms = new ArrayList<>(vmCount);
+            for (int i = 0; i < vmCount; i++) {
+                VM vm = new VM();
+                vm.setId(Guid.newGuid());
+                vm.setNextRunConfigurationExists(i % 100 < nextRunPercent);
+                if (i % 100 < lockedPercent) {
+                    lock(vm);
+                }
+                vms.add(vm);
+            }
+        }
+
+        private void lock(VM vm) {
+            EngineLock lock = new EngineLock();
+            lock.setExclusiveLocks(Collections.singletonMap(vm.getId().toString(),
+                    new Pair<>(LockingGroup.VM.name(), EngineMessage.ACTION_TYPE_FAILED_VM_IS_LOCKED.name())));
+            lockManager.acquireLock(lock);
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package org.ovirt.engine.benchmarks;
+
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import javax.enterprise.concurrent.ManagedExecutorService;
+
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.stubbing.Answer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.ovirt.engine.core.common.businessentities.IVdsEventListener;
+import org.ovirt.engine.core.common.businessentities.VmDynamic;
+import org.ovirt.engine.core.common.businessentities.VmStatistics;
+import org.ovirt.engine.core.common.config.Config;
+import org.ovirt.engine.core.common.config.ConfigValues;
+import org.ovirt.engine.core.common.config.IConfigUtilsInterface;
+import org.ovirt.engine.core.common.utils.Pair;
+import org.ovirt.engine.core.compat.Guid;
+import org.ovirt.engine.core.dao.DiskImageDynamicDao;
+import org.ovirt.engine.core.dao.VmDynamicDao;
+import org.ovirt.engine.core.dao.VmStatisticsDao;
+import org.ovirt.engine.core.dao.network.VmNetworkStatisticsDao;
+import org.ovirt.engine.core.vdsbroker.VdsManager;
+import org.ovirt.engine.core.vdsbroker.VmManager;
+import org.ovirt.engine.core.vdsbroker.monitoring.BalloonMonitoring;
+import org.ovirt.engine.core.vdsbroker.monitoring.LunDisksMonitoring;
+import org.ovirt.engine.core.vdsbroker.monitoring.VdsmVm;
+import org.ovirt.engine.core.vdsbroker.monitoring.VmAnalyzer;
+import org.ovirt.engine.core.vdsbroker.monitoring.VmAnalyzerFactory;
+import org.ovirt.engine.core.vdsbroker.monitoring.VmJobsMonitoring;
+import org.ovirt.engine.core.vdsbroker.monitoring.VmsMonitoring;
+
+/**
+ * <p> Benchmark's a single monitoring cycle of {@link VmsMonitoring} for a host running a given number of VMs.</p>
+ * <p> The analysis of each VM and the database batches are simulated by burning CPU and by parking the flushing
+ * thread respectively, so the result shows the cycle time of the sequential monitoring compared to the parallel
+ * monitoring that is enabled by {@link ConfigValues#VmsMonitoringParallelism}.</p>
+ *
+ * @see VmsMonitoring
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class VmsMonitoringBenchmark {
+
+    @Benchmark
+    public void monitoringCycle(BenchmarkState state) {
+        state.vmsMonitoring.perform(state.monitoredVms, System.nanoTime(), state.vdsManager, true);
+    }
+
+    @State(Scope.Benchmark)
+    public static class BenchmarkState {
+
+        @Param({ "10", "100", "500" })
+        private int vmsPerHost;
+
+        @Param({ "1", "4" })
+        private int parallelism;
+
+        /** CPU work of analyzing a single VM, in JMH tokens */
+        @Param({ "20000" })
+        private long analysisTokens;
+
+        /** Latency of a single DB batch */
+        @Param({ "2" })
+        private long batchLatencyMillis;
+
+        @Mock
+        private VmDynamicDao vmDynamicDao;
+        @Mock
+        private VmStatisticsDao vmStatisticsDao;
+        @Mock
+        private VmNetworkStatisticsDao vmNetworkStatisticsDao;
+        @Mock
+        private DiskImageDynamicDao diskImageDynamicDao;
+        @Mock
+        private BalloonMonitoring balloonMonitoring;
+        @Mock
+        private LunDisksMonitoring lunDisksMonitoring;
+        @Mock
+        private VmJobsMonitoring vmJobsMonitoring;
+        @Mock
+        private IVdsEventListener vdsEventListener;
+        @Mock
+        private VmManager vmManager;
+        @Mock
+        private VdsManager vdsManager;
+        @Mock
+        private IConfigUtilsInterface configUtils;
+
+        @InjectMocks
+        private VmsMonitoring vmsMonitoring = new BenchmarkVmsMonitoring(this);
+
+        private List<Pair<VmDynamic, VdsmVm>> monitoredVms;
+        private ExecutorService monitoringPool;
+
+        @Setup
+        public void setup() throws ReflectiveOperationException {
+            MockitoAnnotations.initMocks(this);
+            when(configUtils.getValue(any(), any())).thenReturn(parallelism);
+            Config.setConfigUtils(configUtils);
+
+            Answer<Void> batch = invocation -> {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(batchLatencyMillis));
+                return null;
+            };
+            doAnswer(batch).when(vmDynamicDao).updateAllInBatch(anyList());
+            doAnswer(batch).when(vmStatisticsDao).updateAllInBatch(anyList());
+            doAnswer(batch).when(vmNetworkStatisticsDao).updateAllInBatch(anyList());
+            doAnswer(batch).when(diskImageDynamicDao).updateAllDiskImageDynamicWithDiskIdByVmId(anyList());
+
+            when(vmManager.trylock()).thenReturn(true);
+            when(vmManager.isLatestData(any(), any())).thenReturn(true);
+            when(vdsManager.getVdsId()).thenReturn(Guid.newGuid());
+            when(vdsManager.getVdsName()).thenReturn("benchmark");
+
+            monitoredVms = new ArrayList<>(vmsPerHost);
+            for (int i = 0; i < vmsPerHost; i++) {
+                VmDynamic vmDynamic = new VmDynamic();
+                vmDynamic.setId(Guid.newGuid());
+                monitoredVms.add(new Pair<>(vmDynamic, null));
+            }
+
+            // stands for the container managed pool, which is as large as the parallelism here
+            monitoringPool = Executors.newFixedThreadPool(parallelism);
+            Field poolField = VmsMonitoring.class.getDeclaredField("monitoringPool");
+            poolField.setAccessible(true);
+            poolField.set(vmsMonitoring, mock(ManagedExecutorService.class, delegatesTo(monitoringPool)));
+
+            vmsMonitoring.init();
+        }
+
+        @TearDown
+        public void teardown() {
+            monitoringPool.shutdownNow();
+        }
+    }
+
+    private static class BenchmarkVmsMonitoring extends VmsMonitoring {
+
+        private final BenchmarkState state;
+
+        BenchmarkVmsMonitoring(BenchmarkState state) {
+            this.state = state;
+        }
+
+        @Override
+        protected VmAnalyzerFactory getVmAnalyzerFactory(VdsManager vdsManager, boolean statistics) {
+            return new VmAnalyzerFactory(vdsManager, statistics, null, null, null, null, null) {
+                @Override
+                protected VmAnalyzer getVmAnalyzer(Pair<VmDynamic, VdsmVm> monitoredVm) {
+                    return new SimulatedVmAnalyzer(monitoredVm.getFirst(), state.analysisTokens);
+                }
+            };
+        }
+
+        @Override
+        protected IVdsEventListener getVdsEventListener() {
+            return state.vdsEventListener;
+        }
+
+        @Override
+        protected VmManager getVmManager(Guid vmId) {
+            return state.vmManager;
+        }
+    }
+
+    /**
+     * An analyzer that reports the VM dynamic data and statistics as changed after burning the given CPU tokens
+     */
+    private static class SimulatedVmAnalyzer extends VmAnalyzer {
+
+        private final VmDynamic vmDynamic;
+        private final long analysisTokens;
+        private VmStatistics statistics;
+
+        SimulatedVmAnalyzer(VmDynamic vmDynamic, long analysisTokens) {
+            super(vmDynamic, null, true, null, null, null, null, null);
+            this.vmDynamic = vmDynamic;
+            this.analysisTokens = analysisTokens;
+        }
+
+        @Override
+        protected void analyze() {
+            Blackhole.consumeCPU(analysisTokens);
+            statistics = new VmStatistics();
+            statistics.setId(vmDynamic.getId());
+        }
+
+        @Override
+        public VmDynamic getVmDynamicToSave() {
+            return vmDynamic;
+        }
+
+        @Override
+        public VmStatistics getVmStatisticsToSave() {
+            return statistics;
+        }
+    }
+}
@@ -223,7 +223,11 @@ public class BackendDiskAttachmentsResource
         return getEntity(org.ovirt.engine.core.common.businessentities.StorageDomain.class, QueryType.GetStorageDomainById, new IdQueryParameters(id), id.toString());
     }
 
-    private DiskAttachments mapCollection(List<DiskVmElement> entities) {
+    /**
+     * Maps the given disk VM elements of the VM like {@link #list()} does, used when the disk attachments of many VMs
+     * are fetched at once.
+     */
+    DiskAttachments mapCollection(List<DiskVmElement> entities) {
         DiskAttachments collection = new DiskAttachments();
         for (org.ovirt.engine.core.common.businessentities.storage.DiskVmElement entity : entities) {
             DiskAttachment diskAttachment = addLinks(populate(map(entity), entity), Vm.class);
@@ -57,7 +57,10 @@ public class BackendVmDisksResource
         return mapCollection(getBackendCollection(QueryType.GetAllDisksByVmId, new IdQueryParameters(vmId)));
     }
 
-    private Disks mapCollection(List<org.ovirt.engine.core.common.businessentities.storage.Disk> entities) {
+    /**
+     * Maps the given disks of the VM like {@link #list()} does, used when the disks of many VMs are fetched at once.
+     */
+    Disks mapCollection(List<org.ovirt.engine.core.common.businessentities.storage.Disk> entities) {
         Disks collection = new Disks();
         for (org.ovirt.engine.core.common.businessentities.storage.Disk entity : entities) {
             collection.getDisks().add(addLinks(populate(map(entity), entity)));
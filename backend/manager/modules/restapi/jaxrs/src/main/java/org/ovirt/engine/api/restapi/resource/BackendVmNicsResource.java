@@ -28,11 +28,19 @@ public class BackendVmNicsResource extends AbstractBackendNicsResource implement
 
     @Override
     public Nics list() {
-        Nics nics = new Nics();
         List<VmNetworkInterface> entities = getBackendCollection(
             QueryType.GetVmInterfacesByVmId,
             new IdQueryParameters(vmId)
         );
+        return mapNics(entities);
+    }
+
+    /**
+     * Maps the given interfaces of the VM like {@link #list()} does, used when the interfaces of many VMs are
+     * fetched at once.
+     */
+    Nics mapNics(List<VmNetworkInterface> entities) {
+        Nics nics = new Nics();
         for (VmNetworkInterface entity : entities) {
             Nic nic = populate(map(entity), entity);
             nics.getNics().add(addLinks(nic));
@@ -17,6 +17,7 @@ limitations under the License.
 package org.ovirt.engine.api.restapi.resource;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -25,6 +26,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -32,6 +34,7 @@ import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Response;
 
 import org.ovirt.engine.api.common.util.DetailHelper;
+import org.ovirt.engine.api.model.ActionableResource;
 import org.ovirt.engine.api.model.Configuration;
 import org.ovirt.engine.api.model.ConfigurationType;
 import org.ovirt.engine.api.model.Disk;
@@ -51,6 +54,7 @@ import org.ovirt.engine.api.model.Vms;
 import org.ovirt.engine.api.resource.VmResource;
 import org.ovirt.engine.api.resource.VmsResource;
 import org.ovirt.engine.api.restapi.logging.Messages;
+import org.ovirt.engine.api.restapi.resource.utils.LinkBatchFetcher;
 import org.ovirt.engine.api.restapi.types.DiskMapper;
 import org.ovirt.engine.api.restapi.types.RngDeviceMapper;
 import org.ovirt.engine.api.restapi.types.VmMapper;
@@ -76,8 +80,10 @@ import org.ovirt.engine.core.common.businessentities.VmPayload;
 import org.ovirt.engine.core.common.businessentities.VmRngDevice;
 import org.ovirt.engine.core.common.businessentities.VmStatic;
 import org.ovirt.engine.core.common.businessentities.VmTemplate;
+import org.ovirt.engine.core.common.businessentities.network.VmNetworkInterface;
 import org.ovirt.engine.core.common.businessentities.storage.BaseDisk;
 import org.ovirt.engine.core.common.businessentities.storage.DiskImage;
+import org.ovirt.engine.core.common.businessentities.storage.DiskVmElement;
 import org.ovirt.engine.core.common.interfaces.SearchType;
 import org.ovirt.engine.core.common.osinfo.OsRepository;
 import org.ovirt.engine.core.common.queries.GetFilteredAndSortedParameters;
@@ -99,10 +105,13 @@ import org.ovirt.engine.core.utils.RngUtils;
 
 public class BackendVmsResource extends
         AbstractBackendCollectionResource<Vm, org.ovirt.engine.core.common.businessentities.VM>
-        implements VmsResource {
+        implements VmsResource, LinkBatchFetcher {
 
     public static final String CLONE = "clone";
     public static final String CLONE_PERMISSIONS = "clone_permissions";
+    private static final String NICS_REL = "nics";
+    private static final String DISK_ATTACHMENTS_REL = "diskattachments";
+    private static final String DISKS_REL = "disks";
 
     public BackendVmsResource() {
         super(Vm.class, org.ovirt.engine.core.common.businessentities.VM.class);
@@ -164,6 +173,50 @@ public class BackendVmsResource extends
         return inject(new BackendVmResource(id, this));
     }
 
+    @Override
+    public Map<String, ActionableResource> fetchLinks(String rel, List<String> ids) {
+        switch (rel) {
+        case NICS_REL:
+            return this.<VmNetworkInterface> fetchLinksOfVms(ids,
+                    QueryType.GetVmInterfacesByVmIds,
+                    (vmId, nics) -> inject(new BackendVmNicsResource(vmId)).mapNics(nics));
+        case DISK_ATTACHMENTS_REL:
+            return this.<DiskVmElement> fetchLinksOfVms(ids,
+                    QueryType.GetDiskVmElementsByVmIds,
+                    (vmId, diskVmElements) -> inject(new BackendDiskAttachmentsResource(vmId))
+                            .mapCollection(diskVmElements));
+        case DISKS_REL:
+            return this.<org.ovirt.engine.core.common.businessentities.storage.Disk> fetchLinksOfVms(ids,
+                    QueryType.GetAllDisksByVmIds,
+                    (vmId, disks) -> inject(new BackendVmDisksResource(vmId)).mapCollection(disks));
+        default:
+            return null;
+        }
+    }
+
+    /**
+     * Runs the given query, which returns the entities of a sub-collection by the ids of their VMs, and maps the
+     * entities of each VM with the given mapper. VMs missing from the result get an empty sub-collection.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> Map<String, ActionableResource> fetchLinksOfVms(List<String> ids,
+            QueryType queryType,
+            BiFunction<Guid, List<T>, ActionableResource> mapper) {
+        List<Guid> vmIds = ids.stream().map(Guid::new).collect(Collectors.toList());
+        Map<Guid, List<T>> entitiesByVm = getEntity(Map.class,
+                queryType,
+                new IdsQueryParameters(vmIds),
+                queryType.name(),
+                true);
+
+        Map<String, ActionableResource> linksByVm = new HashMap<>();
+        for (int i = 0; i < ids.size(); i++) {
+            linksByVm.put(ids.get(i),
+                    mapper.apply(vmIds.get(i), entitiesByVm.getOrDefault(vmIds.get(i), Collections.emptyList())));
+        }
+        return linksByVm;
+    }
+
     @Override
     public Response add(Vm vm) {
         validateParameters(vm, "cluster.id|name");
@@ -0,0 +1,29 @@
+package org.ovirt.engine.api.restapi.resource.utils;
+
+import java.util.List;
+import java.util.Map;
+
+import org.ovirt.engine.api.model.ActionableResource;
+
+/**
+ * Implemented by collection resources that can fetch a sub-collection of many of their members at once.
+ *
+ * When the {@link LinkFollower} follows the same sub-collection link (e.g: 'nics' in .../vms/{id}/nics) of several
+ * members of the collection, it asks the collection resource for all of them at once instead of locating and
+ * listing the sub-collection resource of each member.
+ */
+public interface LinkBatchFetcher {
+
+    /**
+     * Fetches the given sub-collection of all the given members, with the same content as listing the
+     * sub-collection resource of each member.
+     *
+     * @param rel
+     *            the 'rel' of the sub-collection link, e.g: nics
+     * @param ids
+     *            the ids of the members of this collection
+     * @return the sub-collections by the ids of their members, or null if the sub-collection can't be fetched at
+     *         once, in which case the link of each member is followed separately
+     */
+    Map<String, ActionableResource> fetchLinks(String rel, List<String> ids);
+}
@@ -2,9 +2,13 @@ package org.ovirt.engine.api.restapi.resource.utils;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.LinkedList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import javax.ws.rs.GET;
@@ -116,7 +120,7 @@ public class LinkFollower {
      *         networkfilter
      *         qos
      *
-     * This method will fetch the vnic-profiles of nic11, nic12, nic13, nic21, nic22, nic23,
+     * This method will fetch the vnic-profiles of nic11, nic12, nic21, nic22, nic31, nic32,
      * set them in the respected Nic objects, and store them in a list.
      *
      * Then the method will recursively run on the list of vnic-profiles with the sub-tree
@@ -126,96 +130,144 @@ public class LinkFollower {
      * and again with the sub-tree
      *
      *    qos
+     *
+     * The links are followed level by level, so each link is fetched for all the entities of its level at once.
      */
     private void followLinks(List<ActionableResource> entities, LinksTreeNode node) {
-        for (ActionableResource entity : entities) {
-            followLink(entity, node);
-        }
+        List<ActionableResource> nextStepEntities = fetchData(getMembers(entities, node), node);
         node.setFollowed(true);
+        for (LinksTreeNode child : node.getChildren()) {
+            followLinks(nextStepEntities, child);
+        }
     }
 
     /**
-     * For the provided business entity (whether single (e.g: Nic) or collection (e.g: Nics) type,
-     * follow all links in the provided links-tree, recursively.
+     * Returns the single entities of the provided business entities, the members of collection-type entities
+     * (e.g: Nics) replace the collection.
      */
-    private void followLink(ActionableResource entity, LinksTreeNode node) {
-        List<ActionableResource> nextStepEntities = new LinkedList<>();
-        if (EntityHelper.isCollection(entity)) {
-            nextStepEntities.addAll(fetchData((BaseResources)entity, node));
-        } else {
-            nextStepEntities.add(fetchData((BaseResource)entity, node));
-        }
-        for (LinksTreeNode child : node.getChildren()) {
-            followLinks(nextStepEntities, child);
+    @SuppressWarnings("unchecked")
+    private List<BaseResource> getMembers(List<ActionableResource> entities, LinksTreeNode node) {
+        List<BaseResource> members = new ArrayList<>();
+        for (ActionableResource entity : entities) {
+            if (entity == null) {
+                continue;
+            }
+            if (EntityHelper.isCollection(entity)) {
+                Method collectionGetter = EntityHelper.getCollectionGetter((BaseResources) entity);
+                try {
+                    //get the actual list of entities in the collection-type, e.g for Nics get List<Nic>
+                    //(by invoking nics.getNics() using reflection)
+                    members.addAll((List<BaseResource>) collectionGetter.invoke(entity));
+                } catch (Exception e) {
+                    throw new IllegalStateException("Problem following '" + node.getElement() + "' link in " + entity.getClass().getSimpleName() + " entity.", e);
+                }
+            } else {
+                members.add((BaseResource) entity);
+            }
         }
+        return members;
     }
 
     /**
-     * For the provided collection-type entity (e.g: Nics), follow the link represented by the
+     * For the provided single-entities (e.g: Nic), follow the link represented by the
      * provided node. Do not follow child-links of this node.
      *
-     * For example, for a Nics object:
-     *
-     *   nics [nic1, nic2]
-     *
-     * and the tree:
+     * For example, for Nic objects and the tree:
      *
      *   vnicprofiles
      *        networkfilter
      *        qos
      *
-     * This method fetches all vnicprofiles of nic1, nic2, and sets them in these Nic objects.
-     * The method will return the fetched vnic-profile objects. The child links networkfilter, qos
-     * are purposely ignored.
+     * This method fetches all vnicprofiles of these nic objects and sets them in them. The method
+     * then returns the fetched vnic-profiles. The child links networkfilter, qos are purposely ignored.
+     *
+     * Entities that share the same link (e.g: nics of the same vnic-profile) get the same fetched object,
+     * which is returned only once.
      */
-    @SuppressWarnings("unchecked")
-    private List<ActionableResource> fetchData(BaseResources collectionEntity, LinksTreeNode node) {
-        List<ActionableResource> results = new LinkedList<>();
-        Method collectionGetter = EntityHelper.getCollectionGetter(collectionEntity);
-        try {
-            //get the actual list of entities in the collection-type, e.g for Nics get List<Nic>
-            //(by invoking nics.getNics() using reflection)
-            List<BaseResource> entities = (List<BaseResource>)collectionGetter.invoke(collectionEntity);
-            //for each entity in the list, fetch link data.
+    private List<ActionableResource> fetchData(List<BaseResource> entities, LinksTreeNode link) {
+        List<ActionableResource> results = new ArrayList<>();
+        String element = underscoreToCamelCase(link.getElement());
+        if (link.isFollowed()) {
             for (BaseResource entity : entities) {
-                results.add(fetchData(entity, node));
+                try {
+                    Method getter = ReflectionHelper.getGetter(entity, element);
+                    results.add((ActionableResource) getter.invoke(entity));
+                } catch (Exception e) {
+                    throw new IllegalStateException("Problem fetching '" + link.getElement() +
+                            "' from " + entity.getClass().getSimpleName(), e);
+                }
             }
-        } catch (Exception e) {
-            throw new IllegalStateException("Problem following '" + node.getElement() + "' link in " + collectionEntity.getClass().getSimpleName() + " entity.", e);
+            return results;
+        }
+
+        Map<String, List<BaseResource>> entitiesByHref = new LinkedHashMap<>();
+        for (BaseResource entity : entities) {
+            try {
+                String href = getHref(entity, link.getElement());
+                entitiesByHref.computeIfAbsent(href, k -> new ArrayList<>()).add(entity);
+            } catch (Exception e) {
+                throw new IllegalStateException("Problem fetching '" + link.getElement() +
+                        "' from " + entity.getClass().getSimpleName(), e);
+            }
+        }
+
+        Map<String, ActionableResource> fetched = fetchAll(entitiesByHref.keySet());
+        for (Map.Entry<String, List<BaseResource>> hrefEntities : entitiesByHref.entrySet()) {
+            ActionableResource result = fetched.get(hrefEntities.getKey());
+            for (BaseResource entity : hrefEntities.getValue()) {
+                try {
+                    Method setter = ReflectionHelper.getSetter(entity, element);
+                    setter.invoke(entity, result);
+                } catch (Exception e) {
+                    throw new IllegalStateException("Problem fetching '" + link.getElement() +
+                            "' from " + entity.getClass().getSimpleName(), e);
+                }
+            }
+            results.add(result);
         }
         return results;
     }
 
     /**
-     * For the provided single-entity type (e.g: Nic), follow the link represented by the
-     * provided node. Do not follow child-links of this node.
-     *
-     * For example, for a Nic object and the tree:
-     *
-     *   vnicprofiles
-     *        networkfilter
-     *        qos
-     *
-     * This method fetches all vnicprofiles of this nic object and sets them in it. The method
-     * then returns the fetched vnic-profiles. The child links networkfilter, qos are purposely ignored.
+     * Fetches each of the provided hrefs once. Sub-collection links of several members of the same collection
+     * (e.g: .../vms/{id}/nics) are fetched at once when the collection resource is a {@link LinkBatchFetcher}.
      */
-    private ActionableResource fetchData(BaseResource entity, LinksTreeNode link) {
-        try {
-            String element = underscoreToCamelCase(link.getElement());
-            if (link.isFollowed()) {
-                Method getter = ReflectionHelper.getGetter(entity, element);
-                return (ActionableResource)getter.invoke(entity);
-            } else {
-                String href = getHref((BaseResource)entity, link.getElement());
-                ActionableResource result = fetch(href);
-                Method setter = ReflectionHelper.getSetter(entity, element);
-                setter.invoke(entity, result);
-                return result;
+    private Map<String, ActionableResource> fetchAll(Collection<String> hrefs) {
+        Map<List<String>, Map<String, String>> subCollectionLinks = new HashMap<>();
+        for (String href : hrefs) {
+            int relStart = href.lastIndexOf('/');
+            int idStart = relStart > 0 ? href.lastIndexOf('/', relStart - 1) : -1;
+            if (idStart > 0) {
+                //group by the href of the collection and the rel, keep the hrefs by the ids of the members
+                List<String> collectionAndRel = Arrays.asList(href.substring(0, idStart), href.substring(relStart + 1));
+                subCollectionLinks.computeIfAbsent(collectionAndRel, k -> new HashMap<>())
+                        .put(href.substring(idStart + 1, relStart), href);
+            }
+        }
+
+        Map<String, ActionableResource> results = new HashMap<>();
+        for (Map.Entry<List<String>, Map<String, String>> links : subCollectionLinks.entrySet()) {
+            Map<String, String> hrefsById = links.getValue();
+            if (hrefsById.size() < 2) {
+                continue;
+            }
+            LinkBatchFetcher batchFetcher = locateBatchFetcher(links.getKey().get(0));
+            if (batchFetcher == null) {
+                continue;
+            }
+            Map<String, ActionableResource> fetchedById =
+                    batchFetcher.fetchLinks(links.getKey().get(1), new ArrayList<>(hrefsById.keySet()));
+            if (fetchedById != null) {
+                fetchedById.forEach((id, result) -> results.put(hrefsById.get(id), result));
+            }
+        }
+
+        for (String href : hrefs) {
+            if (!results.containsKey(href)) {
+                results.put(href, fetch(href));
             }
-        } catch (Exception e) {
-            throw new IllegalStateException("Problem fetching '" + link.getElement() +
-                    "' from " + entity.getClass().getSimpleName(), e);
         }
+        return results;
     }
 
     private String underscoreToCamelCase(String element) {
@@ -267,6 +319,20 @@ public class LinkFollower {
         return null;
     }
 
+    /**
+     * Returns the resource of the provided href if it can fetch sub-collections of its members at once, null
+     * otherwise. This scope of this method is 'protected' for testing purposes.
+     */
+    protected LinkBatchFetcher locateBatchFetcher(String href) {
+        try {
+            BaseBackendResource resource = resourceLocator.locateResource(href);
+            return resource instanceof LinkBatchFetcher ? (LinkBatchFetcher) resource : null;
+        } catch (Exception e) {
+            //not the href of a collection, the links are followed separately
+            return null;
+        }
+    }
+
     /**
      * The value of 'rel' inside the Link object is a string of lowercase letters with no spaces,
      * e.g: diskattachments. This method converts a string into this format.
@@ -27,6 +27,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
+import org.ovirt.engine.api.model.ActionableResource;
 import org.ovirt.engine.api.model.Configuration;
 import org.ovirt.engine.api.model.CreationStatus;
 import org.ovirt.engine.api.model.Disk;
@@ -63,6 +64,7 @@ import org.ovirt.engine.core.common.businessentities.VmPayload;
 import org.ovirt.engine.core.common.businessentities.VmStatistics;
 import org.ovirt.engine.core.common.businessentities.VmType;
 import org.ovirt.engine.core.common.businessentities.storage.DiskImage;
+import org.ovirt.engine.core.common.businessentities.storage.DiskVmElement;
 import org.ovirt.engine.core.common.config.ConfigValues;
 import org.ovirt.engine.core.common.interfaces.SearchType;
 import org.ovirt.engine.core.common.osinfo.OsRepository;
@@ -1165,6 +1167,33 @@ public class BackendVmsResourceTest
         verifyCollection(getCollection());
     }
 
+    @Test
+    public void testFetchDiskAttachmentsOfVms() {
+        collection.setUriInfo(setUpBasicUriExpectations());
+        Map<Guid, List<DiskVmElement>> diskVmElementsByVm = new HashMap<>();
+        diskVmElementsByVm.put(GUIDS[0], Collections.singletonList(new DiskVmElement(GUIDS[2], GUIDS[0])));
+        setUpGetEntityExpectations(QueryType.GetDiskVmElementsByVmIds,
+                IdsQueryParameters.class,
+                new String[] { "Ids" },
+                new Object[] { Arrays.asList(GUIDS[0], GUIDS[1]) },
+                diskVmElementsByVm);
+
+        Map<String, ActionableResource> attachmentsByVm =
+                collection.fetchLinks("diskattachments", Arrays.asList(GUIDS[0].toString(), GUIDS[1].toString()));
+
+        assertEquals(2, attachmentsByVm.size());
+        List<DiskAttachment> attachments =
+                ((DiskAttachments) attachmentsByVm.get(GUIDS[0].toString())).getDiskAttachments();
+        assertEquals(1, attachments.size());
+        assertEquals(GUIDS[2].toString(), attachments.get(0).getId());
+        assertTrue(((DiskAttachments) attachmentsByVm.get(GUIDS[1].toString())).getDiskAttachments().isEmpty());
+    }
+
+    @Test
+    public void testFetchLinksOfVmsNotBatched() {
+        assertNull(collection.fetchLinks("permissions", Arrays.asList(GUIDS[0].toString(), GUIDS[1].toString())));
+    }
+
     @Test
     public void testListAllContentIsConsolePopulated() throws Exception {
         setUpGetCaRootExpectations();
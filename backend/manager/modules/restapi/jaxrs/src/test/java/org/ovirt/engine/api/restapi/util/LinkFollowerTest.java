@@ -3,8 +3,14 @@ package org.ovirt.engine.api.restapi.util;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -18,15 +24,21 @@ import org.ovirt.engine.api.model.Link;
 import org.ovirt.engine.api.model.Nic;
 import org.ovirt.engine.api.model.Nics;
 import org.ovirt.engine.api.model.Vm;
+import org.ovirt.engine.api.model.Vms;
 import org.ovirt.engine.api.restapi.resource.BackendVmNicsResource;
 import org.ovirt.engine.api.restapi.resource.ResourceLocator;
+import org.ovirt.engine.api.restapi.resource.utils.LinkBatchFetcher;
 import org.ovirt.engine.api.restapi.resource.utils.LinkFollower;
 import org.ovirt.engine.api.restapi.resource.utils.LinksTreeNode;
 
 @ExtendWith(MockitoExtension.class)
 public class LinkFollowerTest {
 
+    private static final String VMS_HREF = "/ovirt-engine/api/vms";
+
     private LinkFollower linkFollower;
+    private List<String> fetchedHrefs = new ArrayList<>();
+    private List<List<String>> batchFetchedIds = new ArrayList<>();
 
     @Mock
     private ResourceLocator resourceLocator;
@@ -38,6 +50,7 @@ public class LinkFollowerTest {
         linkFollower = new LinkFollower(resourceLocator) {
             //override fetch() since it requires a real environment and would crash tests.
             protected ActionableResource fetch(String href) {
+                fetchedHrefs.add(href);
                 if (href.equals("/ovirt-engine/api/vms/63978315-2d17-4e67-b393-2ea60a8aeacb/nics")){
                     return createNics();
                 } else if (href.equals("/ovirt-engine/api/vms/63978315-2d17-4e67-b393-2ea60a8aeacb/diskattachments")) {
@@ -53,6 +66,18 @@ public class LinkFollowerTest {
                 }
             }
 
+            protected LinkBatchFetcher locateBatchFetcher(String href) {
+                if (!href.equals(VMS_HREF)) {
+                    return null;
+                }
+                return (rel, ids) -> {
+                    if (!rel.equals("nics")) {
+                        return null;
+                    }
+                    batchFetchedIds.add(ids);
+                    return ids.stream().collect(Collectors.toMap(id -> id, id -> createNics()));
+                };
+            }
 
         };
     }
@@ -75,15 +100,67 @@ public class LinkFollowerTest {
         assertNotNull(vm.getDiskAttachments().getDiskAttachments().get(2).getDisk());
     }
 
+    @Test
+    public void testFollowLinksOfCollection() {
+        LinksTreeNode linksTree = linkFollower.createLinksTree(Vms.class, "nics,disk_attachments.disk");
+        Vms vms = new Vms();
+        vms.getVms().add(createVm());
+        vms.getVms().add(createVm("2d8a5a3e-1a5c-4e5b-9d34-4b1c8e5d6f70"));
+        vms.getVms().add(createVm("0e4c1f2b-3a6d-4b8e-8f1a-7c2d9e0b5a41"));
+        linkFollower.followLinks(vms, linksTree);
+
+        for (Vm vm : vms.getVms()) {
+            assertEquals(2, vm.getNics().getNics().size());
+        }
+        //the nics of all the vms are fetched at once
+        assertEquals(1, batchFetchedIds.size());
+        assertEquals(3, batchFetchedIds.get(0).size());
+        assertFalse(fetchedHrefs.stream().anyMatch(href -> href.endsWith("/nics")));
+
+        //only the first vm has disk attachments, each disk is fetched once
+        assertEquals(3, vms.getVms().get(0).getDiskAttachments().getDiskAttachments().size());
+        for (DiskAttachment diskAttachment : vms.getVms().get(0).getDiskAttachments().getDiskAttachments()) {
+            assertNotNull(diskAttachment.getDisk());
+        }
+        assertEquals(1, fetchedHrefs.stream().filter(href -> href.equals("/ovirt-engine/api/disks/aaa")).count());
+    }
+
+    @Test
+    public void testFollowSharedLink() {
+        LinksTreeNode linksTree = linkFollower.createLinksTree(Vm.class, "disk_attachments.disk");
+        Vm vm = createVm();
+        linkFollower.followLinks(vm, linksTree);
+        fetchedHrefs.clear();
+
+        DiskAttachments diskAttachments = vm.getDiskAttachments();
+        Disk disk = new Disk();
+        disk.setHref("/ovirt-engine/api/disks/aaa");
+        diskAttachments.getDiskAttachments().forEach(diskAttachment -> diskAttachment.setDisk(disk));
+        LinksTreeNode disksTree = linkFollower.createLinksTree(DiskAttachments.class, "disk");
+        linkFollower.followLinks(diskAttachments, disksTree);
+
+        assertEquals(Collections.singletonList("/ovirt-engine/api/disks/aaa"), fetchedHrefs);
+        Disk fetchedDisk = diskAttachments.getDiskAttachments().get(0).getDisk();
+        assertNotNull(fetchedDisk);
+        for (DiskAttachment diskAttachment : diskAttachments.getDiskAttachments()) {
+            assertSame(fetchedDisk, diskAttachment.getDisk());
+        }
+    }
+
     private Vm createVm() {
+        return createVm("63978315-2d17-4e67-b393-2ea60a8aeacb");
+    }
+
+    private Vm createVm(String id) {
         Vm vm = new Vm();
+        vm.setId(id);
         //add an irrelevant link
         Link disksLink = new Link();
-        disksLink.setHref("/ovirt-engine/api/vms/63978315-2d17-4e67-b393-2ea60a8aeacb/diskattachments");
+        disksLink.setHref(VMS_HREF + "/" + id + "/diskattachments");
         disksLink.setRel("diskattachments");
         vm.getLinks().add(disksLink);
         Link nicsLink = new Link();
-        nicsLink.setHref("/ovirt-engine/api/vms/63978315-2d17-4e67-b393-2ea60a8aeacb/nics");
+        nicsLink.setHref(VMS_HREF + "/" + id + "/nics");
         nicsLink.setRel("nics");
         vm.getLinks().add(nicsLink);
         return vm;
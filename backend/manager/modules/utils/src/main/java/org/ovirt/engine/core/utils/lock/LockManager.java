@@ -1,5 +1,8 @@
 package org.ovirt.engine.core.utils.lock;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
 
 import org.ovirt.engine.core.common.locks.LockInfo;
@@ -47,6 +50,22 @@ public interface LockManager {
      */
     LockInfo getLockInfo(String key);
 
+    /**
+     * Query for the locks of several keys at once
+     * @param keys - keys that the locks are mapped to
+     * @return locks by the given keys, keys without a lock are missing
+     */
+    default Map<String, LockInfo> getLockInfos(Collection<String> keys) {
+        Map<String, LockInfo> lockInfos = new HashMap<>();
+        for (String key : keys) {
+            LockInfo lockInfo = getLockInfo(key);
+            if (lockInfo != null) {
+                lockInfos.put(key, lockInfo);
+            }
+        }
+        return lockInfos;
+    }
+
     /**
      * <pre>
      * Query whether an exclusive lock is present in the {@link LockManager}.
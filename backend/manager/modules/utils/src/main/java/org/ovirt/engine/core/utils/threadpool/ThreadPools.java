@@ -15,6 +15,11 @@ public @interface ThreadPools {
     enum ThreadPoolType {
         CoCo,
         HostUpdatesChecker,
+        GlusterSync,
+        VmsMonitoring,
+        SchedulingUnits,
+        VmStatusEvents,
+        HostStatistics,
         EngineScheduledThreadPool,
         EngineThreadMonitoringThreadPool}
 
@@ -48,7 +48,6 @@ import org.ovirt.engine.core.compat.Version;
 import org.ovirt.engine.core.dal.dbbroker.auditloghandling.AuditLogDirector;
 import org.ovirt.engine.core.dal.dbbroker.auditloghandling.AuditLogable;
 import org.ovirt.engine.core.dal.dbbroker.auditloghandling.AuditLogableImpl;
-import org.ovirt.engine.core.dao.ClusterDao;
 import org.ovirt.engine.core.dao.SupportedHostFeatureDao;
 import org.ovirt.engine.core.dao.VdsDao;
 import org.ovirt.engine.core.dao.VdsDynamicDao;
@@ -56,7 +55,6 @@ import org.ovirt.engine.core.dao.VdsNumaNodeDao;
 import org.ovirt.engine.core.dao.VdsStatisticsDao;
 import org.ovirt.engine.core.dao.VmDynamicDao;
 import org.ovirt.engine.core.dao.network.InterfaceDao;
-import org.ovirt.engine.core.dao.network.NetworkDao;
 import org.ovirt.engine.core.di.Injector;
 import org.ovirt.engine.core.utils.crypt.EngineEncryptionUtils;
 import org.ovirt.engine.core.utils.lock.EngineLock;
@@ -67,6 +65,8 @@ import org.ovirt.engine.core.vdsbroker.irsbroker.IRSErrorException;
 import org.ovirt.engine.core.vdsbroker.irsbroker.IrsProxy;
 import org.ovirt.engine.core.vdsbroker.irsbroker.IrsProxyManager;
 import org.ovirt.engine.core.vdsbroker.monitoring.HostMonitoring;
+import org.ovirt.engine.core.vdsbroker.monitoring.HostMonitoringCache;
+import org.ovirt.engine.core.vdsbroker.monitoring.HostStatisticsWriter;
 import org.ovirt.engine.core.vdsbroker.monitoring.MonitoringStrategy;
 import org.ovirt.engine.core.vdsbroker.monitoring.MonitoringStrategyFactory;
 import org.ovirt.engine.core.vdsbroker.monitoring.RefresherFactory;
@@ -103,9 +103,6 @@ public class VdsManager {
     @Inject
     private VdsDao vdsDao;
 
-    @Inject
-    private ClusterDao clusterDao;
-
     @Inject
     private VdsDynamicDao vdsDynamicDao;
 
@@ -125,7 +122,10 @@ public class VdsManager {
     private InterfaceDao interfaceDao;
 
     @Inject
-    private NetworkDao networkDao;
+    private HostMonitoringCache hostMonitoringCache;
+
+    @Inject
+    private HostStatisticsWriter hostStatisticsWriter;
 
     @Inject
     private HostNetworkTopologyPersister hostNetworkTopologyPersister;
@@ -280,11 +280,10 @@ public class VdsManager {
                                             cachedVds,
                                             monitoringStrategy,
                                             resourceManager,
-                                            clusterDao,
                                             vdsDynamicDao,
                                             interfaceDao,
-                                            vdsNumaNodeDao,
-                                            networkDao,
+                                            hostMonitoringCache,
+                                            hostStatisticsWriter,
                                             auditLogDirector);
                             hostMonitoring.refresh();
                         }
@@ -499,6 +498,7 @@ public class VdsManager {
      * Save statistics data to cache and DB.
      */
     public void updateStatisticsData(VdsStatistics statisticsData) {
+        hostStatisticsWriter.discard(statisticsData.getId());
         vdsStatisticsDao.update(statisticsData);
         cachedVds.setStatisticsData(statisticsData);
     }
@@ -569,6 +569,7 @@ public class VdsManager {
                     }
                     return null;
                 });
+        hostMonitoringCache.invalidateNumaNodeIds(vds.getId());
     }
 
     public void refreshHost(VDS vds) {
@@ -12,11 +12,14 @@ import org.ovirt.engine.core.common.businessentities.ArchitectureType;
 import org.ovirt.engine.core.common.businessentities.Cluster;
 import org.ovirt.engine.core.common.businessentities.OriginType;
 import org.ovirt.engine.core.common.businessentities.VM;
+import org.ovirt.engine.core.common.businessentities.VMStatus;
 import org.ovirt.engine.core.common.businessentities.VmDevice;
 import org.ovirt.engine.core.common.businessentities.VmDynamic;
 import org.ovirt.engine.core.common.businessentities.VmStatic;
 import org.ovirt.engine.core.common.businessentities.VmStatistics;
 import org.ovirt.engine.core.common.businessentities.network.VmNetworkStatistics;
+import org.ovirt.engine.core.common.config.Config;
+import org.ovirt.engine.core.common.config.ConfigValues;
 import org.ovirt.engine.core.common.scheduling.VmOverheadCalculator;
 import org.ovirt.engine.core.compat.Guid;
 import org.ovirt.engine.core.compat.Version;
@@ -27,6 +30,7 @@ import org.ovirt.engine.core.dao.VmStaticDao;
 import org.ovirt.engine.core.dao.VmStatisticsDao;
 import org.ovirt.engine.core.dao.network.VmNetworkStatisticsDao;
 import org.ovirt.engine.core.vdsbroker.monitoring.VdsmVm;
+import org.ovirt.engine.core.vdsbroker.monitoring.VmStatisticsFingerprint;
 
 public class VmManager {
 
@@ -55,6 +59,13 @@ public class VmManager {
     private Double lastStatusEventTimestamp;
     private Guid lastStatusEventReporterId;
     private VmStatistics statistics;
+    /**
+     * the fingerprint and the status of the statistics that were last saved and the number of saves skipped since
+     * then
+     */
+    private VmStatisticsFingerprint savedStatisticsFingerprint;
+    private VMStatus savedStatisticsStatus;
+    private int skippedStatisticsSaves;
 
     private boolean coldReboot;
 
@@ -244,6 +255,54 @@ public class VmManager {
         this.statistics = statistics;
     }
 
+    /**
+     * Check whether the given statistics moved past the configured threshold since they were last saved.
+     * Statistics that did not change are still saved once every <code>VmStatisticsMaxSkippedSaves</code> cycles
+     * so the elapsed time and the usage history that are not part of the fingerprint are eventually persisted.
+     * Statistics reported with a status other than the one of the saved statistics are always saved.
+     * this should be called while holding the manager lock
+     *
+     * @return true if saving the statistics can be skipped, false if they should be saved
+     */
+    public boolean isStatisticsUnchanged(VmStatisticsFingerprint fingerprint, VMStatus status) {
+        if (status != savedStatisticsStatus) {
+            resetStatisticsFingerprint();
+            return false;
+        }
+
+        int maxSkippedSaves = Config.<Integer> getValue(ConfigValues.VmStatisticsMaxSkippedSaves);
+        if (savedStatisticsFingerprint != null
+                && skippedStatisticsSaves < maxSkippedSaves
+                && !fingerprint.differsFrom(savedStatisticsFingerprint,
+                        Config.<Integer> getValue(ConfigValues.VmStatisticsChangeThresholdPercent))) {
+            skippedStatisticsSaves++;
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Keep the fingerprint of statistics that were saved, called once they are flushed to the database so
+     * statistics that failed to be saved are compared against the ones in the database.
+     * this should be called while holding the manager lock
+     */
+    public void statisticsSaved(VmStatisticsFingerprint fingerprint, VMStatus status) {
+        savedStatisticsFingerprint = fingerprint;
+        savedStatisticsStatus = status;
+        skippedStatisticsSaves = 0;
+    }
+
+    /**
+     * Forget the fingerprint of the saved statistics, the next statistics are saved.
+     * this should be called while holding the manager lock
+     */
+    public void resetStatisticsFingerprint() {
+        savedStatisticsFingerprint = null;
+        savedStatisticsStatus = null;
+        skippedStatisticsSaves = 0;
+    }
+
     public String getName() {
         return name;
     }
@@ -1,18 +1,24 @@
 package org.ovirt.engine.core.vdsbroker.monitoring;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
+import javax.enterprise.concurrent.ManagedScheduledExecutorService;
 import javax.inject.Inject;
 
 import org.apache.commons.lang.exception.ExceptionUtils;
 import org.ovirt.engine.core.common.businessentities.VmDynamic;
+import org.ovirt.engine.core.common.config.Config;
+import org.ovirt.engine.core.common.config.ConfigValues;
 import org.ovirt.engine.core.common.utils.Pair;
 import org.ovirt.engine.core.compat.Guid;
 import org.ovirt.engine.core.dao.VmDynamicDao;
 import org.ovirt.engine.core.di.Injector;
 import org.ovirt.engine.core.utils.ObjectDescriptor;
+import org.ovirt.engine.core.utils.threadpool.ThreadPools;
 import org.ovirt.engine.core.vdsbroker.ResourceManager;
 import org.ovirt.engine.core.vdsbroker.VdsManager;
 import org.ovirt.engine.core.vdsbroker.vdsbroker.VdsBrokerObjectsBuilder;
@@ -21,16 +27,41 @@ import org.reactivestreams.Subscription;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Monitors the VMs of a host by the VM status events of the host. The events received within
+ * {@link ConfigValues#VmStatusEventsCoalescingWindowInMillis} are merged per VM, the newest data of a VM winning, and
+ * are monitored in a single pass. The passes run in the VM status events thread pool, unless the events aren't
+ * coalesced, in which case each event is monitored on the thread it is received on. The rate of the events and the
+ * time they wait to be monitored are exposed by the {@link VmStatusEventsMonitor}.
+ */
 public class EventVmStatsRefresher extends VmStatsRefresher {
 
     private static final Logger log = LoggerFactory.getLogger(EventVmStatsRefresher.class);
+    /**
+     * The number of events that may be in flight when events are coalesced.
+     */
+    private static final int EVENTS_BATCH_SIZE = 100;
+
     private Subscription subscription;
     @Inject
     private VmDynamicDao vmDynamicDao;
     @Inject
     private VdsBrokerObjectsBuilder vdsBrokerObjectsBuilder;
+    @Inject
+    @ThreadPools(ThreadPools.ThreadPoolType.VmStatusEvents)
+    private ManagedScheduledExecutorService schedulerService;
+    @Inject
+    private VmStatusEventsMonitor vmStatusEventsMonitor;
     private final ResourceManager resourceManager;
     private final PollVmStatsRefresher allVmStatsOnlyRefresher;
+    private final long coalescingWindow;
+
+    private final Object pendingLock = new Object();
+    private Map<Guid, VmStatusEvent> pendingVms = new HashMap<>();
+    private int pendingEvents;
+    private long firstPendingEventTime;
+    private boolean processingScheduled;
+    private long lastProcessingTime = System.nanoTime();
 
     @SuppressWarnings("deprecation")
     public EventVmStatsRefresher(VdsManager manager, ResourceManager resourceManager) {
@@ -38,6 +69,7 @@ public class EventVmStatsRefresher extends VmStatsRefresher {
         // we still want to fetch GetAllVmStats as we did before
         allVmStatsOnlyRefresher = Injector.injectMembers(new PollVmStatsRefresher(vdsManager));
         this.resourceManager = resourceManager;
+        coalescingWindow = Config.<Integer> getValue(ConfigValues.VmStatusEventsCoalescingWindowInMillis);
     }
 
     @Override
@@ -49,23 +81,18 @@ public class EventVmStatsRefresher extends VmStatsRefresher {
             @Override
             public void onSubscribe(Subscription sub) {
                 subscription = sub;
-                subscription.request(1);
+                subscription.request(coalescingWindow > 0 ? EVENTS_BATCH_SIZE : 1);
             }
 
             @Override
             public void onNext(Map<String, Object> map) {
+                long receiveTime = System.nanoTime();
                 try {
-                    long fetchTime = System.nanoTime();
                     printEventInDebug(map);
-                    List<Pair<VmDynamic, VdsmVm>> vms = convertEvent(map);
-                    if (!vms.isEmpty()) {
-                        getVmsMonitoring().perform(vms, fetchTime, vdsManager, false);
-                        processDevices(vms.stream().map(Pair::getSecond), fetchTime);
-                    }
+                    addEvent(map, receiveTime);
                 } catch (Throwable t) {
                     log.error("Error processing VM stats monitoring event: {}", ExceptionUtils.getRootCauseMessage(t));
                     log.debug("Exception", t);
-                } finally {
                     subscription.request(1);
                 }
             }
@@ -80,40 +107,6 @@ public class EventVmStatsRefresher extends VmStatsRefresher {
                 log.debug("processing event for host {} data:\n{}", vdsManager.getVdsName(), sb);
             }
 
-            @SuppressWarnings("unchecked")
-            private List<Pair<VmDynamic, VdsmVm>> convertEvent(Map<String, Object> map) {
-                Double notifyTime = vdsBrokerObjectsBuilder.removeNotifyTimeFromVmStatusEvent(map);
-                return map.entrySet().stream()
-                        .map(idToMap -> toMonitoredVm(
-                                new Guid(idToMap.getKey()),
-                                (Map<String, Object>) idToMap.getValue(),
-                                notifyTime))
-                        .collect(Collectors.toList());
-            }
-
-            private Pair<VmDynamic, VdsmVm> toMonitoredVm(Guid vmId, Map<String, Object> vmMap, Double notifyTime) {
-                VmDynamic dbVm = vmDynamicDao.get(vmId);
-                VdsmVm vdsmVm = dbVm == null ?
-                        createVdsmVm(vmId, vmMap, notifyTime)
-                        : createVdsmVm(dbVm, vmMap, notifyTime);
-                return new Pair<>(dbVm, vdsmVm);
-            }
-
-            private VdsmVm createVdsmVm(Guid vmId, Map<String, Object> struct, Double notifyTime) {
-                VmDynamic fakeVm = new VmDynamic();
-                fakeVm.setId(vmId);
-                return createVdsmVm(fakeVm, struct, notifyTime);
-            }
-
-            private VdsmVm createVdsmVm(VmDynamic dbVmDynamic, Map<String, Object> struct, Double notifyTime) {
-                // send a clone of vm dynamic to be overridden with new data
-                VmDynamic clonedVmDynamic = new VmDynamic(dbVmDynamic);
-                vdsBrokerObjectsBuilder.updateVMDynamicData(clonedVmDynamic, struct, vdsManager.getCopyVds());
-                return new VdsmVm(notifyTime)
-                        .setVmDynamic(clonedVmDynamic)
-                        .setDevicesHash(vdsBrokerObjectsBuilder.getVmDevicesHash(struct));
-            }
-
             @Override
             public void onError(Throwable t) {
                 // communication issue is delivered as a message so we need to request for more
@@ -130,6 +123,133 @@ public class EventVmStatsRefresher extends VmStatsRefresher {
     public void stopMonitoring() {
         allVmStatsOnlyRefresher.stopMonitoring();
         subscription.cancel();
+        vmStatusEventsMonitor.hostRemoved(vdsManager.getVdsName());
     }
 
+    @SuppressWarnings("unchecked")
+    private void addEvent(Map<String, Object> map, long receiveTime) {
+        Double notifyTime = vdsBrokerObjectsBuilder.removeNotifyTimeFromVmStatusEvent(map);
+        Map<Guid, VmStatusEvent> vms = map.entrySet().stream()
+                .collect(Collectors.toMap(
+                        idToMap -> new Guid(idToMap.getKey()),
+                        idToMap -> new VmStatusEvent((Map<String, Object>) idToMap.getValue(), notifyTime)));
+
+        boolean scheduleProcessing;
+        synchronized (pendingLock) {
+            if (pendingEvents++ == 0) {
+                firstPendingEventTime = receiveTime;
+            }
+            vms.forEach((vmId, event) -> pendingVms.merge(vmId, event, VmStatusEvent::merge));
+            scheduleProcessing = !processingScheduled;
+            processingScheduled = true;
+        }
+
+        if (scheduleProcessing) {
+            if (coalescingWindow > 0) {
+                schedulerService.schedule(this::processEvents, coalescingWindow, TimeUnit.MILLISECONDS);
+            } else {
+                processEvents();
+            }
+        }
+    }
+
+    private void processEvents() {
+        Map<Guid, VmStatusEvent> vms;
+        int events;
+        long fetchTime;
+        synchronized (pendingLock) {
+            vms = pendingVms;
+            events = pendingEvents;
+            // the data of a vm is considered as fetched when the first event of the pass was received
+            fetchTime = firstPendingEventTime;
+            pendingVms = new HashMap<>();
+            pendingEvents = 0;
+        }
+
+        long startTime = System.nanoTime();
+        try {
+            List<Pair<VmDynamic, VdsmVm>> monitoredVms = vms.entrySet().stream()
+                    .map(idToEvent -> toMonitoredVm(idToEvent.getKey(), idToEvent.getValue()))
+                    .collect(Collectors.toList());
+            if (!monitoredVms.isEmpty()) {
+                getVmsMonitoring().perform(monitoredVms, fetchTime, vdsManager, false);
+                processDevices(monitoredVms.stream().map(Pair::getSecond), fetchTime);
+            }
+        } catch (Throwable t) {
+            log.error("Error processing VM stats monitoring events: {}", ExceptionUtils.getRootCauseMessage(t));
+            log.debug("Exception", t);
+        } finally {
+            recordProcessedEvents(events, vms.size(), fetchTime, startTime);
+            boolean scheduleProcessing;
+            synchronized (pendingLock) {
+                scheduleProcessing = pendingEvents > 0;
+                processingScheduled = scheduleProcessing;
+            }
+            subscription.request(events);
+            if (scheduleProcessing) {
+                schedulerService.schedule(this::processEvents, coalescingWindow, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private void recordProcessedEvents(int events, int vms, long firstEventTime, long startTime) {
+        long elapsedSinceLastProcessing = Math.max(startTime - lastProcessingTime, 1);
+        lastProcessingTime = startTime;
+        long eventsPerSecond = events * TimeUnit.SECONDS.toNanos(1) / elapsedSinceLastProcessing;
+        long lag = TimeUnit.NANOSECONDS.toMillis(startTime - firstEventTime);
+        vmStatusEventsMonitor.passProcessed(vdsManager.getVdsName(), events, vms, eventsPerSecond, lag);
+
+        log.debug("Processed {} VM status events of {} VMs for host '{}' in {} ms, {} events/sec, lag {} ms",
+                events,
+                vms,
+                vdsManager.getVdsName(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime),
+                eventsPerSecond,
+                lag);
+    }
+
+    private Pair<VmDynamic, VdsmVm> toMonitoredVm(Guid vmId, VmStatusEvent event) {
+        VmDynamic dbVm = vmDynamicDao.get(vmId);
+        VdsmVm vdsmVm = dbVm == null ?
+                createVdsmVm(vmId, event.struct, event.notifyTime)
+                : createVdsmVm(dbVm, event.struct, event.notifyTime);
+        return new Pair<>(dbVm, vdsmVm);
+    }
+
+    private VdsmVm createVdsmVm(Guid vmId, Map<String, Object> struct, Double notifyTime) {
+        VmDynamic fakeVm = new VmDynamic();
+        fakeVm.setId(vmId);
+        return createVdsmVm(fakeVm, struct, notifyTime);
+    }
+
+    private VdsmVm createVdsmVm(VmDynamic dbVmDynamic, Map<String, Object> struct, Double notifyTime) {
+        // send a clone of vm dynamic to be overridden with new data
+        VmDynamic clonedVmDynamic = new VmDynamic(dbVmDynamic);
+        vdsBrokerObjectsBuilder.updateVMDynamicData(clonedVmDynamic, struct, vdsManager.getCopyVds());
+        return new VdsmVm(notifyTime)
+                .setVmDynamic(clonedVmDynamic)
+                .setDevicesHash(vdsBrokerObjectsBuilder.getVmDevicesHash(struct));
+    }
+
+    /**
+     * The data of a VM reported by one or more status events.
+     */
+    private static class VmStatusEvent {
+        private final Map<String, Object> struct;
+        private final Double notifyTime;
+
+        VmStatusEvent(Map<String, Object> struct, Double notifyTime) {
+            this.struct = struct;
+            this.notifyTime = notifyTime;
+        }
+
+        /**
+         * Merges the data of a newer event of the VM, the data of the newer event wins over the data of this event.
+         */
+        VmStatusEvent merge(VmStatusEvent newer) {
+            Map<String, Object> mergedStruct = new HashMap<>(struct);
+            mergedStruct.putAll(newer.struct);
+            return new VmStatusEvent(mergedStruct, newer.notifyTime);
+        }
+    }
 }
@@ -37,17 +37,12 @@ import org.ovirt.engine.core.common.vdscommands.VDSCommandType;
 import org.ovirt.engine.core.common.vdscommands.VDSReturnValue;
 import org.ovirt.engine.core.common.vdscommands.VdsIdAndVdsVDSCommandParametersBase;
 import org.ovirt.engine.core.compat.Guid;
-import org.ovirt.engine.core.compat.TransactionScopeOption;
 import org.ovirt.engine.core.dal.dbbroker.auditloghandling.AuditLogDirector;
 import org.ovirt.engine.core.dal.dbbroker.auditloghandling.AuditLogable;
 import org.ovirt.engine.core.dal.dbbroker.auditloghandling.AuditLogableImpl;
-import org.ovirt.engine.core.dao.ClusterDao;
 import org.ovirt.engine.core.dao.VdsDynamicDao;
-import org.ovirt.engine.core.dao.VdsNumaNodeDao;
 import org.ovirt.engine.core.dao.network.InterfaceDao;
-import org.ovirt.engine.core.dao.network.NetworkDao;
 import org.ovirt.engine.core.utils.NetworkUtils;
-import org.ovirt.engine.core.utils.transaction.TransactionSupport;
 import org.ovirt.engine.core.vdsbroker.ResourceManager;
 import org.ovirt.engine.core.vdsbroker.VdsManager;
 import org.ovirt.engine.core.vdsbroker.VmManager;
@@ -69,33 +64,30 @@ public class HostMonitoring {
     private Map<String, InterfaceStatus> oldInterfaceStatus = new HashMap<>();
     private final ResourceManager resourceManager;
     private final AuditLogDirector auditLogDirector;
-    private final ClusterDao clusterDao;
     private final VdsDynamicDao vdsDynamicDao;
     private final InterfaceDao interfaceDao;
-    private final VdsNumaNodeDao vdsNumaNodeDao;
-    private final NetworkDao networkDao;
+    private final HostMonitoringCache hostMonitoringCache;
+    private final HostStatisticsWriter hostStatisticsWriter;
     private static final Logger log = LoggerFactory.getLogger(HostMonitoring.class);
 
     public HostMonitoring(VdsManager vdsManager,
             VDS vds,
             MonitoringStrategy monitoringStrategy,
             ResourceManager resourceManager,
-            ClusterDao clusterDao,
             VdsDynamicDao vdsDynamicDao,
             InterfaceDao interfaceDao,
-            VdsNumaNodeDao vdsNumaNodeDao,
-            NetworkDao networkDao,
+            HostMonitoringCache hostMonitoringCache,
+            HostStatisticsWriter hostStatisticsWriter,
             AuditLogDirector auditLogDirector) {
         this.vdsManager = vdsManager;
         this.vds = vds;
         firstStatus = vds.getStatus();
         this.monitoringStrategy = monitoringStrategy;
         this.resourceManager = resourceManager;
-        this.clusterDao = clusterDao;
         this.vdsDynamicDao = vdsDynamicDao;
         this.interfaceDao = interfaceDao;
-        this.vdsNumaNodeDao = vdsNumaNodeDao;
-        this.networkDao = networkDao;
+        this.hostMonitoringCache = hostMonitoringCache;
+        this.hostStatisticsWriter = hostStatisticsWriter;
         this.auditLogDirector = auditLogDirector;
     }
 
@@ -264,8 +256,7 @@ public class HostMonitoring {
 
         if (saveVdsStatistics) {
             VdsStatistics stat = vds.getStatisticsData();
-            vdsManager.updateStatisticsData(stat);
-            checkVdsMemoryThreshold(clusterDao.get(vds.getClusterId()), stat);
+            checkVdsMemoryThreshold(hostMonitoringCache.getCluster(vds.getClusterId()), stat);
             checkVdsCpuThreshold(stat);
             checkVdsNetworkThreshold(stat);
             checkVdsSwapThreshold(stat);
@@ -274,39 +265,26 @@ public class HostMonitoring {
             for (VdsNetworkInterface iface : vds.getInterfaces()) {
                 statistics.add(iface.getStatistics());
             }
-            if (!statistics.isEmpty()) {
-                TransactionSupport.executeInScope(TransactionScopeOption.Required,
-                        () -> {
-                            interfaceDao.massUpdateStatisticsForVds(statistics);
-                            return null;
-                        });
-            }
-            saveNumaStatisticsDataToDb();
+            hostStatisticsWriter.write(stat, statistics, getNumaNodesStatistics());
         }
     }
 
-    private void saveNumaStatisticsDataToDb() {
+    private List<VdsNumaNode> getNumaNodesStatistics() {
         final List<VdsNumaNode> vdsNumaNodesToSave = new ArrayList<>();
         List<VdsNumaNode> updateNumaNodes = vds.getNumaNodeList();
         if (!updateNumaNodes.isEmpty()) {
-            List<VdsNumaNode> dbVdsNumaNodes = vdsNumaNodeDao.getAllVdsNumaNodeByVdsId(vds.getId());
-            Map<Integer, VdsNumaNode> nodesMap = new HashMap<>();
-            for (VdsNumaNode node : dbVdsNumaNodes) {
-                nodesMap.put(node.getIndex(), node);
-            }
+            Map<Integer, Guid> nodeIds = hostMonitoringCache.getNumaNodeIds(vds.getId());
             for (VdsNumaNode node : updateNumaNodes) {
-                VdsNumaNode dbNode = nodesMap.get(node.getIndex());
-                if (dbNode != null) {
-                    if (node.getNumaNodeStatistics() != null) {
-                        dbNode.setNumaNodeStatistics(node.getNumaNodeStatistics());
-                        vdsNumaNodesToSave.add(dbNode);
-                    }
+                Guid nodeId = nodeIds.get(node.getIndex());
+                if (nodeId != null && node.getNumaNodeStatistics() != null) {
+                    VdsNumaNode dbNode = new VdsNumaNode();
+                    dbNode.setId(nodeId);
+                    dbNode.setNumaNodeStatistics(node.getNumaNodeStatistics());
+                    vdsNumaNodesToSave.add(dbNode);
                 }
             }
         }
-        if (!vdsNumaNodesToSave.isEmpty()) {
-            vdsNumaNodeDao.massUpdateNumaNodeStatistics(vdsNumaNodesToSave);
-        }
+        return vdsNumaNodesToSave;
     }
 
     /**
@@ -645,7 +623,7 @@ public class HostMonitoring {
         try {
             reportNicStatusChanges();
             problematicNicsWithNetworks = NetworkMonitoringHelper.determineProblematicNics(vds.getInterfaces(),
-                    networkDao.getAllForCluster(vds.getClusterId()));
+                    hostMonitoringCache.getClusterNetworks(vds.getClusterId()));
         } catch (Exception e) {
             log.error("Failure on checkInterfaces on update runtime info for host '{}': {}",
                     vds.getName(), e.getMessage());
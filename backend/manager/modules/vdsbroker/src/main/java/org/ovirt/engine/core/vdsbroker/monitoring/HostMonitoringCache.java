@@ -0,0 +1,111 @@
+package org.ovirt.engine.core.vdsbroker.monitoring;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import javax.annotation.PostConstruct;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.ovirt.engine.core.common.businessentities.Cluster;
+import org.ovirt.engine.core.common.businessentities.VdsNumaNode;
+import org.ovirt.engine.core.common.businessentities.network.Network;
+import org.ovirt.engine.core.common.config.Config;
+import org.ovirt.engine.core.common.config.ConfigValues;
+import org.ovirt.engine.core.compat.Guid;
+import org.ovirt.engine.core.dao.ClusterDao;
+import org.ovirt.engine.core.dao.VdsNumaNodeDao;
+import org.ovirt.engine.core.dao.network.NetworkDao;
+
+/**
+ * Caches the data the monitoring of the hosts reads from the database on every refresh of a host: the cluster of the
+ * host, the networks of the cluster and the ids of the NUMA nodes of the host. The data is shared by the hosts of a
+ * cluster and is read again once it is older than {@link ConfigValues#HostMonitoringCacheTimeoutInSecs}, so changes
+ * made to it by commands are seen by the monitoring within that time.
+ */
+@Singleton
+public class HostMonitoringCache {
+
+    @Inject
+    private ClusterDao clusterDao;
+    @Inject
+    private NetworkDao networkDao;
+    @Inject
+    private VdsNumaNodeDao vdsNumaNodeDao;
+
+    private final Map<Guid, CacheEntry<Cluster>> clusters = new ConcurrentHashMap<>();
+    private final Map<Guid, CacheEntry<List<Network>>> clusterNetworks = new ConcurrentHashMap<>();
+    private final Map<Guid, CacheEntry<Map<Integer, Guid>>> numaNodeIds = new ConcurrentHashMap<>();
+    private long timeout;
+
+    @PostConstruct
+    void init() {
+        timeout = TimeUnit.SECONDS.toNanos(Config.<Integer> getValue(ConfigValues.HostMonitoringCacheTimeoutInSecs));
+    }
+
+    public Cluster getCluster(Guid clusterId) {
+        return get(clusters, clusterId, clusterDao::get);
+    }
+
+    public List<Network> getClusterNetworks(Guid clusterId) {
+        return get(clusterNetworks, clusterId, networkDao::getAllForCluster);
+    }
+
+    /**
+     * Returns the ids of the NUMA nodes of the host by the index of the node.
+     */
+    public Map<Integer, Guid> getNumaNodeIds(Guid hostId) {
+        return get(numaNodeIds, hostId, id -> vdsNumaNodeDao.getAllVdsNumaNodeByVdsId(id).stream()
+                .collect(Collectors.toMap(VdsNumaNode::getIndex, VdsNumaNode::getId)));
+    }
+
+    /**
+     * Drops the cached ids of the NUMA nodes of the host, to be called when the NUMA nodes of the host are changed.
+     */
+    public void invalidateNumaNodeIds(Guid hostId) {
+        numaNodeIds.remove(hostId);
+    }
+
+    /**
+     * Returns the cached value of the id, loading it when it isn't cached or is expired. The value is loaded outside of
+     * the map, so loading it doesn't block the other entries, and the hosts that load the same entry at the same time
+     * may each read it from the database.
+     */
+    private <T> T get(Map<Guid, CacheEntry<T>> cache, Guid id, Function<Guid, T> loader) {
+        if (timeout <= 0) {
+            return loader.apply(id);
+        }
+
+        long now = nanoTime();
+        CacheEntry<T> entry = cache.get(id);
+        if (entry != null && now - entry.loadTime <= timeout) {
+            return entry.value;
+        }
+
+        CacheEntry<T> loaded = new CacheEntry<>(loader.apply(id), now);
+        if (entry == null) {
+            cache.putIfAbsent(id, loaded);
+        } else {
+            cache.replace(id, entry, loaded);
+        }
+        return loaded.value;
+    }
+
+    long nanoTime() {
+        return System.nanoTime();
+    }
+
+    private static class CacheEntry<T> {
+        private final T value;
+        private final long loadTime;
+
+        CacheEntry(T value, long loadTime) {
+            this.value = value;
+            this.loadTime = loadTime;
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package org.ovirt.engine.core.vdsbroker.monitoring;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.concurrent.ManagedScheduledExecutorService;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.ovirt.engine.core.common.businessentities.NumaNodeStatistics;
+import org.ovirt.engine.core.common.businessentities.VdsNumaNode;
+import org.ovirt.engine.core.common.businessentities.VdsStatistics;
+import org.ovirt.engine.core.common.businessentities.network.VdsNetworkStatistics;
+import org.ovirt.engine.core.common.config.Config;
+import org.ovirt.engine.core.common.config.ConfigValues;
+import org.ovirt.engine.core.compat.Guid;
+import org.ovirt.engine.core.compat.TransactionScopeOption;
+import org.ovirt.engine.core.dao.VdsNumaNodeDao;
+import org.ovirt.engine.core.dao.VdsStatisticsDao;
+import org.ovirt.engine.core.dao.network.InterfaceDao;
+import org.ovirt.engine.core.utils.threadpool.ThreadPools;
+import org.ovirt.engine.core.utils.transaction.TransactionSupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes the statistics of the hosts, their interfaces and their NUMA nodes to the database. The statistics are
+ * collected per host and written periodically for all the hosts in a single transaction, in a thread pool of their
+ * own, so the monitoring of a host does not open transactions of its own for them. When the transaction fails, the
+ * statistics are written per host, so a host whose statistics can't be written doesn't hold back the rest.
+ * <p>
+ * A host has at most one pending sample, a newer sample of the host replaces the pending one. A sample is a copy of
+ * the statistics, as the monitoring of the host keeps changing its statistics objects while the sample is pending.
+ */
+@Singleton
+public class HostStatisticsWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(HostStatisticsWriter.class);
+
+    @Inject
+    private VdsStatisticsDao vdsStatisticsDao;
+    @Inject
+    private InterfaceDao interfaceDao;
+    @Inject
+    private VdsNumaNodeDao vdsNumaNodeDao;
+
+    @Inject
+    @ThreadPools(ThreadPools.ThreadPoolType.HostStatistics)
+    private ManagedScheduledExecutorService executor;
+
+    private final Map<Guid, HostStatistics> pendingHosts = new ConcurrentHashMap<>();
+    private ScheduledFuture<?> flushJob;
+
+    @PostConstruct
+    void init() {
+        int flushIntervalInSecs = Config.<Integer> getValue(ConfigValues.HostStatisticsFlushIntervalInSecs);
+        if (flushIntervalInSecs <= 0) {
+            return;
+        }
+
+        flushJob = executor.scheduleWithFixedDelay(this::flush,
+                flushIntervalInSecs,
+                flushIntervalInSecs,
+                TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (flushJob == null) {
+            return;
+        }
+
+        flushJob.cancel(false);
+        flush();
+    }
+
+    /**
+     * Writes the statistics of a host, either synchronously or by keeping them for the next batch.
+     *
+     * @param statistics
+     *            the statistics of the host
+     * @param interfacesStatistics
+     *            the statistics of the interfaces of the host
+     * @param numaNodes
+     *            the NUMA nodes of the host with their ids in the database and their statistics
+     */
+    public void write(VdsStatistics statistics,
+            List<VdsNetworkStatistics> interfacesStatistics,
+            List<VdsNumaNode> numaNodes) {
+        if (flushJob == null) {
+            HostStatistics hostStatistics =
+                    new HostStatistics(Collections.singletonList(statistics), interfacesStatistics, numaNodes);
+            TransactionSupport.executeInScope(TransactionScopeOption.Required, () -> {
+                save(hostStatistics);
+                return null;
+            });
+        } else {
+            pendingHosts.put(statistics.getId(), new HostStatistics(
+                    Collections.singletonList(new VdsStatistics(statistics)),
+                    interfacesStatistics.stream().map(VdsNetworkStatistics::new).collect(Collectors.toList()),
+                    numaNodes.stream().map(HostStatisticsWriter::copyOf).collect(Collectors.toList())));
+        }
+    }
+
+    /**
+     * Copies the id and the statistics of the NUMA node, the only data of the node that is written.
+     */
+    private static VdsNumaNode copyOf(VdsNumaNode numaNode) {
+        VdsNumaNode copy = new VdsNumaNode();
+        copy.setId(numaNode.getId());
+        copy.setIndex(numaNode.getIndex());
+        if (numaNode.getNumaNodeStatistics() != null) {
+            copy.setNumaNodeStatistics(new NumaNodeStatistics(numaNode.getNumaNodeStatistics()));
+        }
+        return copy;
+    }
+
+    /**
+     * Drops the pending statistics of the host, to be called when the statistics of the host are written by other
+     * means and must not be overridden by the pending ones.
+     */
+    public void discard(Guid hostId) {
+        pendingHosts.remove(hostId);
+    }
+
+    private void flush() {
+        if (pendingHosts.isEmpty()) {
+            return;
+        }
+
+        Map<Guid, HostStatistics> samples = new HashMap<>();
+        for (Guid hostId : pendingHosts.keySet()) {
+            HostStatistics hostStatistics = pendingHosts.remove(hostId);
+            if (hostStatistics != null) {
+                samples.put(hostId, hostStatistics);
+            }
+        }
+
+        if (samples.size() == 1 || !flushBatch(samples)) {
+            samples.forEach(this::flush);
+        }
+    }
+
+    /**
+     * Writes the statistics of the hosts in a single transaction, returning whether they were written.
+     */
+    private boolean flushBatch(Map<Guid, HostStatistics> samples) {
+        HostStatistics batch = new HostStatistics(new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
+        samples.values().forEach(batch::add);
+        long startTime = System.nanoTime();
+        try {
+            saveInNewTransaction(batch);
+            log.debug("Wrote the statistics of {} hosts in {} ms",
+                    samples.size(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+            return true;
+        } catch (RuntimeException e) {
+            log.warn("Failed to write the statistics of {} hosts at once, writing them per host: {}",
+                    samples.size(),
+                    e.getMessage());
+            log.debug("Exception", e);
+            return false;
+        }
+    }
+
+    /**
+     * Writes the statistics of a single host. Statistics that fail to be written are kept for the next flush, unless
+     * a newer sample of the host is pending by then or they already failed once, in which case the next sample of the
+     * host is relied on.
+     */
+    private void flush(Guid hostId, HostStatistics hostStatistics) {
+        try {
+            saveInNewTransaction(hostStatistics);
+        } catch (RuntimeException e) {
+            log.error("Failed to write the statistics of host '{}': {}", hostId, e.getMessage());
+            log.debug("Exception", e);
+            if (!hostStatistics.failed) {
+                hostStatistics.failed = true;
+                pendingHosts.putIfAbsent(hostId, hostStatistics);
+            }
+        }
+    }
+
+    private void saveInNewTransaction(HostStatistics hostStatistics) {
+        TransactionSupport.executeInNewTransaction(() -> {
+            save(hostStatistics);
+            return null;
+        });
+    }
+
+    private void save(HostStatistics hostStatistics) {
+        vdsStatisticsDao.massUpdate(hostStatistics.statistics);
+        if (!hostStatistics.interfacesStatistics.isEmpty()) {
+            interfaceDao.massUpdateStatisticsForVds(hostStatistics.interfacesStatistics);
+        }
+        if (!hostStatistics.numaNodes.isEmpty()) {
+            vdsNumaNodeDao.massUpdateNumaNodeStatistics(hostStatistics.numaNodes);
+        }
+    }
+
+    /**
+     * The statistics of one or more hosts.
+     */
+    private static class HostStatistics {
+        private final List<VdsStatistics> statistics;
+        private final List<VdsNetworkStatistics> interfacesStatistics;
+        private final List<VdsNumaNode> numaNodes;
+        private boolean failed;
+
+        HostStatistics(List<VdsStatistics> statistics,
+                List<VdsNetworkStatistics> interfacesStatistics,
+                List<VdsNumaNode> numaNodes) {
+            this.statistics = statistics;
+            this.interfacesStatistics = interfacesStatistics;
+            this.numaNodes = numaNodes;
+        }
+
+        void add(HostStatistics other) {
+            statistics.addAll(other.statistics);
+            interfacesStatistics.addAll(other.interfacesStatistics);
+            numaNodes.addAll(other.numaNodes);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package org.ovirt.engine.core.vdsbroker.monitoring;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Supplier;
+
+/**
+ * Runs actions of the VMs monitoring tasks on the monitoring thread that created it. The monitoring thread owns the
+ * locks of the VmManagers of the analyzed VMs, so actions that take these locks, like the VDS commands a VM analysis
+ * may issue, cannot run on the pool threads the VMs are analyzed on.
+ */
+class MonitoringThreadExecutor {
+
+    private static final Runnable TASK_DONE = () -> {};
+
+    private final Thread monitoringThread = Thread.currentThread();
+    private final BlockingQueue<Runnable> actions = new LinkedBlockingQueue<>();
+
+    /**
+     * Runs the given action on the monitoring thread and waits for its result. The action is run directly if called
+     * on the monitoring thread.
+     */
+    <T> T call(Supplier<T> action) {
+        if (Thread.currentThread() == monitoringThread) {
+            return action.get();
+        }
+
+        FutureTask<T> task = new FutureTask<>(action::get);
+        actions.add(task);
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return task.get();
+                } catch (InterruptedException ex) {
+                    // the monitoring thread runs every queued action before it returns, so this wait ends
+                    interrupted = true;
+                } catch (ExecutionException ex) {
+                    if (ex.getCause() instanceof RuntimeException) {
+                        throw (RuntimeException) ex.getCause();
+                    }
+                    throw new RuntimeException(ex.getCause());
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * @return The given monitoring task, reporting to this executor when it ends
+     */
+    Runnable task(Runnable task) {
+        return () -> {
+            try {
+                task.run();
+            } finally {
+                actions.add(TASK_DONE);
+            }
+        };
+    }
+
+    /**
+     * Runs the actions of the monitoring tasks on the calling monitoring thread until the given number of tasks
+     * ended. An interruption of the calling thread is deferred until then.
+     */
+    void runUntilDone(int tasks) {
+        boolean interrupted = false;
+        int done = 0;
+        while (done < tasks) {
+            try {
+                Runnable action = actions.take();
+                if (action == TASK_DONE) {
+                    done++;
+                } else {
+                    action.run();
+                }
+            } catch (InterruptedException ex) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
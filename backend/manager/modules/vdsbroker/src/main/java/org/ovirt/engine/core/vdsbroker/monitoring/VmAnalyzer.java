@@ -87,6 +87,10 @@ public class VmAnalyzer {
     private List<VmJob> vmJobs;
     private VmStatistics statistics;
     private List<VmNetworkInterface> ifaces;
+    /** false if the reported statistics did not change since they were last saved */
+    private boolean statisticsChanged = true;
+    /** the fingerprint of the statistics to save, kept by the VM manager once they are saved */
+    private VmStatisticsFingerprint statisticsFingerprint;
 
     private static final int TO_MEGA_BYTES = 1024;
     /** names of fields in {@link org.ovirt.engine.core.common.businessentities.VmDynamic} that may change by VDSM */
@@ -110,6 +114,11 @@ public class VmAnalyzer {
     private VdsDynamicDao vdsDynamicDao;
     private VmNetworkInterfaceDao vmNetworkInterfaceDao;
 
+    /**
+     * The thread that owns the lock of the VM, set when the VM is analyzed on another thread
+     */
+    private MonitoringThreadExecutor monitoringThread;
+
     public VmAnalyzer(
             VmDynamic dbVm,
             VdsmVm vdsmVm,
@@ -421,6 +430,9 @@ public class VmAnalyzer {
 
     private void resetVmStatistics() {
         statistics = new VmStatistics(getVmId());
+        statisticsChanged = true;
+        statisticsFingerprint = null;
+        getVmManager().resetStatisticsFingerprint();
     }
 
     protected void resetVmInterfaceStatistics() {
@@ -429,7 +441,7 @@ public class VmAnalyzer {
     }
 
     public VmStatistics getVmStatisticsToSave() {
-        return statistics;
+        return statisticsChanged ? statistics : null;
     }
 
     public VmDynamic getVmDynamicToSave() {
@@ -437,7 +449,7 @@ public class VmAnalyzer {
     }
 
     public List<VmNetworkStatistics> getVmNetworkStatistics() {
-        return ifaces != null ?
+        return ifaces != null && statisticsChanged ?
                 ifaces.stream().map(VmNetworkInterface::getStatistics).collect(Collectors.toList())
                 : Collections.emptyList();
     }
@@ -888,6 +900,28 @@ public class VmAnalyzer {
         updateInterfaceStatistics();
         updateDiskImageDynamics();
         updateVmJobs();
+        detectStatisticsChanges();
+    }
+
+    private void detectStatisticsChanges() {
+        VmStatisticsFingerprint fingerprint =
+                VmStatisticsFingerprint.of(statistics, ifaces, getVmDiskImageDynamicToSave());
+        statisticsChanged = !getVmManager().isStatisticsUnchanged(fingerprint, vdsmVm.getVmDynamic().getStatus());
+        if (statisticsChanged) {
+            statisticsFingerprint = fingerprint;
+        } else {
+            log.debug("Statistics of VM '{}' did not change, skipping saving them", getVmId());
+        }
+    }
+
+    /**
+     * Lets the VM manager compare the next statistics against the ones that were saved, called once the statistics
+     * are flushed to the database.
+     */
+    public void statisticsSaved() {
+        if (statisticsChanged && statisticsFingerprint != null) {
+            getVmManager().statisticsSaved(statisticsFingerprint, vdsmVm.getVmDynamic().getStatus());
+        }
     }
 
     private void updateVmStatistics() {
@@ -1086,14 +1120,22 @@ public class VmAnalyzer {
     }
 
     public Collection<Pair<Guid, DiskImageDynamic>> getVmDiskImageDynamicToSave() {
-        return vmDiskImageDynamicToSave != null ? vmDiskImageDynamicToSave : Collections.emptyList();
+        return vmDiskImageDynamicToSave != null && statisticsChanged ? vmDiskImageDynamicToSave : Collections.emptyList();
     }
 
     public List<VmGuestAgentInterface> getVmGuestAgentNics() {
         return vmGuestAgentNics;
     }
 
+    void setMonitoringThread(MonitoringThreadExecutor monitoringThread) {
+        this.monitoringThread = monitoringThread;
+    }
+
     protected <P extends VDSParametersBase> VDSReturnValue runVdsCommand(VDSCommandType commandType, P parameters) {
+        if (monitoringThread != null) {
+            // VDS commands that manage the VM take its lock, which is owned by the monitoring thread
+            return monitoringThread.call(() -> resourceManager.runVdsCommand(commandType, parameters));
+        }
         return resourceManager.runVdsCommand(commandType, parameters);
     }
 
@@ -0,0 +1,113 @@
+package org.ovirt.engine.core.vdsbroker.monitoring;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+import org.ovirt.engine.core.common.businessentities.VmStatistics;
+import org.ovirt.engine.core.common.businessentities.network.NetworkStatistics;
+import org.ovirt.engine.core.common.businessentities.network.VmNetworkInterface;
+import org.ovirt.engine.core.common.businessentities.storage.DiskImageDynamic;
+import org.ovirt.engine.core.common.utils.Pair;
+import org.ovirt.engine.core.compat.Guid;
+
+/**
+ * The values of the statistics of a VM that are persisted by the monitoring: the VM statistics, the statistics of
+ * its network interfaces and the dynamic data of its disks. It is kept per VM in order to skip persisting
+ * statistics that did not move since they were last saved.
+ * <p>
+ * The elapsed time and the usage history are not part of the fingerprint since they change on every cycle.
+ */
+public final class VmStatisticsFingerprint {
+
+    private final List<Guid> ids = new ArrayList<>();
+    private final List<Double> values = new ArrayList<>();
+    private final String disksUsage;
+
+    private VmStatisticsFingerprint(VmStatistics statistics) {
+        disksUsage = statistics.getDisksUsage();
+    }
+
+    public static VmStatisticsFingerprint of(
+            VmStatistics statistics,
+            List<VmNetworkInterface> interfaces,
+            Collection<Pair<Guid, DiskImageDynamic>> disks) {
+        VmStatisticsFingerprint fingerprint = new VmStatisticsFingerprint(statistics);
+        fingerprint.add(statistics.getCpuSys());
+        fingerprint.add(statistics.getCpuUser());
+        fingerprint.add(statistics.getUsageCpuPercent());
+        fingerprint.add(statistics.getUsageMemPercent());
+        fingerprint.add(statistics.getUsageNetworkPercent());
+        fingerprint.add(statistics.getMigrationProgressPercent());
+        fingerprint.add(statistics.getGuestMemoryCached());
+        fingerprint.add(statistics.getGuestMemoryBuffered());
+        fingerprint.add(statistics.getGuestMemoryFree());
+
+        if (interfaces != null) {
+            interfaces.stream()
+                    .map(VmNetworkInterface::getStatistics)
+                    .sorted(Comparator.comparing(NetworkStatistics::getId))
+                    .forEach(fingerprint::add);
+        }
+
+        disks.stream()
+                .map(Pair::getSecond)
+                .sorted(Comparator.comparing(DiskImageDynamic::getId))
+                .forEach(fingerprint::add);
+        return fingerprint;
+    }
+
+    private void add(NetworkStatistics statistics) {
+        ids.add(statistics.getId());
+        add(statistics.getStatus() != null ? statistics.getStatus().ordinal() : null);
+        add(statistics.getReceiveRate());
+        add(statistics.getReceiveDropRate());
+        add(statistics.getTransmitRate());
+        add(statistics.getTransmitDropRate());
+        add(statistics.getReceivedBytes());
+        add(statistics.getTransmittedBytes());
+    }
+
+    private void add(DiskImageDynamic diskImageDynamic) {
+        ids.add(diskImageDynamic.getId());
+        add(diskImageDynamic.getReadRate());
+        add(diskImageDynamic.getWriteRate());
+        add(diskImageDynamic.getActualSize());
+        add(diskImageDynamic.getReadLatency());
+        add(diskImageDynamic.getWriteLatency());
+        add(diskImageDynamic.getFlushLatency());
+    }
+
+    private void add(Number value) {
+        values.add(value != null ? value.doubleValue() : null);
+    }
+
+    /**
+     * @param thresholdPercent
+     *            the relative change, in percents, a value needs to move past in order to be considered as changed,
+     *            0 means any change
+     * @return true if any of the values of this fingerprint moved past the threshold compared to the given one
+     */
+    public boolean differsFrom(VmStatisticsFingerprint other, int thresholdPercent) {
+        if (!ids.equals(other.ids) || !Objects.equals(disksUsage, other.disksUsage)) {
+            return true;
+        }
+
+        for (int i = 0; i < values.size(); i++) {
+            if (movedPastThreshold(other.values.get(i), values.get(i), thresholdPercent)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean movedPastThreshold(Double previous, Double current, int thresholdPercent) {
+        if (previous == null || current == null) {
+            return !Objects.equals(previous, current);
+        }
+        double delta = Math.abs(current - previous);
+        return delta > 0 && delta * 100 >= thresholdPercent * Math.max(Math.abs(previous), Math.abs(current));
+    }
+}
@@ -0,0 +1,92 @@
+package org.ovirt.engine.core.vdsbroker.monitoring;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Singleton;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Collects the figures of the monitoring passes of the VM status events of the hosts, see
+ * {@link EventVmStatsRefresher}, and exposes them over JMX.
+ */
+@Singleton
+public class VmStatusEventsMonitor implements VmStatusEventsMonitorMXBean {
+
+    private static final Logger log = LoggerFactory.getLogger(VmStatusEventsMonitor.class);
+
+    private final Map<String, Long> eventsPerSecond = new ConcurrentHashMap<>();
+    private final Map<String, Long> coalescingLags = new ConcurrentHashMap<>();
+    private final AtomicLong processedEvents = new AtomicLong();
+    private final AtomicLong monitoredVms = new AtomicLong();
+    private ObjectName objectName;
+    private MBeanServer platformMBeanServer;
+
+    @PostConstruct
+    private void init() {
+        try {
+            objectName = new ObjectName("VmStatusEventsMonitor:type=" + this.getClass().getName());
+            platformMBeanServer = ManagementFactory.getPlatformMBeanServer();
+            platformMBeanServer.registerMBean(this, objectName);
+        } catch (Exception e) {
+            log.warn("Problem during registration of the VM status events monitor into JMX: {}", e.getMessage());
+            log.debug("Exception", e);
+        }
+    }
+
+    @PreDestroy
+    private void shutdown() {
+        try {
+            platformMBeanServer.unregisterMBean(objectName);
+        } catch (Exception e) {
+            log.debug("Problem during unregistration of the VM status events monitor from JMX: {}", e);
+        }
+    }
+
+    /**
+     * Records a monitoring pass of the VM status events of the given host.
+     */
+    public void passProcessed(String hostName, int events, int vms, long eventsPerSecond, long coalescingLag) {
+        processedEvents.addAndGet(events);
+        monitoredVms.addAndGet(vms);
+        this.eventsPerSecond.put(hostName, eventsPerSecond);
+        coalescingLags.put(hostName, coalescingLag);
+    }
+
+    /**
+     * Removes the figures of a host that is no longer monitored.
+     */
+    public void hostRemoved(String hostName) {
+        eventsPerSecond.remove(hostName);
+        coalescingLags.remove(hostName);
+    }
+
+    @Override
+    public Map<String, Long> getEventsPerSecond() {
+        return new HashMap<>(eventsPerSecond);
+    }
+
+    @Override
+    public Map<String, Long> getCoalescingLags() {
+        return new HashMap<>(coalescingLags);
+    }
+
+    @Override
+    public long getProcessedEvents() {
+        return processedEvents.get();
+    }
+
+    @Override
+    public long getMonitoredVms() {
+        return monitoredVms.get();
+    }
+}
@@ -0,0 +1,32 @@
+package org.ovirt.engine.core.vdsbroker.monitoring;
+
+import java.util.Map;
+
+/**
+ * The following interface is used as interface for JMX bean
+ */
+public interface VmStatusEventsMonitorMXBean {
+
+    /**
+     * The following method will return the rate in events per second of the VM status events of each host, measured
+     * by the last monitoring pass of the host
+     */
+    Map<String, Long> getEventsPerSecond();
+
+    /**
+     * The following method will return the time in milliseconds the VM status events of each host waited to be
+     * monitored in the last monitoring pass of the host
+     */
+    Map<String, Long> getCoalescingLags();
+
+    /**
+     * The following method will return the number of VM status events monitored since the engine started
+     */
+    long getProcessedEvents();
+
+    /**
+     * The following method will return the number of VMs monitored by VM status events since the engine started, a VM
+     * reported by several events coalesced into the same monitoring pass is counted once
+     */
+    long getMonitoredVms();
+}
@@ -6,14 +6,23 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import javax.annotation.PostConstruct;
+import javax.enterprise.concurrent.ManagedExecutorService;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
 import org.ovirt.engine.core.common.businessentities.IVdsEventListener;
 import org.ovirt.engine.core.common.businessentities.VmDynamic;
 import org.ovirt.engine.core.common.businessentities.VmStatistics;
+import org.ovirt.engine.core.common.config.Config;
+import org.ovirt.engine.core.common.config.ConfigValues;
 import org.ovirt.engine.core.common.utils.Pair;
 import org.ovirt.engine.core.compat.Guid;
 import org.ovirt.engine.core.compat.TransactionScopeOption;
@@ -25,6 +34,7 @@ import org.ovirt.engine.core.dao.VmGuestAgentInterfaceDao;
 import org.ovirt.engine.core.dao.VmStatisticsDao;
 import org.ovirt.engine.core.dao.network.VmNetworkInterfaceDao;
 import org.ovirt.engine.core.dao.network.VmNetworkStatisticsDao;
+import org.ovirt.engine.core.utils.threadpool.ThreadPools;
 import org.ovirt.engine.core.utils.transaction.TransactionSupport;
 import org.ovirt.engine.core.vdsbroker.ResourceManager;
 import org.ovirt.engine.core.vdsbroker.VdsManager;
@@ -66,8 +76,29 @@ public class VmsMonitoring {
     @Inject
     private VdsDynamicDao vdsDynamicDao;
 
+    /**
+     * The pool the VMs are analyzed and flushed on when parallel monitoring is enabled
+     */
+    @Inject
+    @ThreadPools(ThreadPools.ThreadPoolType.VmsMonitoring)
+    private ManagedExecutorService monitoringPool;
+
     private static final Logger log = LoggerFactory.getLogger(VmsMonitoring.class);
 
+    /**
+     * The number of tasks the VMs of a host are analyzed in, 1 when the VMs are monitored sequentially on the calling
+     * thread
+     */
+    private int parallelism;
+
+    @PostConstruct
+    public void init() {
+        parallelism = Config.<Integer> getValue(ConfigValues.VmsMonitoringParallelism);
+        if (parallelism > 1) {
+            log.info("VMs monitoring will analyze VMs in {} parallel tasks", parallelism);
+        }
+    }
+
     /**
      * analyze and react upon changes on the monitoredVms. relevant changes would
      * be persisted and state transitions and internal commands would
@@ -95,6 +126,7 @@ public class VmsMonitoring {
             // It is important to add the unmanaged VMs before flushing the dynamic data into the database
             addUnmanagedVms(vmAnalyzers, vdsManager.getVdsId());
             flush(vmAnalyzers);
+            vmAnalyzers.forEach(VmAnalyzer::statisticsSaved);
             postFlush(vmAnalyzers, vdsManager, fetchTime);
             vdsManager.vmsMonitoringInitFinished();
         } catch (RuntimeException ex) {
@@ -119,14 +151,18 @@ public class VmsMonitoring {
      * Skip analysis on VMs which cannot be locked
      * note: metrics calculation like memCommited and vmsCoresCount should be calculated *before*
      *   this filtering.
-     * @return The analyzers which hold all the data per VM
+     * @return The analyzers which hold all the data per VM, ordered by the id of the VM
      */
-    private List<VmAnalyzer> analyzeVms(
+    List<VmAnalyzer> analyzeVms(
             List<Pair<VmDynamic, VdsmVm>> monitoredVms,
             long fetchTime,
             VdsManager vdsManager,
             boolean updateStatistics) {
         VmAnalyzerFactory vmAnalyzerFactory = getVmAnalyzerFactory(vdsManager, updateStatistics);
+        if (isParallelMonitoring()) {
+            return analyzeVmsInParallel(monitoredVms, fetchTime, vdsManager, vmAnalyzerFactory);
+        }
+
         List<VmAnalyzer> vmAnalyzers = new ArrayList<>(monitoredVms.size());
         monitoredVms.forEach(vm -> {
             // TODO filter out migratingTo VMs if no action is taken on them
@@ -149,6 +185,121 @@ public class VmsMonitoring {
         return vmAnalyzers;
     }
 
+    /**
+     * Analyze the VMs on the monitoring pool, in up to {@link #parallelism} tasks. The VMs are locked and, if their
+     * analysis fails, unlocked on the calling thread since the lock of the VmManager is owned by the thread that
+     * acquired it. For the same reason the VDS commands the analysis issues, which lock the VmManager of the VM, are
+     * run on the calling thread while it waits for the tasks. It waits for all of them to finish, even if
+     * interrupted, so no VM is unlocked while it is still analyzed.
+     */
+    private List<VmAnalyzer> analyzeVmsInParallel(
+            List<Pair<VmDynamic, VdsmVm>> monitoredVms,
+            long fetchTime,
+            VdsManager vdsManager,
+            VmAnalyzerFactory vmAnalyzerFactory) {
+        List<Pair<VmDynamic, VdsmVm>> vmsToAnalyze = monitoredVms.stream()
+                .filter(vm -> shouldAnalyzeVm(vm, fetchTime, vdsManager.getVdsId()))
+                .collect(Collectors.toList());
+        VmAnalyzer[] analyzed = new VmAnalyzer[vmsToAnalyze.size()];
+        int tasks = Math.min(parallelism, analyzed.length);
+        MonitoringThreadExecutor monitoringThread = new MonitoringThreadExecutor();
+        List<Future<?>> futures = new ArrayList<>(tasks);
+        for (int task = 0; task < tasks; task++) {
+            int firstVm = task;
+            futures.add(submit(monitoringThread.task(() -> {
+                for (int i = firstVm; i < analyzed.length; i += tasks) {
+                    analyzed[i] = analyzeVm(vmAnalyzerFactory, vmsToAnalyze.get(i), monitoringThread);
+                }
+            })));
+        }
+        try {
+            monitoringThread.runUntilDone(tasks);
+            awaitAll(futures);
+        } catch (RuntimeException ex) {
+            vmsToAnalyze.forEach(vm -> getVmManager(getVmId(vm.getFirst(), vm.getSecond())).unlock());
+            throw new RuntimeException("Failed to analyze VMs on host " + vdsManager.getVdsName(), ex);
+        }
+
+        List<VmAnalyzer> vmAnalyzers = new ArrayList<>(analyzed.length);
+        for (int i = 0; i < analyzed.length; i++) {
+            if (analyzed[i] != null) {
+                vmAnalyzers.add(analyzed[i]);
+            } else {
+                Pair<VmDynamic, VdsmVm> vm = vmsToAnalyze.get(i);
+                getVmManager(getVmId(vm.getFirst(), vm.getSecond())).unlock();
+            }
+        }
+        vmAnalyzers.sort(Comparator.comparing(VmAnalyzer::getVmId));
+        return vmAnalyzers;
+    }
+
+    /**
+     * @return The analyzer of the given VM or null if the analysis failed
+     */
+    private VmAnalyzer analyzeVm(
+            VmAnalyzerFactory vmAnalyzerFactory,
+            Pair<VmDynamic, VdsmVm> vm,
+            MonitoringThreadExecutor monitoringThread) {
+        try {
+            VmAnalyzer vmAnalyzer = vmAnalyzerFactory.getVmAnalyzer(vm);
+            vmAnalyzer.setMonitoringThread(monitoringThread);
+            vmAnalyzer.analyze();
+            return vmAnalyzer;
+        } catch (RuntimeException ex) {
+            log.error("Failed during monitoring vm: {} , error is: {}", getVmId(vm.getFirst(), vm.getSecond()), ex);
+            log.error("Exception:", ex);
+            return null;
+        }
+    }
+
+    /**
+     * Submits the given task to the monitoring pool, the task is run on the calling thread if the pool rejects it.
+     */
+    private Future<?> submit(Runnable task) {
+        try {
+            return monitoringPool.submit(task);
+        } catch (RejectedExecutionException ex) {
+            log.debug("The VMs monitoring pool rejected a task, running it on the monitoring thread");
+            FutureTask<?> futureTask = new FutureTask<>(task, null);
+            futureTask.run();
+            return futureTask;
+        }
+    }
+
+    /**
+     * Waits for all the given tasks to finish. An interruption of the calling thread is deferred until they finish,
+     * the first failure of a task is thrown once they all finished.
+     */
+    private static void awaitAll(List<Future<?>> futures) {
+        boolean interrupted = false;
+        RuntimeException failure = null;
+        for (Future<?> future : futures) {
+            while (true) {
+                try {
+                    future.get();
+                    break;
+                } catch (InterruptedException ex) {
+                    interrupted = true;
+                } catch (ExecutionException ex) {
+                    if (failure == null) {
+                        failure = new RuntimeException(ex.getCause());
+                    }
+                    break;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    protected boolean isParallelMonitoring() {
+        return parallelism > 1;
+    }
+
     protected VmAnalyzerFactory getVmAnalyzerFactory(VdsManager vdsManager, boolean statistics) {
         return new VmAnalyzerFactory(
                 vdsManager,
@@ -281,6 +432,11 @@ public class VmsMonitoring {
     }
 
     private void flush(List<VmAnalyzer> vmAnalyzers) {
+        if (isParallelMonitoring()) {
+            flushInParallel(vmAnalyzers);
+            return;
+        }
+
         saveVmDynamic(vmAnalyzers);
         saveVmStatistics(vmAnalyzers);
         saveVmInterfaceStatistics(vmAnalyzers);
@@ -288,6 +444,25 @@ public class VmsMonitoring {
         saveVmGuestAgentNetworkDevices(vmAnalyzers);
     }
 
+    /**
+     * The batches are independent of each other so they are sent as parallel statements. The guest agent NICs are
+     * saved on the calling thread since they are replaced within a transaction
+     */
+    private void flushInParallel(List<VmAnalyzer> vmAnalyzers) {
+        List<Future<?>> batches = Stream.<Runnable> of(
+                () -> saveVmDynamic(vmAnalyzers),
+                () -> saveVmStatistics(vmAnalyzers),
+                () -> saveVmInterfaceStatistics(vmAnalyzers),
+                () -> saveVmDiskImageStatistics(vmAnalyzers))
+                .map(this::submit)
+                .collect(Collectors.toList());
+        try {
+            saveVmGuestAgentNetworkDevices(vmAnalyzers);
+        } finally {
+            awaitAll(batches);
+        }
+    }
+
     private void saveVmDiskImageStatistics(List<VmAnalyzer> vmAnalyzers) {
         diskImageDynamicDao.updateAllDiskImageDynamicWithDiskIdByVmId(vmAnalyzers.stream()
                 .map(VmAnalyzer::getVmDiskImageDynamicToSave)
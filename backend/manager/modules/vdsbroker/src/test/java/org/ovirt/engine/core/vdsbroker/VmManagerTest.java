@@ -0,0 +1,79 @@
+package org.ovirt.engine.core.vdsbroker;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Collections;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.ovirt.engine.core.common.businessentities.VMStatus;
+import org.ovirt.engine.core.common.businessentities.VmStatistics;
+import org.ovirt.engine.core.common.config.ConfigValues;
+import org.ovirt.engine.core.compat.Guid;
+import org.ovirt.engine.core.utils.MockConfigDescriptor;
+import org.ovirt.engine.core.utils.MockConfigExtension;
+import org.ovirt.engine.core.vdsbroker.monitoring.VmStatisticsFingerprint;
+
+@ExtendWith(MockConfigExtension.class)
+public class VmManagerTest {
+
+    private static final Guid VM_ID = Guid.newGuid();
+    private static final int MAX_SKIPPED_SAVES = 2;
+
+    public static Stream<MockConfigDescriptor<?>> mockConfiguration() {
+        return Stream.of(
+                MockConfigDescriptor.of(ConfigValues.VmStatisticsMaxSkippedSaves, MAX_SKIPPED_SAVES),
+                MockConfigDescriptor.of(ConfigValues.VmStatisticsChangeThresholdPercent, 0));
+    }
+
+    private final VmManager vmManager = new VmManager(VM_ID);
+
+    @Test
+    public void savedStatisticsThatDidNotChangeAreSkipped() {
+        vmManager.statisticsSaved(fingerprint(10), VMStatus.Up);
+
+        assertTrue(vmManager.isStatisticsUnchanged(fingerprint(10), VMStatus.Up));
+        assertFalse(vmManager.isStatisticsUnchanged(fingerprint(20), VMStatus.Up));
+    }
+
+    @Test
+    public void statisticsThatWereNotSavedAreNotSkipped() {
+        assertFalse(vmManager.isStatisticsUnchanged(fingerprint(10), VMStatus.Up));
+        // the statistics failed to be saved
+        assertFalse(vmManager.isStatisticsUnchanged(fingerprint(10), VMStatus.Up));
+    }
+
+    @Test
+    public void unchangedStatisticsAreSavedAfterTheMaxSkippedSaves() {
+        vmManager.statisticsSaved(fingerprint(10), VMStatus.Up);
+
+        for (int i = 0; i < MAX_SKIPPED_SAVES; i++) {
+            assertTrue(vmManager.isStatisticsUnchanged(fingerprint(10), VMStatus.Up));
+        }
+        assertFalse(vmManager.isStatisticsUnchanged(fingerprint(10), VMStatus.Up));
+    }
+
+    @Test
+    public void statisticsOfAnotherStatusAreNotSkipped() {
+        vmManager.statisticsSaved(fingerprint(10), VMStatus.Up);
+
+        assertFalse(vmManager.isStatisticsUnchanged(fingerprint(10), VMStatus.Paused));
+        assertFalse(vmManager.isStatisticsUnchanged(fingerprint(10), VMStatus.Up));
+    }
+
+    @Test
+    public void resetStatisticsAreNotSkipped() {
+        vmManager.statisticsSaved(fingerprint(10), VMStatus.Up);
+        vmManager.resetStatisticsFingerprint();
+
+        assertFalse(vmManager.isStatisticsUnchanged(fingerprint(10), VMStatus.Up));
+    }
+
+    private static VmStatisticsFingerprint fingerprint(int cpuUsage) {
+        VmStatistics statistics = new VmStatistics(VM_ID);
+        statistics.setUsageCpuPercent(cpuUsage);
+        return VmStatisticsFingerprint.of(statistics, null, Collections.emptyList());
+    }
+}
@@ -0,0 +1,258 @@
+package org.ovirt.engine.core.vdsbroker.monitoring;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.enterprise.concurrent.ManagedScheduledExecutorService;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.internal.util.reflection.FieldSetter;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.ovirt.engine.core.common.businessentities.VmDynamic;
+import org.ovirt.engine.core.common.config.ConfigValues;
+import org.ovirt.engine.core.common.utils.Pair;
+import org.ovirt.engine.core.compat.Guid;
+import org.ovirt.engine.core.dao.VmDynamicDao;
+import org.ovirt.engine.core.utils.InjectorExtension;
+import org.ovirt.engine.core.utils.MockConfigDescriptor;
+import org.ovirt.engine.core.utils.MockConfigExtension;
+import org.ovirt.engine.core.utils.MockedConfig;
+import org.ovirt.engine.core.vdsbroker.ResourceManager;
+import org.ovirt.engine.core.vdsbroker.VdsManager;
+import org.ovirt.engine.core.vdsbroker.vdsbroker.VdsBrokerObjectsBuilder;
+import org.ovirt.engine.core.vdsbroker.vdsbroker.VdsProperties;
+import org.ovirt.vdsm.jsonrpc.client.events.EventSubscriber;
+import org.reactivestreams.Subscription;
+
+@ExtendWith({ MockConfigExtension.class, MockitoExtension.class, InjectorExtension.class })
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class EventVmStatsRefresherTest {
+
+    private static final int COALESCING_WINDOW = 100;
+    private static final Guid VM_1 = Guid.newGuid();
+    private static final Guid VM_2 = Guid.newGuid();
+
+    public static Stream<MockConfigDescriptor<?>> mockConfiguration() {
+        return Stream.of(
+                MockConfigDescriptor.of(ConfigValues.VmStatusEventsCoalescingWindowInMillis, COALESCING_WINDOW),
+                MockConfigDescriptor.of(ConfigValues.VdsRefreshRate, 2L),
+                MockConfigDescriptor.of(ConfigValues.NumberVmRefreshesBeforeSave, 1));
+    }
+
+    public static Stream<MockConfigDescriptor<?>> mockConfigurationWithoutCoalescing() {
+        return Stream.of(
+                MockConfigDescriptor.of(ConfigValues.VmStatusEventsCoalescingWindowInMillis, 0),
+                MockConfigDescriptor.of(ConfigValues.VdsRefreshRate, 2L),
+                MockConfigDescriptor.of(ConfigValues.NumberVmRefreshesBeforeSave, 1));
+    }
+
+    @Mock
+    private VdsManager vdsManager;
+    @Mock
+    private ResourceManager resourceManager;
+    @Mock
+    private VmDynamicDao vmDynamicDao;
+    @Mock
+    private VdsBrokerObjectsBuilder vdsBrokerObjectsBuilder;
+    @Mock
+    private ManagedScheduledExecutorService executor;
+    @Mock
+    private PollVmStatsRefresher allVmStatsOnlyRefresher;
+    @Mock
+    private VmsMonitoring vmsMonitoring;
+    @Mock
+    private Subscription subscription;
+
+    private final VmStatusEventsMonitor vmStatusEventsMonitor = new VmStatusEventsMonitor();
+    private EventVmStatsRefresher refresher;
+    private EventSubscriber subscriber;
+    private final List<Runnable> scheduledPasses = new ArrayList<>();
+    private final Map<Guid, Map<String, Object>> monitoredStructs = new HashMap<>();
+
+    @BeforeEach
+    public void setUp() throws NoSuchFieldException {
+        when(vdsManager.getVdsHostname()).thenReturn("host");
+        when(vdsManager.getVdsName()).thenReturn("host");
+        when(vdsBrokerObjectsBuilder.removeNotifyTimeFromVmStatusEvent(any())).thenAnswer(invocation -> {
+            Long notifyTime = (Long) invocation.<Map<String, Object>> getArgument(0).remove(VdsProperties.notify_time);
+            return notifyTime.doubleValue();
+        });
+        doAnswer(invocation -> {
+            VmDynamic vmDynamic = invocation.getArgument(0);
+            monitoredStructs.put(vmDynamic.getId(), invocation.getArgument(1));
+            return null;
+        }).when(vdsBrokerObjectsBuilder).updateVMDynamicData(any(), any(), any());
+        when(executor.schedule(any(Runnable.class), anyLong(), any())).thenAnswer(invocation -> {
+            scheduledPasses.add(invocation.getArgument(0));
+            return null;
+        });
+
+        refresher = new EventVmStatsRefresher(vdsManager, resourceManager);
+        setField("vmDynamicDao", vmDynamicDao);
+        setField("vdsBrokerObjectsBuilder", vdsBrokerObjectsBuilder);
+        setField("schedulerService", executor);
+        setField("allVmStatsOnlyRefresher", allVmStatsOnlyRefresher);
+        setField("vmStatusEventsMonitor", vmStatusEventsMonitor);
+        refresher = spy(refresher);
+        doReturn(vmsMonitoring).when(refresher).getVmsMonitoring();
+        doNothing().when(refresher).processDevices(any(), anyLong());
+
+        refresher.startMonitoring();
+        ArgumentCaptor<EventSubscriber> subscriberCaptor = ArgumentCaptor.forClass(EventSubscriber.class);
+        verify(resourceManager).subscribe(subscriberCaptor.capture());
+        subscriber = subscriberCaptor.getValue();
+        subscriber.onSubscribe(subscription);
+    }
+
+    private void setField(String name, Object value) throws NoSuchFieldException {
+        FieldSetter.setField(refresher, EventVmStatsRefresher.class.getDeclaredField(name), value);
+    }
+
+    @Test
+    public void eventsWithinTheWindowAreMergedPerVm() {
+        verify(subscription).request(100);
+
+        subscriber.onNext(event(1L, VM_1, struct("status", "Up", "cpuUser", "1")));
+        subscriber.onNext(event(2L, VM_1, struct("status", "Paused"), VM_2, struct("status", "Up")));
+
+        verify(executor, times(1)).schedule(any(Runnable.class),
+                eq((long) COALESCING_WINDOW),
+                eq(TimeUnit.MILLISECONDS));
+        verify(vmsMonitoring, never()).perform(any(), anyLong(), any(), anyBoolean());
+
+        runScheduledPasses();
+
+        Map<Guid, VdsmVm> monitoredVms = monitoredVms(1).get(0);
+        assertEquals(2, monitoredVms.size());
+        // the data of the newer event wins, the data only the older event reported is kept
+        assertEquals(struct("status", "Paused", "cpuUser", "1"), monitoredStructs.get(VM_1));
+        assertEquals(struct("status", "Up"), monitoredStructs.get(VM_2));
+        assertEquals(Double.valueOf(2), monitoredVms.get(VM_1).getTimestamp());
+        // the events of the pass are requested again
+        verify(subscription).request(2);
+    }
+
+    @Test
+    public void eventsReceivedDuringAPassAreMonitoredByTheNextPass() {
+        subscriber.onNext(event(1L, VM_1, struct("status", "Up")));
+        doAnswer(invocation -> {
+            subscriber.onNext(event(2L, VM_2, struct("status", "Up")));
+            return null;
+        }).doNothing().when(vmsMonitoring).perform(any(), anyLong(), any(), anyBoolean());
+
+        runScheduledPasses();
+        verify(executor, times(2)).schedule(any(Runnable.class), anyLong(), any());
+        runScheduledPasses();
+
+        List<Map<Guid, VdsmVm>> passes = monitoredVms(2);
+        assertEquals(VM_1, passes.get(0).keySet().iterator().next());
+        assertEquals(VM_2, passes.get(1).keySet().iterator().next());
+        verify(subscription, times(2)).request(1);
+    }
+
+    @Test
+    public void eventsOfAFailedPassAreRequestedAgain() {
+        doThrow(new RuntimeException("monitoring failed")).when(vmsMonitoring)
+                .perform(any(), anyLong(), any(), anyBoolean());
+        subscriber.onNext(event(1L, VM_1, struct("status", "Up")));
+        subscriber.onNext(event(2L, VM_2, struct("status", "Up")));
+
+        runScheduledPasses();
+
+        verify(subscription).request(2);
+        verify(executor, times(1)).schedule(any(Runnable.class), anyLong(), any());
+    }
+
+    @Test
+    public void processedEventsAreExposedPerHost() {
+        subscriber.onNext(event(1L, VM_1, struct("status", "Up")));
+        subscriber.onNext(event(2L, VM_1, struct("status", "Paused"), VM_2, struct("status", "Up")));
+
+        runScheduledPasses();
+
+        assertEquals(2, vmStatusEventsMonitor.getProcessedEvents());
+        assertEquals(2, vmStatusEventsMonitor.getMonitoredVms());
+        assertTrue(vmStatusEventsMonitor.getEventsPerSecond().containsKey("host"));
+        assertTrue(vmStatusEventsMonitor.getCoalescingLags().get("host") >= 0);
+
+        refresher.stopMonitoring();
+
+        assertTrue(vmStatusEventsMonitor.getEventsPerSecond().isEmpty());
+        assertTrue(vmStatusEventsMonitor.getCoalescingLags().isEmpty());
+    }
+
+    @Test
+    @MockedConfig("mockConfigurationWithoutCoalescing")
+    public void eachEventIsMonitoredWhenReceivedWithoutCoalescing() {
+        verify(subscription).request(1);
+
+        subscriber.onNext(event(1L, VM_1, struct("status", "Up")));
+        subscriber.onNext(event(2L, VM_1, struct("status", "Paused")));
+
+        List<Map<Guid, VdsmVm>> passes = monitoredVms(2);
+        assertEquals(Double.valueOf(1), passes.get(0).get(VM_1).getTimestamp());
+        assertEquals(Double.valueOf(2), passes.get(1).get(VM_1).getTimestamp());
+        assertEquals(struct("status", "Paused"), monitoredStructs.get(VM_1));
+        verify(subscription, times(3)).request(1);
+        verify(executor, never()).schedule(any(Runnable.class), anyLong(), any());
+    }
+
+    private void runScheduledPasses() {
+        List<Runnable> passes = new ArrayList<>(scheduledPasses);
+        scheduledPasses.clear();
+        passes.forEach(Runnable::run);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Map<Guid, VdsmVm>> monitoredVms(int passes) {
+        ArgumentCaptor<List<Pair<VmDynamic, VdsmVm>>> captor = ArgumentCaptor.forClass(List.class);
+        verify(vmsMonitoring, times(passes)).perform(captor.capture(), anyLong(), eq(vdsManager), eq(false));
+        return captor.getAllValues().stream()
+                .map(vms -> vms.stream().collect(Collectors.toMap(vm -> vm.getSecond().getId(), Pair::getSecond)))
+                .collect(Collectors.toList());
+    }
+
+    private static Map<String, Object> event(long notifyTime, Object... vmsAndStructs) {
+        Map<String, Object> event = new HashMap<>();
+        event.put(VdsProperties.notify_time, notifyTime);
+        for (int i = 0; i < vmsAndStructs.length; i += 2) {
+            event.put(vmsAndStructs[i].toString(), vmsAndStructs[i + 1]);
+        }
+        return event;
+    }
+
+    private static Map<String, Object> struct(String... keysAndValues) {
+        Map<String, Object> struct = new HashMap<>();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            struct.put(keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return struct;
+    }
+}
@@ -0,0 +1,133 @@
+package org.ovirt.engine.core.vdsbroker.monitoring;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.ovirt.engine.core.common.businessentities.Cluster;
+import org.ovirt.engine.core.common.businessentities.VdsNumaNode;
+import org.ovirt.engine.core.common.businessentities.network.Network;
+import org.ovirt.engine.core.common.config.ConfigValues;
+import org.ovirt.engine.core.compat.Guid;
+import org.ovirt.engine.core.dao.ClusterDao;
+import org.ovirt.engine.core.dao.VdsNumaNodeDao;
+import org.ovirt.engine.core.dao.network.NetworkDao;
+import org.ovirt.engine.core.utils.MockConfigDescriptor;
+import org.ovirt.engine.core.utils.MockConfigExtension;
+import org.ovirt.engine.core.utils.MockedConfig;
+
+@ExtendWith({ MockitoExtension.class, MockConfigExtension.class })
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class HostMonitoringCacheTest {
+
+    private static final int TIMEOUT_IN_SECS = 60;
+    private static final Guid CLUSTER_ID = Guid.newGuid();
+    private static final Guid HOST_ID = Guid.newGuid();
+
+    public static Stream<MockConfigDescriptor<?>> mockConfiguration() {
+        return Stream.of(MockConfigDescriptor.of(ConfigValues.HostMonitoringCacheTimeoutInSecs, TIMEOUT_IN_SECS));
+    }
+
+    public static Stream<MockConfigDescriptor<?>> mockConfigurationWithoutCache() {
+        return Stream.of(MockConfigDescriptor.of(ConfigValues.HostMonitoringCacheTimeoutInSecs, 0));
+    }
+
+    @Mock
+    private ClusterDao clusterDao;
+    @Mock
+    private NetworkDao networkDao;
+    @Mock
+    private VdsNumaNodeDao vdsNumaNodeDao;
+
+    @Spy
+    @InjectMocks
+    private HostMonitoringCache cache;
+
+    @BeforeEach
+    public void setUp() {
+        doReturn(0L).when(cache).nanoTime();
+        cache.init();
+    }
+
+    @Test
+    public void clusterIsReadOnceWithinTheTimeout() {
+        Cluster cluster = new Cluster();
+        when(clusterDao.get(CLUSTER_ID)).thenReturn(cluster);
+
+        assertSame(cluster, cache.getCluster(CLUSTER_ID));
+        doReturn(TimeUnit.SECONDS.toNanos(TIMEOUT_IN_SECS)).when(cache).nanoTime();
+        assertSame(cluster, cache.getCluster(CLUSTER_ID));
+
+        verify(clusterDao, times(1)).get(CLUSTER_ID);
+    }
+
+    @Test
+    public void expiredNetworksAreReadAgain() {
+        Network network = new Network();
+        when(networkDao.getAllForCluster(CLUSTER_ID))
+                .thenReturn(Collections.emptyList())
+                .thenReturn(Collections.singletonList(network));
+
+        assertEquals(Collections.emptyList(), cache.getClusterNetworks(CLUSTER_ID));
+        doReturn(TimeUnit.SECONDS.toNanos(TIMEOUT_IN_SECS) + 1).when(cache).nanoTime();
+        assertEquals(Collections.singletonList(network), cache.getClusterNetworks(CLUSTER_ID));
+        // the reloaded networks are cached from the time they were read
+        assertEquals(Collections.singletonList(network), cache.getClusterNetworks(CLUSTER_ID));
+
+        verify(networkDao, times(2)).getAllForCluster(CLUSTER_ID);
+    }
+
+    @Test
+    public void invalidatedNumaNodeIdsAreReadAgain() {
+        VdsNumaNode node = numaNode(0);
+        VdsNumaNode newNode = numaNode(1);
+        when(vdsNumaNodeDao.getAllVdsNumaNodeByVdsId(HOST_ID))
+                .thenReturn(Collections.singletonList(node))
+                .thenReturn(Arrays.asList(node, newNode));
+
+        assertEquals(Collections.singletonMap(0, node.getId()), cache.getNumaNodeIds(HOST_ID));
+        assertEquals(Collections.singletonMap(0, node.getId()), cache.getNumaNodeIds(HOST_ID));
+        cache.invalidateNumaNodeIds(HOST_ID);
+        Map<Integer, Guid> nodeIds = cache.getNumaNodeIds(HOST_ID);
+
+        assertEquals(2, nodeIds.size());
+        assertEquals(newNode.getId(), nodeIds.get(1));
+        verify(vdsNumaNodeDao, times(2)).getAllVdsNumaNodeByVdsId(HOST_ID);
+    }
+
+    @Test
+    @MockedConfig("mockConfigurationWithoutCache")
+    public void clusterIsReadEveryTimeWhenTheCacheIsDisabled() {
+        when(clusterDao.get(CLUSTER_ID)).thenReturn(new Cluster());
+
+        cache.getCluster(CLUSTER_ID);
+        cache.getCluster(CLUSTER_ID);
+
+        verify(clusterDao, times(2)).get(CLUSTER_ID);
+    }
+
+    private static VdsNumaNode numaNode(int index) {
+        VdsNumaNode node = new VdsNumaNode();
+        node.setId(Guid.newGuid());
+        node.setIndex(index);
+        return node;
+    }
+}
@@ -0,0 +1,238 @@
+package org.ovirt.engine.core.vdsbroker.monitoring;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import javax.enterprise.concurrent.ManagedScheduledExecutorService;
+import javax.transaction.TransactionManager;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Answers;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.ovirt.engine.core.common.businessentities.VdsNumaNode;
+import org.ovirt.engine.core.common.businessentities.VdsStatistics;
+import org.ovirt.engine.core.common.businessentities.network.VdsNetworkStatistics;
+import org.ovirt.engine.core.common.config.ConfigValues;
+import org.ovirt.engine.core.compat.Guid;
+import org.ovirt.engine.core.dao.VdsNumaNodeDao;
+import org.ovirt.engine.core.dao.VdsStatisticsDao;
+import org.ovirt.engine.core.dao.network.InterfaceDao;
+import org.ovirt.engine.core.utils.InjectedMock;
+import org.ovirt.engine.core.utils.InjectorExtension;
+import org.ovirt.engine.core.utils.MockConfigDescriptor;
+import org.ovirt.engine.core.utils.MockConfigExtension;
+import org.ovirt.engine.core.utils.MockedConfig;
+
+@ExtendWith({ MockitoExtension.class, MockConfigExtension.class, InjectorExtension.class })
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class HostStatisticsWriterTest {
+
+    private static final int FLUSH_INTERVAL_IN_SECS = 15;
+
+    public static Stream<MockConfigDescriptor<?>> mockConfiguration() {
+        return Stream.of(
+                MockConfigDescriptor.of(ConfigValues.HostStatisticsFlushIntervalInSecs, FLUSH_INTERVAL_IN_SECS));
+    }
+
+    public static Stream<MockConfigDescriptor<?>> mockConfigurationWithoutFlush() {
+        return Stream.of(MockConfigDescriptor.of(ConfigValues.HostStatisticsFlushIntervalInSecs, 0));
+    }
+
+    @InjectedMock
+    @Mock(answer = Answers.RETURNS_DEEP_STUBS)
+    public TransactionManager transactionManager;
+    @Mock
+    private VdsStatisticsDao vdsStatisticsDao;
+    @Mock
+    private InterfaceDao interfaceDao;
+    @Mock
+    private VdsNumaNodeDao vdsNumaNodeDao;
+    @Mock
+    private ManagedScheduledExecutorService executor;
+
+    @InjectMocks
+    private HostStatisticsWriter writer;
+
+    private ScheduledFuture<?> flushJob;
+
+    @BeforeEach
+    public void setUp() {
+        // not a mock field, as it would be injected to the writer as its flush job
+        flushJob = mock(ScheduledFuture.class);
+        doReturn(flushJob).when(executor).scheduleWithFixedDelay(any(), anyLong(), anyLong(), any());
+        writer.init();
+    }
+
+    @Test
+    public void samplesOfAllHostsAreWrittenAtOnce() {
+        VdsStatistics host1 = hostStatistics();
+        VdsStatistics host2 = hostStatistics();
+        VdsNetworkStatistics nic = new VdsNetworkStatistics();
+        VdsNumaNode numaNode = new VdsNumaNode();
+        writer.write(host1, Collections.singletonList(nic), Collections.singletonList(numaNode));
+        writer.write(host2, Collections.emptyList(), Collections.emptyList());
+
+        verify(vdsStatisticsDao, never()).massUpdate(any());
+
+        flush();
+
+        verify(vdsStatisticsDao, times(1))
+                .massUpdate(argThat(statistics -> containsExactly(statistics, host1, host2)));
+        verify(interfaceDao, times(1)).massUpdateStatisticsForVds(Collections.singletonList(nic));
+        verify(vdsNumaNodeDao, times(1)).massUpdateNumaNodeStatistics(Collections.singletonList(numaNode));
+    }
+
+    @Test
+    public void newerSampleReplacesThePendingOne() {
+        Guid hostId = Guid.newGuid();
+        VdsStatistics older = hostStatistics(hostId, 1.0);
+        VdsStatistics newer = hostStatistics(hostId, 2.0);
+        writer.write(older, Collections.emptyList(), Collections.emptyList());
+        writer.write(newer, Collections.emptyList(), Collections.emptyList());
+
+        flush();
+
+        verify(vdsStatisticsDao, times(1)).massUpdate(anyCollection());
+        verify(vdsStatisticsDao).massUpdate(Collections.singletonList(newer));
+    }
+
+    @Test
+    public void pendingSampleIsNotChangedByTheMonitoring() {
+        Guid hostId = Guid.newGuid();
+        VdsStatistics host = hostStatistics(hostId, 1.0);
+        writer.write(host, Collections.emptyList(), Collections.emptyList());
+        host.setCpuUser(2.0);
+
+        flush();
+
+        verify(vdsStatisticsDao).massUpdate(Collections.singletonList(hostStatistics(hostId, 1.0)));
+    }
+
+    @Test
+    public void discardedSampleIsNotWritten() {
+        VdsStatistics host = hostStatistics();
+        writer.write(host, Collections.emptyList(), Collections.emptyList());
+        writer.discard(host.getId());
+
+        flush();
+
+        verify(vdsStatisticsDao, never()).massUpdate(any());
+    }
+
+    @Test
+    public void samplesAreWrittenPerHostWhenWritingThemAtOnceFails() {
+        VdsStatistics failing = hostStatistics();
+        VdsStatistics host = hostStatistics();
+        doThrow(new RuntimeException("write failed")).when(vdsStatisticsDao)
+                .massUpdate(argThat(statistics -> statistics.contains(failing)));
+        writer.write(failing, Collections.emptyList(), Collections.emptyList());
+        writer.write(host, Collections.emptyList(), Collections.emptyList());
+
+        flush();
+
+        verify(vdsStatisticsDao).massUpdate(argThat(statistics -> containsExactly(statistics, failing, host)));
+        verify(vdsStatisticsDao).massUpdate(Collections.singletonList(failing));
+        verify(vdsStatisticsDao).massUpdate(Collections.singletonList(host));
+
+        // the failed sample is written by the next flush, and dropped once it fails again
+        flush();
+        flush();
+
+        verify(vdsStatisticsDao, times(2)).massUpdate(Collections.singletonList(failing));
+        verify(vdsStatisticsDao, times(1)).massUpdate(Collections.singletonList(host));
+    }
+
+    @Test
+    public void failedSampleIsNotKeptWhenANewerOneIsPending() {
+        VdsStatistics failing = hostStatistics(Guid.newGuid(), 1.0);
+        VdsStatistics newer = hostStatistics(failing.getId(), 2.0);
+        // the monitoring of the host reports a newer sample while the failing one is written
+        doAnswer(invocation -> {
+            writer.write(newer, Collections.emptyList(), Collections.emptyList());
+            throw new RuntimeException("write failed");
+        }).when(vdsStatisticsDao).massUpdate(Collections.singletonList(failing));
+        writer.write(failing, Collections.emptyList(), Collections.emptyList());
+
+        flush();
+        flush();
+
+        verify(vdsStatisticsDao, times(1)).massUpdate(Collections.singletonList(failing));
+        verify(vdsStatisticsDao, times(1)).massUpdate(Collections.singletonList(newer));
+    }
+
+    @Test
+    public void pendingSamplesAreWrittenOnShutdown() {
+        VdsStatistics host = hostStatistics();
+        writer.write(host, Collections.emptyList(), Collections.emptyList());
+
+        writer.shutdown();
+
+        verify(flushJob).cancel(false);
+        verify(vdsStatisticsDao).massUpdate(Collections.singletonList(host));
+    }
+
+    @Test
+    @MockedConfig("mockConfigurationWithoutFlush")
+    public void samplesAreWrittenSynchronouslyWithoutFlushInterval() {
+        VdsStatistics host = hostStatistics();
+        List<VdsNetworkStatistics> nics = Collections.singletonList(new VdsNetworkStatistics());
+
+        writer.write(host, nics, Collections.emptyList());
+
+        verify(executor, never()).scheduleWithFixedDelay(any(), anyLong(), anyLong(), any());
+        verify(vdsStatisticsDao).massUpdate(Collections.singletonList(host));
+        verify(interfaceDao).massUpdateStatisticsForVds(nics);
+        verify(vdsNumaNodeDao, never()).massUpdateNumaNodeStatistics(any());
+    }
+
+    private void flush() {
+        ArgumentCaptor<Runnable> flushCaptor = ArgumentCaptor.forClass(Runnable.class);
+        verify(executor).scheduleWithFixedDelay(flushCaptor.capture(),
+                eq((long) FLUSH_INTERVAL_IN_SECS),
+                eq((long) FLUSH_INTERVAL_IN_SECS),
+                eq(TimeUnit.SECONDS));
+        flushCaptor.getValue().run();
+    }
+
+    private static VdsStatistics hostStatistics() {
+        return hostStatistics(Guid.newGuid(), 0.0);
+    }
+
+    private static VdsStatistics hostStatistics(Guid hostId, double cpuUser) {
+        VdsStatistics statistics = new VdsStatistics();
+        statistics.setId(hostId);
+        statistics.setCpuUser(cpuUser);
+        return statistics;
+    }
+
+    private static boolean containsExactly(Collection<VdsStatistics> statistics, VdsStatistics... expected) {
+        return statistics.size() == expected.length
+                && new HashSet<>(statistics).equals(new HashSet<>(Arrays.asList(expected)));
+    }
+}
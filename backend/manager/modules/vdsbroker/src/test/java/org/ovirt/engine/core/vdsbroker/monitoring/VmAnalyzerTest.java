@@ -155,6 +155,26 @@ public class VmAnalyzerTest {
         assertEquals(DestroyVmVDSCommandParameters.class, vdsParamsCaptor.getValue().getClass());
     }
 
+    @ParameterizedTest
+    @EnumSource(VmTestPairs.class)
+    public void statisticsOfVmsGoingDownAreSaved(VmTestPairs data) {
+        //given
+        initMocks(data, false);
+
+        //when
+        assumeTrue(data.dbVm() != null);
+        assumeTrue(data.vdsmVm() != null);
+        assumeTrue(data.dbVm().getStatus() != VMStatus.MigratingFrom);
+        assumeTrue(data.vdsmVm().getVmDynamic().getStatus() == VMStatus.Down);
+        assumeTrue(data.vdsmVm().getVmDynamic().getExitStatus() == VmExitStatus.Normal);
+        //then
+        vmAnalyzer.analyze();
+        vmAnalyzer.statisticsSaved();
+        verify(vmManager).resetStatisticsFingerprint();
+        verify(vmManager, never()).statisticsSaved(any(), any());
+        assertNotNull(vmAnalyzer.getVmStatisticsToSave());
+    }
+
     @ParameterizedTest
     @EnumSource(VmTestPairs.class)
     public void proceedDownVmsErrorExitReason(VmTestPairs data) {
@@ -0,0 +1,79 @@
+package org.ovirt.engine.core.vdsbroker.monitoring;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+import org.ovirt.engine.core.common.businessentities.VmStatistics;
+import org.ovirt.engine.core.common.businessentities.network.VmNetworkInterface;
+import org.ovirt.engine.core.common.businessentities.storage.DiskImageDynamic;
+import org.ovirt.engine.core.common.utils.Pair;
+import org.ovirt.engine.core.compat.Guid;
+
+public class VmStatisticsFingerprintTest {
+
+    private static final Guid VM_ID = Guid.newGuid();
+    private static final Guid NIC_ID = Guid.newGuid();
+    private static final Guid DISK_ID = Guid.newGuid();
+
+    @Test
+    public void sameStatisticsDoNotDiffer() {
+        assertFalse(fingerprint(10, 1000L, 100).differsFrom(fingerprint(10, 1000L, 100), 0));
+    }
+
+    @Test
+    public void changedVmStatisticsDiffer() {
+        assertTrue(fingerprint(11, 1000L, 100).differsFrom(fingerprint(10, 1000L, 100), 0));
+    }
+
+    @Test
+    public void changedInterfaceStatisticsDiffer() {
+        assertTrue(fingerprint(10, 1001L, 100).differsFrom(fingerprint(10, 1000L, 100), 0));
+    }
+
+    @Test
+    public void changedDiskStatisticsDiffer() {
+        assertTrue(fingerprint(10, 1000L, 200).differsFrom(fingerprint(10, 1000L, 100), 0));
+    }
+
+    @Test
+    public void changeWithinThresholdDoesNotDiffer() {
+        assertFalse(fingerprint(10, 1000L, 104).differsFrom(fingerprint(10, 1000L, 100), 5));
+        assertTrue(fingerprint(10, 1000L, 110).differsFrom(fingerprint(10, 1000L, 100), 5));
+    }
+
+    @Test
+    public void valueReportedForTheFirstTimeDiffers() {
+        VmStatistics statistics = new VmStatistics(VM_ID);
+        VmStatisticsFingerprint previous = VmStatisticsFingerprint.of(statistics, null, Collections.emptyList());
+        statistics.setUsageMemPercent(1);
+        assertTrue(VmStatisticsFingerprint.of(statistics, null, Collections.emptyList()).differsFrom(previous, 50));
+    }
+
+    @Test
+    public void removedInterfaceDiffers() {
+        VmStatisticsFingerprint previous = fingerprint(10, 1000L, 100);
+        VmStatistics statistics = new VmStatistics(VM_ID);
+        statistics.setUsageCpuPercent(10);
+        assertTrue(VmStatisticsFingerprint.of(statistics, null, Collections.emptyList()).differsFrom(previous, 0));
+    }
+
+    private VmStatisticsFingerprint fingerprint(int cpuUsage, long receivedBytes, int readRate) {
+        VmStatistics statistics = new VmStatistics(VM_ID);
+        statistics.setUsageCpuPercent(cpuUsage);
+
+        VmNetworkInterface nic = new VmNetworkInterface();
+        nic.getStatistics().setId(NIC_ID);
+        nic.getStatistics().setReceivedBytes(receivedBytes);
+
+        DiskImageDynamic disk = new DiskImageDynamic();
+        disk.setId(DISK_ID);
+        disk.setReadRate(readRate);
+
+        return VmStatisticsFingerprint.of(statistics,
+                Collections.singletonList(nic),
+                Collections.singletonList(new Pair<>(VM_ID, disk)));
+    }
+}
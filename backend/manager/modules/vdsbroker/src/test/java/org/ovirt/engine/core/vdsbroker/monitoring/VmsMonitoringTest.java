@@ -0,0 +1,212 @@
+package org.ovirt.engine.core.vdsbroker.monitoring;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.enterprise.concurrent.ManagedExecutorService;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.ovirt.engine.core.common.businessentities.VmDynamic;
+import org.ovirt.engine.core.common.config.ConfigValues;
+import org.ovirt.engine.core.common.utils.Pair;
+import org.ovirt.engine.core.compat.Guid;
+import org.ovirt.engine.core.utils.MockConfigDescriptor;
+import org.ovirt.engine.core.utils.MockConfigExtension;
+import org.ovirt.engine.core.vdsbroker.VdsManager;
+import org.ovirt.engine.core.vdsbroker.VmManager;
+
+@ExtendWith({MockitoExtension.class, MockConfigExtension.class})
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class VmsMonitoringTest {
+
+    private static final int PARALLELISM = 3;
+    private static final int VMS = 20;
+
+    public static Stream<MockConfigDescriptor<?>> mockConfiguration() {
+        return Stream.of(MockConfigDescriptor.of(ConfigValues.VmsMonitoringParallelism, PARALLELISM));
+    }
+
+    @Mock
+    private ManagedExecutorService monitoringPool;
+    @Mock
+    private VdsManager vdsManager;
+    @Mock
+    private VmAnalyzerFactory vmAnalyzerFactory;
+
+    @Spy
+    @InjectMocks
+    private VmsMonitoring vmsMonitoring;
+
+    private ExecutorService executor;
+    private List<Pair<VmDynamic, VdsmVm>> monitoredVms;
+    private Map<Guid, VmManager> vmManagers;
+    private Map<Guid, VmAnalyzer> vmAnalyzers;
+
+    @BeforeEach
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(PARALLELISM);
+        when(monitoringPool.submit(any(Runnable.class)))
+                .thenAnswer(invocation -> executor.submit((Runnable) invocation.getArgument(0)));
+        when(vdsManager.getVdsId()).thenReturn(Guid.newGuid());
+        doReturn(vmAnalyzerFactory).when(vmsMonitoring).getVmAnalyzerFactory(any(), anyBoolean());
+        doAnswer(invocation -> vmManagers.get(invocation.getArgument(0))).when(vmsMonitoring).getVmManager(any());
+
+        monitoredVms = new ArrayList<>();
+        vmManagers = new HashMap<>();
+        vmAnalyzers = new HashMap<>();
+        for (int i = 0; i < VMS; i++) {
+            VmDynamic vmDynamic = new VmDynamic();
+            vmDynamic.setId(Guid.newGuid());
+            Pair<VmDynamic, VdsmVm> monitoredVm = new Pair<>(vmDynamic, null);
+            monitoredVms.add(monitoredVm);
+
+            VmManager vmManager = mock(VmManager.class);
+            when(vmManager.trylock()).thenReturn(true);
+            when(vmManager.isLatestData(any(), any())).thenReturn(true);
+            vmManagers.put(vmDynamic.getId(), vmManager);
+
+            VmAnalyzer vmAnalyzer = mock(VmAnalyzer.class);
+            when(vmAnalyzer.getVmId()).thenReturn(vmDynamic.getId());
+            when(vmAnalyzerFactory.getVmAnalyzer(monitoredVm)).thenReturn(vmAnalyzer);
+            vmAnalyzers.put(vmDynamic.getId(), vmAnalyzer);
+        }
+
+        vmsMonitoring.init();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void parallelAnalysisIsOrderedByVmId() {
+        List<Guid> analyzedVmIds = analyzedVmIds();
+
+        List<Guid> expectedVmIds = monitoredVms.stream()
+                .map(vm -> vm.getFirst().getId())
+                .sorted()
+                .collect(Collectors.toList());
+        assertEquals(expectedVmIds, analyzedVmIds);
+        vmManagers.values().forEach(vmManager -> verify(vmManager, never()).unlock());
+    }
+
+    @Test
+    public void parallelAnalysisUnlocksFailedVms() {
+        Set<Guid> failedVmIds = failAnalysisOfSomeVms();
+
+        List<Guid> analyzedVmIds = analyzedVmIds();
+
+        assertEquals(VMS - failedVmIds.size(), analyzedVmIds.size());
+        vmManagers.forEach((vmId, vmManager) -> {
+            boolean failed = failedVmIds.contains(vmId);
+            assertEquals(!failed, analyzedVmIds.contains(vmId));
+            verify(vmManager, times(failed ? 1 : 0)).unlock();
+        });
+    }
+
+    @Test
+    public void parallelAnalysisMatchesSerialAnalysis() {
+        failAnalysisOfSomeVms();
+
+        List<Guid> parallelVmIds = analyzedVmIds();
+        doReturn(false).when(vmsMonitoring).isParallelMonitoring();
+        List<Guid> serialVmIds = analyzedVmIds();
+
+        assertEquals(serialVmIds, parallelVmIds);
+    }
+
+    @Test
+    public void rejectedTasksAreAnalyzedOnCallingThread() {
+        when(monitoringPool.submit(any(Runnable.class))).thenThrow(new RejectedExecutionException());
+
+        assertEquals(VMS, analyzedVmIds().size());
+    }
+
+    @Test
+    public void vdsCommandsOfParallelAnalysisRunOnMonitoringThread() {
+        Map<Guid, ReentrantLock> locks = new HashMap<>();
+        vmManagers.forEach((vmId, vmManager) -> {
+            ReentrantLock lock = new ReentrantLock();
+            locks.put(vmId, lock);
+            when(vmManager.trylock()).thenAnswer(invocation -> lock.tryLock());
+        });
+        Map<Guid, MonitoringThreadExecutor> monitoringThreads = new HashMap<>();
+        vmAnalyzers.forEach((vmId, vmAnalyzer) -> {
+            doAnswer(invocation -> {
+                synchronized (monitoringThreads) {
+                    monitoringThreads.put(vmId, invocation.getArgument(0));
+                }
+                return null;
+            }).when(vmAnalyzer).setMonitoringThread(any());
+            // like a VDS command that manages the VM, e.g. destroying it on the migration destination
+            doAnswer(invocation -> {
+                MonitoringThreadExecutor monitoringThread;
+                synchronized (monitoringThreads) {
+                    monitoringThread = monitoringThreads.get(vmId);
+                }
+                return monitoringThread.call(() -> {
+                    locks.get(vmId).lock();
+                    locks.get(vmId).unlock();
+                    return null;
+                });
+            }).when(vmAnalyzer).analyze();
+        });
+
+        List<Guid> analyzedVmIds = assertTimeoutPreemptively(Duration.ofSeconds(10), this::analyzedVmIds);
+
+        assertEquals(VMS, analyzedVmIds.size());
+    }
+
+    private Set<Guid> failAnalysisOfSomeVms() {
+        Set<Guid> failedVmIds = monitoredVms.stream()
+                .map(vm -> vm.getFirst().getId())
+                .filter(vmId -> vmId.hashCode() % 3 == 0)
+                .collect(Collectors.toSet());
+        if (failedVmIds.isEmpty()) {
+            failedVmIds = Collections.singleton(monitoredVms.get(0).getFirst().getId());
+        }
+        failedVmIds.forEach(vmId -> doThrow(new RuntimeException("analysis failed"))
+                .when(vmAnalyzers.get(vmId)).analyze());
+        return failedVmIds;
+    }
+
+    private List<Guid> analyzedVmIds() {
+        return vmsMonitoring.analyzeVms(monitoredVms, System.nanoTime(), vdsManager, true).stream()
+                .map(VmAnalyzer::getVmId)
+                .collect(Collectors.toList());
+    }
+}
@@ -209,6 +209,83 @@ BEGIN
 END;$PROCEDURE$
 LANGUAGE plpgsql;
 
+-- Inserts an audit log entry without returning its id, so it can be called in a batch
+CREATE OR REPLACE FUNCTION InsertAuditLogWithoutId (
+    v_audit_log_id BIGINT,
+    v_log_time TIMESTAMP WITH TIME ZONE,
+    v_log_type INT,
+    v_log_type_name VARCHAR(100),
+    v_severity INT,
+    v_message TEXT,
+    v_user_id UUID,
+    v_user_name VARCHAR(255),
+    v_vds_id UUID,
+    v_vds_name VARCHAR(255),
+    v_vm_id UUID,
+    v_vm_name VARCHAR(255),
+    v_vm_template_id UUID,
+    v_vm_template_name VARCHAR(40),
+    v_storage_pool_id UUID,
+    v_storage_pool_name VARCHAR(40),
+    v_storage_domain_id UUID,
+    v_storage_domain_name VARCHAR(250),
+    v_cluster_id UUID,
+    v_cluster_name VARCHAR(255),
+    v_quota_id UUID,
+    v_quota_name VARCHAR(60),
+    v_correlation_id VARCHAR(50),
+    v_job_id UUID,
+    v_gluster_volume_id UUID,
+    v_gluster_volume_name VARCHAR(1000),
+    v_call_stack TEXT,
+    v_repeatable BOOLEAN,
+    v_brick_id UUID,
+    v_brick_path TEXT,
+    v_origin VARCHAR(25),
+    v_custom_event_id INT,
+    v_event_flood_in_sec INT,
+    v_custom_data TEXT
+    )
+RETURNS VOID AS $PROCEDURE$
+BEGIN
+    PERFORM InsertAuditLog(
+        v_audit_log_id,
+        v_log_time,
+        v_log_type,
+        v_log_type_name,
+        v_severity,
+        v_message,
+        v_user_id,
+        v_user_name,
+        v_vds_id,
+        v_vds_name,
+        v_vm_id,
+        v_vm_name,
+        v_vm_template_id,
+        v_vm_template_name,
+        v_storage_pool_id,
+        v_storage_pool_name,
+        v_storage_domain_id,
+        v_storage_domain_name,
+        v_cluster_id,
+        v_cluster_name,
+        v_quota_id,
+        v_quota_name,
+        v_correlation_id,
+        v_job_id,
+        v_gluster_volume_id,
+        v_gluster_volume_name,
+        v_call_stack,
+        v_repeatable,
+        v_brick_id,
+        v_brick_path,
+        v_origin,
+        v_custom_event_id,
+        v_event_flood_in_sec,
+        v_custom_data);
+END;$PROCEDURE$
+LANGUAGE plpgsql;
+
 CREATE OR REPLACE FUNCTION DeleteAuditLog (v_audit_log_id BIGINT)
 RETURNS VOID AS $PROCEDURE$
 BEGIN
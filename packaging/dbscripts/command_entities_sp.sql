@@ -278,6 +278,19 @@ END;$PROCEDURE$
 
 LANGUAGE plpgsql;
 
+CREATE OR REPLACE FUNCTION GetCommandIdsOlderThanDate (v_date TIMESTAMP WITH TIME ZONE)
+RETURNS SETOF idUuidType STABLE AS $PROCEDURE$
+
+BEGIN
+    RETURN QUERY
+
+    SELECT command_id
+    FROM command_entities
+    WHERE CREATED_AT < v_date;
+END;$PROCEDURE$
+
+LANGUAGE plpgsql;
+
 CREATE OR REPLACE FUNCTION InsertCommandAssociatedEntities (
     v_command_id UUID,
     v_entity_id UUID,
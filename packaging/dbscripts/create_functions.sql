@@ -813,13 +813,10 @@ BEGIN
     RETURN QUERY
 
     SELECT ad_groups.ID
-    FROM ad_groups,
-         engine_sessions
-    WHERE engine_sessions.user_id = v_id
-        AND ad_groups.id IN (
-            SELECT *
-            FROM fnsplitteruuid(engine_sessions.group_ids)
-        )
+    FROM ad_groups
+    INNER JOIN engine_session_user_flat_groups
+        ON ad_groups.id = engine_session_user_flat_groups.granted_id
+    WHERE engine_session_user_flat_groups.user_id = v_id
 
     UNION
     SELECT v_id
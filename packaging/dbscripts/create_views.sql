@@ -2742,27 +2742,7 @@ LEFT JOIN network_filter
 ----------------------------------------------
 -- Query Permissions
 ----------------------------------------------
--- Flatten all the objects a user can get permissions on them
-CREATE OR REPLACE VIEW engine_session_user_flat_groups AS
-
-SELECT id AS engine_session_seq_id,
-    user_id AS user_id,
-    fnSplitterUuid(engine_sessions.group_ids) AS granted_id
-FROM engine_sessions
-
-UNION ALL -- The user itself
-
-SELECT id,
-    user_id,
-    user_id
-FROM engine_sessions
-
-UNION ALL -- user is also member of 'Everyone'
-
-SELECT id,
-    user_id,
-    'EEE00000-0000-0000-0000-123456789EEE'
-FROM engine_sessions;
+-- The flat groups of the sessions are kept in the engine_session_user_flat_groups table
 
 -- Permissions view for Clusters
 -- The user has permissions on a cluster
@@ -75,6 +75,21 @@ BEGIN
 END;$PROCEDURE$
 LANGUAGE plpgsql;
 
+CREATE OR REPLACE FUNCTION DeleteEngineSessions (v_ids BIGINT[])
+RETURNS INT AS $PROCEDURE$
+DECLARE deleted_rows INT;
+
+BEGIN
+    DELETE
+    FROM engine_sessions
+    WHERE id = ANY(v_ids);
+
+    GET DIAGNOSTICS deleted_rows = ROW_COUNT;
+
+    RETURN deleted_rows;
+END;$PROCEDURE$
+LANGUAGE plpgsql;
+
 CREATE OR REPLACE FUNCTION DeleteAllFromEngineSessions ()
 RETURNS INT AS $PROCEDURE$
 DECLARE deleted_rows INT;
@@ -90,3 +105,66 @@ END;$PROCEDURE$
 LANGUAGE plpgsql;
 
 
+DROP TRIGGER
+
+IF EXISTS insert_engine_session_user_flat_groups
+    ON engine_sessions;
+    CREATE
+        OR REPLACE FUNCTION fn_engine_session_inserted ()
+    RETURNS TRIGGER AS $$
+
+BEGIN
+    -- Flatten all the objects a user can get permissions on them: the groups of the user, the user itself and
+    -- 'Everyone'
+    INSERT INTO engine_session_user_flat_groups (
+        engine_session_seq_id,
+        user_id,
+        granted_id
+        )
+    SELECT DISTINCT NEW.id,
+        NEW.user_id,
+        granted_id
+    FROM (
+        SELECT fnSplitterUuid(NEW.group_ids) AS granted_id
+
+        UNION ALL
+
+        SELECT NEW.user_id
+
+        UNION ALL
+
+        SELECT 'EEE00000-0000-0000-0000-123456789EEE'
+        ) flat_groups;
+
+    -- The permissions granted to any of them, kept up to date by the permissions insert trigger, and removed along
+    -- with the permission or the session
+    INSERT INTO engine_session_user_permissions (
+        engine_session_seq_id,
+        user_id,
+        permission_id,
+        object_id,
+        role_id
+        )
+    SELECT NEW.id,
+        NEW.user_id,
+        permissions.id,
+        permissions.object_id,
+        permissions.role_id
+    FROM permissions
+    INNER JOIN engine_session_user_flat_groups
+        ON engine_session_user_flat_groups.granted_id = permissions.ad_element_id
+    WHERE engine_session_user_flat_groups.engine_session_seq_id = NEW.id;
+
+    RETURN NEW;
+END;$$
+
+LANGUAGE plpgsql;
+
+CREATE TRIGGER insert_engine_session_user_flat_groups AFTER
+
+INSERT
+    ON engine_sessions
+FOR EACH ROW
+
+EXECUTE PROCEDURE fn_engine_session_inserted();
+
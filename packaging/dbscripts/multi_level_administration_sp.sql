@@ -433,6 +433,27 @@ RETURNS SETOF UUID STABLE
    DECLARE
    v_everyone_object_id  UUID;
 BEGIN
+   -- the permissions of a user with a session, granted to the user, to the groups of the user or to 'Everyone', are
+   -- kept in engine_session_user_permissions
+   IF EXISTS (
+           SELECT 1
+           FROM engine_session_user_flat_groups
+           WHERE user_id = v_user_id) THEN
+       RETURN QUERY
+       SELECT permission_id
+       FROM engine_session_user_permissions
+       WHERE user_id = v_user_id
+           AND role_id IN(
+               SELECT role_id
+               FROM roles_groups
+               WHERE action_group_id = v_action_group_id)
+           -- get allparents of object
+           AND object_id IN(
+               SELECT id
+               FROM fn_get_entity_parents(v_object_id,v_object_type_id)) LIMIT 1;
+       RETURN;
+   END IF;
+
    v_everyone_object_id := getGlobalIds('everyone'); -- hardcoded also in MLA Handler
    RETURN QUERY
    SELECT   id
@@ -446,13 +467,9 @@ BEGIN
        AND (object_id IN(
            SELECT id
            FROM fn_get_entity_parents(v_object_id,v_object_type_id)))
-       -- get user and his groups
+       -- get user and 'Everyone', a user without a session has no groups
        AND (ad_element_id = v_everyone_object_id
-       OR ad_element_id = v_user_id
-       OR ad_element_id IN(
-           SELECT *
-           FROM getUserAndGroupsById(v_user_id)
-       )) LIMIT 1;
+       OR ad_element_id = v_user_id) LIMIT 1;
 END; $procedure$
 LANGUAGE plpgsql;
 
@@ -636,8 +653,8 @@ BEGIN
     WHERE object_id = v_id
     AND (NOT v_is_filtered OR EXISTS (
         SELECT 1
-        FROM  engine_session_user_flat_groups u
-        WHERE  p.ad_element_id = u.granted_id
+        FROM  engine_session_user_permissions u
+        WHERE  p.id = u.permission_id
             AND u.engine_session_seq_id = v_engine_session_seq_id));
 END; $procedure$
 LANGUAGE plpgsql;
@@ -663,8 +680,8 @@ BEGIN
         WHERE object_id in (select id from fn_get_entity_parents(v_id, r_type))
             AND (NOT v_is_filtered OR EXISTS (
                 SELECT 1
-                FROM   engine_session_user_flat_groups u
-                WHERE  p.ad_element_id = u.granted_id
+                FROM   engine_session_user_permissions u
+                WHERE  p.id = u.permission_id
                     AND u.engine_session_seq_id = v_engine_session_seq_id));
     END LOOP;
     RETURN;
@@ -732,8 +749,8 @@ BEGIN
         AND (NOT v_is_filtered
              OR EXISTS (
                  SELECT 1
-                 FROM engine_session_user_flat_groups u
-                 WHERE  p.ad_element_id = u.granted_id
+                 FROM engine_session_user_permissions u
+                 WHERE  p.id = u.permission_id
                      AND u.engine_session_seq_id = v_engine_session_seq_id)
         );
 
@@ -789,3 +806,54 @@ BEGIN
         AND object_id = v_object_id;
 END; $procedure$
 LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION GetPermissionsByObjectIds(v_object_ids UUID[])
+RETURNS SETOF permissions_view STABLE
+    AS $procedure$
+BEGIN
+    RETURN QUERY SELECT *
+    FROM permissions_view
+    WHERE object_id = ANY(v_object_ids);
+END; $procedure$
+LANGUAGE plpgsql;
+
+
+DROP TRIGGER
+
+IF EXISTS insert_engine_session_user_permissions
+    ON permissions;
+    CREATE
+        OR REPLACE FUNCTION fn_permission_inserted ()
+    RETURNS TRIGGER AS $$
+
+BEGIN
+    -- Add the permission to the sessions of the users it is granted to, directly, by one of their groups or by
+    -- 'Everyone'. The permission is removed from the sessions along with it.
+    INSERT INTO engine_session_user_permissions (
+        engine_session_seq_id,
+        user_id,
+        permission_id,
+        object_id,
+        role_id
+        )
+    SELECT engine_session_seq_id,
+        user_id,
+        NEW.id,
+        NEW.object_id,
+        NEW.role_id
+    FROM engine_session_user_flat_groups
+    WHERE granted_id = NEW.ad_element_id;
+
+    RETURN NEW;
+END;$$
+
+LANGUAGE plpgsql;
+
+CREATE TRIGGER insert_engine_session_user_permissions AFTER
+
+INSERT
+    ON permissions
+FOR EACH ROW
+
+EXECUTE PROCEDURE fn_permission_inserted();
+
@@ -160,6 +160,33 @@ BEGIN
 END;$PROCEDURE$
 LANGUAGE plpgsql;
 
+CREATE OR REPLACE FUNCTION GetSnapshotsByVmIdsAndType (
+    v_vm_ids UUID[],
+    v_snapshot_type VARCHAR(32),
+    v_user_id UUID,
+    v_is_filtered BOOLEAN
+    )
+RETURNS SETOF snapshots STABLE AS $PROCEDURE$
+BEGIN
+    RETURN QUERY
+
+    SELECT DISTINCT ON (snapshots.vm_id) *
+    FROM snapshots
+    WHERE vm_id = ANY(v_vm_ids)
+        AND snapshot_type = v_snapshot_type
+        AND (
+            NOT v_is_filtered
+            OR EXISTS (
+                SELECT 1
+                FROM user_vm_permissions_view
+                WHERE user_id = v_user_id
+                    AND entity_id = snapshots.vm_id
+                )
+            )
+    ORDER BY snapshots.vm_id, creation_date ASC;
+END;$PROCEDURE$
+LANGUAGE plpgsql;
+
 CREATE OR REPLACE FUNCTION GetSnapshotByVmIdAndTypeAndStatus (
     v_vm_id UUID,
     v_snapshot_type VARCHAR(32),
@@ -252,6 +279,37 @@ BEGIN
 END;$PROCEDURE$
 LANGUAGE plpgsql;
 
+CREATE OR REPLACE FUNCTION GetAllFromSnapshotsByVmIds (
+    v_vm_ids UUID[],
+    v_fill_configuration BOOLEAN
+    )
+RETURNS SETOF GetAllFromSnapshotsByVmId_rs STABLE AS $PROCEDURE$
+BEGIN
+    RETURN QUERY
+
+    SELECT snapshot_id,
+        vm_id,
+        snapshot_type,
+        status,
+        description,
+        creation_date,
+        app_list,
+        memory_dump_disk_id,
+        memory_metadata_disk_id,
+        CASE
+            WHEN v_fill_configuration = TRUE
+                THEN vm_configuration
+            ELSE NULL
+            END,
+        vm_configuration IS NOT NULL
+        AND LENGTH(vm_configuration) > 0,
+        vm_configuration_broken
+    FROM snapshots
+    WHERE vm_id = ANY(v_vm_ids)
+    ORDER BY vm_id, creation_date ASC;
+END;$PROCEDURE$
+LANGUAGE plpgsql;
+
 CREATE OR REPLACE FUNCTION GetSnapshotBySnapshotId (
     v_snapshot_id UUID,
     v_user_id UUID,
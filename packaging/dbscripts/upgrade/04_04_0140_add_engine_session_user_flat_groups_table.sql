@@ -0,0 +1,44 @@
+-- The flat groups of the sessions were a view that split the group ids of all the sessions
+-- whenever a filtered query joined it, they are now kept by the engine_sessions insert trigger
+DROP VIEW IF EXISTS engine_session_user_flat_groups CASCADE;
+
+CREATE TABLE engine_session_user_flat_groups (
+    engine_session_seq_id BIGINT NOT NULL,
+    user_id UUID NOT NULL,
+    granted_id UUID NOT NULL,
+    PRIMARY KEY (engine_session_seq_id, granted_id),
+    FOREIGN KEY (engine_session_seq_id) REFERENCES engine_sessions(id) ON DELETE CASCADE
+);
+
+INSERT INTO engine_session_user_flat_groups (
+    engine_session_seq_id,
+    user_id,
+    granted_id
+    )
+SELECT DISTINCT id,
+    user_id,
+    granted_id
+FROM (
+    SELECT id,
+        user_id,
+        fnSplitterUuid(group_ids) AS granted_id
+    FROM engine_sessions
+
+    UNION ALL
+
+    SELECT id,
+        user_id,
+        user_id
+    FROM engine_sessions
+
+    UNION ALL
+
+    SELECT id,
+        user_id,
+        'EEE00000-0000-0000-0000-123456789EEE'
+    FROM engine_sessions
+    ) flat_groups;
+
+-- Create indexes
+SELECT fn_db_create_index('idx_engine_session_user_flat_groups_granted_id', 'engine_session_user_flat_groups', 'granted_id, user_id', '', false);
+SELECT fn_db_create_index('idx_engine_session_user_flat_groups_user_id', 'engine_session_user_flat_groups', 'user_id', '', false);
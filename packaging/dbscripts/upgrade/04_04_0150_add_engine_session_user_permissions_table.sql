@@ -0,0 +1,32 @@
+-- The permissions granted to the user of a session, directly, to one of the groups of the user or to 'Everyone',
+-- kept by the engine_sessions and permissions insert triggers so permission checks do not resolve them per call
+CREATE TABLE engine_session_user_permissions (
+    engine_session_seq_id BIGINT NOT NULL,
+    user_id UUID NOT NULL,
+    permission_id UUID NOT NULL,
+    object_id UUID NOT NULL,
+    role_id UUID NOT NULL,
+    PRIMARY KEY (engine_session_seq_id, permission_id),
+    FOREIGN KEY (engine_session_seq_id) REFERENCES engine_sessions(id) ON DELETE CASCADE,
+    FOREIGN KEY (permission_id) REFERENCES permissions(id) ON DELETE CASCADE
+);
+
+INSERT INTO engine_session_user_permissions (
+    engine_session_seq_id,
+    user_id,
+    permission_id,
+    object_id,
+    role_id
+    )
+SELECT engine_session_user_flat_groups.engine_session_seq_id,
+    engine_session_user_flat_groups.user_id,
+    permissions.id,
+    permissions.object_id,
+    permissions.role_id
+FROM permissions
+INNER JOIN engine_session_user_flat_groups
+    ON engine_session_user_flat_groups.granted_id = permissions.ad_element_id;
+
+-- Create indexes
+SELECT fn_db_create_index('idx_engine_session_user_permissions_user_id', 'engine_session_user_permissions', 'user_id, object_id', '', false);
+SELECT fn_db_create_index('idx_engine_session_user_permissions_permission_id', 'engine_session_user_permissions', 'permission_id', '', false);
@@ -862,6 +862,21 @@ select fn_db_add_config_value('CinderlibCommandTimeoutInMinutes','2','general');
 select fn_db_add_config_value('NumOfPciExpressPorts', '16', 'general');
 
 select fn_db_add_config_value('SetupNetworksWaitTimeoutSeconds', '5', 'general');
+
+select fn_db_add_config_value('VmsMonitoringParallelism', '1', 'general');
+select fn_db_add_config_value('VmStatisticsChangeThresholdPercent', '0', 'general');
+select fn_db_add_config_value('VmStatisticsMaxSkippedSaves', '4', 'general');
+select fn_db_add_config_value('AuditLogFlushIntervalInMillis', '1000', 'general');
+select fn_db_add_config_value('AuditLogQueueCapacity', '10000', 'general');
+select fn_db_add_config_value('AuditLogMaxBatchSize', '1000', 'general');
+select fn_db_add_config_value('SearchQueriesCacheSize', '1000', 'general');
+select fn_db_add_config_value('SearchQueriesCacheTimeToLiveInMinutes', '1440', 'general');
+select fn_db_add_config_value('SchedulingParallelism', '1', 'general');
+select fn_db_add_config_value('CommandStatusWriteDelayInMillis', '500', 'general');
+select fn_db_add_config_value('VmStatusEventsCoalescingWindowInMillis', '100', 'general');
+select fn_db_add_config_value('GlusterClusterRefreshDeadlineInSecs', '120', 'general');
+select fn_db_add_config_value('HostStatisticsFlushIntervalInSecs', '5', 'general');
+select fn_db_add_config_value('HostMonitoringCacheTimeoutInSecs', '60', 'general');
 ------------------------------------------------------------------------------------
 --                  Update with override section
 ------------------------------------------------------------------------------------
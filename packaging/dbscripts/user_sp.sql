@@ -298,6 +298,26 @@ LANGUAGE plpgsql;
 
     LANGUAGE plpgsql;
 
+    CREATE
+        OR REPLACE FUNCTION GetUsersByVmGuids (v_vm_guids UUID[])
+    RETURNS SETOF users STABLE AS $PROCEDURE$
+
+    BEGIN
+        RETURN QUERY
+
+        SELECT users.*
+        FROM users
+        WHERE EXISTS (
+                SELECT 1
+                FROM permissions
+                WHERE users.user_id = permissions.ad_element_id
+                    AND permissions.object_type_id = 2
+                    AND permissions.object_id = ANY(v_vm_guids)
+                );
+    END;$PROCEDURE$
+
+    LANGUAGE plpgsql;
+
     CREATE OR REPLACE FUNCTION GetUsersByTemplateGuid (v_template_guid UUID)
     RETURNS SETOF users STABLE AS $PROCEDURE$
 
@@ -954,6 +954,22 @@ BEGIN
 END; $procedure$
 LANGUAGE plpgsql;
 
+DROP TYPE IF EXISTS GetDbGenerations_rs CASCADE;
+CREATE TYPE GetDbGenerations_rs AS (
+        vm_guid UUID,
+        db_generation BIGINT
+        );
+
+Create or replace FUNCTION GetDbGenerations(v_vm_guids UUID[])
+RETURNS SETOF GetDbGenerations_rs STABLE
+   AS $procedure$
+BEGIN
+      RETURN QUERY SELECT vm_guid, db_generation
+      FROM vm_static
+      WHERE vm_guid = ANY(v_vm_guids);
+END; $procedure$
+LANGUAGE plpgsql;
+
 
 
 